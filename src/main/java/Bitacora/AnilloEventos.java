@@ -0,0 +1,90 @@
+package Bitacora;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cola circular acotada sin bloqueos con varios productores y un único consumidor.
+ * Cada posición lleva un número de secuencia que indica si está libre para la vuelta
+ * actual o si ya contiene un evento publicado: los productores se reparten posiciones
+ * con un CAS sobre la cola y el consumidor avanza la cabeza sin competir con nadie.
+ */
+class AnilloEventos {
+    private final int capacidad;
+    private final int mascara;
+    private final AtomicReferenceArray<EventoRegistro> eventos;
+    private final AtomicLongArray secuencias;
+    private final AtomicLong cola; // siguiente posición a reservar por los productores
+    private volatile long cabeza; // siguiente posición a consumir; solo la modifica el consumidor
+    
+    AnilloEventos(int capacidad) {
+        if (capacidad <= 0 || Integer.bitCount(capacidad) != 1) {
+            throw new IllegalArgumentException("La capacidad del anillo debe ser una potencia de dos");
+        }
+        this.capacidad = capacidad;
+        this.mascara = capacidad - 1;
+        this.eventos = new AtomicReferenceArray<>(capacidad);
+        this.secuencias = new AtomicLongArray(capacidad);
+        for (int i = 0; i < capacidad; i++) {
+            secuencias.set(i, i);
+        }
+        this.cola = new AtomicLong();
+    }
+    
+    /**
+     * Publica un evento sin bloquear.
+     * @param evento El evento
+     * @return false si el anillo está lleno
+     */
+    boolean publicar(EventoRegistro evento) {
+        long posicion = cola.get();
+        while (true) {
+            int indice = (int) posicion & mascara;
+            long diferencia = secuencias.get(indice) - posicion;
+            if (diferencia == 0) {
+                if (cola.compareAndSet(posicion, posicion + 1)) {
+                    eventos.set(indice, evento);
+                    secuencias.set(indice, posicion + 1);
+                    return true;
+                }
+                posicion = cola.get();
+            } else if (diferencia < 0) {
+                // La posición aún guarda un evento de la vuelta anterior
+                return false;
+            } else {
+                posicion = cola.get();
+            }
+        }
+    }
+    
+    /**
+     * Extrae el siguiente evento. Solo debe llamarlo el consumidor.
+     * @return El evento, o null si no hay ninguno publicado
+     */
+    EventoRegistro extraer() {
+        long posicion = cabeza;
+        int indice = (int) posicion & mascara;
+        if (secuencias.get(indice) != posicion + 1) {
+            return null;
+        }
+        EventoRegistro evento = eventos.get(indice);
+        eventos.set(indice, null);
+        secuencias.set(indice, posicion + capacidad);
+        cabeza = posicion + 1;
+        return evento;
+    }
+    
+    boolean estaVacio() {
+        long posicion = cabeza;
+        return secuencias.get((int) posicion & mascara) != posicion + 1;
+    }
+    
+    /**
+     * Obtiene cuántas posiciones se han reservado desde la creación del anillo.
+     * @return Eventos publicados o en curso de publicación
+     */
+    long getReservados() {
+        return cola.get();
+    }
+}
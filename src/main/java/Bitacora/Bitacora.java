@@ -0,0 +1,174 @@
+package Bitacora;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bitácora asíncrona del sistema.
+ * Los hilos de negocio solo publican el mensaje sin formatear en un anillo sin bloqueos;
+ * un único hilo escritor en segundo plano formatea los mensajes y los entrega al destino
+ * por lotes, así que ninguna operación espera a la consola.
+ * Si el anillo se llena los mensajes se descartan y se cuentan en lugar de frenar al llamador.
+ */
+public final class Bitacora {
+    private static final int CAPACIDAD = 1 << 14;
+    private static final int TAMAÑO_LOTE = 512;
+    private static final long ESPERA_ESCRITOR_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    
+    private static final AnilloEventos anillo = new AnilloEventos(CAPACIDAD);
+    private static final AtomicLong descartados = new AtomicLong();
+    private static final AtomicLong escritos = new AtomicLong();
+    private static volatile NivelRegistro nivelMinimo = NivelRegistro.INFO;
+    private static volatile DestinoRegistro destino = new DestinoConsola();
+    private static volatile boolean escritorEsperando;
+    private static final Thread escritor;
+    
+    static {
+        escritor = new Thread(Bitacora::escribirPendientes, "bitacora-escritor");
+        escritor.setDaemon(true);
+        escritor.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Bitacora::vaciar, "bitacora-cierre"));
+    }
+    
+    private Bitacora() {
+    }
+    
+    /**
+     * Obtiene un registrador con el nombre simple de la clase.
+     * @param clase La clase que registra los mensajes
+     * @return El registrador
+     */
+    public static Registrador obtenerRegistrador(Class<?> clase) {
+        return new Registrador(clase.getSimpleName());
+    }
+    
+    /**
+     * Obtiene un registrador con el nombre indicado.
+     * @param nombre El nombre del componente
+     * @return El registrador
+     */
+    public static Registrador obtenerRegistrador(String nombre) {
+        return new Registrador(nombre);
+    }
+    
+    /**
+     * Verifica si los mensajes de un nivel se registran. Es una sola lectura volátil,
+     * por lo que los niveles desactivados no cuestan nada más.
+     * @param nivel El nivel del mensaje
+     * @return true si el nivel está habilitado
+     */
+    public static boolean estaHabilitado(NivelRegistro nivel) {
+        return nivel.ordinal() >= nivelMinimo.ordinal() && nivel != NivelRegistro.DESACTIVADO;
+    }
+    
+    public static NivelRegistro getNivel() {
+        return nivelMinimo;
+    }
+    
+    /**
+     * Establece el nivel mínimo de los mensajes que se registran.
+     * @param nivel El nivel mínimo, o DESACTIVADO para no registrar nada
+     */
+    public static void setNivel(NivelRegistro nivel) {
+        if (nivel == null) {
+            throw new IllegalArgumentException("El nivel de registro no puede ser nulo");
+        }
+        nivelMinimo = nivel;
+    }
+    
+    public static DestinoRegistro getDestino() {
+        return destino;
+    }
+    
+    /**
+     * Cambia el destino de los mensajes. Los mensajes pendientes se entregan antes al destino anterior.
+     * @param nuevoDestino El nuevo destino
+     */
+    public static void setDestino(DestinoRegistro nuevoDestino) {
+        if (nuevoDestino == null) {
+            throw new IllegalArgumentException("El destino de registro no puede ser nulo");
+        }
+        vaciar();
+        destino = nuevoDestino;
+    }
+    
+    /**
+     * Espera a que el hilo escritor entregue todos los mensajes publicados hasta ahora.
+     */
+    public static void vaciar() {
+        if (Thread.currentThread() == escritor) {
+            return;
+        }
+        long objetivo = anillo.getReservados();
+        while (escritos.get() < objetivo && escritor.isAlive()) {
+            LockSupport.unpark(escritor);
+            LockSupport.parkNanos(50_000);
+        }
+    }
+    
+    /**
+     * Obtiene el número de mensajes descartados porque el anillo estaba lleno.
+     * @return Mensajes descartados
+     */
+    public static long getMensajesDescartados() {
+        return descartados.get();
+    }
+    
+    static void publicar(EventoRegistro evento) {
+        if (!anillo.publicar(evento)) {
+            descartados.incrementAndGet();
+            return;
+        }
+        if (escritorEsperando) {
+            LockSupport.unpark(escritor);
+        }
+    }
+    
+    private static void escribirPendientes() {
+        long descartadosInformados = 0;
+        while (true) {
+            DestinoRegistro actual = destino;
+            int escritosLote = 0;
+            EventoRegistro evento;
+            while (escritosLote < TAMAÑO_LOTE && (evento = anillo.extraer()) != null) {
+                entregar(actual, evento);
+                escritosLote++;
+            }
+            
+            boolean hayAviso = false;
+            long totalDescartados = descartados.get();
+            if (totalDescartados != descartadosInformados) {
+                entregar(actual, new EventoRegistro(NivelRegistro.ADVERTENCIA, "Bitacora",
+                    "Se descartaron {} mensajes por saturación de la bitácora",
+                    new Object[] {totalDescartados - descartadosInformados}, null, null));
+                descartadosInformados = totalDescartados;
+                hayAviso = true;
+            }
+            
+            if (escritosLote > 0 || hayAviso) {
+                try {
+                    actual.vaciar();
+                } catch (RuntimeException e) {
+                    System.err.println("Error al vaciar el destino de la bitácora: " + e.getMessage());
+                }
+                escritos.addAndGet(escritosLote);
+                continue;
+            }
+            
+            escritorEsperando = true;
+            if (anillo.estaVacio()) {
+                LockSupport.parkNanos(ESPERA_ESCRITOR_NANOS);
+            }
+            escritorEsperando = false;
+        }
+    }
+    
+    private static void entregar(DestinoRegistro actual, EventoRegistro evento) {
+        try {
+            actual.escribir(evento);
+        } catch (RuntimeException e) {
+            System.err.println("Error al escribir en el destino de la bitácora: " + e.getMessage());
+        }
+    }
+}
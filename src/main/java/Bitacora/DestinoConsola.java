@@ -0,0 +1,42 @@
+package Bitacora;
+
+import java.io.PrintStream;
+
+/**
+ * Destino que escribe los mensajes en la salida estándar.
+ * Acumula cada lote y lo imprime con una sola llamada, de modo que el bloqueo
+ * de la consola se toma una vez por lote y no una vez por mensaje.
+ */
+public class DestinoConsola implements DestinoRegistro {
+    private final PrintStream salida;
+    private final StringBuilder lote;
+    
+    public DestinoConsola() {
+        this(System.out);
+    }
+    
+    public DestinoConsola(PrintStream salida) {
+        this.salida = salida;
+        this.lote = new StringBuilder(8192);
+    }
+    
+    @Override
+    public void escribir(EventoRegistro evento) {
+        lote.append('[').append(evento.getNivel().getCodigo()).append("] ")
+            .append(evento.getOrigen()).append(" - ")
+            .append(evento.getMensaje());
+        if (evento.getError() != null) {
+            lote.append(": ").append(evento.getError());
+        }
+        lote.append(System.lineSeparator());
+    }
+    
+    @Override
+    public void vaciar() {
+        if (lote.length() > 0) {
+            salida.print(lote);
+            salida.flush();
+            lote.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package Bitacora;
+
+/**
+ * Destino al que el hilo escritor de la bitácora entrega los mensajes.
+ * Solo lo invoca el hilo escritor, por lo que las implementaciones no necesitan sincronizarse.
+ */
+public interface DestinoRegistro {
+
+    /**
+     * Escribe un mensaje. Puede acumularlo hasta la siguiente llamada a vaciar().
+     * @param evento El mensaje a escribir
+     */
+    void escribir(EventoRegistro evento);
+    
+    /**
+     * Vacía lo acumulado. Se invoca al final de cada lote de mensajes.
+     */
+    default void vaciar() {
+    }
+}
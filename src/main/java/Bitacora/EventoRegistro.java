@@ -0,0 +1,92 @@
+package Bitacora;
+
+import java.util.function.Supplier;
+
+/**
+ * Mensaje de la bitácora tal como lo publica el hilo que lo genera.
+ * Guarda la plantilla y sus argumentos sin formatear; el texto final se construye
+ * en el hilo escritor la primera vez que se pide con getMensaje().
+ */
+public class EventoRegistro {
+    private final NivelRegistro nivel;
+    private final String origen;
+    private final String hilo;
+    private final long instante;
+    private final String plantilla;
+    private final Object[] argumentos;
+    private final Supplier<String> proveedor;
+    private final Throwable error;
+    private String mensaje;
+    
+    EventoRegistro(NivelRegistro nivel, String origen, String plantilla, Object[] argumentos,
+                   Supplier<String> proveedor, Throwable error) {
+        this.nivel = nivel;
+        this.origen = origen;
+        this.hilo = Thread.currentThread().getName();
+        this.instante = System.currentTimeMillis();
+        this.plantilla = plantilla;
+        this.argumentos = argumentos;
+        this.proveedor = proveedor;
+        this.error = error;
+    }
+    
+    public NivelRegistro getNivel() {
+        return nivel;
+    }
+    
+    /**
+     * Obtiene el nombre del componente que generó el mensaje.
+     * @return El nombre del registrador
+     */
+    public String getOrigen() {
+        return origen;
+    }
+    
+    public String getHilo() {
+        return hilo;
+    }
+    
+    /**
+     * Obtiene el instante en que se generó el mensaje.
+     * @return Milisegundos desde la época Unix
+     */
+    public long getInstante() {
+        return instante;
+    }
+    
+    public Throwable getError() {
+        return error;
+    }
+    
+    /**
+     * Obtiene el texto del mensaje, sustituyendo cada {} de la plantilla por el siguiente argumento.
+     * @return El mensaje formateado
+     */
+    public String getMensaje() {
+        if (mensaje == null) {
+            mensaje = proveedor != null ? proveedor.get() : formatear(plantilla, argumentos);
+        }
+        return mensaje;
+    }
+    
+    static String formatear(String plantilla, Object[] argumentos) {
+        if (plantilla == null) {
+            return "null";
+        }
+        if (argumentos == null || argumentos.length == 0) {
+            return plantilla;
+        }
+        StringBuilder resultado = new StringBuilder(plantilla.length() + 16 * argumentos.length);
+        int desde = 0;
+        int siguiente = 0;
+        while (siguiente < argumentos.length) {
+            int marcador = plantilla.indexOf("{}", desde);
+            if (marcador < 0) {
+                break;
+            }
+            resultado.append(plantilla, desde, marcador).append(argumentos[siguiente++]);
+            desde = marcador + 2;
+        }
+        return resultado.append(plantilla, desde, plantilla.length()).toString();
+    }
+}
@@ -0,0 +1,35 @@
+package Bitacora;
+
+/**
+ * Enum que define los niveles de severidad de los mensajes de la bitácora.
+ * Un nivel mínimo deja pasar los mensajes de ese nivel y de los superiores.
+ */
+public enum NivelRegistro {
+
+    DEPURACION("DEPURACION", "Detalle interno útil durante el desarrollo"),
+    INFO("INFO", "Operaciones normales del sistema"),
+    ADVERTENCIA("ADVERTENCIA", "Operaciones rechazadas o situaciones anómalas recuperables"),
+    ERROR("ERROR", "Fallos que impiden completar una operación"),
+    DESACTIVADO("DESACTIVADO", "No se registra ningún mensaje");
+    
+    private final String codigo;
+    private final String descripcion;
+    
+    NivelRegistro(String codigo, String descripcion) {
+        this.codigo = codigo;
+        this.descripcion = descripcion;
+    }
+    
+    public String getCodigo() {
+        return codigo;
+    }
+    
+    public String getDescripcion() {
+        return descripcion;
+    }
+    
+    @Override
+    public String toString() {
+        return codigo + ": " + descripcion;
+    }
+}
@@ -0,0 +1,115 @@
+package Bitacora;
+
+import java.util.function.Supplier;
+
+/**
+ * Registrador con nombre que publica mensajes en la bitácora asíncrona.
+ * Los mensajes usan plantillas con {} que se sustituyen en el hilo escritor, así que
+ * el llamador no construye cadenas. Las variantes con uno, dos y tres argumentos
+ * no reservan memoria cuando el nivel está desactivado; con más argumentos conviene
+ * comprobar antes estaHabilitado. Los argumentos se formatean después de la llamada,
+ * por lo que deben ser valores que no cambien (cadenas, números), no objetos mutables.
+ */
+public class Registrador {
+    private final String nombre;
+    
+    Registrador(String nombre) {
+        this.nombre = nombre;
+    }
+    
+    public String getNombre() {
+        return nombre;
+    }
+    
+    public boolean estaHabilitado(NivelRegistro nivel) {
+        return Bitacora.estaHabilitado(nivel);
+    }
+    
+    public void depuracion(String mensaje) {
+        if (Bitacora.estaHabilitado(NivelRegistro.DEPURACION)) {
+            publicar(NivelRegistro.DEPURACION, mensaje, null, null);
+        }
+    }
+    
+    public void depuracion(String plantilla, Object argumento) {
+        if (Bitacora.estaHabilitado(NivelRegistro.DEPURACION)) {
+            publicar(NivelRegistro.DEPURACION, plantilla, new Object[] {argumento}, null);
+        }
+    }
+    
+    public void depuracion(Supplier<String> proveedor) {
+        if (Bitacora.estaHabilitado(NivelRegistro.DEPURACION)) {
+            Bitacora.publicar(new EventoRegistro(NivelRegistro.DEPURACION, nombre, null, null, proveedor, null));
+        }
+    }
+    
+    public void info(String mensaje) {
+        if (Bitacora.estaHabilitado(NivelRegistro.INFO)) {
+            publicar(NivelRegistro.INFO, mensaje, null, null);
+        }
+    }
+    
+    public void info(String plantilla, Object argumento) {
+        if (Bitacora.estaHabilitado(NivelRegistro.INFO)) {
+            publicar(NivelRegistro.INFO, plantilla, new Object[] {argumento}, null);
+        }
+    }
+    
+    public void info(String plantilla, Object argumento1, Object argumento2) {
+        if (Bitacora.estaHabilitado(NivelRegistro.INFO)) {
+            publicar(NivelRegistro.INFO, plantilla, new Object[] {argumento1, argumento2}, null);
+        }
+    }
+    
+    public void info(String plantilla, Object argumento1, Object argumento2, Object argumento3) {
+        if (Bitacora.estaHabilitado(NivelRegistro.INFO)) {
+            publicar(NivelRegistro.INFO, plantilla, new Object[] {argumento1, argumento2, argumento3}, null);
+        }
+    }
+    
+    public void info(String plantilla, Object... argumentos) {
+        if (Bitacora.estaHabilitado(NivelRegistro.INFO)) {
+            publicar(NivelRegistro.INFO, plantilla, argumentos, null);
+        }
+    }
+    
+    public void advertencia(String mensaje) {
+        if (Bitacora.estaHabilitado(NivelRegistro.ADVERTENCIA)) {
+            publicar(NivelRegistro.ADVERTENCIA, mensaje, null, null);
+        }
+    }
+    
+    public void advertencia(String plantilla, Object argumento) {
+        if (Bitacora.estaHabilitado(NivelRegistro.ADVERTENCIA)) {
+            publicar(NivelRegistro.ADVERTENCIA, plantilla, new Object[] {argumento}, null);
+        }
+    }
+    
+    public void advertencia(String plantilla, Object argumento1, Object argumento2) {
+        if (Bitacora.estaHabilitado(NivelRegistro.ADVERTENCIA)) {
+            publicar(NivelRegistro.ADVERTENCIA, plantilla, new Object[] {argumento1, argumento2}, null);
+        }
+    }
+    
+    public void error(String mensaje) {
+        if (Bitacora.estaHabilitado(NivelRegistro.ERROR)) {
+            publicar(NivelRegistro.ERROR, mensaje, null, null);
+        }
+    }
+    
+    public void error(String plantilla, Object argumento) {
+        if (Bitacora.estaHabilitado(NivelRegistro.ERROR)) {
+            publicar(NivelRegistro.ERROR, plantilla, new Object[] {argumento}, null);
+        }
+    }
+    
+    public void error(String mensaje, Throwable error) {
+        if (Bitacora.estaHabilitado(NivelRegistro.ERROR)) {
+            publicar(NivelRegistro.ERROR, mensaje, null, error);
+        }
+    }
+    
+    private void publicar(NivelRegistro nivel, String plantilla, Object[] argumentos, Throwable error) {
+        Bitacora.publicar(new EventoRegistro(nivel, nombre, plantilla, argumentos, null, error));
+    }
+}
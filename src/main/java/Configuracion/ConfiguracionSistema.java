@@ -1,9 +1,10 @@
 package Configuracion;
 
 public class ConfiguracionSistema {
-    private static ConfiguracionSistema instancia;
+    private static final ConfiguracionSistema instancia = new ConfiguracionSistema();
     private String databaseUrl;
-    private String cdnURL;
+    // Volátil porque la fábrica la lee desde los hilos de importación
+    private volatile String cdnURL;
     private ApplicationTheme theme;
 
     // Constructor privado para evitar instanciación externa
@@ -11,9 +12,6 @@ public class ConfiguracionSistema {
 
     // Método estático para obtener la instancia única (Singleton)
     public static ConfiguracionSistema getInstancia() {
-        if (instancia == null) {
-            instancia = new ConfiguracionSistema();
-        }
         return instancia;
     }
 
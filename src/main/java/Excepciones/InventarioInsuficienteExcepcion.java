@@ -1,5 +1,7 @@
 package Excepciones;
 
+import java.util.List;
+
 /**
  * Excepción personalizada para manejar errores de inventario insuficiente.
  * Se lanza cuando se intenta realizar una operación que requiere más stock
@@ -9,6 +11,7 @@ public class InventarioInsuficienteExcepcion extends Exception {
     private String idProducto;
     private Integer stockDisponible;
     private Integer stockRequerido;
+    private String[] idsProductos; // arreglo y no List para que la excepción siga siendo serializable
     
     /**
      * Constructor básico con mensaje de error.
@@ -42,6 +45,16 @@ public class InventarioInsuficienteExcepcion extends Exception {
         this.stockRequerido = stockRequerido;
     }
     
+    /**
+     * Constructor para operaciones en lote que afectan a varios productos.
+     * @param mensaje Mensaje descriptivo del error
+     * @param idsProductos IDs de los productos que provocaron el error
+     */
+    public InventarioInsuficienteExcepcion(String mensaje, List<String> idsProductos) {
+        super(mensaje);
+        this.idsProductos = idsProductos.toArray(new String[0]);
+    }
+    
     /**
      * Obtiene el ID del producto con stock insuficiente.
      * @return ID del producto
@@ -66,6 +79,14 @@ public class InventarioInsuficienteExcepcion extends Exception {
         return stockRequerido;
     }
     
+    /**
+     * Obtiene los IDs de los productos afectados en una operación en lote.
+     * @return Lista de IDs, vacía si el error no proviene de un lote
+     */
+    public List<String> getIdsProductos() {
+        return idsProductos != null ? List.of(idsProductos) : List.of();
+    }
+    
     /**
      * Obtiene un mensaje detallado del error incluyendo los valores específicos.
      * @return Mensaje detallado del error
@@ -76,6 +97,9 @@ public class InventarioInsuficienteExcepcion extends Exception {
             return String.format("%s - Producto: %s, Stock disponible: %d, Stock requerido: %d", 
                                super.getMessage(), idProducto, stockDisponible, stockRequerido);
         }
+        if (idsProductos != null && idsProductos.length > 0) {
+            return String.format("%s - Productos: %s", super.getMessage(), String.join(", ", idsProductos));
+        }
         return super.getMessage();
     }
 }
@@ -1,5 +1,6 @@
 package Factory;
 
+import Configuracion.ConfiguracionSistema;
 import Modelos.Producto.ProductoInterface;
 import Modelos.Usuario.UsuarioInterface;
 import Modelos.Producto.ProductoDigital;
@@ -7,10 +8,37 @@ import Modelos.Producto.ProductoFisico;
 import Modelos.Usuario.UsuarioCliente;
 import Modelos.Usuario.UsuarioAdministrador;
 
+/**
+ * Fábrica de productos y usuarios.
+ * Solo se internan los formatos y el prefijo del CDN, que se repiten en casi todo el catálogo;
+ * los nombres suelen ser únicos e internarlos solo añadiría entradas al pool. Las URLs que
+ * empiezan por la URL del CDN configurada guardan aparte solo el resto, compartiendo el prefijo.
+ */
 public class FabricaEntidades implements FabricaEntidadesInterface {
+    private final PoolCadenas pool;
+
+    /**
+     * Crea una fábrica con su propio pool de internamiento.
+     */
+    public FabricaEntidades() {
+        this(new PoolCadenas());
+    }
+
+    /**
+     * @param pool Pool de internamiento para los formatos y el prefijo del CDN, que puede compartirse entre fábricas
+     */
+    public FabricaEntidades(PoolCadenas pool) {
+        this.pool = pool;
+    }
+
     @Override
     public ProductoInterface crearProducto(String id, String nombre, Double precio, Integer cantidad, String formato, String url) {
-        return new ProductoDigital(id, nombre, precio, cantidad, formato, url);
+        String cdn = ConfiguracionSistema.getInstancia().getCdnURL();
+        if (url != null && cdn != null && !cdn.isEmpty() && url.startsWith(cdn)) {
+            return new ProductoDigital(id, nombre, precio, cantidad, pool.internar(formato),
+                                       pool.internar(cdn), url.substring(cdn.length()));
+        }
+        return new ProductoDigital(id, nombre, precio, cantidad, pool.internar(formato), url);
     }
 
     @Override
@@ -25,4 +53,8 @@ public class FabricaEntidades implements FabricaEntidadesInterface {
     public UsuarioInterface crearAdministrador(String id, String nombre, String email, String password) {
         return new UsuarioAdministrador(id, nombre, email, password);
     }
+
+    public PoolCadenas getPoolCadenas() {
+        return pool;
+    }
 }
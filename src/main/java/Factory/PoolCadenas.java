@@ -0,0 +1,115 @@
+package Factory;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de internamiento de cadenas con referencias débiles.
+ * Devuelve siempre la misma instancia para cadenas iguales, de modo que los atributos repetidos
+ * del catálogo ("PDF", el prefijo del CDN) se guardan una sola vez. A diferencia
+ * de String.intern, las cadenas que ya nadie usa se liberan con la recolección de basura.
+ * El pool se reparte en segmentos con su propio bloqueo para que varios hilos puedan internar a la vez.
+ */
+public class PoolCadenas {
+    private static final int SEGMENTOS = 16;
+    
+    // Tamaño aproximado de un String: cabecera y campos (24 bytes) más el arreglo de bytes (16 de cabecera)
+    private static final int BYTES_CABECERA_CADENA = 40;
+    
+    private final Segmento[] segmentos;
+    private final LongAdder consultas = new LongAdder();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder bytesAhorrados = new LongAdder();
+    
+    public PoolCadenas() {
+        this.segmentos = new Segmento[SEGMENTOS];
+        for (int i = 0; i < SEGMENTOS; i++) {
+            segmentos[i] = new Segmento();
+        }
+    }
+    
+    /**
+     * Obtiene la instancia compartida de una cadena, registrándola si es la primera vez que se ve.
+     * @param cadena La cadena
+     * @return La instancia compartida igual a la cadena, o null si la cadena es null
+     */
+    public String internar(String cadena) {
+        if (cadena == null) {
+            return null;
+        }
+        consultas.increment();
+        int hash = cadena.hashCode();
+        Segmento segmento = segmentos[(hash ^ (hash >>> 16)) & (SEGMENTOS - 1)];
+        synchronized (segmento) {
+            WeakReference<String> referencia = segmento.cadenas.get(cadena);
+            String compartida = referencia != null ? referencia.get() : null;
+            if (compartida != null) {
+                aciertos.increment();
+                bytesAhorrados.add(tamañoEstimado(compartida));
+                return compartida;
+            }
+            // El valor no puede retener la clave con una referencia fuerte o nunca se liberaría
+            segmento.cadenas.put(cadena, new WeakReference<>(cadena));
+            return cadena;
+        }
+    }
+    
+    /**
+     * Estima el tamaño en el heap de una cadena suponiendo un byte por carácter (compact strings).
+     */
+    private static long tamañoEstimado(String cadena) {
+        return BYTES_CABECERA_CADENA + ((cadena.length() + 7L) & ~7L);
+    }
+    
+    public long getConsultas() {
+        return consultas.sum();
+    }
+    
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+    
+    /**
+     * Obtiene una estimación de los bytes que ocuparían las copias que el pool evitó crear.
+     * Es una cota superior del ahorro: no descuenta las copias que el llamador ya tuviera.
+     */
+    public long getBytesAhorrados() {
+        return bytesAhorrados.sum();
+    }
+    
+    /**
+     * Obtiene el número de cadenas distintas que siguen vivas en el pool.
+     */
+    public int getCadenasUnicas() {
+        int total = 0;
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                total += segmento.cadenas.size();
+            }
+        }
+        return total;
+    }
+    
+    public double getTasaAciertos() {
+        long total = getConsultas();
+        return total == 0 ? 0.0 : (double) getAciertos() / total;
+    }
+    
+    /**
+     * Obtiene un resumen de las estadísticas del pool.
+     * @return String con las estadísticas
+     */
+    public String obtenerEstadisticas() {
+        return String.format("Pool de cadenas - Consultas: %d - Aciertos: %d - Tasa: %.1f%% - Cadenas únicas: %d - Ahorro estimado: %d KB",
+                             getConsultas(), getAciertos(), getTasaAciertos() * 100, getCadenasUnicas(), getBytesAhorrados() / 1024);
+    }
+    
+    /**
+     * Parte del pool con su propio bloqueo.
+     */
+    private static class Segmento {
+        private final Map<String, WeakReference<String>> cadenas = new WeakHashMap<>();
+    }
+}
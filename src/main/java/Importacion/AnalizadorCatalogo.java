@@ -0,0 +1,338 @@
+package Importacion;
+
+import Factory.FabricaEntidadesInterface;
+import Modelos.Producto.ProductoInterface;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Analiza las líneas de un segmento del catálogo directamente sobre sus bytes.
+ * Los campos se localizan por posiciones y los números se convierten sin crear cadenas;
+ * solo se crean String para los textos que guarda el producto, y los valores repetidos
+ * de formato se reutilizan dentro del segmento.
+ * Cada instancia analiza un único segmento y no es segura para hilos.
+ */
+class AnalizadorCatalogo {
+    private static final int MAXIMO_CAMPOS = 9;
+    private static final int CAMPOS_DIGITAL = 7;
+    private static final int CAMPOS_FISICO = 9;
+    private static final int MAXIMO_TEXTOS_REPETIDOS = 16;
+    private static final byte[] TIPO_DIGITAL = "digital".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TIPO_FISICO = "fisico".getBytes(StandardCharsets.US_ASCII);
+    // Potencias de diez exactas en double
+    private static final double[] POTENCIAS_DIEZ = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    
+    private final FabricaEntidadesInterface fabrica;
+    private final byte separador;
+    private final int[] inicios = new int[MAXIMO_CAMPOS];
+    private final int[] finales = new int[MAXIMO_CAMPOS];
+    private final boolean[] comillasEscapadas = new boolean[MAXIMO_CAMPOS];
+    private final byte[][] bytesRepetidos = new byte[MAXIMO_TEXTOS_REPETIDOS][];
+    private final String[] textosRepetidos = new String[MAXIMO_TEXTOS_REPETIDOS];
+    private int numeroRepetidos;
+    private byte[] datos;
+    
+    AnalizadorCatalogo(FabricaEntidadesInterface fabrica, char separador) {
+        this.fabrica = fabrica;
+        this.separador = (byte) separador;
+    }
+    
+    /**
+     * Analiza las líneas completas de un tramo del buffer.
+     * @param buffer Buffer con el contenido del archivo
+     * @param inicio Posición de la primera línea
+     * @param fin Posición siguiente al último salto de línea del tramo
+     * @return Los productos válidos y los errores de las demás líneas
+     */
+    SegmentoAnalizado analizar(ByteBuffer buffer, int inicio, int fin) {
+        int longitud = fin - inicio;
+        datos = new byte[longitud];
+        buffer.get(inicio, datos, 0, longitud);
+        
+        SegmentoAnalizado segmento = new SegmentoAnalizado();
+        int linea = 0;
+        int i = 0;
+        while (i < longitud) {
+            int finLinea = i;
+            while (finLinea < longitud && datos[finLinea] != '\n') {
+                finLinea++;
+            }
+            linea++;
+            int finContenido = finLinea > i && datos[finLinea - 1] == '\r' ? finLinea - 1 : finLinea;
+            if (finContenido > i) {
+                analizarLinea(i, finContenido, linea, segmento);
+            }
+            i = finLinea + 1;
+        }
+        segmento.setLineas(linea);
+        return segmento;
+    }
+    
+    private void analizarLinea(int inicio, int fin, int linea, SegmentoAnalizado segmento) {
+        int campos = separarCampos(inicio, fin);
+        if (campos < 0) {
+            segmento.agregarError(linea, "Comillas sin cerrar o texto después de las comillas de cierre");
+            return;
+        }
+        try {
+            if (campoEs(0, TIPO_DIGITAL)) {
+                segmento.agregarProducto(crearDigital(campos), linea);
+            } else if (campoEs(0, TIPO_FISICO)) {
+                segmento.agregarProducto(crearFisico(campos), linea);
+            } else {
+                segmento.agregarError(linea, "Tipo de producto desconocido: " + texto(0));
+            }
+        } catch (IllegalArgumentException e) {
+            segmento.agregarError(linea, e.getMessage());
+        }
+    }
+    
+    private ProductoInterface crearDigital(int campos) {
+        if (campos != CAMPOS_DIGITAL) {
+            throw new IllegalArgumentException(
+                "Un producto digital necesita " + CAMPOS_DIGITAL + " campos y la línea tiene " + descripcionCampos(campos));
+        }
+        String id = textoObligatorio(1, "ID");
+        String nombre = textoObligatorio(2, "nombre");
+        double precio = decimalNoNegativo(3, "precio");
+        int cantidad = enteroNoNegativo(4, "cantidad");
+        if (finales[5] == inicios[5]) {
+            throw new IllegalArgumentException("El campo formato no puede estar vacío");
+        }
+        String formato = textoRepetido(5);
+        String url = textoObligatorio(6, "URL");
+        return fabrica.crearProducto(id, nombre, precio, cantidad, formato, url);
+    }
+    
+    private ProductoInterface crearFisico(int campos) {
+        if (campos != CAMPOS_FISICO) {
+            throw new IllegalArgumentException(
+                "Un producto físico necesita " + CAMPOS_FISICO + " campos y la línea tiene " + descripcionCampos(campos));
+        }
+        String id = textoObligatorio(1, "ID");
+        String nombre = textoObligatorio(2, "nombre");
+        double precio = decimalNoNegativo(3, "precio");
+        int cantidad = enteroNoNegativo(4, "cantidad");
+        double peso = decimalNoNegativo(5, "peso");
+        double altura = decimalNoNegativo(6, "altura");
+        double ancho = decimalNoNegativo(7, "ancho");
+        double profundidad = decimalNoNegativo(8, "profundidad");
+        return fabrica.crearProducto(id, nombre, precio, cantidad, peso, altura, ancho, profundidad);
+    }
+    
+    private static String descripcionCampos(int campos) {
+        return campos > MAXIMO_CAMPOS ? "más de " + MAXIMO_CAMPOS : String.valueOf(campos);
+    }
+    
+    /**
+     * Localiza los campos de una línea.
+     * @return El número de campos, MAXIMO_CAMPOS + 1 si hay más de los admitidos,
+     *         o -1 si las comillas están mal formadas
+     */
+    private int separarCampos(int inicio, int fin) {
+        int campo = 0;
+        int i = inicio;
+        while (true) {
+            if (campo == MAXIMO_CAMPOS) {
+                return MAXIMO_CAMPOS + 1;
+            }
+            if (i < fin && datos[i] == '"') {
+                boolean escapadas = false;
+                int j = i + 1;
+                while (true) {
+                    if (j >= fin) {
+                        return -1;
+                    }
+                    if (datos[j] == '"') {
+                        if (j + 1 < fin && datos[j + 1] == '"') {
+                            escapadas = true;
+                            j += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    j++;
+                }
+                inicios[campo] = i + 1;
+                finales[campo] = j;
+                comillasEscapadas[campo] = escapadas;
+                i = j + 1;
+                if (i < fin && datos[i] != separador) {
+                    return -1;
+                }
+            } else {
+                int j = i;
+                while (j < fin && datos[j] != separador) {
+                    j++;
+                }
+                inicios[campo] = i;
+                finales[campo] = j;
+                comillasEscapadas[campo] = false;
+                i = j;
+            }
+            campo++;
+            if (i >= fin) {
+                return campo;
+            }
+            i++;
+        }
+    }
+    
+    /**
+     * Compara un campo con una palabra ASCII en minúsculas sin distinguir mayúsculas.
+     */
+    private boolean campoEs(int campo, byte[] palabra) {
+        int inicio = inicios[campo];
+        if (finales[campo] - inicio != palabra.length) {
+            return false;
+        }
+        for (int k = 0; k < palabra.length; k++) {
+            if ((datos[inicio + k] | 0x20) != palabra[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private String texto(int campo) {
+        int inicio = inicios[campo];
+        int fin = finales[campo];
+        if (!comillasEscapadas[campo]) {
+            return new String(datos, inicio, fin - inicio, StandardCharsets.UTF_8);
+        }
+        // Las comillas duplicadas representan una sola
+        byte[] copia = new byte[fin - inicio];
+        int longitud = 0;
+        for (int k = inicio; k < fin; k++) {
+            copia[longitud++] = datos[k];
+            if (datos[k] == '"') {
+                k++;
+            }
+        }
+        return new String(copia, 0, longitud, StandardCharsets.UTF_8);
+    }
+    
+    private String textoObligatorio(int campo, String nombreCampo) {
+        if (finales[campo] == inicios[campo]) {
+            throw new IllegalArgumentException("El campo " + nombreCampo + " no puede estar vacío");
+        }
+        return texto(campo);
+    }
+    
+    /**
+     * Obtiene el texto de un campo con pocos valores distintos reutilizando las cadenas ya creadas.
+     */
+    private String textoRepetido(int campo) {
+        if (comillasEscapadas[campo]) {
+            return texto(campo);
+        }
+        int inicio = inicios[campo];
+        int fin = finales[campo];
+        for (int k = 0; k < numeroRepetidos; k++) {
+            byte[] bytes = bytesRepetidos[k];
+            if (Arrays.equals(datos, inicio, fin, bytes, 0, bytes.length)) {
+                return textosRepetidos[k];
+            }
+        }
+        String valor = texto(campo);
+        if (numeroRepetidos < MAXIMO_TEXTOS_REPETIDOS) {
+            bytesRepetidos[numeroRepetidos] = Arrays.copyOfRange(datos, inicio, fin);
+            textosRepetidos[numeroRepetidos++] = valor;
+        }
+        return valor;
+    }
+    
+    private double decimalNoNegativo(int campo, String nombreCampo) {
+        double valor = decimal(inicios[campo], finales[campo]);
+        if (Double.isNaN(valor)) {
+            throw new IllegalArgumentException("Valor no válido para " + nombreCampo + ": " + texto(campo));
+        }
+        if (valor < 0) {
+            throw new IllegalArgumentException("El valor de " + nombreCampo + " no puede ser negativo: " + texto(campo));
+        }
+        return valor;
+    }
+    
+    private int enteroNoNegativo(int campo, String nombreCampo) {
+        int inicio = inicios[campo];
+        int fin = finales[campo];
+        long valor = 0;
+        int k = inicio;
+        if (k < fin && datos[k] == '+') {
+            k++;
+        }
+        if (k == fin || fin - k > 10) {
+            throw new IllegalArgumentException("Valor no válido para " + nombreCampo + ": " + texto(campo));
+        }
+        for (; k < fin; k++) {
+            int digito = datos[k] - '0';
+            if (digito < 0 || digito > 9) {
+                throw new IllegalArgumentException("Valor no válido para " + nombreCampo + ": " + texto(campo));
+            }
+            valor = valor * 10 + digito;
+        }
+        if (valor > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Valor demasiado grande para " + nombreCampo + ": " + texto(campo));
+        }
+        return (int) valor;
+    }
+    
+    /**
+     * Convierte un número decimal escrito con punto.
+     * Con hasta 15 cifras significativas y 22 decimales el cociente entre la mantisa y la potencia
+     * de diez es exacto en ambos operandos y la división redondea igual que Double.parseDouble;
+     * los demás casos (exponentes, más cifras) se delegan en Double.parseDouble.
+     * @return El valor, o NaN si el texto no es un número finito
+     */
+    private double decimal(int inicio, int fin) {
+        int k = inicio;
+        boolean negativo = false;
+        if (k < fin && (datos[k] == '-' || datos[k] == '+')) {
+            negativo = datos[k] == '-';
+            k++;
+        }
+        long mantisa = 0;
+        int cifras = 0;
+        int decimales = 0;
+        boolean hayDigitos = false;
+        boolean hayPunto = false;
+        for (; k < fin; k++) {
+            byte b = datos[k];
+            if (b >= '0' && b <= '9') {
+                hayDigitos = true;
+                mantisa = mantisa * 10 + (b - '0');
+                if (mantisa != 0 && ++cifras > 15) {
+                    return decimalLento(inicio, fin);
+                }
+                if (hayPunto) {
+                    decimales++;
+                }
+            } else if (b == '.' && !hayPunto) {
+                hayPunto = true;
+            } else {
+                return decimalLento(inicio, fin);
+            }
+        }
+        if (!hayDigitos) {
+            return Double.NaN;
+        }
+        if (decimales >= POTENCIAS_DIEZ.length) {
+            return decimalLento(inicio, fin);
+        }
+        double valor = mantisa / POTENCIAS_DIEZ[decimales];
+        return negativo ? -valor : valor;
+    }
+    
+    private double decimalLento(int inicio, int fin) {
+        try {
+            double valor = Double.parseDouble(new String(datos, inicio, fin - inicio, StandardCharsets.ISO_8859_1));
+            return Double.isFinite(valor) ? valor : Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package Importacion;
+
+/**
+ * Error de una fila del catálogo que no pudo importarse.
+ */
+public class ErrorImportacion {
+    private final long linea;
+    private final String mensaje;
+    
+    public ErrorImportacion(long linea, String mensaje) {
+        this.linea = linea;
+        this.mensaje = mensaje;
+    }
+    
+    /**
+     * Obtiene el número de línea del archivo, empezando en 1.
+     * @return El número de línea
+     */
+    public long getLinea() {
+        return linea;
+    }
+    
+    public String getMensaje() {
+        return mensaje;
+    }
+    
+    @Override
+    public String toString() {
+        return "Línea " + linea + ": " + mensaje;
+    }
+}
@@ -0,0 +1,214 @@
+package Importacion;
+
+import Bitacora.Bitacora;
+import Bitacora.Registrador;
+import Factory.FabricaEntidades;
+import Factory.FabricaEntidadesInterface;
+import Repositorios.ProductoRepositoryInterface;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Importador masivo de catálogos de productos desde archivos CSV o TSV.
+ * El archivo se mapea en memoria por ventanas y cada ventana se reparte en segmentos
+ * que terminan en un salto de línea; los segmentos se analizan en paralelo, uno por núcleo,
+ * y sus productos se entregan al repositorio como lotes en el orden del archivo.
+ * Una fila errónea se registra con su número de línea y no interrumpe la importación.
+ * <p>
+ * Cada línea describe un producto según su tipo:
+ * <pre>
+ * DIGITAL,id,nombre,precio,cantidad,formato,url
+ * FISICO,id,nombre,precio,cantidad,peso,altura,ancho,profundidad
+ * </pre>
+ * Los campos pueden ir entre comillas dobles (duplicadas para incluirlas en el texto), pero no
+ * pueden contener saltos de línea. Una primera línea que empiece por "tipo" se trata como
+ * encabezado, y las líneas vacías se ignoran.
+ */
+public class ImportadorCatalogo {
+    private static final Registrador REGISTRO = Bitacora.obtenerRegistrador(ImportadorCatalogo.class);
+    private static final long TAMAÑO_VENTANA = 64L << 20;
+    private static final int TAMAÑO_SEGMENTO = 1 << 20;
+    private static final AtomicInteger IMPORTACIONES = new AtomicInteger();
+    
+    private final ProductoRepositoryInterface repositorio;
+    private final FabricaEntidadesInterface fabrica;
+    private final int hilos;
+    
+    public ImportadorCatalogo(ProductoRepositoryInterface repositorio) {
+        this(repositorio, new FabricaEntidades(), Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * @param repositorio Repositorio que recibe los productos
+     * @param fabrica Fábrica con la que se crean los productos
+     * @param hilos Número de hilos que analizan el archivo
+     */
+    public ImportadorCatalogo(ProductoRepositoryInterface repositorio, FabricaEntidadesInterface fabrica, int hilos) {
+        if (repositorio == null || fabrica == null) {
+            throw new IllegalArgumentException("El repositorio y la fábrica no pueden ser nulos");
+        }
+        if (hilos <= 0) {
+            throw new IllegalArgumentException("El número de hilos debe ser mayor que cero");
+        }
+        this.repositorio = repositorio;
+        this.fabrica = fabrica;
+        this.hilos = hilos;
+    }
+    
+    /**
+     * Importa un catálogo deduciendo el separador de la extensión: tabulador para .tsv y coma en otro caso.
+     * @param archivo Ruta del catálogo
+     * @return Resumen de la importación
+     * @throws IOException Si el archivo no puede leerse
+     */
+    public ResultadoImportacion importar(Path archivo) throws IOException {
+        String nombre = archivo.getFileName().toString().toLowerCase(Locale.ROOT);
+        return importar(archivo, nombre.endsWith(".tsv") ? '\t' : ',');
+    }
+    
+    /**
+     * Importa un catálogo con el separador indicado.
+     * @param archivo Ruta del catálogo
+     * @param separador Separador de campos
+     * @return Resumen de la importación
+     * @throws IOException Si el archivo no puede leerse o tiene una línea mayor que 64 MB
+     */
+    public ResultadoImportacion importar(Path archivo, char separador) throws IOException {
+        if (separador == '"' || separador == '\n' || separador == '\r' || separador > 0x7F) {
+            throw new IllegalArgumentException("El separador debe ser un carácter ASCII distinto de comillas y saltos de línea");
+        }
+        long inicioImportacion = System.nanoTime();
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        String nombreHilos = "importacion-catalogo-" + IMPORTACIONES.incrementAndGet() + "-";
+        AtomicInteger numeroHilo = new AtomicInteger();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, nombreHilos + numeroHilo.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // Se limita el número de segmentos analizados por adelantado para acotar la memoria
+        ArrayDeque<Future<SegmentoAnalizado>> pendientes = new ArrayDeque<>();
+        int maximoPendientes = hilos * 2;
+        
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamaño = canal.size();
+            long posicion = 0;
+            while (posicion < tamaño) {
+                long longitud = Math.min(TAMAÑO_VENTANA, tamaño - posicion);
+                MappedByteBuffer ventana = canal.map(FileChannel.MapMode.READ_ONLY, posicion, longitud);
+                int fin = (int) longitud;
+                if (posicion + longitud < tamaño) {
+                    fin = ultimoSaltoLinea(ventana, fin) + 1;
+                    if (fin == 0) {
+                        throw new IOException("La línea que empieza en el byte " + posicion
+                                              + " supera el tamaño máximo de " + TAMAÑO_VENTANA + " bytes");
+                    }
+                }
+                int inicio = 0;
+                if (posicion == 0 && esEncabezado(ventana, fin, separador)) {
+                    inicio = siguienteSaltoLinea(ventana, 0, fin) + 1;
+                    resultado.registrarLineas(1);
+                }
+                while (inicio < fin) {
+                    int finSegmento = siguienteSaltoLinea(ventana, Math.min(inicio + TAMAÑO_SEGMENTO, fin) - 1, fin) + 1;
+                    int inicioSegmento = inicio;
+                    pendientes.add(ejecutor.submit(() -> new AnalizadorCatalogo(fabrica, separador)
+                        .analizar(ventana, inicioSegmento, finSegmento)));
+                    if (pendientes.size() >= maximoPendientes) {
+                        entregar(esperar(pendientes.poll()), resultado);
+                    }
+                    inicio = finSegmento;
+                }
+                posicion += fin;
+            }
+            while (!pendientes.isEmpty()) {
+                entregar(esperar(pendientes.poll()), resultado);
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        
+        resultado.setDuracionMs((System.nanoTime() - inicioImportacion) / 1_000_000);
+        REGISTRO.info("Catálogo {} importado: {}", archivo.getFileName(), resultado);
+        return resultado;
+    }
+    
+    /**
+     * Entrega al repositorio los productos de un segmento y registra sus errores con la línea del archivo.
+     */
+    private void entregar(SegmentoAnalizado segmento, ResultadoImportacion resultado) {
+        long lineaBase = resultado.getLineasLeidas();
+        for (int i = 0; i < segmento.getErrores().size(); i++) {
+            ErrorImportacion error = segmento.getErrores().get(i);
+            resultado.registrarError(lineaBase + error.getLinea(), error.getMensaje());
+        }
+        if (!segmento.getProductos().isEmpty()) {
+            List<Integer> rechazados = repositorio.agregarProductos(segmento.getProductos());
+            for (int i = 0; i < rechazados.size(); i++) {
+                int posicion = rechazados.get(i);
+                resultado.registrarError(lineaBase + segmento.getLineaProducto(posicion),
+                                         "Ya existe un producto con ID: " + segmento.getProductos().get(posicion).getId());
+            }
+            resultado.registrarImportados(segmento.getProductos().size() - rechazados.size());
+        }
+        resultado.registrarLineas(segmento.getLineas());
+    }
+    
+    private static SegmentoAnalizado esperar(Future<SegmentoAnalizado> segmento) throws IOException {
+        try {
+            return segmento.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Importación de catálogo interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IOException("Error al analizar el catálogo", e.getCause());
+        }
+    }
+    
+    private static boolean esEncabezado(MappedByteBuffer ventana, int fin, char separador) {
+        String prefijo = "tipo";
+        if (fin <= prefijo.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefijo.length(); i++) {
+            if (Character.toLowerCase((char) ventana.get(i)) != prefijo.charAt(i)) {
+                return false;
+            }
+        }
+        return ventana.get(prefijo.length()) == separador;
+    }
+    
+    private static int ultimoSaltoLinea(MappedByteBuffer ventana, int fin) {
+        int i = fin - 1;
+        while (i >= 0 && ventana.get(i) != '\n') {
+            i--;
+        }
+        return i;
+    }
+    
+    /**
+     * Busca el siguiente salto de línea desde una posición; si no hay, devuelve la última posición del tramo.
+     */
+    private static int siguienteSaltoLinea(MappedByteBuffer ventana, int desde, int fin) {
+        int i = desde;
+        while (i < fin - 1 && ventana.get(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+}
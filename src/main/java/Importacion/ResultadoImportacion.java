@@ -0,0 +1,77 @@
+package Importacion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resumen de una importación de catálogo.
+ * Cuenta todas las filas con error, pero solo guarda el detalle de las primeras
+ * para que un archivo con muchas filas erróneas no agote la memoria.
+ */
+public class ResultadoImportacion {
+    static final int MAXIMO_ERRORES_GUARDADOS = 1000;
+    
+    private long lineasLeidas;
+    private long productosImportados;
+    private long filasConError;
+    private long duracionMs;
+    private final List<ErrorImportacion> errores = new ArrayList<>();
+    
+    void registrarLineas(long lineas) {
+        lineasLeidas += lineas;
+    }
+    
+    void registrarImportados(long productos) {
+        productosImportados += productos;
+    }
+    
+    void registrarError(long linea, String mensaje) {
+        filasConError++;
+        if (errores.size() < MAXIMO_ERRORES_GUARDADOS) {
+            errores.add(new ErrorImportacion(linea, mensaje));
+        }
+    }
+    
+    void setDuracionMs(long duracionMs) {
+        this.duracionMs = duracionMs;
+    }
+    
+    /**
+     * Obtiene el número de líneas leídas, incluidos el encabezado y las líneas vacías.
+     * @return Las líneas leídas
+     */
+    public long getLineasLeidas() {
+        return lineasLeidas;
+    }
+    
+    public long getProductosImportados() {
+        return productosImportados;
+    }
+    
+    public long getFilasConError() {
+        return filasConError;
+    }
+    
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+    
+    /**
+     * Obtiene el detalle de los errores, como mucho de los primeros 1000.
+     * @return Lista no modificable de errores
+     */
+    public List<ErrorImportacion> getErrores() {
+        return Collections.unmodifiableList(errores);
+    }
+    
+    public boolean tieneErrores() {
+        return filasConError > 0;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Importación de catálogo - Líneas: %d - Productos: %d - Errores: %d - Duración: %d ms",
+                             lineasLeidas, productosImportados, filasConError, duracionMs);
+    }
+}
@@ -0,0 +1,53 @@
+package Importacion;
+
+import Modelos.Producto.ProductoInterface;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Productos y errores obtenidos al analizar un segmento del catálogo.
+ * Los números de línea son relativos al inicio del segmento, empezando en 1.
+ */
+class SegmentoAnalizado {
+    private final List<ProductoInterface> productos = new ArrayList<>();
+    private final List<ErrorImportacion> errores = new ArrayList<>();
+    private int[] lineasProductos = new int[256];
+    private int lineas;
+    
+    void agregarProducto(ProductoInterface producto, int linea) {
+        if (productos.size() == lineasProductos.length) {
+            lineasProductos = Arrays.copyOf(lineasProductos, lineasProductos.length * 2);
+        }
+        lineasProductos[productos.size()] = linea;
+        productos.add(producto);
+    }
+    
+    void agregarError(int linea, String mensaje) {
+        errores.add(new ErrorImportacion(linea, mensaje));
+    }
+    
+    void setLineas(int lineas) {
+        this.lineas = lineas;
+    }
+    
+    List<ProductoInterface> getProductos() {
+        return productos;
+    }
+    
+    List<ErrorImportacion> getErrores() {
+        return errores;
+    }
+    
+    /**
+     * Obtiene la línea de la que se leyó un producto.
+     * @param posicion Posición del producto en el segmento
+     */
+    int getLineaProducto(int posicion) {
+        return lineasProductos[posicion];
+    }
+    
+    int getLineas() {
+        return lineas;
+    }
+}
@@ -4,25 +4,47 @@ import Modelos.Usuario.UsuarioCliente;
 import Modelos.Producto.ProductoInterface;
 import Excepciones.CarritoVacioExcepcion;
 import Excepciones.ProductoNoEncontradoExcepcion;
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Carrito de compras organizado en líneas: cada producto distinto ocupa una sola línea
+ * con la cantidad de unidades, indexada por su ID. Agregar, eliminar, cambiar la cantidad
+ * y consultar un producto cuestan O(1) sin importar cuántas líneas tenga el carrito.
+ * Las líneas conservan el orden en que se agregó cada producto por primera vez.
+ * El total se acumula en centavos al agregar y quitar unidades, con el precio unitario que tenía
+ * cada producto al agregarlo, así que calcularTotal lo lee en tiempo constante. Si los precios del
+ * catálogo cambian, actualizarPrecios vuelve a leerlos y recalcula el total.
+ */
 public class Carrito {
     private String id;
     private UsuarioCliente usuario;
-    private List<ProductoInterface> productos;
+    private final Map<String, LineaCarrito> lineas = new LinkedHashMap<>();
+    private int unidades;
+    private long totalCentavos;
+    // IDs de las líneas cuyo producto no tenía precio la última vez que se leyó
+    private final Set<String> lineasSinPrecio = new LinkedHashSet<>();
+    private final List<ProductoInterface> vistaProductos = new VistaProductos();
 
     // Constructor
     public Carrito(String id, UsuarioCliente usuario) {
         this.id = id;
         this.usuario = usuario;
-        this.productos = new ArrayList<>();
     }
 
     public Carrito(String id, UsuarioCliente usuario, List<ProductoInterface> productos) {
         this.id = id;
         this.usuario = usuario;
-        this.productos = productos;
+        if (productos != null) {
+            // Métodos privados: una subclase no puede interceptar el alta antes de estar construida
+            agregarLote(productos);
+        }
     }
 
     // Getters
@@ -35,8 +57,23 @@ public class Carrito {
         return usuario;
     }
 
+    /**
+     * Obtiene los productos del carrito con una entrada por unidad, agrupados por línea.
+     * Como antes de organizar el carrito en líneas, la lista está respaldada por el carrito:
+     * refleja sus cambios, y añadir o quitar elementos de ella agrega o elimina unidades.
+     * El acceso por posición recorre las líneas; para consultar cantidades es mejor getLineas.
+     * @return Vista modificable de los productos
+     */
     public List<ProductoInterface> getProductos() {
-        return productos;
+        return vistaProductos;
+    }
+
+    /**
+     * Obtiene las líneas del carrito en el orden en que se agregaron.
+     * @return Vista de solo lectura de las líneas
+     */
+    public Collection<LineaCarrito> getLineas() {
+        return Collections.unmodifiableCollection(lineas.values());
     }
 
     // Setters
@@ -49,20 +86,37 @@ public class Carrito {
         this.usuario = usuario;
     }
 
+    /**
+     * Reemplaza el contenido del carrito por los productos indicados.
+     * Los productos repetidos se agrupan en una misma línea.
+     * @param productos Lista de productos, o null para vaciar el carrito
+     */
     public void setProductos(List<ProductoInterface> productos) {
-        this.productos = productos;
+        limpiar();
+        if (productos != null) {
+            agregarLote(productos);
+        }
     }
 
     /**
-     * Agrega un producto al carrito.
+     * Agrega una unidad de un producto al carrito.
      * @param producto El producto a agregar
      * @throws IllegalArgumentException Si el producto es null
      */
     public void agregarProducto(ProductoInterface producto) {
-        if (producto == null) {
-            throw new IllegalArgumentException("No se puede agregar un producto nulo al carrito");
-        }
-        productos.add(producto);
+        agregarProducto(producto, 1);
+    }
+
+    /**
+     * Agrega varias unidades de un producto al carrito. Si el producto ya tiene una línea
+     * se suman las unidades a ella. Un producto que aún no tiene precio se admite, pero calcularTotal
+     * lo rechaza hasta que se le asigna uno y se llama a actualizarPrecios.
+     * @param producto El producto a agregar
+     * @param cantidad Unidades a agregar
+     * @throws IllegalArgumentException Si el producto es null o si la cantidad no es positiva
+     */
+    public void agregarProducto(ProductoInterface producto, int cantidad) {
+        agregarUnidades(producto, cantidad);
     }
 
     /**
@@ -71,19 +125,11 @@ public class Carrito {
      * @throws IllegalArgumentException Si la lista es null o contiene productos nulos
      */
     public void agregarProductos(List<ProductoInterface> productos) {
-        if (productos == null) {
-            throw new IllegalArgumentException("No se puede agregar una lista nula de productos");
-        }
-        for (ProductoInterface producto : productos) {
-            if (producto == null) {
-                throw new IllegalArgumentException("No se puede agregar productos nulos al carrito");
-            }
-        }
-        this.productos.addAll(productos);
+        agregarLote(productos);
     }
 
     /**
-     * Elimina un producto del carrito.
+     * Elimina una unidad de un producto del carrito. La línea desaparece al quedarse sin unidades.
      * @param producto El producto a eliminar
      * @throws ProductoNoEncontradoExcepcion Si el producto no está en el carrito
      */
@@ -91,70 +137,127 @@ public class Carrito {
         if (producto == null) {
             throw new IllegalArgumentException("No se puede eliminar un producto nulo del carrito");
         }
-        if (!productos.contains(producto)) {
+        if (!lineas.containsKey(producto.getId())) {
             throw new ProductoNoEncontradoExcepcion(
-                "El producto no se encuentra en el carrito", 
-                producto.getId(), 
+                "El producto no se encuentra en el carrito",
+                producto.getId(),
                 "Carrito " + this.id
             );
         }
-        productos.remove(producto);
+        quitarUnidades(producto.getId(), 1);
     }
 
     /**
-     * Elimina un producto del carrito por su ID.
+     * Elimina una unidad de un producto del carrito por su ID.
      * @param idProducto ID del producto a eliminar
      * @throws ProductoNoEncontradoExcepcion Si el producto no está en el carrito
      */
     public void eliminarProductoPorId(String idProducto) throws ProductoNoEncontradoExcepcion {
-        if (idProducto == null || idProducto.trim().isEmpty()) {
-            throw new IllegalArgumentException("El ID del producto no puede ser nulo o vacío");
-        }
-        
-        ProductoInterface productoEncontrado = null;
-        for (ProductoInterface producto : productos) {
-            if (idProducto.equals(producto.getId())) {
-                productoEncontrado = producto;
-                break;
-            }
+        obtenerLinea(idProducto);
+        quitarUnidades(idProducto, 1);
+    }
+
+    /**
+     * Elimina del carrito la línea completa de un producto, con todas sus unidades.
+     * @param idProducto ID del producto
+     * @throws ProductoNoEncontradoExcepcion Si el producto no está en el carrito
+     */
+    public void eliminarLinea(String idProducto) throws ProductoNoEncontradoExcepcion {
+        LineaCarrito linea = obtenerLinea(idProducto);
+        quitarUnidades(idProducto, linea.cantidad);
+    }
+
+    /**
+     * Establece las unidades de un producto que ya está en el carrito.
+     * Una cantidad de cero elimina la línea.
+     * @param idProducto ID del producto
+     * @param cantidad Nueva cantidad de unidades
+     * @throws ProductoNoEncontradoExcepcion Si el producto no está en el carrito
+     * @throws IllegalArgumentException Si la cantidad es negativa
+     */
+    public void establecerCantidad(String idProducto, int cantidad) throws ProductoNoEncontradoExcepcion {
+        if (cantidad < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa");
         }
-        
-        if (productoEncontrado == null) {
-            throw new ProductoNoEncontradoExcepcion(
-                "El producto con ID " + idProducto + " no se encuentra en el carrito", 
-                idProducto, 
-                "Carrito " + this.id
-            );
+        LineaCarrito linea = obtenerLinea(idProducto);
+        if (cantidad == 0) {
+            quitarUnidades(idProducto, linea.cantidad);
+            return;
         }
-        
-        productos.remove(productoEncontrado);
+        int diferencia = cantidad - linea.cantidad;
+        int nuevasUnidades = Math.addExact(unidades, diferencia);
+        totalCentavos = Math.addExact(totalCentavos, Math.multiplyExact(linea.precioCentavos, (long) diferencia));
+        unidades = nuevasUnidades;
+        linea.cantidad = cantidad;
+    }
+
+    /**
+     * Obtiene las unidades de un producto en el carrito.
+     * @param idProducto ID del producto
+     * @return Las unidades, o 0 si el producto no está en el carrito
+     */
+    public int obtenerCantidad(String idProducto) {
+        LineaCarrito linea = lineas.get(idProducto);
+        return linea != null ? linea.cantidad : 0;
     }
 
     /**
-     * Calcula el total del carrito.
+     * Obtiene el total del carrito en tiempo constante, a partir del total acumulado en centavos.
+     * Usa el precio que tenía cada producto al agregarlo o en la última llamada a actualizarPrecios.
      * @return El total del carrito
      * @throws CarritoVacioExcepcion Si el carrito está vacío
+     * @throws IllegalStateException Si algún producto del carrito no tiene precio
      */
     public Double calcularTotal() throws CarritoVacioExcepcion {
-        if (productos.isEmpty()) {
+        if (lineas.isEmpty()) {
             throw new CarritoVacioExcepcion(
-                "No se puede calcular el total de un carrito vacío", 
-                this.id, 
+                "No se puede calcular el total de un carrito vacío",
+                this.id,
                 this.usuario != null ? this.usuario.getId() : null
             );
         }
+        if (!lineasSinPrecio.isEmpty()) {
+            throw new IllegalStateException("El producto " + lineasSinPrecio.iterator().next() + " del carrito no tiene precio");
+        }
         
-        return productos.stream()
-                .mapToDouble(ProductoInterface::getPrecio)
-                .sum();
+        return totalCentavos / 100.0;
+    }
+
+    /**
+     * Vuelve a leer el precio actual de cada producto y recalcula el total acumulado.
+     * Recorre las líneas, no las unidades.
+     */
+    public void actualizarPrecios() {
+        // Los precios se aplican después de sumarlos para que un desbordamiento no deje el total descuadrado
+        long[] precios = new long[lineas.size()];
+        long total = 0;
+        int i = 0;
+        for (LineaCarrito linea : lineas.values()) {
+            precios[i] = leerPrecio(linea.producto);
+            total = Math.addExact(total, Math.multiplyExact(precios[i], (long) linea.cantidad));
+            i++;
+        }
+        i = 0;
+        for (LineaCarrito linea : lineas.values()) {
+            linea.precioCentavos = precios[i++];
+        }
+        totalCentavos = total;
     }
 
     /**
      * Obtiene la cantidad total de productos en el carrito.
-     * @return Cantidad total de productos
+     * @return Cantidad total de unidades, sumando todas las líneas
      */
     public int obtenerCantidadTotalProductos() {
-        return productos.size();
+        return unidades;
+    }
+
+    /**
+     * Obtiene el número de productos distintos en el carrito.
+     * @return Número de líneas
+     */
+    public int obtenerNumeroLineas() {
+        return lineas.size();
     }
 
     /**
@@ -162,14 +265,17 @@ public class Carrito {
      * @return true si el carrito está vacío, false en caso contrario
      */
     public boolean estaVacio() {
-        return productos.isEmpty();
+        return lineas.isEmpty();
     }
 
     /**
      * Limpia todos los productos del carrito.
      */
     public void limpiar() {
-        productos.clear();
+        lineas.clear();
+        lineasSinPrecio.clear();
+        unidades = 0;
+        totalCentavos = 0;
     }
 
     /**
@@ -182,8 +288,179 @@ public class Carrito {
             return false;
         }
         
-        return productos.stream()
-                .anyMatch(producto -> idProducto.equals(producto.getId()));
+        return lineas.containsKey(idProducto);
+    }
+
+    private void agregarUnidades(ProductoInterface producto, int cantidad) {
+        if (producto == null) {
+            throw new IllegalArgumentException("No se puede agregar un producto nulo al carrito");
+        }
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad a agregar debe ser positiva");
+        }
+        LineaCarrito linea = lineas.get(producto.getId());
+        if (linea == null) {
+            linea = new LineaCarrito(producto, leerPrecio(producto));
+        }
+        // Se valida todo antes de modificar el carrito para que un desbordamiento no deje los totales descuadrados
+        int cantidadLinea = Math.addExact(linea.cantidad, cantidad);
+        int nuevasUnidades = Math.addExact(unidades, cantidad);
+        long nuevoTotal = Math.addExact(totalCentavos, Math.multiplyExact(linea.precioCentavos, (long) cantidad));
+        if (linea.cantidad == 0) {
+            lineas.put(producto.getId(), linea);
+            if (producto.getPrecio() == null) {
+                lineasSinPrecio.add(producto.getId());
+            }
+        }
+        linea.cantidad = cantidadLinea;
+        unidades = nuevasUnidades;
+        totalCentavos = nuevoTotal;
+    }
+
+    private void agregarLote(List<ProductoInterface> productos) {
+        if (productos == null) {
+            throw new IllegalArgumentException("No se puede agregar una lista nula de productos");
+        }
+        for (ProductoInterface producto : productos) {
+            if (producto == null) {
+                throw new IllegalArgumentException("No se puede agregar productos nulos al carrito");
+            }
+        }
+        for (ProductoInterface producto : productos) {
+            agregarUnidades(producto, 1);
+        }
+    }
+
+    /**
+     * Lee el precio de un producto en centavos. Uno sin precio cuenta como 0 y queda anotado
+     * para que calcularTotal lo rechace.
+     */
+    private long leerPrecio(ProductoInterface producto) {
+        if (producto.getPrecio() == null) {
+            if (lineas.containsKey(producto.getId())) {
+                lineasSinPrecio.add(producto.getId());
+            }
+            return 0;
+        }
+        lineasSinPrecio.remove(producto.getId());
+        return producto.getPrecioCentavos();
+    }
+
+    private LineaCarrito obtenerLinea(String idProducto) throws ProductoNoEncontradoExcepcion {
+        if (idProducto == null || idProducto.trim().isEmpty()) {
+            throw new IllegalArgumentException("El ID del producto no puede ser nulo o vacío");
+        }
+        
+        LineaCarrito linea = lineas.get(idProducto);
+        if (linea == null) {
+            throw new ProductoNoEncontradoExcepcion(
+                "El producto con ID " + idProducto + " no se encuentra en el carrito",
+                idProducto,
+                "Carrito " + this.id
+            );
+        }
+        return linea;
+    }
+
+    private void quitarUnidades(String idProducto, int cantidad) {
+        LineaCarrito linea = lineas.get(idProducto);
+        if (linea.cantidad <= cantidad) {
+            lineas.remove(idProducto);
+            lineasSinPrecio.remove(idProducto);
+        }
+        linea.cantidad -= cantidad;
+        unidades -= cantidad;
+        totalCentavos -= linea.precioCentavos * cantidad;
+    }
+
+    /**
+     * Vista de los productos del carrito con una entrada por unidad. Una unidad añadida se suma
+     * a la línea de su producto, que puede no estar al final; por eso las altas con posición
+     * solo admiten el final de la lista y set no está soportado.
+     */
+    private class VistaProductos extends AbstractList<ProductoInterface> {
+        @Override
+        public ProductoInterface get(int indice) {
+            return lineaEn(indice).producto;
+        }
+        
+        @Override
+        public int size() {
+            return unidades;
+        }
+        
+        @Override
+        public boolean add(ProductoInterface producto) {
+            agregarUnidades(producto, 1);
+            modCount++;
+            return true;
+        }
+        
+        @Override
+        public void add(int indice, ProductoInterface producto) {
+            if (indice != unidades) {
+                throw new UnsupportedOperationException("Los productos del carrito se agrupan por línea: solo se pueden añadir al final");
+            }
+            add(producto);
+        }
+        
+        @Override
+        public ProductoInterface remove(int indice) {
+            LineaCarrito linea = lineaEn(indice);
+            quitarUnidades(linea.producto.getId(), 1);
+            modCount++;
+            return linea.producto;
+        }
+        
+        @Override
+        public void clear() {
+            limpiar();
+            modCount++;
+        }
+        
+        private LineaCarrito lineaEn(int indice) {
+            if (indice < 0 || indice >= unidades) {
+                throw new IndexOutOfBoundsException("Índice " + indice + " fuera del carrito de " + unidades + " unidades");
+            }
+            int restante = indice;
+            for (LineaCarrito linea : lineas.values()) {
+                if (restante < linea.cantidad) {
+                    return linea;
+                }
+                restante -= linea.cantidad;
+            }
+            throw new IllegalStateException("Las unidades del carrito no coinciden con sus líneas");
+        }
+    }
+
+    /**
+     * Línea del carrito: un producto, su precio unitario en centavos y las unidades que se van a comprar de él.
+     */
+    public static class LineaCarrito {
+        private final ProductoInterface producto;
+        private long precioCentavos;
+        private int cantidad;
+        
+        private LineaCarrito(ProductoInterface producto, long precioCentavos) {
+            this.producto = producto;
+            this.precioCentavos = precioCentavos;
+        }
+        
+        public ProductoInterface getProducto() {
+            return producto;
+        }
+        
+        public int getCantidad() {
+            return cantidad;
+        }
+        
+        public long getPrecioCentavos() {
+            return precioCentavos;
+        }
+        
+        public long getSubtotalCentavos() {
+            return precioCentavos * cantidad;
+        }
     }
 
 }
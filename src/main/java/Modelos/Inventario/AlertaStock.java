@@ -0,0 +1,50 @@
+package Modelos.Inventario;
+
+/**
+ * Instantánea inmutable del nivel de stock de un producto con umbral de reposición.
+ * Es el dato que acompaña a los eventos STOCK_BAJO y STOCK_AGOTADO.
+ */
+public class AlertaStock {
+    private final String idProducto;
+    private final int cantidad;
+    private final int umbralReposicion;
+    private final EstadoStock estado;
+    
+    public AlertaStock(String idProducto, int cantidad, int umbralReposicion, EstadoStock estado) {
+        this.idProducto = idProducto;
+        this.cantidad = cantidad;
+        this.umbralReposicion = umbralReposicion;
+        this.estado = estado;
+    }
+    
+    public String getIdProducto() {
+        return idProducto;
+    }
+    
+    public int getCantidad() {
+        return cantidad;
+    }
+    
+    public int getUmbralReposicion() {
+        return umbralReposicion;
+    }
+    
+    public EstadoStock getEstado() {
+        return estado;
+    }
+    
+    /**
+     * Compara el agotamiento relativo (cantidad / umbral) de dos alertas sin usar decimales.
+     * @param otra La otra alerta
+     * @return Negativo si esta alerta está más agotada que la otra
+     */
+    public int compararAgotamiento(AlertaStock otra) {
+        int resultado = Long.compare((long) cantidad * otra.umbralReposicion, (long) otra.cantidad * umbralReposicion);
+        return resultado != 0 ? resultado : idProducto.compareTo(otra.idProducto);
+    }
+    
+    @Override
+    public String toString() {
+        return "Producto: " + idProducto + " - Stock actual: " + cantidad + " - Mínimo: " + umbralReposicion;
+    }
+}
@@ -0,0 +1,141 @@
+package Modelos.Inventario;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Almacenamiento columnar de las métricas admitidas para los productos físicos.
+ * Guarda el peso unitario (mg), el volumen unitario (mm³) y la cantidad de cada
+ * producto en arreglos primitivos paralelos indexados por posición.
+ * Las medidas se fijan al admitir el producto, así que la liberación de peso y
+ * espacio descuenta exactamente lo que se reservó aunque el producto cambie después,
+ * y los totales del almacén se recalculan con bucles sobre memoria contigua.
+ */
+class AlmacenColumnarFisico {
+    private static final int CAPACIDAD_INICIAL = 16;
+    
+    private final Map<String, Integer> posicionPorId;
+    private String[] ids;
+    private long[] pesoUnitarioMiligramos;
+    private long[] volumenUnitarioMm3;
+    private int[] cantidades;
+    private int tamaño;
+    
+    AlmacenColumnarFisico() {
+        this.posicionPorId = new HashMap<>();
+        this.ids = new String[CAPACIDAD_INICIAL];
+        this.pesoUnitarioMiligramos = new long[CAPACIDAD_INICIAL];
+        this.volumenUnitarioMm3 = new long[CAPACIDAD_INICIAL];
+        this.cantidades = new int[CAPACIDAD_INICIAL];
+        this.tamaño = 0;
+    }
+    
+    /**
+     * Registra un producto en la siguiente posición libre.
+     * @param idProducto El ID del producto
+     * @param pesoMiligramos Peso unitario admitido en mg
+     * @param volumenMm3 Volumen unitario admitido en mm³
+     * @param cantidad Cantidad en stock
+     */
+    synchronized void agregar(String idProducto, long pesoMiligramos, long volumenMm3, int cantidad) {
+        if (tamaño == ids.length) {
+            int nuevaCapacidad = ids.length * 2;
+            ids = Arrays.copyOf(ids, nuevaCapacidad);
+            pesoUnitarioMiligramos = Arrays.copyOf(pesoUnitarioMiligramos, nuevaCapacidad);
+            volumenUnitarioMm3 = Arrays.copyOf(volumenUnitarioMm3, nuevaCapacidad);
+            cantidades = Arrays.copyOf(cantidades, nuevaCapacidad);
+        }
+        ids[tamaño] = idProducto;
+        pesoUnitarioMiligramos[tamaño] = pesoMiligramos;
+        volumenUnitarioMm3[tamaño] = volumenMm3;
+        cantidades[tamaño] = cantidad;
+        posicionPorId.put(idProducto, tamaño);
+        tamaño++;
+    }
+    
+    /**
+     * Elimina un producto moviendo el último a su posición para mantener las columnas compactas.
+     * @param idProducto El ID del producto
+     */
+    synchronized void eliminar(String idProducto) {
+        Integer posicion = posicionPorId.remove(idProducto);
+        if (posicion == null) {
+            return;
+        }
+        int ultima = tamaño - 1;
+        if (posicion != ultima) {
+            ids[posicion] = ids[ultima];
+            pesoUnitarioMiligramos[posicion] = pesoUnitarioMiligramos[ultima];
+            volumenUnitarioMm3[posicion] = volumenUnitarioMm3[ultima];
+            cantidades[posicion] = cantidades[ultima];
+            posicionPorId.put(ids[posicion], posicion);
+        }
+        ids[ultima] = null;
+        tamaño--;
+    }
+    
+    /**
+     * Actualiza la cantidad en stock de un producto.
+     * @param idProducto El ID del producto
+     * @param cantidad La nueva cantidad
+     */
+    synchronized void actualizarCantidad(String idProducto, int cantidad) {
+        Integer posicion = posicionPorId.get(idProducto);
+        if (posicion != null) {
+            cantidades[posicion] = cantidad;
+        }
+    }
+    
+    /**
+     * Obtiene el peso unitario con el que se admitió un producto.
+     * @param idProducto El ID del producto
+     * @return Peso en mg
+     * @throws IllegalStateException Si el producto no está registrado
+     */
+    synchronized long pesoUnitario(String idProducto) {
+        return pesoUnitarioMiligramos[posicion(idProducto)];
+    }
+    
+    /**
+     * Obtiene el volumen unitario con el que se admitió un producto.
+     * @param idProducto El ID del producto
+     * @return Volumen en mm³
+     * @throws IllegalStateException Si el producto no está registrado
+     */
+    synchronized long volumenUnitario(String idProducto) {
+        return volumenUnitarioMm3[posicion(idProducto)];
+    }
+    
+    /**
+     * Calcula el peso total almacenado recorriendo las columnas.
+     * @return Peso total en mg
+     */
+    synchronized long calcularPesoTotal() {
+        long total = 0;
+        for (int i = 0; i < tamaño; i++) {
+            total += pesoUnitarioMiligramos[i] * cantidades[i];
+        }
+        return total;
+    }
+    
+    /**
+     * Calcula el volumen total almacenado recorriendo las columnas.
+     * @return Volumen total en mm³
+     */
+    synchronized long calcularVolumenTotal() {
+        long total = 0;
+        for (int i = 0; i < tamaño; i++) {
+            total += volumenUnitarioMm3[i] * cantidades[i];
+        }
+        return total;
+    }
+    
+    private int posicion(String idProducto) {
+        Integer posicion = posicionPorId.get(idProducto);
+        if (posicion == null) {
+            throw new IllegalStateException("El producto " + idProducto + " no tiene medidas admitidas");
+        }
+        return posicion;
+    }
+}
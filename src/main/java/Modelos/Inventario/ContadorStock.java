@@ -0,0 +1,98 @@
+package Modelos.Inventario;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contador de stock por producto usado para reservas concurrentes.
+ * Las unidades disponibles y reservadas se actualizan con operaciones CAS,
+ * por lo que varios hilos pueden reservar el mismo producto sin un bloqueo global.
+ */
+class ContadorStock {
+    private final AtomicInteger disponible;
+    private final AtomicInteger reservado;
+
+    ContadorStock(int cantidadInicial) {
+        this.disponible = new AtomicInteger(cantidadInicial);
+        this.reservado = new AtomicInteger(0);
+    }
+
+    /**
+     * Reserva unidades si hay suficientes disponibles.
+     * @param cantidad Unidades a reservar
+     * @return true si se reservaron, false si no había suficientes disponibles
+     */
+    boolean reservar(int cantidad) {
+        while (true) {
+            int actual = disponible.get();
+            if (actual < cantidad) {
+                return false;
+            }
+            if (disponible.compareAndSet(actual, actual - cantidad)) {
+                reservado.addAndGet(cantidad);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Confirma unidades reservadas: dejan de estar reservadas y salen del inventario.
+     * @param cantidad Unidades a confirmar
+     * @return true si había suficientes unidades reservadas
+     */
+    boolean confirmar(int cantidad) {
+        return descontarReservado(cantidad);
+    }
+
+    /**
+     * Libera unidades reservadas y las devuelve al stock disponible.
+     * @param cantidad Unidades a liberar
+     * @return true si había suficientes unidades reservadas
+     */
+    boolean liberar(int cantidad) {
+        if (!descontarReservado(cantidad)) {
+            return false;
+        }
+        disponible.addAndGet(cantidad);
+        return true;
+    }
+
+    /**
+     * Ajusta el stock disponible cuando cambia la cantidad total del producto.
+     * Una reducción solo se acepta si no deja el disponible en negativo, es decir,
+     * si la nueva cantidad sigue cubriendo las unidades reservadas y las confirmadas
+     * que aún no se han descontado del producto.
+     * @param diferencia Diferencia entre la cantidad nueva y la anterior
+     * @return true si se ajustó, false si la reducción invadiría unidades reservadas
+     */
+    boolean ajustar(int diferencia) {
+        while (true) {
+            int actual = disponible.get();
+            if (actual + diferencia < 0) {
+                return false;
+            }
+            if (disponible.compareAndSet(actual, actual + diferencia)) {
+                return true;
+            }
+        }
+    }
+
+    int disponible() {
+        return disponible.get();
+    }
+
+    int reservado() {
+        return reservado.get();
+    }
+
+    private boolean descontarReservado(int cantidad) {
+        while (true) {
+            int actual = reservado.get();
+            if (actual < cantidad) {
+                return false;
+            }
+            if (reservado.compareAndSet(actual, actual - cantidad)) {
+                return true;
+            }
+        }
+    }
+}
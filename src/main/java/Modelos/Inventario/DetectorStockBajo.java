@@ -0,0 +1,186 @@
+package Modelos.Inventario;
+
+import Observer.NotificationManager;
+import Observer.TipoEvento;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Detector de stock bajo con umbrales de reposición por producto.
+ * Cada cambio de stock se evalúa en tiempo constante comparando la nueva cantidad
+ * con el umbral del producto y su estado anterior, y solo se notifica al cruzar
+ * un umbral. La histéresis evita notificaciones repetidas cuando el stock oscila
+ * alrededor del umbral: el producto vuelve a NORMAL solo al superar umbral + histéresis,
+ * y sale de AGOTADO solo al superar la histéresis.
+ * Los productos con umbral se mantienen ordenados por agotamiento relativo
+ * (cantidad / umbral), de modo que consultar los N más agotados no recorre el catálogo.
+ */
+public class DetectorStockBajo {
+    private final Map<String, UmbralProducto> umbrales;
+    private final NavigableSet<AlertaStock> porAgotamiento;
+    
+    public DetectorStockBajo() {
+        this.umbrales = new ConcurrentHashMap<>();
+        this.porAgotamiento = new ConcurrentSkipListSet<>(AlertaStock::compararAgotamiento);
+    }
+    
+    /**
+     * Configura el umbral de reposición de un producto y evalúa su cantidad actual.
+     * @param idProducto El ID del producto
+     * @param umbralReposicion Cantidad en o por debajo de la cual el stock es bajo
+     * @param histeresis Unidades por encima del umbral necesarias para volver a NORMAL
+     * @param cantidadActual La cantidad actual del producto
+     */
+    public void configurarUmbral(String idProducto, int umbralReposicion, int histeresis, int cantidadActual) {
+        if (idProducto == null || idProducto.trim().isEmpty()) {
+            throw new IllegalArgumentException("El ID del producto no puede ser nulo o vacío");
+        }
+        if (umbralReposicion <= 0) {
+            throw new IllegalArgumentException("El umbral de reposición debe ser mayor que cero");
+        }
+        if (histeresis < 0) {
+            throw new IllegalArgumentException("La histéresis no puede ser negativa");
+        }
+        UmbralProducto anterior = umbrales.put(idProducto, new UmbralProducto(idProducto, umbralReposicion, histeresis));
+        if (anterior != null) {
+            anterior.retirar(porAgotamiento);
+        }
+        evaluar(idProducto, cantidadActual);
+    }
+    
+    /**
+     * Elimina el umbral de un producto; deja de evaluarse y de aparecer en las consultas.
+     * @param idProducto El ID del producto
+     */
+    public void eliminarUmbral(String idProducto) {
+        UmbralProducto umbral = idProducto != null ? umbrales.remove(idProducto) : null;
+        if (umbral != null) {
+            umbral.retirar(porAgotamiento);
+        }
+    }
+    
+    /**
+     * Copia el umbral y el estado de un producto a otro detector sin notificar,
+     * para que el producto conserve su alerta al cambiar de inventario.
+     * @param idProducto El ID del producto
+     * @param destino El detector del inventario que recibe el producto
+     */
+    void trasladarUmbral(String idProducto, DetectorStockBajo destino) {
+        UmbralProducto umbral = umbrales.get(idProducto);
+        if (umbral == null) {
+            return;
+        }
+        UmbralProducto copia = new UmbralProducto(idProducto, umbral.umbralReposicion, umbral.histeresis);
+        synchronized (umbral) {
+            copia.estado = umbral.estado;
+        }
+        destino.umbrales.put(idProducto, copia);
+    }
+    
+    /**
+     * Evalúa la nueva cantidad de un producto y notifica si cruza un umbral.
+     * Los productos sin umbral configurado se ignoran.
+     * @param idProducto El ID del producto
+     * @param cantidad La nueva cantidad en stock
+     */
+    public void evaluar(String idProducto, int cantidad) {
+        UmbralProducto umbral = idProducto != null ? umbrales.get(idProducto) : null;
+        if (umbral == null) {
+            return;
+        }
+        AlertaStock alerta = umbral.actualizar(cantidad, porAgotamiento);
+        if (alerta != null) {
+            TipoEvento evento = alerta.getEstado() == EstadoStock.AGOTADO ? TipoEvento.STOCK_AGOTADO : TipoEvento.STOCK_BAJO;
+            NotificationManager.getInstancia().notificarEvento(evento, alerta);
+        }
+    }
+    
+    /**
+     * Obtiene el estado de stock de un producto.
+     * @param idProducto El ID del producto
+     * @return El estado, o null si el producto no tiene umbral configurado
+     */
+    public EstadoStock obtenerEstado(String idProducto) {
+        UmbralProducto umbral = idProducto != null ? umbrales.get(idProducto) : null;
+        return umbral != null ? umbral.estado : null;
+    }
+    
+    /**
+     * Obtiene los productos más agotados en relación con su umbral de reposición.
+     * @param cantidad Número máximo de productos a devolver
+     * @return Alertas ordenadas de más a menos agotado
+     */
+    public List<AlertaStock> obtenerMasAgotados(int cantidad) {
+        List<AlertaStock> resultado = new ArrayList<>(Math.max(0, Math.min(cantidad, 64)));
+        Iterator<AlertaStock> iterador = porAgotamiento.iterator();
+        while (resultado.size() < cantidad && iterador.hasNext()) {
+            resultado.add(iterador.next());
+        }
+        return resultado;
+    }
+    
+    /**
+     * Umbral y estado de un producto. Las transiciones se serializan por producto.
+     */
+    private static class UmbralProducto {
+        private final String idProducto;
+        private final int umbralReposicion;
+        private final int histeresis;
+        private EstadoStock estado;
+        private AlertaStock actual; // posición del producto en el orden por agotamiento
+        
+        UmbralProducto(String idProducto, int umbralReposicion, int histeresis) {
+            this.idProducto = idProducto;
+            this.umbralReposicion = umbralReposicion;
+            this.histeresis = histeresis;
+            this.estado = EstadoStock.NORMAL;
+        }
+        
+        /**
+         * Aplica la nueva cantidad y recoloca el producto en el orden por agotamiento.
+         * @return La alerta a notificar si se cruzó un umbral hacia abajo, o null
+         */
+        synchronized AlertaStock actualizar(int cantidad, NavigableSet<AlertaStock> porAgotamiento) {
+            EstadoStock anterior = estado;
+            estado = siguienteEstado(cantidad);
+            
+            AlertaStock nueva = new AlertaStock(idProducto, cantidad, umbralReposicion, estado);
+            if (actual != null) {
+                porAgotamiento.remove(actual);
+            }
+            porAgotamiento.add(nueva);
+            actual = nueva;
+            
+            boolean empeoro = estado.ordinal() > anterior.ordinal();
+            return empeoro ? nueva : null;
+        }
+        
+        synchronized void retirar(NavigableSet<AlertaStock> porAgotamiento) {
+            if (actual != null) {
+                porAgotamiento.remove(actual);
+                actual = null;
+            }
+        }
+        
+        private EstadoStock siguienteEstado(int cantidad) {
+            if (cantidad <= 0) {
+                return EstadoStock.AGOTADO;
+            }
+            if (cantidad > umbralReposicion + histeresis) {
+                return EstadoStock.NORMAL;
+            }
+            return switch (estado) {
+                // Desde NORMAL se pasa a BAJO al llegar al umbral
+                case NORMAL -> cantidad <= umbralReposicion ? EstadoStock.BAJO : EstadoStock.NORMAL;
+                case BAJO -> EstadoStock.BAJO;
+                // Salir de AGOTADO exige superar la histéresis para no oscilar alrededor de cero
+                case AGOTADO -> cantidad > histeresis ? EstadoStock.BAJO : EstadoStock.AGOTADO;
+            };
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package Modelos.Inventario;
+
+/**
+ * Enum que define el nivel de stock de un producto respecto a su umbral de reposición.
+ */
+public enum EstadoStock {
+
+    NORMAL("NORMAL", "El stock está por encima del umbral de reposición"),
+    BAJO("BAJO", "El stock está en o por debajo del umbral de reposición"),
+    AGOTADO("AGOTADO", "No quedan unidades en stock");
+    
+    private final String codigo;
+    private final String descripcion;
+    
+    EstadoStock(String codigo, String descripcion) {
+        this.codigo = codigo;
+        this.descripcion = descripcion;
+    }
+    
+    public String getCodigo() {
+        return codigo;
+    }
+    
+    public String getDescripcion() {
+        return descripcion;
+    }
+    
+    @Override
+    public String toString() {
+        return codigo + ": " + descripcion;
+    }
+}
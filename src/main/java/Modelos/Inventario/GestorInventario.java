@@ -3,7 +3,17 @@ package Modelos.Inventario;
 import Modelos.Producto.ProductoInterface;
 import Excepciones.InventarioInsuficienteExcepcion;
 import Excepciones.ProductoNoEncontradoExcepcion;
+import Observer.NotificationManager;
+import Observer.TipoEvento;
+import Persistencia.EstadoLicencias;
+import Persistencia.RegistroEscrituraAnticipada;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Clase abstracta para la gestión de inventario.
@@ -11,12 +21,29 @@ import java.util.List;
  * para diferentes tipos de inventario (digital vs. físico).
  */
 public abstract class GestorInventario {
+    private static final int FRANJAS_BLOQUEO_REGISTRO = 64;
+    
     protected String nombreInventario;
     protected String ubicacion;
+    private final Map<String, ContadorStock> contadoresStock;
+    private final AtomicLong version;
+    private volatile RegistroEscrituraAnticipada registroEscritura; // null si no hay persistencia
+    private volatile boolean registroCompartido; // true si escribe en el registro de otro inventario
+    private final DetectorStockBajo detectorStockBajo;
+    // Serializan por ID las altas y bajas con su entrada en el registro, para que la baja
+    // de un producto nunca quede en el registro detrás del alta de otro con el mismo ID
+    private final Object[] bloqueosRegistro;
     
     public GestorInventario(String nombreInventario, String ubicacion) {
         this.nombreInventario = nombreInventario;
         this.ubicacion = ubicacion;
+        this.contadoresStock = new ConcurrentHashMap<>();
+        this.version = new AtomicLong();
+        this.detectorStockBajo = new DetectorStockBajo();
+        this.bloqueosRegistro = new Object[FRANJAS_BLOQUEO_REGISTRO];
+        for (int i = 0; i < bloqueosRegistro.length; i++) {
+            bloqueosRegistro[i] = new Object();
+        }
     }
     
     /**
@@ -45,6 +72,35 @@ public abstract class GestorInventario {
      */
     public abstract boolean actualizarStock(String idProducto, Integer nuevaCantidad) throws ProductoNoEncontradoExcepcion, InventarioInsuficienteExcepcion;
     
+    /**
+     * Actualiza el stock de varios productos en una sola operación.
+     * La implementación base valida que todos los productos existan antes de
+     * aplicar cualquier cambio; las subclases con restricciones de capacidad
+     * la sobrescriben para validar el lote completo de una sola vez.
+     * @param nuevasCantidades Mapa de ID de producto a nueva cantidad en stock
+     * @return true si se actualizó exitosamente
+     * @throws ProductoNoEncontradoExcepcion Si algún producto no existe en el inventario
+     * @throws InventarioInsuficienteExcepcion Si no hay capacidad para el lote completo
+     */
+    public boolean actualizarStockLote(Map<String, Integer> nuevasCantidades) throws ProductoNoEncontradoExcepcion, InventarioInsuficienteExcepcion {
+        validarLote(nuevasCantidades);
+        
+        List<String> noEncontrados = new ArrayList<>();
+        for (String idProducto : nuevasCantidades.keySet()) {
+            if (buscarProducto(idProducto) == null) {
+                noEncontrados.add(idProducto);
+            }
+        }
+        if (!noEncontrados.isEmpty()) {
+            throw crearExcepcionLoteNoEncontrado(noEncontrados);
+        }
+        
+        for (Map.Entry<String, Integer> entrada : nuevasCantidades.entrySet()) {
+            actualizarStock(entrada.getKey(), entrada.getValue());
+        }
+        return true;
+    }
+    
     /**
      * Método concreto para obtener el nombre del inventario.
      * @return El nombre del inventario
@@ -79,6 +135,7 @@ public abstract class GestorInventario {
     
     /**
      * Método abstracto para obtener todos los productos del inventario.
+     * La lista devuelta es una instantánea inmutable compartida entre lectores.
      * @return Lista de productos en el inventario
      */
     public abstract List<ProductoInterface> obtenerProductos();
@@ -89,4 +146,517 @@ public abstract class GestorInventario {
      * @return El producto encontrado o null si no existe
      */
     public abstract ProductoInterface buscarProducto(String idProducto);
+    
+    /**
+     * Reserva unidades de un producto de forma atómica para un proceso de compra.
+     * Las unidades reservadas dejan de estar disponibles para otras reservas
+     * hasta que se confirman o se liberan.
+     * @param idProducto El ID del producto
+     * @param cantidad Unidades a reservar
+     * @return true si se reservó exitosamente
+     * @throws ProductoNoEncontradoExcepcion Si el producto no existe en el inventario
+     * @throws InventarioInsuficienteExcepcion Si no hay suficientes unidades disponibles
+     */
+    public boolean reservarStock(String idProducto, int cantidad) throws ProductoNoEncontradoExcepcion, InventarioInsuficienteExcepcion {
+        validarCantidadReserva(cantidad);
+        ContadorStock contador = obtenerContadorStock(idProducto);
+        
+        if (!contador.reservar(cantidad)) {
+            throw new InventarioInsuficienteExcepcion(
+                "No hay suficiente stock disponible para reservar el producto " + idProducto,
+                idProducto,
+                contador.disponible(),
+                cantidad
+            );
+        }
+        return true;
+    }
+    
+    /**
+     * Confirma unidades previamente reservadas, descontándolas del stock del producto.
+     * @param idProducto El ID del producto
+     * @param cantidad Unidades a confirmar
+     * @return true si se confirmó exitosamente
+     * @throws ProductoNoEncontradoExcepcion Si el producto no existe en el inventario
+     */
+    public boolean confirmarReserva(String idProducto, int cantidad) throws ProductoNoEncontradoExcepcion {
+        validarCantidadReserva(cantidad);
+        ContadorStock contador = obtenerContadorStock(idProducto);
+        ProductoInterface producto = buscarProducto(idProducto);
+        
+        if (producto == null || !contador.confirmar(cantidad)) {
+            throw new IllegalArgumentException("No hay suficientes unidades reservadas del producto " + idProducto + " para confirmar");
+        }
+        esperarPersistencia(descontarStockConfirmado(producto, cantidad));
+        return true;
+    }
+    
+    /**
+     * Libera unidades previamente reservadas, devolviéndolas al stock disponible.
+     * @param idProducto El ID del producto
+     * @param cantidad Unidades a liberar
+     * @return true si se liberó exitosamente
+     * @throws ProductoNoEncontradoExcepcion Si el producto no existe en el inventario
+     */
+    public boolean liberarReserva(String idProducto, int cantidad) throws ProductoNoEncontradoExcepcion {
+        validarCantidadReserva(cantidad);
+        ContadorStock contador = obtenerContadorStock(idProducto);
+        
+        if (!contador.liberar(cantidad)) {
+            throw new IllegalArgumentException("No hay suficientes unidades reservadas del producto " + idProducto + " para liberar");
+        }
+        return true;
+    }
+    
+    /**
+     * Obtiene las unidades de un producto que pueden reservarse.
+     * @param idProducto El ID del producto
+     * @return Unidades disponibles, o 0 si el producto no existe
+     */
+    public int obtenerStockDisponible(String idProducto) {
+        ContadorStock contador = idProducto != null ? contadoresStock.get(idProducto) : null;
+        return contador != null ? contador.disponible() : 0;
+    }
+    
+    /**
+     * Obtiene las unidades de un producto que están reservadas.
+     * @param idProducto El ID del producto
+     * @return Unidades reservadas, o 0 si el producto no existe
+     */
+    public int obtenerStockReservado(String idProducto) {
+        ContadorStock contador = idProducto != null ? contadoresStock.get(idProducto) : null;
+        return contador != null ? contador.reservado() : 0;
+    }
+    
+    /**
+     * Obtiene la versión del inventario, que aumenta con cada producto añadido,
+     * eliminado o con cambios de stock. Permite saber sin recorrer los productos
+     * si algo cambió desde la última lectura.
+     * @return La versión actual del inventario
+     */
+    public long obtenerVersion() {
+        return version.get();
+    }
+    
+    /**
+     * Configura el umbral de reposición de un producto. Cuando su stock llega al
+     * umbral se notifica STOCK_BAJO y cuando se agota STOCK_AGOTADO, una sola vez por cruce.
+     * @param idProducto El ID del producto
+     * @param umbralReposicion Cantidad en o por debajo de la cual el stock es bajo
+     * @param histeresis Unidades por encima del umbral necesarias para rearmar la alerta
+     * @throws ProductoNoEncontradoExcepcion Si el producto no existe en el inventario
+     */
+    public void configurarUmbralStock(String idProducto, int umbralReposicion, int histeresis) throws ProductoNoEncontradoExcepcion {
+        ProductoInterface producto = buscarProducto(idProducto);
+        if (producto == null) {
+            throw new ProductoNoEncontradoExcepcion(
+                "El producto con ID " + idProducto + " no se encuentra en el inventario",
+                idProducto,
+                this.nombreInventario
+            );
+        }
+        retenerEventos();
+        try {
+            synchronized (producto) {
+                detectorStockBajo.configurarUmbral(idProducto, umbralReposicion, histeresis, valorCantidad(producto.getCantidad()));
+            }
+        } finally {
+            publicarEventosRetenidos();
+        }
+    }
+    
+    /**
+     * Obtiene el estado de stock de un producto respecto a su umbral de reposición.
+     * @param idProducto El ID del producto
+     * @return El estado, o null si el producto no tiene umbral configurado
+     */
+    public EstadoStock obtenerEstadoStock(String idProducto) {
+        return detectorStockBajo.obtenerEstado(idProducto);
+    }
+    
+    /**
+     * Obtiene los productos más agotados en relación con su umbral de reposición,
+     * sin recorrer el catálogo.
+     * @param cantidad Número máximo de productos a devolver
+     * @return Alertas ordenadas de más a menos agotado
+     */
+    public List<AlertaStock> obtenerProductosMasAgotados(int cantidad) {
+        return detectorStockBajo.obtenerMasAgotados(cantidad);
+    }
+    
+    DetectorStockBajo getDetectorStockBajo() {
+        return detectorStockBajo;
+    }
+    
+    /**
+     * Habilita la persistencia del inventario en un registro de escritura anticipada.
+     * Primero se añaden los productos recuperados del registro y después cada
+     * alta, baja o cambio de stock se registra antes de confirmar la operación.
+     * Rechaza un registro cuyo último punto de control creó otro inventario: no tendría
+     * los productos de este y las entradas que truncó ya no se pueden recuperar.
+     * @param registro El registro de escritura anticipada ya abierto
+     * @return Número de productos recuperados
+     * @throws InventarioInsuficienteExcepcion Si los productos recuperados no caben en el inventario
+     */
+    public int habilitarPersistencia(RegistroEscrituraAnticipada registro) throws InventarioInsuficienteExcepcion {
+        if (registro == null) {
+            throw new IllegalArgumentException("El registro de escritura anticipada no puede ser nulo");
+        }
+        if (!obtenerProductos().isEmpty()) {
+            throw new IllegalStateException("La persistencia solo puede habilitarse con el inventario vacío");
+        }
+        String propietario = registro.getPropietarioPuntoControl();
+        if (propietario != null && !Objects.equals(propietario, nombreInventario)) {
+            throw new IllegalStateException("El último punto de control del registro lo creó el inventario "
+                + propietario + ", no " + nombreInventario);
+        }
+        List<ProductoInterface> recuperados = registro.obtenerProductosRecuperados();
+        for (ProductoInterface producto : recuperados) {
+            añadirProducto(producto);
+        }
+        restaurarLicencias(registro.obtenerLicenciasRecuperadas());
+        registro.vincular(nombreInventario, this::obtenerProductosRegistrados, this::obtenerEstadoLicencias);
+        this.registroEscritura = registro;
+        return recuperados.size();
+    }
+    
+    RegistroEscrituraAnticipada getRegistroEscritura() {
+        return registroEscritura;
+    }
+    
+    /**
+     * Hace que el inventario escriba en un registro que gestiona otro inventario, sin
+     * recuperar productos ni vincular los puntos de control. Lo usa el inventario
+     * distribuido para que todos sus almacenes compartan su registro.
+     * @param registro El registro compartido o null para dejar de usarlo
+     */
+    void compartirRegistroEscritura(RegistroEscrituraAnticipada registro) {
+        this.registroCompartido = registro != null;
+        this.registroEscritura = registro;
+    }
+    
+    /**
+     * Crea un punto de control con los productos actuales y trunca el registro.
+     * @return El número de secuencia hasta el que el punto de control cubre el registro
+     * @throws IOException Si no se puede escribir el punto de control
+     * @throws IllegalStateException Si no hay persistencia o el registro lo gestiona otro inventario
+     */
+    public long crearPuntoControl() throws IOException {
+        RegistroEscrituraAnticipada registro = registroEscritura;
+        if (registro == null) {
+            throw new IllegalStateException("La persistencia no está habilitada en el inventario " + nombreInventario);
+        }
+        if (registroCompartido) {
+            // Solo tiene sus propios productos: truncaría las entradas de los demás almacenes
+            throw new IllegalStateException("El inventario " + nombreInventario
+                + " comparte el registro de otro inventario; cree el punto de control desde ese inventario");
+        }
+        return registro.crearPuntoControl(nombreInventario, this::obtenerProductosRegistrados, this::obtenerEstadoLicencias);
+    }
+    
+    /**
+     * Obtiene los productos para un punto de control una vez fijado su corte. Las altas y
+     * bajas se escriben en el registro antes de cambiar el índice, así que primero espera
+     * a que terminen las que ya tienen su entrada para que ninguna quede fuera del punto
+     * de control y truncada a la vez del registro.
+     * @return Productos del inventario
+     */
+    private List<ProductoInterface> obtenerProductosRegistrados() {
+        esperarEscriturasEnCurso();
+        return obtenerProductos();
+    }
+    
+    /**
+     * Espera a que terminen las operaciones que tienen tomado algún bloqueoRegistro.
+     * Las que lo toman después reciben un número de secuencia posterior al corte.
+     */
+    protected void esperarEscriturasEnCurso() {
+        for (Object bloqueo : bloqueosRegistro) {
+            synchronized (bloqueo) {
+                // Solo espera a que lo suelte quien lo tenga
+            }
+        }
+    }
+    
+    /**
+     * Obtiene el estado de los pools de licencias que deben guardarse en los puntos de control.
+     * Los inventarios sin licencias individuales no tienen ninguno.
+     * @return Mapa del ID de producto al estado de su pool
+     */
+    protected Map<String, EstadoLicencias> obtenerEstadoLicencias() {
+        return Map.of();
+    }
+    
+    /**
+     * Vuelve a crear los pools de licencias recuperados del registro, sin registrarlos de nuevo.
+     * Se llama después de añadir los productos recuperados.
+     * @param licencias Estado de los pools por ID de producto
+     */
+    protected void restaurarLicencias(Map<String, EstadoLicencias> licencias) {
+    }
+    
+    /**
+     * Registra el estado completo del pool de licencias de un producto, si hay persistencia.
+     * @param idProducto El ID del producto
+     * @param pool El pool
+     * @return El número de secuencia de la entrada, o 0 si no hay persistencia
+     */
+    protected long registrarPoolLicencias(String idProducto, PoolLicencias pool) {
+        RegistroEscrituraAnticipada registro = registroEscritura;
+        return registro != null
+            ? registro.registrarPoolLicencias(idProducto, new EstadoLicencias(pool.getCapacidad(), pool.obtenerLicenciasAsignadas()))
+            : 0;
+    }
+    
+    /**
+     * Registra la asignación o la devolución de una licencia, si hay persistencia.
+     * A diferencia de las altas, se escribe sin bloqueos y después de cambiar el pool.
+     * @param idProducto El ID del producto
+     * @param licencia El número de licencia
+     * @param asignada true si la licencia queda asignada
+     * @return El número de secuencia de la entrada, o 0 si no hay persistencia
+     */
+    protected long registrarLicencia(String idProducto, int licencia, boolean asignada) {
+        RegistroEscrituraAnticipada registro = registroEscritura;
+        return registro != null ? registro.registrarLicencia(idProducto, licencia, asignada) : 0;
+    }
+    
+    /**
+     * Obtiene el bloqueo que ordena en el registro las altas, bajas y cambios de stock de un ID.
+     * Se toma siempre el último, dentro del monitor del producto y de los bloqueos del
+     * gestor, y abarca tanto el cambio en el índice como su entrada en el registro.
+     * @param idProducto El ID del producto
+     * @return El bloqueo de la franja a la que pertenece el ID
+     */
+    protected Object bloqueoRegistro(String idProducto) {
+        return bloqueosRegistro[Math.floorMod(idProducto.hashCode(), bloqueosRegistro.length)];
+    }
+    
+    /**
+     * Registra el alta de un producto en el registro de escritura anticipada, si lo hay.
+     * Debe llamarse con el producto y su bloqueoRegistro tomados y antes de indexarlo,
+     * para que un fallo al escribir no deje en memoria un alta que no está en el registro.
+     * @param producto El producto añadido
+     * @return El número de secuencia de la entrada, o 0 si no hay persistencia
+     */
+    protected long registrarAlta(ProductoInterface producto) {
+        RegistroEscrituraAnticipada registro = registroEscritura;
+        return registro != null ? registro.registrarAlta(producto) : 0;
+    }
+    
+    /**
+     * Registra la baja de un producto en el registro de escritura anticipada, si lo hay.
+     * Igual que el alta, se escribe con su bloqueoRegistro tomado y antes de quitarlo del índice.
+     * @param idProducto El ID del producto eliminado
+     * @return El número de secuencia de la entrada, o 0 si no hay persistencia
+     */
+    protected long registrarBaja(String idProducto) {
+        RegistroEscrituraAnticipada registro = registroEscritura;
+        return registro != null ? registro.registrarBaja(idProducto) : 0;
+    }
+    
+    /**
+     * Registra la nueva cantidad de un producto en el registro de escritura anticipada, si lo hay.
+     * Como las altas, se escribe con el producto y su bloqueoRegistro tomados y antes de aplicar
+     * la cantidad, para que un fallo al escribir no deje en memoria un stock que no está en el
+     * registro y ningún punto de control vea la entrada sin el cambio.
+     * @param idProducto El ID del producto
+     * @param cantidad La cantidad que se va a aplicar
+     * @return El número de secuencia de la entrada, o 0 si no hay persistencia
+     */
+    protected long registrarStock(String idProducto, Integer cantidad) {
+        RegistroEscrituraAnticipada registro = registroEscritura;
+        return registro != null ? registro.registrarStock(idProducto, valorCantidad(cantidad)) : 0;
+    }
+    
+    /**
+     * Registra las nuevas cantidades de un lote en una única entrada del registro, si lo hay.
+     * Se escribe antes de aplicar ninguna cantidad y con los bloqueos que excluyen al
+     * resto de escritores del inventario tomados.
+     * @param nuevasCantidades Mapa de ID de producto a nueva cantidad
+     * @return El número de secuencia de la entrada, o 0 si no hay persistencia
+     */
+    protected long registrarStockLote(Map<String, Integer> nuevasCantidades) {
+        RegistroEscrituraAnticipada registro = registroEscritura;
+        return registro != null ? registro.registrarStockLote(nuevasCantidades) : 0;
+    }
+    
+    /**
+     * Espera a que una entrada del registro esté en disco según su política de sincronización.
+     * Debe llamarse sin bloqueos retenidos para que las esperas concurrentes compartan el fsync.
+     * @param lsn El número de secuencia devuelto al registrar la entrada
+     */
+    protected void esperarPersistencia(long lsn) {
+        RegistroEscrituraAnticipada registro = registroEscritura;
+        if (registro != null && lsn > 0) {
+            registro.esperarPersistencia(lsn);
+        }
+    }
+    
+    /**
+     * Retiene los eventos que publique este hilo hasta publicarEventosRetenidos.
+     * Se llama antes de tomar los bloqueos de una operación que notifica cambios, para que
+     * los observadores no se ejecuten dentro de la sección crítica.
+     */
+    protected void retenerEventos() {
+        NotificationManager.getInstancia().retenerEventos();
+    }
+    
+    /**
+     * Publica los eventos retenidos con retenerEventos. Se llama en el finally, tras soltar los bloqueos.
+     */
+    protected void publicarEventosRetenidos() {
+        NotificationManager.getInstancia().publicarEventosRetenidos();
+    }
+    
+    /**
+     * Registra el contador de reservas de un producto recién añadido y publica PRODUCTO_AGREGADO.
+     * Los eventos de producto llevan como datos el ID del producto.
+     * @param producto El producto añadido
+     */
+    protected void registrarContadorStock(ProductoInterface producto) {
+        contadoresStock.put(producto.getId(), new ContadorStock(valorCantidad(producto.getCantidad())));
+        detectorStockBajo.evaluar(producto.getId(), valorCantidad(producto.getCantidad()));
+        version.incrementAndGet();
+        NotificationManager.getInstancia().notificarEvento(TipoEvento.PRODUCTO_AGREGADO, producto.getId());
+    }
+    
+    /**
+     * Elimina el contador de reservas de un producto eliminado y publica PRODUCTO_ELIMINADO.
+     * @param idProducto El ID del producto eliminado
+     */
+    protected void eliminarContadorStock(String idProducto) {
+        contadoresStock.remove(idProducto);
+        detectorStockBajo.eliminarUmbral(idProducto);
+        version.incrementAndGet();
+        NotificationManager.getInstancia().notificarEvento(TipoEvento.PRODUCTO_ELIMINADO, idProducto);
+    }
+    
+    /**
+     * Ajusta el stock disponible para reservas de un producto cuando cambia su cantidad total.
+     * Las reducciones deben ajustarse antes de modificar el producto, porque fallan si la nueva
+     * cantidad no cubre las unidades reservadas; los aumentos siempre se aceptan.
+     * @param idProducto El ID del producto
+     * @param cantidadAnterior La cantidad antes del cambio
+     * @param cantidadNueva La cantidad después del cambio
+     * @return true si se ajustó, false si la nueva cantidad es menor que lo reservado
+     */
+    protected boolean ajustarStockDisponible(String idProducto, Integer cantidadAnterior, Integer cantidadNueva) {
+        ContadorStock contador = contadoresStock.get(idProducto);
+        return contador == null || contador.ajustar(valorCantidad(cantidadNueva) - valorCantidad(cantidadAnterior));
+    }
+    
+    /**
+     * Registra el cambio de cantidad de un producto, cuyo stock disponible ya se ajustó
+     * con ajustarStockDisponible, y publica STOCK_ACTUALIZADO.
+     * @param idProducto El ID del producto
+     * @param cantidadNueva La cantidad después del cambio
+     */
+    protected void ajustarContadorStock(String idProducto, Integer cantidadNueva) {
+        detectorStockBajo.evaluar(idProducto, valorCantidad(cantidadNueva));
+        version.incrementAndGet();
+        NotificationManager.getInstancia().notificarEvento(TipoEvento.STOCK_ACTUALIZADO, idProducto);
+    }
+    
+    /**
+     * Crea la excepción para una reducción de stock que dejaría sin cubrir unidades reservadas.
+     * @param idProducto El ID del producto
+     * @param nuevaCantidad La cantidad rechazada
+     * @return La excepción, con las unidades reservadas como stock requerido
+     */
+    protected InventarioInsuficienteExcepcion crearExcepcionStockReservado(String idProducto, Integer nuevaCantidad) {
+        return new InventarioInsuficienteExcepcion(
+            "No se puede reducir el stock del producto " + idProducto + " a " + nuevaCantidad
+                + " unidades: hay " + obtenerStockReservado(idProducto) + " unidades reservadas",
+            idProducto,
+            valorCantidad(nuevaCantidad),
+            obtenerStockReservado(idProducto)
+        );
+    }
+    
+    /**
+     * Descuenta del producto las unidades de una reserva confirmada.
+     * Las subclases pueden sobrescribirlo para actualizar su propia contabilidad.
+     * @param producto El producto
+     * @param cantidad Unidades confirmadas
+     * @return El número de secuencia de la entrada en el registro, o 0 si no hay persistencia
+     */
+    protected long descontarStockConfirmado(ProductoInterface producto, int cantidad) {
+        long lsn;
+        retenerEventos();
+        try {
+            synchronized (producto) {
+                if (buscarProducto(producto.getId()) != producto) {
+                    // Eliminado mientras se confirmaba: su baja ya está en el registro
+                    return 0;
+                }
+                // No puede quedar en negativo: ajustarStockDisponible rechaza cualquier cantidad
+                // que no cubra las unidades reservadas, incluidas las confirmadas pendientes de descontar
+                int cantidadNueva = producto.getCantidad() - cantidad;
+                synchronized (bloqueoRegistro(producto.getId())) {
+                    lsn = registrarStock(producto.getId(), cantidadNueva);
+                    producto.setCantidad(cantidadNueva);
+                }
+                detectorStockBajo.evaluar(producto.getId(), valorCantidad(producto.getCantidad()));
+            }
+        } finally {
+            publicarEventosRetenidos();
+        }
+        version.incrementAndGet();
+        NotificationManager.getInstancia().notificarEvento(TipoEvento.STOCK_ACTUALIZADO, producto.getId());
+        return lsn;
+    }
+    
+    /**
+     * Valida los parámetros de una actualización de stock en lote.
+     * @param nuevasCantidades Mapa de ID de producto a nueva cantidad en stock
+     */
+    protected void validarLote(Map<String, Integer> nuevasCantidades) {
+        if (nuevasCantidades == null) {
+            throw new IllegalArgumentException("El lote de cantidades no puede ser nulo");
+        }
+        for (Map.Entry<String, Integer> entrada : nuevasCantidades.entrySet()) {
+            if (entrada.getKey() == null || entrada.getKey().trim().isEmpty()) {
+                throw new IllegalArgumentException("El ID del producto no puede ser nulo o vacío");
+            }
+            if (entrada.getValue() == null || entrada.getValue() < 0) {
+                throw new IllegalArgumentException("La nueva cantidad debe ser un número positivo");
+            }
+        }
+    }
+    
+    /**
+     * Crea la excepción para un lote que contiene productos inexistentes.
+     * @param noEncontrados IDs de los productos que no existen en el inventario
+     * @return La excepción con el primer ID no encontrado y la lista completa en el mensaje
+     */
+    protected ProductoNoEncontradoExcepcion crearExcepcionLoteNoEncontrado(List<String> noEncontrados) {
+        return new ProductoNoEncontradoExcepcion(
+            "Los productos " + String.join(", ", noEncontrados) + " no se encuentran en el inventario para actualizar stock en lote",
+            noEncontrados.get(0),
+            this.nombreInventario
+        );
+    }
+    
+    private ContadorStock obtenerContadorStock(String idProducto) throws ProductoNoEncontradoExcepcion {
+        ContadorStock contador = idProducto != null ? contadoresStock.get(idProducto) : null;
+        if (contador == null) {
+            throw new ProductoNoEncontradoExcepcion(
+                "El producto con ID " + idProducto + " no se encuentra en el inventario",
+                idProducto,
+                this.nombreInventario
+            );
+        }
+        return contador;
+    }
+    
+    private void validarCantidadReserva(int cantidad) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad de la reserva debe ser mayor que cero");
+        }
+    }
+    
+    private int valorCantidad(Integer cantidad) {
+        return cantidad != null ? cantidad : 0;
+    }
 }
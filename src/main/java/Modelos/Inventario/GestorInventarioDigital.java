@@ -1,22 +1,46 @@
 package Modelos.Inventario;
 
+import Bitacora.Bitacora;
+import Bitacora.Registrador;
+import Excepciones.InventarioInsuficienteExcepcion;
+import Excepciones.ProductoNoEncontradoExcepcion;
 import Modelos.Producto.ProductoInterface;
 import Modelos.Producto.ProductoDigital;
+import Persistencia.EstadoLicencias;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implementación concreta de GestorInventario para productos digitales.
  * Maneja el inventario de productos digitales como archivos, software, etc.
+ * Mantiene un índice secundario por formato que se actualiza en cada alta y baja,
+ * de modo que obtenerProductosPorFormato no recorre el inventario.
+ * Los productos con pool de licencias solo cambian de stock al asignar y devolver
+ * licencias: su cantidad es una vista de las licencias libres del pool, que asigna y
+ * devuelve sin bloquear el producto.
  */
 public class GestorInventarioDigital extends GestorInventario {
-    private final List<ProductoInterface> productosDigitales;
+    private static final Registrador REGISTRO = Bitacora.obtenerRegistrador(GestorInventarioDigital.class);
+    
+    private final IndiceProductos productosDigitales;
+    private final Map<String, PoolLicencias> poolsLicencias;
+    private final Map<String, IndiceProductos> productosPorFormato;
+    // Formato con el que se indexó cada instancia (los productos no redefinen equals), por si después cambia
+    private final Map<ProductoInterface, String> formatosIndexados;
     private String servidorAlmacenamiento;
     
     public GestorInventarioDigital(String nombreInventario, String ubicacion, String servidorAlmacenamiento) {
         super(nombreInventario, ubicacion);
         this.servidorAlmacenamiento = servidorAlmacenamiento;
-        this.productosDigitales = new ArrayList<>();
+        this.productosDigitales = new IndiceProductos();
+        this.poolsLicencias = new ConcurrentHashMap<>();
+        this.productosPorFormato = new ConcurrentHashMap<>();
+        this.formatosIndexados = new ConcurrentHashMap<>();
     }
     
     @Override
@@ -24,60 +48,261 @@ public class GestorInventarioDigital extends GestorInventario {
         if (producto instanceof ProductoDigital productoDigital) {
             // Verificar que el producto digital tenga URL válida
             if (productoDigital.getUrl() != null && !productoDigital.getUrl().isEmpty()) {
-                productosDigitales.add(producto);
-                System.out.println("Producto digital añadido: " + producto.getNombre() + 
-                                 " al servidor: " + servidorAlmacenamiento);
+                long lsn;
+                synchronized (producto) {
+                    synchronized (bloqueoRegistro(producto.getId())) {
+                        if (productosDigitales.contiene(producto.getId())) {
+                            REGISTRO.advertencia("Ya existe un producto digital con ID: {}", producto.getId());
+                            return false;
+                        }
+                        // El alta se escribe antes de indexar: si el registro falla no queda nada que deshacer
+                        lsn = registrarAlta(producto);
+                        productosDigitales.agregar(producto);
+                        indexarFormato(productoDigital);
+                    }
+                }
+                registrarContadorStock(producto);
+                esperarPersistencia(lsn);
+                REGISTRO.info("Producto digital añadido: {} al servidor: {}", producto.getNombre(), servidorAlmacenamiento);
                 return true;
             } else {
-                System.out.println("Error: El producto digital debe tener una URL válida");
+                REGISTRO.advertencia("El producto digital debe tener una URL válida");
                 return false;
             }
         } else {
-            System.out.println("Error: Solo se pueden añadir productos digitales a este inventario");
+            REGISTRO.advertencia("Solo se pueden añadir productos digitales a este inventario");
             return false;
         }
     }
     
     @Override
     public boolean eliminarProducto(String idProducto) {
-        for (int i = 0; i < productosDigitales.size(); i++) {
-            if (productosDigitales.get(i).getId().equals(idProducto)) {
-                ProductoInterface productoEliminado = productosDigitales.remove(i);
-                System.out.println("Producto digital eliminado: " + productoEliminado.getNombre());
+        ProductoInterface productoEliminado = productosDigitales.buscar(idProducto);
+        if (productoEliminado != null) {
+            long lsn = -1;
+            retenerEventos();
+            try {
+                synchronized (productoEliminado) {
+                    synchronized (bloqueoRegistro(idProducto)) {
+                        if (productosDigitales.buscar(idProducto) == productoEliminado) {
+                            lsn = registrarBaja(idProducto);
+                            productosDigitales.eliminar(idProducto, productoEliminado);
+                        }
+                    }
+                    if (lsn >= 0) {
+                        desindexarFormato(productoEliminado);
+                        PoolLicencias pool = poolsLicencias.remove(idProducto);
+                        if (pool != null) {
+                            // El producto conserva como cantidad las licencias libres al eliminarlo
+                            ((ProductoDigital) productoEliminado).desvincularCantidad(pool);
+                        }
+                        eliminarContadorStock(idProducto);
+                    }
+                }
+            } finally {
+                publicarEventosRetenidos();
+            }
+            if (lsn >= 0) {
+                esperarPersistencia(lsn);
+                REGISTRO.info("Producto digital eliminado: {}", productoEliminado.getNombre());
                 return true;
             }
         }
-        System.out.println("Producto digital no encontrado con ID: " + idProducto);
+        REGISTRO.advertencia("Producto digital no encontrado con ID: {}", idProducto);
         return false;
     }
     
     @Override
     public boolean actualizarStock(String idProducto, Integer nuevaCantidad) {
-        for (ProductoInterface producto : productosDigitales) {
-            if (producto.getId().equals(idProducto)) {
-                producto.setCantidad(nuevaCantidad);
-                System.out.println("Stock actualizado para producto digital " + producto.getNombre() + 
-                                 " a: " + nuevaCantidad + " licencias");
-                return true;
+        ProductoInterface producto = productosDigitales.buscar(idProducto);
+        if (producto != null) {
+            long lsn;
+            retenerEventos();
+            try {
+                synchronized (producto) {
+                    if (productosDigitales.buscar(idProducto) != producto) {
+                        REGISTRO.advertencia("Producto digital no encontrado para actualizar stock: {}", idProducto);
+                        return false;
+                    }
+                    if (poolsLicencias.containsKey(idProducto)) {
+                        REGISTRO.advertencia("El stock de {} lo gestiona su pool de licencias", producto.getNombre());
+                        return false;
+                    }
+                    Integer cantidadAnterior = producto.getCantidad();
+                    if (!ajustarStockDisponible(idProducto, cantidadAnterior, nuevaCantidad)) {
+                        REGISTRO.advertencia("No se puede reducir el stock de {} por debajo de sus {} licencias reservadas",
+                                             producto.getNombre(), obtenerStockReservado(idProducto));
+                        return false;
+                    }
+                    // La entrada se escribe antes de aplicar la cantidad, como las altas y bajas
+                    synchronized (bloqueoRegistro(idProducto)) {
+                        try {
+                            lsn = registrarStock(idProducto, nuevaCantidad);
+                        } catch (RuntimeException e) {
+                            ajustarStockDisponible(idProducto, nuevaCantidad, cantidadAnterior);
+                            throw e;
+                        }
+                        producto.setCantidad(nuevaCantidad);
+                    }
+                    ajustarContadorStock(idProducto, nuevaCantidad);
+                }
+            } finally {
+                publicarEventosRetenidos();
             }
+            esperarPersistencia(lsn);
+            REGISTRO.info("Stock actualizado para producto digital {} a: {} licencias", producto.getNombre(), nuevaCantidad);
+            return true;
         }
-        System.out.println("Producto digital no encontrado para actualizar stock: " + idProducto);
+        REGISTRO.advertencia("Producto digital no encontrado para actualizar stock: {}", idProducto);
         return false;
     }
     
+    /**
+     * Reserva unidades de un producto sin pool de licencias.
+     * @throws IllegalStateException Si el stock del producto lo gestiona su pool de licencias
+     */
+    @Override
+    public boolean reservarStock(String idProducto, int cantidad) throws ProductoNoEncontradoExcepcion, InventarioInsuficienteExcepcion {
+        ProductoInterface producto = buscarProductoExistente(idProducto);
+        // Con el producto bloqueado no se puede habilitar su pool a mitad de la reserva
+        synchronized (producto) {
+            validarSinPool(idProducto);
+            return super.reservarStock(idProducto, cantidad);
+        }
+    }
+    
+    /**
+     * Confirma unidades reservadas de un producto sin pool de licencias.
+     * @throws IllegalStateException Si el stock del producto lo gestiona su pool de licencias
+     */
+    @Override
+    public boolean confirmarReserva(String idProducto, int cantidad) throws ProductoNoEncontradoExcepcion {
+        validarSinPool(idProducto);
+        return super.confirmarReserva(idProducto, cantidad);
+    }
+    
+    /**
+     * Para los productos con pool de licencias, las unidades disponibles son sus licencias libres.
+     */
+    @Override
+    public int obtenerStockDisponible(String idProducto) {
+        PoolLicencias pool = idProducto != null ? poolsLicencias.get(idProducto) : null;
+        return pool != null ? pool.getDisponibles() : super.obtenerStockDisponible(idProducto);
+    }
+    
     @Override
     public List<ProductoInterface> obtenerProductos() {
-        return new ArrayList<>(productosDigitales);
+        return productosDigitales.productos();
     }
     
     @Override
     public ProductoInterface buscarProducto(String idProducto) {
-        for (ProductoInterface producto : productosDigitales) {
-            if (producto.getId().equals(idProducto)) {
-                return producto;
+        return productosDigitales.buscar(idProducto);
+    }
+    
+    /**
+     * Obtiene los productos con un formato, sin distinguir mayúsculas, usando el índice por formato.
+     * @param formato El formato buscado, por ejemplo "PDF"
+     * @return Los productos con ese formato, en orden de alta
+     */
+    public List<ProductoInterface> obtenerProductosPorFormato(String formato) {
+        String clave = claveFormato(formato);
+        IndiceProductos indice = clave != null ? productosPorFormato.get(clave) : null;
+        return indice != null ? indice.productos() : new ArrayList<>();
+    }
+    
+    /**
+     * Habilita la venta por licencias individuales de un producto digital.
+     * La cantidad actual del producto pasa a ser la capacidad del pool y, desde ese momento,
+     * su stock se gestiona asignando y devolviendo licencias en lugar de con actualizarStock
+     * o con reservas, y su cantidad se lee del pool.
+     * @param idProducto El ID del producto
+     * @return El pool de licencias del producto
+     * @throws ProductoNoEncontradoExcepcion Si el producto no existe en el inventario
+     * @throws IllegalStateException Si el producto tiene unidades reservadas
+     */
+    public PoolLicencias habilitarPoolLicencias(String idProducto) throws ProductoNoEncontradoExcepcion {
+        ProductoInterface producto = buscarProductoExistente(idProducto);
+        PoolLicencias pool;
+        long lsn;
+        synchronized (producto) {
+            validarVigente(producto);
+            PoolLicencias existente = poolsLicencias.get(idProducto);
+            if (existente != null) {
+                return existente;
+            }
+            if (obtenerStockReservado(idProducto) > 0) {
+                throw new IllegalStateException("El producto " + idProducto + " tiene unidades reservadas y no puede venderse por licencias");
+            }
+            pool = new PoolLicencias(producto.getCantidad() != null ? producto.getCantidad() : 0);
+            synchronized (bloqueoRegistro(idProducto)) {
+                lsn = registrarPoolLicencias(idProducto, pool);
+                poolsLicencias.put(idProducto, pool);
+                ((ProductoDigital) producto).vincularCantidad(pool);
             }
         }
-        return null;
+        esperarPersistencia(lsn);
+        return pool;
+    }
+    
+    /**
+     * Asigna una licencia del producto a un comprador, lo que descuenta una unidad de su stock.
+     * No bloquea el producto: la licencia se marca en el pool y después se escribe su entrada,
+     * que comparte el fsync con las de los demás compradores que esperan a la vez.
+     * Como el pool ya está marcado cuando la entrada recibe su número de secuencia, un punto
+     * de control con un corte posterior siempre incluye la licencia.
+     * @param idProducto El ID del producto
+     * @return El número de licencia asignada
+     * @throws ProductoNoEncontradoExcepcion Si el producto no tiene pool de licencias
+     * @throws InventarioInsuficienteExcepcion Si no quedan licencias libres
+     */
+    public int asignarLicencia(String idProducto) throws ProductoNoEncontradoExcepcion, InventarioInsuficienteExcepcion {
+        PoolLicencias pool = obtenerPoolExistente(idProducto);
+        int licencia = pool.asignar();
+        if (licencia < 0) {
+            throw new InventarioInsuficienteExcepcion(
+                "No quedan licencias disponibles para el producto " + idProducto,
+                idProducto, 0, 1
+            );
+        }
+        long lsn;
+        try {
+            lsn = registrarLicencia(idProducto, licencia, true);
+        } catch (RuntimeException e) {
+            pool.devolver(licencia);
+            throw e;
+        }
+        ajustarContadorStock(idProducto, pool.getDisponibles());
+        esperarPersistencia(lsn);
+        return licencia;
+    }
+    
+    /**
+     * Devuelve una licencia asignada al pool del producto, lo que suma una unidad a su stock.
+     * Como la asignación, no bloquea el producto y escribe la entrada después de cambiar el pool.
+     * Si la entrada no se puede escribir, la licencia queda libre en memoria pero asignada en el
+     * registro: tras recuperarlo sobraría una licencia asignada, nunca se entregaría dos veces.
+     * @param idProducto El ID del producto
+     * @param licencia El número de licencia
+     * @throws ProductoNoEncontradoExcepcion Si el producto no tiene pool de licencias
+     * @throws IllegalArgumentException Si la licencia está fuera del pool
+     * @throws IllegalStateException Si la licencia no estaba asignada
+     */
+    public void devolverLicencia(String idProducto, int licencia) throws ProductoNoEncontradoExcepcion {
+        PoolLicencias pool = obtenerPoolExistente(idProducto);
+        pool.devolver(licencia);
+        long lsn = registrarLicencia(idProducto, licencia, false);
+        ajustarContadorStock(idProducto, pool.getDisponibles());
+        esperarPersistencia(lsn);
+    }
+    
+    /**
+     * Obtiene el pool de licencias de un producto.
+     * @param idProducto El ID del producto
+     * @return El pool, o null si el producto no vende licencias individuales
+     */
+    public PoolLicencias obtenerPoolLicencias(String idProducto) {
+        return poolsLicencias.get(idProducto);
     }
     
     /**
@@ -92,13 +317,131 @@ public class GestorInventarioDigital extends GestorInventario {
             boolean urlDisponible = productoDigital.getUrl() != null && 
                                   !productoDigital.getUrl().isEmpty() && 
                                   productoDigital.getCantidad() > 0;
-            System.out.println("Verificación de URL para " + producto.getNombre() + 
-                             ": " + (urlDisponible ? "Disponible" : "No disponible"));
+            REGISTRO.info("Verificación de URL para {}: {}", producto.getNombre(), urlDisponible ? "Disponible" : "No disponible");
             return urlDisponible;
         }
         return false;
     }
     
+    /**
+     * Verifica que las URLs de todos los productos digitales respondan, sondeándolas a la vez.
+     * @param verificador El verificador de URLs a usar, que conserva su caché entre barridos
+     * @return Disponibilidad de la URL de cada producto, por ID de producto
+     */
+    public CompletableFuture<Map<String, Boolean>> verificarDisponibilidadUrls(VerificadorUrls verificador) {
+        List<ProductoInterface> productos = obtenerProductos();
+        Map<String, String> urlsPorProducto = new LinkedHashMap<>();
+        for (ProductoInterface producto : productos) {
+            if (producto instanceof ProductoDigital productoDigital) {
+                urlsPorProducto.put(producto.getId(), productoDigital.getUrl());
+            }
+        }
+        return verificador.verificarTodas(urlsPorProducto.values()).thenApply(disponibles -> {
+            Map<String, Boolean> resultado = new LinkedHashMap<>();
+            urlsPorProducto.forEach((id, url) -> resultado.put(id, disponibles.getOrDefault(url, false)));
+            REGISTRO.info("Verificación de URLs completada: {} productos digitales", resultado.size());
+            return resultado;
+        });
+    }
+    
+    /**
+     * Instala en este inventario el pool de licencias de un producto trasladado desde otro.
+     * @param idProducto El ID del producto, que ya debe estar en este inventario
+     * @param pool El pool del producto en el inventario de origen
+     * @throws ProductoNoEncontradoExcepcion Si el producto no está en este inventario
+     */
+    void instalarPoolLicencias(String idProducto, PoolLicencias pool) throws ProductoNoEncontradoExcepcion {
+        ProductoInterface producto = buscarProductoExistente(idProducto);
+        long lsn;
+        synchronized (producto) {
+            validarVigente(producto);
+            synchronized (bloqueoRegistro(idProducto)) {
+                lsn = registrarPoolLicencias(idProducto, pool);
+                poolsLicencias.put(idProducto, pool);
+                ((ProductoDigital) producto).vincularCantidad(pool);
+            }
+        }
+        esperarPersistencia(lsn);
+    }
+    
+    @Override
+    protected Map<String, EstadoLicencias> obtenerEstadoLicencias() {
+        Map<String, EstadoLicencias> estado = new LinkedHashMap<>();
+        poolsLicencias.forEach((idProducto, pool) ->
+            estado.put(idProducto, new EstadoLicencias(pool.getCapacidad(), pool.obtenerLicenciasAsignadas())));
+        return estado;
+    }
+    
+    @Override
+    protected void restaurarLicencias(Map<String, EstadoLicencias> licencias) {
+        licencias.forEach((idProducto, estado) -> {
+            if (productosDigitales.buscar(idProducto) instanceof ProductoDigital producto) {
+                PoolLicencias pool = new PoolLicencias(estado.getCapacidad(), estado.getAsignadas());
+                poolsLicencias.put(idProducto, pool);
+                producto.vincularCantidad(pool);
+            }
+        });
+    }
+    
+    private void validarVigente(ProductoInterface producto) throws ProductoNoEncontradoExcepcion {
+        if (productosDigitales.buscar(producto.getId()) != producto) {
+            throw new ProductoNoEncontradoExcepcion(
+                "El producto con ID " + producto.getId() + " no se encuentra en el inventario",
+                producto.getId(),
+                getNombreInventario()
+            );
+        }
+    }
+    
+    private void validarSinPool(String idProducto) {
+        if (idProducto != null && poolsLicencias.containsKey(idProducto)) {
+            throw new IllegalStateException("El stock del producto " + idProducto + " lo gestiona su pool de licencias");
+        }
+    }
+    
+    private void indexarFormato(ProductoDigital producto) {
+        String clave = claveFormato(producto.getFormato());
+        if (clave != null) {
+            productosPorFormato.computeIfAbsent(clave, _ -> new IndiceProductos()).agregar(producto);
+            formatosIndexados.put(producto, clave);
+        }
+    }
+    
+    private void desindexarFormato(ProductoInterface producto) {
+        String clave = formatosIndexados.remove(producto);
+        if (clave != null) {
+            productosPorFormato.get(clave).eliminar(producto.getId(), producto);
+        }
+    }
+    
+    private static String claveFormato(String formato) {
+        return formato == null || formato.isBlank() ? null : formato.strip().toUpperCase(Locale.ROOT);
+    }
+    
+    private ProductoInterface buscarProductoExistente(String idProducto) throws ProductoNoEncontradoExcepcion {
+        ProductoInterface producto = productosDigitales.buscar(idProducto);
+        if (producto == null) {
+            throw new ProductoNoEncontradoExcepcion(
+                "El producto con ID " + idProducto + " no se encuentra en el inventario",
+                idProducto,
+                getNombreInventario()
+            );
+        }
+        return producto;
+    }
+    
+    private PoolLicencias obtenerPoolExistente(String idProducto) throws ProductoNoEncontradoExcepcion {
+        PoolLicencias pool = poolsLicencias.get(idProducto);
+        if (pool == null) {
+            throw new ProductoNoEncontradoExcepcion(
+                "El producto con ID " + idProducto + " no tiene un pool de licencias",
+                idProducto,
+                getNombreInventario()
+            );
+        }
+        return pool;
+    }
+    
     /**
      * Obtener el servidor de almacenamiento
      * @return El servidor de almacenamiento
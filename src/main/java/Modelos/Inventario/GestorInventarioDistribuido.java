@@ -0,0 +1,619 @@
+package Modelos.Inventario;
+
+import Modelos.Producto.ProductoInterface;
+import Excepciones.InventarioInsuficienteExcepcion;
+import Excepciones.ProductoNoEncontradoExcepcion;
+import Persistencia.EstadoLicencias;
+import Persistencia.RegistroEscrituraAnticipada;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Implementación compuesta de GestorInventario que reparte los productos entre
+ * varios almacenes. Cada producto se asigna a un almacén mediante hashing
+ * consistente sobre su ID, de modo que las escrituras van directamente al almacén
+ * responsable y, al añadir un almacén nuevo, solo se mueven los productos que
+ * pasan a pertenecerle. Mientras se mueven, las escrituras sobre esos IDs esperan
+ * a que termine el traslado; las del resto siguen su curso.
+ */
+public class GestorInventarioDistribuido extends GestorInventario {
+    private static final int NODOS_VIRTUALES_POR_ALMACEN = 128;
+    
+    private final List<GestorInventario> almacenes;
+    private volatile TreeMap<Integer, GestorInventario> anillo;
+    private volatile InstantaneaProductos instantanea;
+    // Las escrituras lo toman en lectura; agregarAlmacen en escritura para iniciar y terminar un traslado
+    private final ReentrantReadWriteLock bloqueoTraslado;
+    private volatile Traslado traslado;
+    
+    public GestorInventarioDistribuido(String nombreInventario, String ubicacion, List<GestorInventario> almacenes) {
+        super(nombreInventario, ubicacion);
+        if (almacenes == null || almacenes.isEmpty()) {
+            throw new IllegalArgumentException("El inventario distribuido necesita al menos un almacén");
+        }
+        this.almacenes = new CopyOnWriteArrayList<>();
+        this.bloqueoTraslado = new ReentrantReadWriteLock();
+        for (GestorInventario almacen : almacenes) {
+            validarAlmacenNuevo(almacen);
+            this.almacenes.add(almacen);
+        }
+        this.anillo = construirAnillo(this.almacenes);
+    }
+    
+    @Override
+    public boolean añadirProducto(ProductoInterface producto) throws InventarioInsuficienteExcepcion {
+        if (producto == null) {
+            throw new IllegalArgumentException("No se puede añadir un producto nulo al inventario");
+        }
+        entrarEscritura(producto.getId());
+        try {
+            return obtenerAlmacen(producto.getId()).añadirProducto(producto);
+        } finally {
+            salirEscritura();
+        }
+    }
+    
+    @Override
+    public boolean eliminarProducto(String idProducto) throws ProductoNoEncontradoExcepcion {
+        validarId(idProducto);
+        entrarEscritura(idProducto);
+        try {
+            return obtenerAlmacen(idProducto).eliminarProducto(idProducto);
+        } finally {
+            salirEscritura();
+        }
+    }
+    
+    @Override
+    public boolean actualizarStock(String idProducto, Integer nuevaCantidad) throws ProductoNoEncontradoExcepcion, InventarioInsuficienteExcepcion {
+        validarId(idProducto);
+        entrarEscritura(idProducto);
+        try {
+            return obtenerAlmacen(idProducto).actualizarStock(idProducto, nuevaCantidad);
+        } finally {
+            salirEscritura();
+        }
+    }
+    
+    /**
+     * Agrupa el lote por almacén y delega en cada uno su actualización en lote.
+     * Todos los productos se validan antes de aplicar cambios; cada almacén aplica
+     * su parte de forma atómica, pero el lote no es atómico entre almacenes.
+     */
+    @Override
+    public boolean actualizarStockLote(Map<String, Integer> nuevasCantidades) throws ProductoNoEncontradoExcepcion, InventarioInsuficienteExcepcion {
+        validarLote(nuevasCantidades);
+        entrarEscritura(nuevasCantidades.keySet());
+        try {
+            return actualizarLoteEnAlmacenes(nuevasCantidades);
+        } finally {
+            salirEscritura();
+        }
+    }
+    
+    private boolean actualizarLoteEnAlmacenes(Map<String, Integer> nuevasCantidades) throws ProductoNoEncontradoExcepcion, InventarioInsuficienteExcepcion {
+        Map<GestorInventario, Map<String, Integer>> lotesPorAlmacen = new LinkedHashMap<>();
+        List<String> noEncontrados = new ArrayList<>();
+        for (Map.Entry<String, Integer> entrada : nuevasCantidades.entrySet()) {
+            GestorInventario almacen = obtenerAlmacen(entrada.getKey());
+            if (almacen.buscarProducto(entrada.getKey()) == null) {
+                noEncontrados.add(entrada.getKey());
+            }
+            lotesPorAlmacen.computeIfAbsent(almacen, _ -> new LinkedHashMap<>())
+                           .put(entrada.getKey(), entrada.getValue());
+        }
+        if (!noEncontrados.isEmpty()) {
+            throw crearExcepcionLoteNoEncontrado(noEncontrados);
+        }
+        
+        for (Map.Entry<GestorInventario, Map<String, Integer>> lote : lotesPorAlmacen.entrySet()) {
+            lote.getKey().actualizarStockLote(lote.getValue());
+        }
+        return true;
+    }
+    
+    /**
+     * Obtiene los productos de todos los almacenes consultándolos en paralelo.
+     * Mientras la versión no cambie se reutiliza la última lista combinada.
+     * @return Lista inmutable de productos, agrupados por almacén
+     */
+    @Override
+    public List<ProductoInterface> obtenerProductos() {
+        long versionActual = obtenerVersion();
+        InstantaneaProductos actual = instantanea;
+        if (actual != null && actual.version == versionActual) {
+            return actual.productos;
+        }
+        List<ProductoInterface> productos = almacenes.parallelStream()
+                .flatMap(almacen -> almacen.obtenerProductos().stream())
+                .toList();
+        instantanea = new InstantaneaProductos(versionActual, productos);
+        return productos;
+    }
+    
+    /**
+     * La versión del inventario distribuido es la suma de las versiones de sus
+     * almacenes, que solo crecen, más el número de almacenes.
+     * @return La versión actual del inventario
+     */
+    @Override
+    public long obtenerVersion() {
+        long suma = almacenes.size();
+        for (GestorInventario almacen : almacenes) {
+            suma += almacen.obtenerVersion();
+        }
+        return suma;
+    }
+    
+    /**
+     * Busca un producto en el almacén responsable de su ID. Si no está allí
+     * (por ejemplo, durante un rebalanceo) se consulta al resto en paralelo.
+     * @param idProducto El ID del producto a buscar
+     * @return El producto encontrado o null si no existe
+     */
+    @Override
+    public ProductoInterface buscarProducto(String idProducto) {
+        if (idProducto == null) {
+            return null;
+        }
+        GestorInventario responsable = obtenerAlmacen(idProducto);
+        ProductoInterface producto = responsable.buscarProducto(idProducto);
+        if (producto != null) {
+            return producto;
+        }
+        return almacenes.parallelStream()
+                .filter(almacen -> almacen != responsable)
+                .map(almacen -> almacen.buscarProducto(idProducto))
+                .filter(encontrado -> encontrado != null)
+                .findAny()
+                .orElse(null);
+    }
+    
+    @Override
+    public boolean reservarStock(String idProducto, int cantidad) throws ProductoNoEncontradoExcepcion, InventarioInsuficienteExcepcion {
+        validarId(idProducto);
+        entrarEscritura(idProducto);
+        try {
+            return obtenerAlmacen(idProducto).reservarStock(idProducto, cantidad);
+        } finally {
+            salirEscritura();
+        }
+    }
+    
+    @Override
+    public boolean confirmarReserva(String idProducto, int cantidad) throws ProductoNoEncontradoExcepcion {
+        validarId(idProducto);
+        entrarEscritura(idProducto);
+        try {
+            return obtenerAlmacen(idProducto).confirmarReserva(idProducto, cantidad);
+        } finally {
+            salirEscritura();
+        }
+    }
+    
+    @Override
+    public boolean liberarReserva(String idProducto, int cantidad) throws ProductoNoEncontradoExcepcion {
+        validarId(idProducto);
+        entrarEscritura(idProducto);
+        try {
+            return obtenerAlmacen(idProducto).liberarReserva(idProducto, cantidad);
+        } finally {
+            salirEscritura();
+        }
+    }
+    
+    @Override
+    public int obtenerStockDisponible(String idProducto) {
+        return idProducto != null ? obtenerAlmacen(idProducto).obtenerStockDisponible(idProducto) : 0;
+    }
+    
+    @Override
+    public int obtenerStockReservado(String idProducto) {
+        return idProducto != null ? obtenerAlmacen(idProducto).obtenerStockReservado(idProducto) : 0;
+    }
+    
+    @Override
+    public void configurarUmbralStock(String idProducto, int umbralReposicion, int histeresis) throws ProductoNoEncontradoExcepcion {
+        validarId(idProducto);
+        entrarEscritura(idProducto);
+        try {
+            obtenerAlmacen(idProducto).configurarUmbralStock(idProducto, umbralReposicion, histeresis);
+        } finally {
+            salirEscritura();
+        }
+    }
+    
+    @Override
+    public EstadoStock obtenerEstadoStock(String idProducto) {
+        return idProducto != null ? obtenerAlmacen(idProducto).obtenerEstadoStock(idProducto) : null;
+    }
+    
+    /**
+     * Combina los productos más agotados de cada almacén.
+     * @param cantidad Número máximo de productos a devolver
+     * @return Alertas ordenadas de más a menos agotado
+     */
+    @Override
+    public List<AlertaStock> obtenerProductosMasAgotados(int cantidad) {
+        return almacenes.parallelStream()
+                .flatMap(almacen -> almacen.obtenerProductosMasAgotados(cantidad).stream())
+                .sorted(AlertaStock::compararAgotamiento)
+                .limit(Math.max(0, cantidad))
+                .toList();
+    }
+    
+    /**
+     * Habilita la persistencia con un único registro compartido por todos los almacenes.
+     * Los productos recuperados se reparten por el anillo y después cada almacén registra
+     * sus altas, bajas y cambios de stock en ese registro; como cada producto vive en un
+     * solo almacén, sus entradas siguen quedando en orden.
+     * @param registro El registro de escritura anticipada ya abierto
+     * @return Número de productos recuperados
+     * @throws InventarioInsuficienteExcepcion Si los productos recuperados no caben en los almacenes
+     */
+    @Override
+    public synchronized int habilitarPersistencia(RegistroEscrituraAnticipada registro) throws InventarioInsuficienteExcepcion {
+        for (GestorInventario almacen : almacenes) {
+            if (almacen.getRegistroEscritura() != null) {
+                throw new IllegalStateException("El almacén " + almacen.getNombreInventario() + " ya tiene su propio registro de escritura anticipada");
+            }
+        }
+        int recuperados = super.habilitarPersistencia(registro);
+        for (GestorInventario almacen : almacenes) {
+            almacen.compartirRegistroEscritura(registro);
+        }
+        return recuperados;
+    }
+    
+    @Override
+    protected void esperarEscriturasEnCurso() {
+        for (GestorInventario almacen : almacenes) {
+            almacen.esperarEscriturasEnCurso();
+        }
+    }
+    
+    @Override
+    protected Map<String, EstadoLicencias> obtenerEstadoLicencias() {
+        Map<String, EstadoLicencias> estado = new LinkedHashMap<>();
+        for (GestorInventario almacen : almacenes) {
+            estado.putAll(almacen.obtenerEstadoLicencias());
+        }
+        return estado;
+    }
+    
+    @Override
+    protected void restaurarLicencias(Map<String, EstadoLicencias> licencias) {
+        for (Map.Entry<String, EstadoLicencias> entrada : licencias.entrySet()) {
+            obtenerAlmacen(entrada.getKey()).restaurarLicencias(Map.of(entrada.getKey(), entrada.getValue()));
+        }
+    }
+    
+    /**
+     * Añade un almacén al inventario y le traslada los productos que ahora le corresponden.
+     * Gracias al hashing consistente solo se mueven esos productos, cada uno con sus reservas
+     * pendientes. Las escrituras sobre los IDs que pasan al nuevo almacén, incluidas las altas,
+     * esperan a que termine el traslado, así que ninguna cae en el almacén de origen a mitad
+     * del movimiento; las lecturas de los ya trasladados se enrutan al nuevo almacén.
+     * El nuevo anillo solo se publica cuando todos los productos están en su sitio; si alguno
+     * no cabe, los ya trasladados vuelven a su almacén de origen y el inventario queda como estaba.
+     * @param almacen El almacén a añadir
+     * @return Número de productos trasladados
+     * @throws InventarioInsuficienteExcepcion Si el nuevo almacén no tiene capacidad para un producto
+     * @throws IllegalArgumentException Si el nuevo almacén ya tiene un producto con el ID de uno trasladado
+     */
+    public synchronized int agregarAlmacen(GestorInventario almacen) throws InventarioInsuficienteExcepcion {
+        validarAlmacenNuevo(almacen);
+        RegistroEscrituraAnticipada registro = getRegistroEscritura();
+        if (registro != null) {
+            if (almacen.getRegistroEscritura() != null || !almacen.obtenerProductos().isEmpty()) {
+                throw new IllegalStateException("Con la persistencia habilitada solo se pueden añadir almacenes vacíos y sin registro propio");
+            }
+            almacen.compartirRegistroEscritura(registro);
+        }
+        List<GestorInventario> nuevosAlmacenes = new ArrayList<>(almacenes);
+        nuevosAlmacenes.add(almacen);
+        TreeMap<Integer, GestorInventario> nuevoAnillo = construirAnillo(nuevosAlmacenes);
+        
+        // El almacén entra en la lista para que buscarProducto encuentre los productos ya trasladados
+        almacenes.add(almacen);
+        Traslado enCurso = new Traslado(nuevoAnillo, almacen);
+        TreeMap<Integer, GestorInventario> anilloFinal = anillo;
+        Map<ProductoInterface, GestorInventario> trasladados = new LinkedHashMap<>();
+        try {
+            // Al publicar el traslado ya terminaron las escrituras que se enrutaron con el anillo anterior
+            cambiarTraslado(enCurso, anilloFinal);
+            try {
+                for (GestorInventario origen : nuevosAlmacenes) {
+                    if (origen == almacen) {
+                        continue;
+                    }
+                    for (ProductoInterface producto : origen.obtenerProductos()) {
+                        if (enCurso.afecta(producto.getId()) && trasladarProducto(producto, origen, almacen)) {
+                            trasladados.put(producto, origen);
+                            enCurso.trasladados.add(producto.getId());
+                        }
+                    }
+                }
+            } catch (InventarioInsuficienteExcepcion | RuntimeException e) {
+                devolverProductos(trasladados, almacen, enCurso, e);
+                almacenes.remove(almacen);
+                if (registro != null) {
+                    almacen.compartirRegistroEscritura(null);
+                }
+                throw e;
+            }
+            anilloFinal = nuevoAnillo;
+        } finally {
+            cambiarTraslado(null, anilloFinal);
+            enCurso.terminar();
+        }
+        return trasladados.size();
+    }
+    
+    /**
+     * Obtiene los almacenes que componen el inventario.
+     * @return Lista inmutable de almacenes
+     */
+    public List<GestorInventario> getAlmacenes() {
+        return Collections.unmodifiableList(almacenes);
+    }
+    
+    /**
+     * Obtiene el almacén responsable de un producto.
+     * @param idProducto El ID del producto
+     * @return El almacén al que se enrutan las operaciones del producto
+     */
+    public GestorInventario obtenerAlmacen(String idProducto) {
+        if (idProducto == null) {
+            throw new IllegalArgumentException("El ID del producto no puede ser nulo");
+        }
+        Traslado enCurso = traslado;
+        if (enCurso != null && enCurso.trasladados.contains(idProducto)) {
+            return enCurso.destino;
+        }
+        return obtenerAlmacen(anillo, idProducto);
+    }
+    
+    /**
+     * Mueve un producto de un almacén a otro junto con su umbral, sus reservas y su pool de licencias.
+     * Las escrituras enrutadas al producto esperan al traslado, así que sus reservas no cambian
+     * entre leerlas y eliminarlo del origen.
+     * Si el destino lo rechaza, el producto vuelve al origen antes de propagar el error.
+     * @return true si se trasladó, false si ya había sido eliminado del origen
+     * @throws IllegalArgumentException Si el destino ya tiene un producto con el mismo ID o no lo admite
+     */
+    private boolean trasladarProducto(ProductoInterface producto, GestorInventario origen, GestorInventario destino) throws InventarioInsuficienteExcepcion {
+        int reservado = origen.obtenerStockReservado(producto.getId());
+        PoolLicencias pool = origen instanceof GestorInventarioDigital digital
+            ? digital.obtenerPoolLicencias(producto.getId())
+            : null;
+        // El umbral de stock bajo viaja con el producto sin volver a notificar
+        origen.getDetectorStockBajo().trasladarUmbral(producto.getId(), destino.getDetectorStockBajo());
+        boolean eliminado;
+        try {
+            eliminado = origen.eliminarProducto(producto.getId());
+        } catch (ProductoNoEncontradoExcepcion e) {
+            eliminado = false;
+        }
+        if (!eliminado) {
+            // Eliminado concurrentemente: no queda nada que trasladar
+            destino.getDetectorStockBajo().eliminarUmbral(producto.getId());
+            return false;
+        }
+        
+        try {
+            if (!destino.añadirProducto(producto)) {
+                throw new IllegalArgumentException(destino.buscarProducto(producto.getId()) != null
+                    ? "El almacén " + destino.getNombreInventario() + " ya tiene un producto con ID " + producto.getId()
+                    : "El almacén " + destino.getNombreInventario() + " no admite el producto " + producto.getId());
+            }
+        } catch (InventarioInsuficienteExcepcion | RuntimeException e) {
+            // Devolver el producto a su almacén original antes de propagar el error
+            destino.getDetectorStockBajo().trasladarUmbral(producto.getId(), origen.getDetectorStockBajo());
+            destino.getDetectorStockBajo().eliminarUmbral(producto.getId());
+            origen.añadirProducto(producto);
+            restaurarPool(origen, producto.getId(), pool);
+            restaurarReserva(origen, producto.getId(), reservado);
+            throw e;
+        }
+        restaurarPool(destino, producto.getId(), pool);
+        restaurarReserva(destino, producto.getId(), reservado);
+        return true;
+    }
+    
+    /**
+     * Devuelve a su almacén de origen los productos trasladados por un rebalanceo fallido.
+     * Los errores al devolverlos se añaden como suprimidos al error que abortó el traslado.
+     * @param trasladados Productos trasladados y su almacén de origen
+     * @param almacen El almacén que se estaba añadiendo
+     * @param enCurso El traslado, que deja de enrutar al nuevo almacén cada producto devuelto
+     * @param error El error que abortó el traslado
+     */
+    private void devolverProductos(Map<ProductoInterface, GestorInventario> trasladados, GestorInventario almacen,
+                                   Traslado enCurso, Exception error) {
+        for (Map.Entry<ProductoInterface, GestorInventario> entrada : trasladados.entrySet()) {
+            try {
+                trasladarProducto(entrada.getKey(), almacen, entrada.getValue());
+                enCurso.trasladados.remove(entrada.getKey().getId());
+            } catch (InventarioInsuficienteExcepcion | RuntimeException e) {
+                error.addSuppressed(e);
+            }
+        }
+    }
+    
+    /**
+     * Toma el bloqueo de traslado en lectura antes de una escritura enrutada. Si alguno de sus
+     * IDs se está trasladando, espera a que termine el traslado, de modo que la escritura se
+     * enruta con el anillo ya publicado. Debe llamarse a salirEscritura al terminar.
+     * @param ids IDs de los productos que modifica la escritura
+     */
+    private void entrarEscritura(Collection<String> ids) {
+        while (true) {
+            bloqueoTraslado.readLock().lock();
+            Traslado pendiente = traslado;
+            if (pendiente == null || !pendiente.afectaAlguno(ids)) {
+                return;
+            }
+            bloqueoTraslado.readLock().unlock();
+            pendiente.esperar();
+        }
+    }
+    
+    private void entrarEscritura(String idProducto) {
+        entrarEscritura(Collections.singletonList(idProducto));
+    }
+    
+    private void salirEscritura() {
+        bloqueoTraslado.readLock().unlock();
+    }
+    
+    /**
+     * Publica o retira un traslado y el anillo con el que se enruta. Toma el bloqueo de
+     * traslado en escritura, así que espera a las escrituras en curso.
+     */
+    private void cambiarTraslado(Traslado nuevo, TreeMap<Integer, GestorInventario> nuevoAnillo) {
+        bloqueoTraslado.writeLock().lock();
+        try {
+            anillo = nuevoAnillo;
+            traslado = nuevo;
+        } finally {
+            bloqueoTraslado.writeLock().unlock();
+        }
+    }
+    
+    private void restaurarPool(GestorInventario almacen, String idProducto, PoolLicencias pool) {
+        if (pool == null) {
+            return;
+        }
+        if (!(almacen instanceof GestorInventarioDigital digital)) {
+            throw new IllegalStateException("El almacén " + almacen.getNombreInventario() + " no admite pools de licencias");
+        }
+        try {
+            digital.instalarPoolLicencias(idProducto, pool);
+        } catch (ProductoNoEncontradoExcepcion e) {
+            throw new IllegalStateException("El producto " + idProducto + " desapareció durante el traslado", e);
+        }
+    }
+    
+    private void restaurarReserva(GestorInventario almacen, String idProducto, int reservado) throws InventarioInsuficienteExcepcion {
+        if (reservado <= 0) {
+            return;
+        }
+        try {
+            almacen.reservarStock(idProducto, reservado);
+        } catch (ProductoNoEncontradoExcepcion e) {
+            throw new IllegalStateException("El producto " + idProducto + " desapareció durante el traslado", e);
+        }
+    }
+    
+    private static GestorInventario obtenerAlmacen(TreeMap<Integer, GestorInventario> anillo, String idProducto) {
+        Map.Entry<Integer, GestorInventario> entrada = anillo.ceilingEntry(hash(idProducto));
+        return entrada != null ? entrada.getValue() : anillo.firstEntry().getValue();
+    }
+    
+    private static TreeMap<Integer, GestorInventario> construirAnillo(List<GestorInventario> almacenes) {
+        TreeMap<Integer, GestorInventario> anillo = new TreeMap<>();
+        for (GestorInventario almacen : almacenes) {
+            for (int i = 0; i < NODOS_VIRTUALES_POR_ALMACEN; i++) {
+                anillo.put(hash(almacen.getNombreInventario() + "#" + i), almacen);
+            }
+        }
+        return anillo;
+    }
+    
+    /**
+     * Dispersa el hashCode de un String para repartir uniformemente los IDs en el anillo.
+     * @param clave La clave a dispersar
+     * @return El hash dispersado
+     */
+    private static int hash(String clave) {
+        int h = clave.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+    
+    private void validarAlmacenNuevo(GestorInventario almacen) {
+        if (almacen == null) {
+            throw new IllegalArgumentException("No se puede añadir un almacén nulo al inventario distribuido");
+        }
+        Set<String> nombres = new HashSet<>();
+        for (GestorInventario existente : almacenes) {
+            nombres.add(existente.getNombreInventario());
+        }
+        if (nombres.contains(almacen.getNombreInventario())) {
+            throw new IllegalArgumentException("Ya existe un almacén con nombre " + almacen.getNombreInventario());
+        }
+    }
+    
+    private void validarId(String idProducto) {
+        if (idProducto == null || idProducto.trim().isEmpty()) {
+            throw new IllegalArgumentException("El ID del producto no puede ser nulo o vacío");
+        }
+    }
+    
+    /**
+     * Traslado de productos a un almacén nuevo. El hilo que lo crea mantiene tomado su bloqueo
+     * hasta terminar, de modo que las escrituras que esperan solo tienen que tomarlo y soltarlo.
+     */
+    private static class Traslado {
+        private final TreeMap<Integer, GestorInventario> anillo;
+        private final GestorInventario destino;
+        private final Set<String> trasladados;
+        private final ReentrantLock enCurso;
+        
+        Traslado(TreeMap<Integer, GestorInventario> anillo, GestorInventario destino) {
+            this.anillo = anillo;
+            this.destino = destino;
+            this.trasladados = ConcurrentHashMap.newKeySet();
+            this.enCurso = new ReentrantLock();
+            this.enCurso.lock();
+        }
+        
+        boolean afecta(String idProducto) {
+            return idProducto != null && obtenerAlmacen(anillo, idProducto) == destino;
+        }
+        
+        boolean afectaAlguno(Collection<String> ids) {
+            for (String idProducto : ids) {
+                if (afecta(idProducto)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        void esperar() {
+            enCurso.lock();
+            enCurso.unlock();
+        }
+        
+        void terminar() {
+            enCurso.unlock();
+        }
+    }
+    
+    private static class InstantaneaProductos {
+        private final long version;
+        private final List<ProductoInterface> productos;
+        
+        InstantaneaProductos(long version, List<ProductoInterface> productos) {
+            this.version = version;
+            this.productos = productos;
+        }
+    }
+}
@@ -1,31 +1,57 @@
 package Modelos.Inventario;
 
+import Bitacora.Bitacora;
+import Bitacora.NivelRegistro;
+import Bitacora.Registrador;
 import Modelos.Producto.ProductoInterface;
 import Modelos.Producto.ProductoFisico;
 import Excepciones.InventarioInsuficienteExcepcion;
 import Excepciones.ProductoNoEncontradoExcepcion;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Implementación concreta de GestorInventario para productos físicos.
  * Maneja el inventario de productos físicos con control de espacio y peso.
+ * La ocupación se lleva en contadores atómicos de punto fijo (miligramos y mm³),
+ * por lo que varios hilos pueden añadir productos sin exceder la capacidad.
+ * Con un MotorUbicacion asignado la admisión es estricta: además de peso y volumen,
+ * cada lote debe caber físicamente en los casilleros de las estanterías.
  */
 public class GestorInventarioFisico extends GestorInventario {
-    private final List<ProductoInterface> productosFisicos;
+    private static final double MILIGRAMOS_POR_KG = 1_000_000.0;
+    private static final double MM3_POR_M3 = 1_000_000_000.0;
+    private static final Registrador REGISTRO = Bitacora.obtenerRegistrador(GestorInventarioFisico.class);
+    
+    private final IndiceProductos productosFisicos;
+    private final AlmacenColumnarFisico columnas; // medidas admitidas de cada producto
     private final Double capacidadMaximaPeso; // en kg
     private final Double espacioDisponible; // en metros cúbicos
-    private Double espacioOcupado;
-    private Double pesoActual;
+    private final long capacidadMaximaMiligramos;
+    private final long espacioDisponibleMm3;
+    private final AtomicLong pesoActualMiligramos;
+    private final AtomicLong espacioOcupadoMm3;
+    // Las modificaciones individuales de cantidad comparten el bloqueo de lectura;
+    // las actualizaciones en lote toman el de escritura para aplicarse de forma atómica
+    private final ReentrantReadWriteLock bloqueoLote;
+    private volatile MotorUbicacion motorUbicacion; // null si la admisión no es estricta
     
-    public GestorInventarioFisico(String nombreInventario, String ubicacion, 
+    public GestorInventarioFisico(String nombreInventario, String ubicacion,
                                  Double capacidadMaximaPeso, Double espacioDisponible) {
         super(nombreInventario, ubicacion);
         this.capacidadMaximaPeso = capacidadMaximaPeso;
         this.espacioDisponible = espacioDisponible;
-        this.espacioOcupado = 0.0;
-        this.pesoActual = 0.0;
-        this.productosFisicos = new ArrayList<>();
+        this.capacidadMaximaMiligramos = aMiligramos(capacidadMaximaPeso);
+        this.espacioDisponibleMm3 = aMilimetrosCubicos(espacioDisponible);
+        this.pesoActualMiligramos = new AtomicLong();
+        this.espacioOcupadoMm3 = new AtomicLong();
+        this.productosFisicos = new IndiceProductos();
+        this.columnas = new AlmacenColumnarFisico();
+        this.bloqueoLote = new ReentrantReadWriteLock();
     }
     
     @Override
@@ -37,37 +63,94 @@ public class GestorInventarioFisico extends GestorInventario {
         if (!(producto instanceof ProductoFisico productoFisico)) {
             throw new IllegalArgumentException("Solo se pueden añadir productos físicos a este inventario");
         }
-
+        
+        if (productosFisicos.contiene(producto.getId())) {
+            throw new IllegalArgumentException("Ya existe un producto con ID " + producto.getId() + " en el inventario");
+        }
+        
         // Calcular peso y espacio del producto
-        Double pesoProducto = productoFisico.getPeso() * producto.getCantidad();
-        Double espacioProducto = calcularEspacioProducto(productoFisico) * producto.getCantidad();
+        long pesoUnitario = productoFisico.getPesoMiligramos();
+        long espacioUnitario = productoFisico.getVolumenMilimetrosCubicos();
+        long pesoProducto = pesoUnitario * producto.getUnidades();
+        long espacioProducto = espacioUnitario * producto.getUnidades();
         
-        // Verificar si hay espacio y peso suficiente
-        if (pesoActual + pesoProducto > capacidadMaximaPeso) {
+        // Reservar peso y espacio de forma atómica
+        if (!admitir(pesoActualMiligramos, capacidadMaximaMiligramos, pesoProducto)) {
             throw new InventarioInsuficienteExcepcion(
                 "No hay suficiente capacidad de peso en el almacén para el producto " + producto.getNombre(),
                 producto.getId(),
-                (int)(capacidadMaximaPeso - pesoActual),
-                (int)Math.ceil(pesoProducto)
+                (int)((capacidadMaximaMiligramos - pesoActualMiligramos.get()) / MILIGRAMOS_POR_KG),
+                (int)Math.ceil(pesoProducto / MILIGRAMOS_POR_KG)
             );
         }
         
-        if (espacioOcupado + espacioProducto > espacioDisponible) {
+        if (!admitir(espacioOcupadoMm3, espacioDisponibleMm3, espacioProducto)) {
+            pesoActualMiligramos.addAndGet(-pesoProducto);
             throw new InventarioInsuficienteExcepcion(
                 "No hay suficiente espacio en el almacén para el producto " + producto.getNombre(),
                 producto.getId(),
-                (int)(espacioDisponible - espacioOcupado),
-                (int)Math.ceil(espacioProducto)
+                (int)((espacioDisponibleMm3 - espacioOcupadoMm3.get()) / MM3_POR_M3),
+                (int)Math.ceil(espacioProducto / MM3_POR_M3)
             );
         }
         
-        productosFisicos.add(producto);
-        pesoActual += pesoProducto;
-        espacioOcupado += espacioProducto;
+        long lsn;
+        // Comparte el bloqueo de lectura para que setMotorUbicacion vea el inventario vacío o el alta completa
+        bloqueoLote.readLock().lock();
+        try {
+            synchronized (producto) {
+                synchronized (bloqueoRegistro(producto.getId())) {
+                    if (productosFisicos.contiene(producto.getId())) {
+                        // Otro hilo añadió el mismo ID mientras se reservaba la capacidad
+                        pesoActualMiligramos.addAndGet(-pesoProducto);
+                        espacioOcupadoMm3.addAndGet(-espacioProducto);
+                        throw new IllegalArgumentException("Ya existe un producto con ID " + producto.getId() + " en el inventario");
+                    }
+                    MotorUbicacion motor = motorUbicacion;
+                    boolean ubicado;
+                    try {
+                        ubicado = motor == null || motor.ajustarCantidad(productoFisico, producto.getCantidad());
+                    } catch (RuntimeException e) {
+                        // Medidas que el motor no acepta (nulas o no positivas): se libera lo reservado
+                        pesoActualMiligramos.addAndGet(-pesoProducto);
+                        espacioOcupadoMm3.addAndGet(-espacioProducto);
+                        throw e;
+                    }
+                    if (!ubicado) {
+                        pesoActualMiligramos.addAndGet(-pesoProducto);
+                        espacioOcupadoMm3.addAndGet(-espacioProducto);
+                        throw new InventarioInsuficienteExcepcion(
+                            "No hay casilleros donde ubicar el producto " + producto.getNombre(),
+                            producto.getId(),
+                            0,
+                            producto.getCantidad()
+                        );
+                    }
+                    // El alta se escribe antes de indexar: si el registro falla no queda nada que deshacer
+                    try {
+                        lsn = registrarAlta(producto);
+                    } catch (RuntimeException e) {
+                        if (motor != null) {
+                            motor.liberar(producto.getId());
+                        }
+                        pesoActualMiligramos.addAndGet(-pesoProducto);
+                        espacioOcupadoMm3.addAndGet(-espacioProducto);
+                        throw e;
+                    }
+                    productosFisicos.agregar(producto);
+                    columnas.agregar(producto.getId(), pesoUnitario, espacioUnitario, producto.getUnidades());
+                }
+            }
+        } finally {
+            bloqueoLote.readLock().unlock();
+        }
+        registrarContadorStock(producto);
+        esperarPersistencia(lsn);
         
-        System.out.println("Producto físico añadido: " + producto.getNombre() + 
-                         " - Peso total: " + pesoActual + "kg/" + capacidadMaximaPeso + "kg" +
-                         " - Espacio: " + espacioOcupado + "m³/" + espacioDisponible + "m³");
+        if (REGISTRO.estaHabilitado(NivelRegistro.INFO)) {
+            REGISTRO.info("Producto físico añadido: {} - Peso total: {}kg/{}kg - Espacio: {}m³/{}m³",
+                producto.getNombre(), getPesoActual(), capacidadMaximaPeso, getEspacioOcupado(), espacioDisponible);
+        }
         return true;
     }
     
@@ -77,17 +160,44 @@ public class GestorInventarioFisico extends GestorInventario {
             throw new IllegalArgumentException("El ID del producto no puede ser nulo o vacío");
         }
         
-        for (int i = 0; i < productosFisicos.size(); i++) {
-            if (productosFisicos.get(i).getId().equals(idProducto)) {
-                ProductoInterface producto = productosFisicos.remove(i);
-                if (producto instanceof ProductoFisico productoFisico) {
-                    Double pesoProducto = productoFisico.getPeso() * producto.getCantidad();
-                    Double espacioProducto = calcularEspacioProducto(productoFisico) * producto.getCantidad();
-                    
-                    pesoActual -= pesoProducto;
-                    espacioOcupado -= espacioProducto;
+        ProductoInterface producto = productosFisicos.buscar(idProducto);
+        if (producto instanceof ProductoFisico productoFisico) {
+            long lsn = -1;
+            long pesoLiberado = 0;
+            long espacioLiberado = 0;
+            retenerEventos();
+            bloqueoLote.readLock().lock();
+            try {
+                synchronized (producto) {
+                    synchronized (bloqueoRegistro(idProducto)) {
+                        if (productosFisicos.buscar(idProducto) == producto) {
+                            lsn = registrarBaja(idProducto);
+                            productosFisicos.eliminar(idProducto, producto);
+                            // Se libera lo admitido y se quita la fila antes de que un alta con el mismo ID la reemplace
+                            pesoLiberado = calcularPesoProducto(idProducto) * producto.getUnidades();
+                            espacioLiberado = calcularEspacioProducto(idProducto) * producto.getUnidades();
+                            columnas.eliminar(idProducto);
+                        }
+                    }
+                    if (lsn >= 0) {
+                        eliminarContadorStock(idProducto);
+                        pesoActualMiligramos.addAndGet(-pesoLiberado);
+                        espacioOcupadoMm3.addAndGet(-espacioLiberado);
+                        MotorUbicacion motor = motorUbicacion;
+                        if (motor != null) {
+                            motor.liberar(idProducto);
+                        }
+                    }
                 }
-                System.out.println("Producto físico eliminado: " + producto.getNombre());
+            } finally {
+                bloqueoLote.readLock().unlock();
+                publicarEventosRetenidos();
+            }
+            
+            if (lsn >= 0) {
+                // La espera del fsync se hace sin bloqueos para agruparla con la de otros escritores
+                esperarPersistencia(lsn);
+                REGISTRO.info("Producto físico eliminado: {}", producto.getNombre());
                 return true;
             }
         }
@@ -109,42 +219,107 @@ public class GestorInventarioFisico extends GestorInventario {
             throw new IllegalArgumentException("La nueva cantidad debe ser un número positivo");
         }
         
-        for (ProductoInterface producto : productosFisicos) {
-            if (producto.getId().equals(idProducto)) {
-                if (producto instanceof ProductoFisico productoFisico) {
-                    Integer cantidadAnterior = producto.getCantidad();
-                    
-                    // Calcular diferencia de peso y espacio
-                    Double diferenciaPeso = productoFisico.getPeso() * (nuevaCantidad - cantidadAnterior);
-                    Double diferenciaEspacio = calcularEspacioProducto(productoFisico) * (nuevaCantidad - cantidadAnterior);
-                    
-                    // Verificar si la nueva cantidad cabe en el almacén
-                    if (pesoActual + diferenciaPeso > capacidadMaximaPeso) {
-                        throw new InventarioInsuficienteExcepcion(
-                            "No hay suficiente capacidad de peso para actualizar el stock del producto " + producto.getNombre(),
-                            producto.getId(),
-                            (int)(capacidadMaximaPeso - pesoActual),
-                            (int)Math.ceil(diferenciaPeso)
-                        );
+        ProductoInterface producto = productosFisicos.buscar(idProducto);
+        if (producto instanceof ProductoFisico productoFisico) {
+            long lsn = -1;
+            retenerEventos();
+            bloqueoLote.readLock().lock();
+            try {
+                // Bloqueo por producto: actualizaciones de distintos productos no compiten entre sí
+                synchronized (producto) {
+                    if (productosFisicos.buscar(idProducto) == producto) {
+                        Integer cantidadAnterior = producto.getCantidad();
+                        
+                        // Una reducción se descuenta primero del disponible para reservas, que la
+                        // rechaza si no cubre lo reservado; un aumento se suma al final, cuando ya cabe
+                        boolean reduce = nuevaCantidad < cantidadAnterior;
+                        if (reduce && !ajustarStockDisponible(idProducto, cantidadAnterior, nuevaCantidad)) {
+                            throw crearExcepcionStockReservado(idProducto, nuevaCantidad);
+                        }
+                        
+                        // Calcular diferencia de peso y espacio
+                        long diferenciaPeso = calcularPesoProducto(idProducto) * (nuevaCantidad - cantidadAnterior);
+                        long diferenciaEspacio = calcularEspacioProducto(idProducto) * (nuevaCantidad - cantidadAnterior);
+                        
+                        // Verificar si la nueva cantidad cabe en el almacén
+                        if (!admitir(pesoActualMiligramos, capacidadMaximaMiligramos, diferenciaPeso)) {
+                            throw new InventarioInsuficienteExcepcion(
+                                "No hay suficiente capacidad de peso para actualizar el stock del producto " + producto.getNombre(),
+                                producto.getId(),
+                                (int)((capacidadMaximaMiligramos - pesoActualMiligramos.get()) / MILIGRAMOS_POR_KG),
+                                (int)Math.ceil(diferenciaPeso / MILIGRAMOS_POR_KG)
+                            );
+                        }
+                        
+                        if (!admitir(espacioOcupadoMm3, espacioDisponibleMm3, diferenciaEspacio)) {
+                            pesoActualMiligramos.addAndGet(-diferenciaPeso);
+                            throw new InventarioInsuficienteExcepcion(
+                                "No hay suficiente espacio para actualizar el stock del producto " + producto.getNombre(),
+                                producto.getId(),
+                                (int)((espacioDisponibleMm3 - espacioOcupadoMm3.get()) / MM3_POR_M3),
+                                (int)Math.ceil(diferenciaEspacio / MM3_POR_M3)
+                            );
+                        }
+                        
+                        MotorUbicacion motor = motorUbicacion;
+                        boolean ubicado;
+                        try {
+                            ubicado = motor == null || motor.ajustarCantidad(productoFisico, nuevaCantidad);
+                        } catch (RuntimeException e) {
+                            pesoActualMiligramos.addAndGet(-diferenciaPeso);
+                            espacioOcupadoMm3.addAndGet(-diferenciaEspacio);
+                            if (reduce) {
+                                ajustarStockDisponible(idProducto, nuevaCantidad, cantidadAnterior);
+                            }
+                            throw e;
+                        }
+                        if (!ubicado) {
+                            pesoActualMiligramos.addAndGet(-diferenciaPeso);
+                            espacioOcupadoMm3.addAndGet(-diferenciaEspacio);
+                            if (reduce) {
+                                ajustarStockDisponible(idProducto, nuevaCantidad, cantidadAnterior);
+                            }
+                            throw new InventarioInsuficienteExcepcion(
+                                "No hay casilleros donde ubicar el nuevo stock del producto " + producto.getNombre(),
+                                producto.getId(),
+                                cantidadAnterior,
+                                nuevaCantidad
+                            );
+                        }
+                        
+                        // La entrada se escribe antes de aplicar la cantidad: si el registro falla se deshacen las reservas
+                        synchronized (bloqueoRegistro(idProducto)) {
+                            try {
+                                lsn = registrarStock(idProducto, nuevaCantidad);
+                            } catch (RuntimeException e) {
+                                pesoActualMiligramos.addAndGet(-diferenciaPeso);
+                                espacioOcupadoMm3.addAndGet(-diferenciaEspacio);
+                                if (reduce) {
+                                    ajustarStockDisponible(idProducto, nuevaCantidad, cantidadAnterior);
+                                }
+                                if (motor != null && !motor.ajustarCantidad(productoFisico, cantidadAnterior)) {
+                                    REGISTRO.error("No se pudieron restaurar los casilleros de {}", idProducto);
+                                }
+                                throw e;
+                            }
+                            producto.setCantidad(nuevaCantidad);
+                            columnas.actualizarCantidad(idProducto, nuevaCantidad);
+                        }
+                        if (!reduce) {
+                            ajustarStockDisponible(idProducto, cantidadAnterior, nuevaCantidad);
+                        }
+                        ajustarContadorStock(idProducto, nuevaCantidad);
                     }
-                    
-                    if (espacioOcupado + diferenciaEspacio > espacioDisponible) {
-                        throw new InventarioInsuficienteExcepcion(
-                            "No hay suficiente espacio para actualizar el stock del producto " + producto.getNombre(),
-                            producto.getId(),
-                            (int)(espacioDisponible - espacioOcupado),
-                            (int)Math.ceil(diferenciaEspacio)
-                        );
-                    }
-                    
-                    producto.setCantidad(nuevaCantidad);
-                    pesoActual += diferenciaPeso;
-                    espacioOcupado += diferenciaEspacio;
-                    
-                    System.out.println("Stock actualizado para producto físico " + producto.getNombre() + 
-                                     " a: " + nuevaCantidad + " unidades");
-                    return true;
                 }
+            } finally {
+                bloqueoLote.readLock().unlock();
+                publicarEventosRetenidos();
+            }
+            
+            if (lsn >= 0) {
+                esperarPersistencia(lsn);
+                REGISTRO.info("Stock actualizado para producto físico {} a: {} unidades", producto.getNombre(), nuevaCantidad);
+                return true;
             }
         }
         
@@ -155,28 +330,234 @@ public class GestorInventarioFisico extends GestorInventario {
         );
     }
     
+    /**
+     * Actualiza el stock de varios productos físicos de forma atómica.
+     * Calcula la diferencia neta de peso y espacio de todo el lote, la valida
+     * una sola vez y aplica todas las cantidades o ninguna.
+     * @param nuevasCantidades Mapa de ID de producto a nueva cantidad en stock
+     * @return true si se actualizó exitosamente
+     * @throws ProductoNoEncontradoExcepcion Si algún producto no existe en el inventario
+     * @throws InventarioInsuficienteExcepcion Si el lote completo no cabe en el almacén
+     */
+    @Override
+    public boolean actualizarStockLote(Map<String, Integer> nuevasCantidades) throws ProductoNoEncontradoExcepcion, InventarioInsuficienteExcepcion {
+        validarLote(nuevasCantidades);
+        
+        long lsn = 0;
+        retenerEventos();
+        bloqueoLote.writeLock().lock();
+        try {
+            List<ProductoFisico> productos = new ArrayList<>(nuevasCantidades.size());
+            List<String> noEncontrados = new ArrayList<>();
+            List<String> productosQueCrecen = new ArrayList<>();
+            long diferenciaPeso = 0;
+            long diferenciaEspacio = 0;
+            
+            for (Map.Entry<String, Integer> entrada : nuevasCantidades.entrySet()) {
+                ProductoInterface producto = productosFisicos.buscar(entrada.getKey());
+                if (!(producto instanceof ProductoFisico productoFisico)) {
+                    noEncontrados.add(entrada.getKey());
+                    continue;
+                }
+                int diferencia = entrada.getValue() - producto.getCantidad();
+                diferenciaPeso += calcularPesoProducto(entrada.getKey()) * diferencia;
+                diferenciaEspacio += calcularEspacioProducto(entrada.getKey()) * diferencia;
+                if (diferencia > 0) {
+                    productosQueCrecen.add(entrada.getKey());
+                }
+                productos.add(productoFisico);
+            }
+            
+            if (!noEncontrados.isEmpty()) {
+                throw crearExcepcionLoteNoEncontrado(noEncontrados);
+            }
+            
+            // Las reducciones se descuentan primero del disponible para reservas; si alguna
+            // invade unidades reservadas se deshacen las ya aplicadas y el lote se rechaza
+            List<ProductoFisico> reducidos = new ArrayList<>();
+            for (ProductoFisico producto : productos) {
+                Integer cantidadNueva = nuevasCantidades.get(producto.getId());
+                if (cantidadNueva < producto.getCantidad()) {
+                    if (!ajustarStockDisponible(producto.getId(), producto.getCantidad(), cantidadNueva)) {
+                        revertirReducciones(reducidos, nuevasCantidades);
+                        throw crearExcepcionStockReservado(producto.getId(), cantidadNueva);
+                    }
+                    reducidos.add(producto);
+                }
+            }
+            
+            if (!admitir(pesoActualMiligramos, capacidadMaximaMiligramos, diferenciaPeso)) {
+                revertirReducciones(reducidos, nuevasCantidades);
+                throw new InventarioInsuficienteExcepcion(
+                    "No hay suficiente capacidad de peso para actualizar el stock en lote", productosQueCrecen);
+            }
+            
+            if (!admitir(espacioOcupadoMm3, espacioDisponibleMm3, diferenciaEspacio)) {
+                pesoActualMiligramos.addAndGet(-diferenciaPeso);
+                revertirReducciones(reducidos, nuevasCantidades);
+                throw new InventarioInsuficienteExcepcion(
+                    "No hay suficiente espacio para actualizar el stock en lote", productosQueCrecen);
+            }
+            
+            MotorUbicacion motor = motorUbicacion;
+            Map<ProductoFisico, Integer> cantidadesAnteriores = new HashMap<>();
+            if (motor != null) {
+                Map<ProductoFisico, Integer> cantidadesLote = new HashMap<>();
+                for (ProductoFisico producto : productos) {
+                    cantidadesLote.put(producto, nuevasCantidades.get(producto.getId()));
+                    cantidadesAnteriores.put(producto, producto.getCantidad());
+                }
+                if (!motor.ajustarCantidades(cantidadesLote)) {
+                    pesoActualMiligramos.addAndGet(-diferenciaPeso);
+                    espacioOcupadoMm3.addAndGet(-diferenciaEspacio);
+                    revertirReducciones(reducidos, nuevasCantidades);
+                    throw new InventarioInsuficienteExcepcion(
+                        "No hay casilleros donde ubicar el stock del lote", productosQueCrecen);
+                }
+            }
+            
+            // Todo el lote va en una única entrada, escrita antes de aplicar ninguna cantidad
+            try {
+                lsn = registrarStockLote(nuevasCantidades);
+            } catch (RuntimeException e) {
+                pesoActualMiligramos.addAndGet(-diferenciaPeso);
+                espacioOcupadoMm3.addAndGet(-diferenciaEspacio);
+                revertirReducciones(reducidos, nuevasCantidades);
+                if (motor != null && !motor.ajustarCantidades(cantidadesAnteriores)) {
+                    REGISTRO.error("No se pudieron restaurar los casilleros del lote");
+                }
+                throw e;
+            }
+            
+            for (ProductoFisico producto : productos) {
+                Integer cantidadAnterior = producto.getCantidad();
+                Integer cantidadNueva = nuevasCantidades.get(producto.getId());
+                if (cantidadNueva >= cantidadAnterior) {
+                    ajustarStockDisponible(producto.getId(), cantidadAnterior, cantidadNueva);
+                }
+                producto.setCantidad(cantidadNueva);
+                columnas.actualizarCantidad(producto.getId(), cantidadNueva);
+                ajustarContadorStock(producto.getId(), cantidadNueva);
+            }
+        } finally {
+            bloqueoLote.writeLock().unlock();
+            publicarEventosRetenidos();
+        }
+        esperarPersistencia(lsn);
+        
+        REGISTRO.info("Stock actualizado en lote para {} productos físicos", nuevasCantidades.size());
+        return true;
+    }
+    
     @Override
     public List<ProductoInterface> obtenerProductos() {
-        return new ArrayList<>(productosFisicos);
+        return productosFisicos.productos();
     }
     
     @Override
     public ProductoInterface buscarProducto(String idProducto) {
-        for (ProductoInterface producto : productosFisicos) {
-            if (producto.getId().equals(idProducto)) {
-                return producto;
+        return productosFisicos.buscar(idProducto);
+    }
+    
+    @Override
+    protected long descontarStockConfirmado(ProductoInterface producto, int cantidad) {
+        retenerEventos();
+        bloqueoLote.readLock().lock();
+        try {
+            synchronized (producto) {
+                if (productosFisicos.buscar(producto.getId()) != producto) {
+                    return 0;
+                }
+                long lsn = super.descontarStockConfirmado(producto, cantidad);
+                if (producto instanceof ProductoFisico productoFisico) {
+                    // Las unidades confirmadas salen del almacén y liberan peso y espacio
+                    pesoActualMiligramos.addAndGet(-calcularPesoProducto(producto.getId()) * cantidad);
+                    espacioOcupadoMm3.addAndGet(-calcularEspacioProducto(producto.getId()) * cantidad);
+                    columnas.actualizarCantidad(producto.getId(), producto.getUnidades());
+                    MotorUbicacion motor = motorUbicacion;
+                    if (motor != null) {
+                        motor.ajustarCantidad(productoFisico, producto.getCantidad());
+                    }
+                }
+                return lsn;
             }
+        } finally {
+            bloqueoLote.readLock().unlock();
+            publicarEventosRetenidos();
+        }
+    }
+    
+    /**
+     * Además de las altas y bajas en curso, espera al lote que se esté aplicando: su entrada
+     * y sus cantidades se escriben con el bloqueo de escritura tomado.
+     */
+    @Override
+    protected void esperarEscriturasEnCurso() {
+        super.esperarEscriturasEnCurso();
+        bloqueoLote.readLock().lock();
+        bloqueoLote.readLock().unlock();
+    }
+    
+    /**
+     * Devuelve al disponible para reservas las reducciones de un lote que no llegó a aplicarse.
+     * @param reducidos Productos cuya reducción ya se había descontado
+     * @param nuevasCantidades Cantidades del lote
+     */
+    private void revertirReducciones(List<ProductoFisico> reducidos, Map<String, Integer> nuevasCantidades) {
+        for (ProductoFisico producto : reducidos) {
+            ajustarStockDisponible(producto.getId(), nuevasCantidades.get(producto.getId()), producto.getCantidad());
         }
-        return null;
     }
     
     /**
-     * Método específico para productos físicos: calcular el espacio ocupado por un producto
-     * @param productoFisico El producto físico
-     * @return El espacio en metros cúbicos
+     * Método específico para productos físicos: obtener el peso unitario con el que se admitió un producto.
+     * No vuelve a leer el producto, así que un cambio posterior de sus medidas no descuadra los contadores.
+     * @param idProducto El ID del producto
+     * @return El peso en miligramos
+     */
+    private long calcularPesoProducto(String idProducto) {
+        return columnas.pesoUnitario(idProducto);
+    }
+    
+    /**
+     * Método específico para productos físicos: obtener el espacio unitario con el que se admitió un producto.
+     * @param idProducto El ID del producto
+     * @return El espacio en milímetros cúbicos
+     */
+    private long calcularEspacioProducto(String idProducto) {
+        return columnas.volumenUnitario(idProducto);
+    }
+    
+    /**
+     * Suma una cantidad a un contador de ocupación sin superar el límite.
+     * Las cantidades negativas (liberaciones) siempre se aceptan.
+     * @param ocupado Contador de ocupación
+     * @param limite Capacidad máxima
+     * @param cantidad Cantidad a sumar
+     * @return true si se admitió la cantidad
      */
-    private Double calcularEspacioProducto(ProductoFisico productoFisico) {
-        return productoFisico.getAltura() * productoFisico.getAncho() * productoFisico.getProfundidad();
+    private static boolean admitir(AtomicLong ocupado, long limite, long cantidad) {
+        if (cantidad <= 0) {
+            ocupado.addAndGet(cantidad);
+            return true;
+        }
+        while (true) {
+            long actual = ocupado.get();
+            if (actual + cantidad > limite) {
+                return false;
+            }
+            if (ocupado.compareAndSet(actual, actual + cantidad)) {
+                return true;
+            }
+        }
+    }
+    
+    private static long aMiligramos(double kilogramos) {
+        return Math.round(kilogramos * MILIGRAMOS_POR_KG);
+    }
+    
+    private static long aMilimetrosCubicos(double metrosCubicos) {
+        return Math.round(metrosCubicos * MM3_POR_M3);
     }
     
     /**
@@ -185,19 +566,58 @@ public class GestorInventarioFisico extends GestorInventario {
      */
     public String obtenerEstadoAlmacen() {
         return String.format("Almacén: %s - Peso: %.2f/%.2f kg - Espacio: %.2f/%.2f m³ - Productos: %d",
-                           nombreInventario, pesoActual, capacidadMaximaPeso, 
-                           espacioOcupado, espacioDisponible, productosFisicos.size());
+                           nombreInventario, getPesoActual(), capacidadMaximaPeso,
+                           getEspacioOcupado(), espacioDisponible, productosFisicos.tamaño());
+    }
+    
+    /**
+     * Recalcula el peso total almacenado recorriendo las columnas de medidas, sin usar los contadores.
+     * @return El peso total en kg
+     */
+    public Double calcularPesoTotal() {
+        return columnas.calcularPesoTotal() / MILIGRAMOS_POR_KG;
     }
     
     /**
-     * Verificar si hay espacio disponible para un nuevo producto
+     * Recalcula el espacio total ocupado recorriendo las columnas de medidas, sin usar los contadores.
+     * @return El espacio total en metros cúbicos
+     */
+    public Double calcularEspacioTotal() {
+        return columnas.calcularVolumenTotal() / MM3_POR_M3;
+    }
+    
+    /**
+     * Verificar si hay espacio disponible para un nuevo producto.
+     * Solo lee los contadores atómicos, por lo que no bloquea a los escritores.
      * @param peso Peso del producto
      * @param espacio Espacio del producto
      * @return true si hay espacio disponible
      */
     public boolean verificarEspacioDisponible(Double peso, Double espacio) {
-        return pesoActual + peso <= capacidadMaximaPeso && 
-               espacioOcupado + espacio <= espacioDisponible;
+        return pesoActualMiligramos.get() + aMiligramos(peso) <= capacidadMaximaMiligramos &&
+               espacioOcupadoMm3.get() + aMilimetrosCubicos(espacio) <= espacioDisponibleMm3;
+    }
+    
+    /**
+     * Activa la admisión estricta: a partir de ahora cada lote debe caber en los
+     * casilleros del motor, además de en la capacidad de peso y volumen.
+     * Solo puede asignarse con el inventario vacío; null vuelve a la admisión por volumen.
+     * @param motorUbicacion El motor de ubicación o null
+     */
+    public void setMotorUbicacion(MotorUbicacion motorUbicacion) {
+        bloqueoLote.writeLock().lock();
+        try {
+            if (motorUbicacion != null && productosFisicos.tamaño() > 0) {
+                throw new IllegalStateException("El motor de ubicación solo puede asignarse con el inventario vacío");
+            }
+            this.motorUbicacion = motorUbicacion;
+        } finally {
+            bloqueoLote.writeLock().unlock();
+        }
+    }
+    
+    public MotorUbicacion getMotorUbicacion() {
+        return motorUbicacion;
     }
     
     // Getters y Setters
@@ -210,10 +630,10 @@ public class GestorInventarioFisico extends GestorInventario {
     }
     
     public Double getEspacioOcupado() {
-        return espacioOcupado;
+        return espacioOcupadoMm3.get() / MM3_POR_M3;
     }
     
     public Double getPesoActual() {
-        return pesoActual;
+        return pesoActualMiligramos.get() / MILIGRAMOS_POR_KG;
     }
 }
@@ -0,0 +1,113 @@
+package Modelos.Inventario;
+
+import Modelos.Producto.ProductoInterface;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice de productos por ID usado internamente por los gestores de inventario.
+ * Permite buscar, eliminar y actualizar productos en tiempo constante
+ * manteniendo el orden de inserción para obtenerProductos().
+ * Los métodos están sincronizados para que varios hilos puedan modificar
+ * el inventario a la vez; cada operación retiene el bloqueo un tiempo constante.
+ * La lista de productos se publica como una instantánea inmutable que solo se
+ * reconstruye tras agregar o eliminar, así que las lecturas repetidas no copian nada.
+ */
+class IndiceProductos {
+    private final Map<String, ProductoInterface> productosPorId;
+    private volatile List<ProductoInterface> instantanea; // null si debe reconstruirse
+    
+    IndiceProductos() {
+        this.productosPorId = new LinkedHashMap<>();
+    }
+    
+    /**
+     * Agrega un producto al índice si su ID no está registrado.
+     * @param producto El producto a agregar
+     * @return true si se agregó, false si ya existía un producto con ese ID
+     */
+    synchronized boolean agregar(ProductoInterface producto) {
+        if (productosPorId.putIfAbsent(producto.getId(), producto) != null) {
+            return false;
+        }
+        instantanea = null;
+        return true;
+    }
+    
+    /**
+     * Elimina un producto del índice.
+     * @param idProducto El ID del producto a eliminar
+     * @return El producto eliminado o null si no existía
+     */
+    synchronized ProductoInterface eliminar(String idProducto) {
+        ProductoInterface eliminado = productosPorId.remove(idProducto);
+        if (eliminado != null) {
+            instantanea = null;
+        }
+        return eliminado;
+    }
+    
+    /**
+     * Elimina un producto del índice solo si el ID sigue asociado a esa instancia.
+     * @param idProducto El ID del producto a eliminar
+     * @param producto La instancia que se espera eliminar
+     * @return true si se eliminó
+     */
+    synchronized boolean eliminar(String idProducto, ProductoInterface producto) {
+        if (!productosPorId.remove(idProducto, producto)) {
+            return false;
+        }
+        instantanea = null;
+        return true;
+    }
+    
+    /**
+     * Busca un producto por su ID.
+     * @param idProducto El ID del producto
+     * @return El producto encontrado o null si no existe
+     */
+    synchronized ProductoInterface buscar(String idProducto) {
+        if (idProducto == null) {
+            return null;
+        }
+        return productosPorId.get(idProducto);
+    }
+    
+    /**
+     * Verifica si existe un producto con el ID indicado.
+     * @param idProducto El ID del producto
+     * @return true si el producto está en el índice
+     */
+    synchronized boolean contiene(String idProducto) {
+        return idProducto != null && productosPorId.containsKey(idProducto);
+    }
+    
+    /**
+     * Obtiene los productos en orden de inserción.
+     * Sin cambios desde la última llamada devuelve la misma instantánea sin bloquear.
+     * @return Instantánea inmutable de la lista de productos
+     */
+    List<ProductoInterface> productos() {
+        List<ProductoInterface> actual = instantanea;
+        if (actual != null) {
+            return actual;
+        }
+        synchronized (this) {
+            if (instantanea == null) {
+                instantanea = Collections.unmodifiableList(new ArrayList<>(productosPorId.values()));
+            }
+            return instantanea;
+        }
+    }
+    
+    /**
+     * Obtiene el número de productos en el índice.
+     * @return Número de productos
+     */
+    synchronized int tamaño() {
+        return productosPorId.size();
+    }
+}
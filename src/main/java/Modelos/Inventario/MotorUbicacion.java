@@ -0,0 +1,319 @@
+package Modelos.Inventario;
+
+import Modelos.Producto.ProductoFisico;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Motor de ubicación de productos físicos en los casilleros de las estanterías.
+ * Los casilleros se agrupan por tipo (mismas dimensiones), por lo que comprobar si un
+ * lote cabe solo recorre los tipos y no cada casillero: para cada tipo se calcula
+ * cuántas unidades caben por casillero probando las seis orientaciones del producto
+ * y se multiplica por los casilleros libres. Cada casillero guarda un único producto.
+ * Al asignar se usa primero el tipo que menos volumen desperdicia por unidad.
+ */
+public class MotorUbicacion {
+    private static final double MM_POR_METRO = 1_000.0;
+    
+    private final Map<String, TipoCasillero> tiposPorNombre;
+    private final Map<String, List<Casillero>> casillerosPorProducto;
+    
+    public MotorUbicacion() {
+        this.tiposPorNombre = new LinkedHashMap<>();
+        this.casillerosPorProducto = new HashMap<>();
+    }
+    
+    /**
+     * Añade casilleros de un tipo. Si el tipo ya existe, sus dimensiones deben coincidir.
+     * @param tipo Nombre del tipo de casillero
+     * @param cantidad Número de casilleros a añadir
+     * @param altura Altura interior en metros
+     * @param ancho Ancho interior en metros
+     * @param profundidad Profundidad interior en metros
+     */
+    public synchronized void agregarCasilleros(String tipo, int cantidad, Double altura, Double ancho, Double profundidad) {
+        if (tipo == null || tipo.trim().isEmpty()) {
+            throw new IllegalArgumentException("El tipo de casillero no puede ser nulo o vacío");
+        }
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad de casilleros debe ser mayor que cero");
+        }
+        long[] dimensiones = aMilimetros(altura, ancho, profundidad);
+        TipoCasillero existente = tiposPorNombre.get(tipo);
+        if (existente == null) {
+            tiposPorNombre.put(tipo, new TipoCasillero(tipo, dimensiones, cantidad));
+        } else if (existente.tieneDimensiones(dimensiones)) {
+            existente.ampliar(cantidad);
+        } else {
+            throw new IllegalArgumentException("El tipo de casillero " + tipo + " ya existe con otras dimensiones");
+        }
+    }
+    
+    /**
+     * Comprueba si un producto puede tener la cantidad indicada, contando los
+     * casilleros que ya ocupa. El coste depende del número de tipos, no de casilleros.
+     * @param producto El producto físico
+     * @param cantidad Cantidad total de unidades a ubicar
+     * @return true si la cantidad cabe en los casilleros libres
+     */
+    public synchronized boolean puedeUbicar(ProductoFisico producto, int cantidad) {
+        long[] dimensiones = dimensionesProducto(producto);
+        long capacidad = capacidadActual(casillerosPorProducto.get(producto.getId()), dimensiones);
+        for (TipoCasillero tipo : tiposPorNombre.values()) {
+            if (capacidad >= cantidad) {
+                return true;
+            }
+            capacidad += (long) tipo.libres * tipo.unidadesPorCasillero(dimensiones);
+        }
+        return capacidad >= cantidad;
+    }
+    
+    /**
+     * Ajusta los casilleros de un producto a una nueva cantidad. Si crece se añaden
+     * casilleros sin mover los que ya ocupa; si decrece se liberan los sobrantes.
+     * @param producto El producto físico
+     * @param cantidad Nueva cantidad total de unidades
+     * @return true si se ubicó la cantidad, false si no cabe (sin cambios)
+     */
+    synchronized boolean ajustarCantidad(ProductoFisico producto, int cantidad) {
+        if (!puedeUbicar(producto, cantidad)) {
+            return false;
+        }
+        asignar(producto, cantidad);
+        return true;
+    }
+    
+    /**
+     * Ajusta los casilleros de varios productos aplicando todos los cambios o ninguno.
+     * @param cantidades Mapa de producto a nueva cantidad
+     * @return true si todos los productos se ubicaron
+     */
+    synchronized boolean ajustarCantidades(Map<ProductoFisico, Integer> cantidades) {
+        Map<String, List<Casillero>> anteriores = new HashMap<>();
+        for (ProductoFisico producto : cantidades.keySet()) {
+            List<Casillero> actuales = casillerosPorProducto.get(producto.getId());
+            anteriores.put(producto.getId(), actuales != null ? new ArrayList<>(actuales) : null);
+        }
+        
+        // Primero reducir para que los casilleros liberados estén disponibles para los que crecen
+        List<Map.Entry<ProductoFisico, Integer>> pendientes = new ArrayList<>(cantidades.entrySet());
+        pendientes.sort((a, b) -> Integer.compare(a.getValue() - a.getKey().getCantidad(),
+                                                  b.getValue() - b.getKey().getCantidad()));
+        for (Map.Entry<ProductoFisico, Integer> entrada : pendientes) {
+            if (!puedeUbicar(entrada.getKey(), entrada.getValue())) {
+                restaurar(anteriores);
+                return false;
+            }
+            asignar(entrada.getKey(), entrada.getValue());
+        }
+        return true;
+    }
+    
+    /**
+     * Libera todos los casilleros ocupados por un producto.
+     * @param idProducto El ID del producto
+     */
+    synchronized void liberar(String idProducto) {
+        List<Casillero> casilleros = casillerosPorProducto.remove(idProducto);
+        if (casilleros != null) {
+            for (Casillero casillero : casilleros) {
+                casillero.tipo.liberar(casillero.indice);
+            }
+        }
+    }
+    
+    /**
+     * Obtiene los casilleros que ocupa un producto.
+     * @param idProducto El ID del producto
+     * @return Identificadores de casillero con formato tipo-índice
+     */
+    public synchronized List<String> obtenerCasilleros(String idProducto) {
+        List<String> resultado = new ArrayList<>();
+        List<Casillero> casilleros = casillerosPorProducto.get(idProducto);
+        if (casilleros != null) {
+            for (Casillero casillero : casilleros) {
+                resultado.add(casillero.tipo.nombre + "-" + casillero.indice);
+            }
+        }
+        return resultado;
+    }
+    
+    public synchronized int getTotalCasilleros() {
+        int total = 0;
+        for (TipoCasillero tipo : tiposPorNombre.values()) {
+            total += tipo.total;
+        }
+        return total;
+    }
+    
+    public synchronized int getCasillerosLibres() {
+        int libres = 0;
+        for (TipoCasillero tipo : tiposPorNombre.values()) {
+            libres += tipo.libres;
+        }
+        return libres;
+    }
+    
+    private void asignar(ProductoFisico producto, int cantidad) {
+        long[] dimensiones = dimensionesProducto(producto);
+        List<Casillero> casilleros = casillerosPorProducto.computeIfAbsent(producto.getId(), _ -> new ArrayList<>());
+        long capacidad = capacidadActual(casilleros, dimensiones);
+        
+        // Reducir: liberar desde el final, donde están los casilleros menos aprovechados
+        while (!casilleros.isEmpty()) {
+            Casillero ultimo = casilleros.get(casilleros.size() - 1);
+            long unidades = ultimo.tipo.unidadesPorCasillero(dimensiones);
+            if (capacidad - unidades < cantidad) {
+                break;
+            }
+            casilleros.remove(casilleros.size() - 1);
+            ultimo.tipo.liberar(ultimo.indice);
+            capacidad -= unidades;
+        }
+        
+        // Crecer: ocupar casilleros de los tipos que menos volumen desperdician por unidad
+        if (capacidad < cantidad) {
+            List<TipoCasillero> tipos = new ArrayList<>(tiposPorNombre.values());
+            tipos.sort((a, b) -> Double.compare(a.volumenPorUnidad(dimensiones), b.volumenPorUnidad(dimensiones)));
+            for (TipoCasillero tipo : tipos) {
+                long unidades = tipo.unidadesPorCasillero(dimensiones);
+                while (unidades > 0 && tipo.libres > 0 && capacidad < cantidad) {
+                    casilleros.add(new Casillero(tipo, tipo.ocupar()));
+                    capacidad += unidades;
+                }
+            }
+        }
+    }
+    
+    private void restaurar(Map<String, List<Casillero>> anteriores) {
+        for (String idProducto : anteriores.keySet()) {
+            liberar(idProducto);
+        }
+        for (Map.Entry<String, List<Casillero>> entrada : anteriores.entrySet()) {
+            if (entrada.getValue() == null) {
+                continue;
+            }
+            for (Casillero casillero : entrada.getValue()) {
+                casillero.tipo.ocupar(casillero.indice);
+            }
+            casillerosPorProducto.put(entrada.getKey(), entrada.getValue());
+        }
+    }
+    
+    private static long capacidadActual(List<Casillero> casilleros, long[] dimensiones) {
+        long capacidad = 0;
+        if (casilleros != null) {
+            for (Casillero casillero : casilleros) {
+                capacidad += casillero.tipo.unidadesPorCasillero(dimensiones);
+            }
+        }
+        return capacidad;
+    }
+    
+    private static long[] dimensionesProducto(ProductoFisico producto) {
+        return aMilimetros(producto.getAltura(), producto.getAncho(), producto.getProfundidad());
+    }
+    
+    private static long[] aMilimetros(Double altura, Double ancho, Double profundidad) {
+        if (altura == null || ancho == null || profundidad == null || altura <= 0 || ancho <= 0 || profundidad <= 0) {
+            throw new IllegalArgumentException("Las dimensiones deben ser números positivos");
+        }
+        return new long[] {
+            Math.max(1, Math.round(altura * MM_POR_METRO)),
+            Math.max(1, Math.round(ancho * MM_POR_METRO)),
+            Math.max(1, Math.round(profundidad * MM_POR_METRO))
+        };
+    }
+    
+    /**
+     * Grupo de casilleros con las mismas dimensiones interiores (en milímetros).
+     * Los casilleros libres se marcan en un BitSet.
+     */
+    private static class TipoCasillero {
+        private static final int[][] ORIENTACIONES = {
+            {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}
+        };
+        
+        private final String nombre;
+        private final long[] dimensiones;
+        private final BitSet ocupados;
+        private int total;
+        private int libres;
+        private int primeroLibre; // ningún casillero anterior a este índice está libre
+        
+        TipoCasillero(String nombre, long[] dimensiones, int cantidad) {
+            this.nombre = nombre;
+            this.dimensiones = dimensiones;
+            this.ocupados = new BitSet(cantidad);
+            this.total = cantidad;
+            this.libres = cantidad;
+        }
+        
+        boolean tieneDimensiones(long[] otras) {
+            return dimensiones[0] == otras[0] && dimensiones[1] == otras[1] && dimensiones[2] == otras[2];
+        }
+        
+        void ampliar(int cantidad) {
+            total += cantidad;
+            libres += cantidad;
+        }
+        
+        /**
+         * Calcula cuántas unidades caben en un casillero probando las seis orientaciones.
+         * @param producto Dimensiones del producto en milímetros
+         * @return Unidades por casillero
+         */
+        long unidadesPorCasillero(long[] producto) {
+            long mejor = 0;
+            for (int[] orientacion : ORIENTACIONES) {
+                long unidades = (dimensiones[0] / producto[orientacion[0]])
+                              * (dimensiones[1] / producto[orientacion[1]])
+                              * (dimensiones[2] / producto[orientacion[2]]);
+                mejor = Math.max(mejor, unidades);
+            }
+            return mejor;
+        }
+        
+        double volumenPorUnidad(long[] producto) {
+            long unidades = unidadesPorCasillero(producto);
+            if (unidades == 0) {
+                return Double.MAX_VALUE;
+            }
+            return (double) dimensiones[0] * dimensiones[1] * dimensiones[2] / unidades;
+        }
+        
+        int ocupar() {
+            int indice = ocupados.nextClearBit(primeroLibre);
+            ocupar(indice);
+            return indice;
+        }
+        
+        void ocupar(int indice) {
+            ocupados.set(indice);
+            libres--;
+            if (indice == primeroLibre) {
+                primeroLibre = ocupados.nextClearBit(indice);
+            }
+        }
+        
+        void liberar(int indice) {
+            ocupados.clear(indice);
+            libres++;
+            primeroLibre = Math.min(primeroLibre, indice);
+        }
+    }
+    
+    private static class Casillero {
+        private final TipoCasillero tipo;
+        private final int indice;
+        
+        Casillero(TipoCasillero tipo, int indice) {
+            this.tipo = tipo;
+            this.indice = indice;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package Modelos.Inventario;
+
+import java.util.BitSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntSupplier;
+
+/**
+ * Pool de licencias de un producto digital. Cada licencia es una posición numerada
+ * entre 0 y la capacidad del pool, marcada en un mapa de bits.
+ * Las posiciones se reparten en fragmentos con su propio contador de libres, de modo que
+ * los hilos que compran a la vez trabajan sobre líneas de caché distintas en lugar de
+ * competir por un único contador. Cada asignación reserva primero una unidad en el
+ * contador del fragmento y después marca un bit libre con CAS, por lo que una licencia
+ * nunca se entrega a dos compradores. Si un fragmento se agota se toman licencias de los demás.
+ * Como IntSupplier devuelve las licencias libres, para usarlo como cantidad del producto.
+ */
+public class PoolLicencias implements IntSupplier {
+    private static final int BITS_POR_PALABRA = 64;
+    private static final int RELLENO = 8; // 8 longs = 64 bytes, una línea de caché por contador
+    
+    private final int capacidad;
+    private final int palabrasPorFragmento;
+    private final int licenciasPorFragmento;
+    private final int mascaraFragmentos;
+    private final AtomicLongArray asignadas; // bit a 1 = licencia asignada
+    private final AtomicLongArray libres; // libres del fragmento f en la posición f * RELLENO
+    private final AtomicLongArray pistas; // siguiente palabra a revisar del fragmento f en f * RELLENO
+    
+    /**
+     * Crea un pool con un fragmento por cada procesador disponible.
+     * @param capacidad Número de licencias del pool
+     */
+    public PoolLicencias(int capacidad) {
+        this(capacidad, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Crea un pool con el número de fragmentos indicado (se redondea a potencia de dos).
+     * @param capacidad Número de licencias del pool
+     * @param fragmentos Número deseado de fragmentos
+     */
+    public PoolLicencias(int capacidad, int fragmentos) {
+        if (capacidad < 0) {
+            throw new IllegalArgumentException("La capacidad del pool no puede ser negativa");
+        }
+        if (fragmentos <= 0) {
+            throw new IllegalArgumentException("El número de fragmentos debe ser mayor que cero");
+        }
+        int palabras = Math.max(1, (capacidad + BITS_POR_PALABRA - 1) / BITS_POR_PALABRA);
+        // No tiene sentido tener más fragmentos que palabras del mapa de bits
+        int numeroFragmentos = Integer.highestOneBit(Math.min(fragmentos, palabras));
+        if (numeroFragmentos < Math.min(fragmentos, palabras)) {
+            numeroFragmentos <<= 1;
+        }
+        
+        this.capacidad = capacidad;
+        this.mascaraFragmentos = numeroFragmentos - 1;
+        this.palabrasPorFragmento = (palabras + numeroFragmentos - 1) / numeroFragmentos;
+        this.licenciasPorFragmento = palabrasPorFragmento * BITS_POR_PALABRA;
+        this.asignadas = new AtomicLongArray(palabrasPorFragmento * numeroFragmentos);
+        this.libres = new AtomicLongArray(numeroFragmentos * RELLENO);
+        this.pistas = new AtomicLongArray(numeroFragmentos * RELLENO);
+        
+        for (int fragmento = 0; fragmento < numeroFragmentos; fragmento++) {
+            int inicio = fragmento * licenciasPorFragmento;
+            int fin = Math.min(capacidad, inicio + licenciasPorFragmento);
+            libres.set(fragmento * RELLENO, Math.max(0, fin - inicio));
+        }
+        // Las posiciones por encima de la capacidad quedan marcadas como asignadas para siempre
+        for (int licencia = capacidad; licencia < asignadas.length() * BITS_POR_PALABRA; licencia++) {
+            int palabra = licencia / BITS_POR_PALABRA;
+            asignadas.set(palabra, asignadas.get(palabra) | (1L << (licencia % BITS_POR_PALABRA)));
+        }
+    }
+    
+    /**
+     * Crea un pool con algunas licencias ya asignadas, para restaurar uno persistido.
+     * @param capacidad Número de licencias del pool
+     * @param licenciasAsignadas Licencias asignadas; se ignoran las que quedan fuera del pool
+     */
+    public PoolLicencias(int capacidad, BitSet licenciasAsignadas) {
+        this(capacidad);
+        for (int licencia = licenciasAsignadas.nextSetBit(0); licencia >= 0 && licencia < capacidad;
+                licencia = licenciasAsignadas.nextSetBit(licencia + 1)) {
+            int palabra = licencia / BITS_POR_PALABRA;
+            asignadas.set(palabra, asignadas.get(palabra) | (1L << (licencia % BITS_POR_PALABRA)));
+            libres.decrementAndGet((licencia / licenciasPorFragmento) * RELLENO);
+        }
+    }
+    
+    /**
+     * Asigna una licencia libre.
+     * @return El número de licencia asignada, o -1 si el pool está agotado
+     */
+    public int asignar() {
+        int inicial = ThreadLocalRandom.current().nextInt() & mascaraFragmentos;
+        for (int i = 0; i <= mascaraFragmentos; i++) {
+            int fragmento = (inicial + i) & mascaraFragmentos;
+            if (reservarEnFragmento(fragmento)) {
+                return marcarLibre(fragmento);
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Devuelve una licencia asignada al pool.
+     * @param licencia El número de licencia
+     * @throws IllegalArgumentException Si la licencia está fuera del pool
+     * @throws IllegalStateException Si la licencia no estaba asignada
+     */
+    public void devolver(int licencia) {
+        if (licencia < 0 || licencia >= capacidad) {
+            throw new IllegalArgumentException("La licencia " + licencia + " no pertenece al pool");
+        }
+        int palabra = licencia / BITS_POR_PALABRA;
+        long bit = 1L << (licencia % BITS_POR_PALABRA);
+        while (true) {
+            long actual = asignadas.get(palabra);
+            if ((actual & bit) == 0) {
+                throw new IllegalStateException("La licencia " + licencia + " no está asignada");
+            }
+            if (asignadas.compareAndSet(palabra, actual, actual & ~bit)) {
+                break;
+            }
+        }
+        libres.incrementAndGet((licencia / licenciasPorFragmento) * RELLENO);
+    }
+    
+    /**
+     * Verifica si una licencia está asignada.
+     * @param licencia El número de licencia
+     * @return true si la licencia está asignada
+     */
+    public boolean estaAsignada(int licencia) {
+        if (licencia < 0 || licencia >= capacidad) {
+            return false;
+        }
+        return (asignadas.get(licencia / BITS_POR_PALABRA) & (1L << (licencia % BITS_POR_PALABRA))) != 0;
+    }
+    
+    /**
+     * Obtiene el número de licencias libres. Con asignaciones en curso es una aproximación.
+     * @return Licencias libres
+     */
+    public int getDisponibles() {
+        long total = 0;
+        for (int fragmento = 0; fragmento <= mascaraFragmentos; fragmento++) {
+            total += libres.get(fragmento * RELLENO);
+        }
+        return (int) total;
+    }
+    
+    @Override
+    public int getAsInt() {
+        return getDisponibles();
+    }
+    
+    /**
+     * Obtiene el número de licencias asignadas.
+     * @return Licencias asignadas
+     */
+    public int getAsignadas() {
+        return capacidad - getDisponibles();
+    }
+    
+    /**
+     * Obtiene una copia de las licencias asignadas. Con asignaciones en curso es una aproximación.
+     * @return Mapa de bits con las licencias asignadas
+     */
+    public BitSet obtenerLicenciasAsignadas() {
+        long[] palabras = new long[asignadas.length()];
+        for (int i = 0; i < palabras.length; i++) {
+            palabras[i] = asignadas.get(i);
+        }
+        BitSet resultado = BitSet.valueOf(palabras);
+        // Las posiciones por encima de la capacidad están marcadas pero no son licencias
+        resultado.clear(capacidad, palabras.length * BITS_POR_PALABRA);
+        return resultado;
+    }
+    
+    public int getCapacidad() {
+        return capacidad;
+    }
+    
+    public int getNumeroFragmentos() {
+        return mascaraFragmentos + 1;
+    }
+    
+    private boolean reservarEnFragmento(int fragmento) {
+        int posicion = fragmento * RELLENO;
+        while (true) {
+            long actual = libres.get(posicion);
+            if (actual <= 0) {
+                return false;
+            }
+            if (libres.compareAndSet(posicion, actual, actual - 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Marca un bit libre del fragmento. El llamador ya reservó una unidad en su contador,
+     * así que existe al menos un bit libre aunque otros hilos compitan por él.
+     */
+    private int marcarLibre(int fragmento) {
+        int primeraPalabra = fragmento * palabrasPorFragmento;
+        int pista = (int) pistas.get(fragmento * RELLENO);
+        while (true) {
+            for (int i = 0; i < palabrasPorFragmento; i++) {
+                int desplazamiento = (pista + i) % palabrasPorFragmento;
+                int palabra = primeraPalabra + desplazamiento;
+                long actual = asignadas.get(palabra);
+                while (actual != -1L) {
+                    int bit = Long.numberOfTrailingZeros(~actual);
+                    if (asignadas.compareAndSet(palabra, actual, actual | (1L << bit))) {
+                        pistas.lazySet(fragmento * RELLENO, desplazamiento);
+                        return palabra * BITS_POR_PALABRA + bit;
+                    }
+                    actual = asignadas.get(palabra);
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
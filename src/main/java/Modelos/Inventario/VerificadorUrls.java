@@ -0,0 +1,239 @@
+package Modelos.Inventario;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verificador de disponibilidad de URLs mediante peticiones HEAD.
+ * Cada sondeo se ejecuta en su propio hilo virtual, así que un barrido del catálogo
+ * completo lanza todas las peticiones a la vez sin bloquear al llamador.
+ * Un semáforo por host limita cuántas peticiones simultáneas recibe cada servidor,
+ * y los resultados se guardan en una caché con tiempo de vida para que repetir
+ * una verificación no vuelva a tocar la red. Las verificaciones en curso de una misma
+ * URL se comparten entre los llamadores.
+ */
+public class VerificadorUrls implements AutoCloseable {
+    private static final Duration TTL_POR_DEFECTO = Duration.ofMinutes(5);
+    private static final int CONCURRENTES_POR_HOST_POR_DEFECTO = 8;
+    private static final Duration TIEMPO_ESPERA_POR_DEFECTO = Duration.ofSeconds(5);
+    
+    private final long ttlNanos;
+    private final int concurrentesPorHost;
+    private final Duration tiempoEspera;
+    private final ExecutorService ejecutor;
+    private final HttpClient cliente;
+    private final Map<String, ResultadoVerificacion> cache;
+    private final Map<String, CompletableFuture<Boolean>> enCurso;
+    private final Map<String, Semaphore> limitesPorHost;
+    private final AtomicLong sondeosRealizados;
+    private final AtomicLong aciertosCache;
+    
+    public VerificadorUrls() {
+        this(TTL_POR_DEFECTO, CONCURRENTES_POR_HOST_POR_DEFECTO, TIEMPO_ESPERA_POR_DEFECTO);
+    }
+    
+    /**
+     * @param ttl Tiempo durante el que un resultado se considera vigente
+     * @param concurrentesPorHost Máximo de peticiones simultáneas a un mismo host
+     * @param tiempoEspera Tiempo máximo de conexión y de respuesta de cada sondeo
+     */
+    public VerificadorUrls(Duration ttl, int concurrentesPorHost, Duration tiempoEspera) {
+        if (ttl == null || ttl.isNegative()) {
+            throw new IllegalArgumentException("El tiempo de vida de la caché no puede ser negativo");
+        }
+        if (concurrentesPorHost <= 0) {
+            throw new IllegalArgumentException("Las peticiones simultáneas por host deben ser mayores que cero");
+        }
+        if (tiempoEspera == null || tiempoEspera.isNegative() || tiempoEspera.isZero()) {
+            throw new IllegalArgumentException("El tiempo de espera debe ser mayor que cero");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.concurrentesPorHost = concurrentesPorHost;
+        this.tiempoEspera = tiempoEspera;
+        this.ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+        this.cliente = HttpClient.newBuilder()
+            .executor(ejecutor)
+            .connectTimeout(tiempoEspera)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+        this.cache = new ConcurrentHashMap<>();
+        this.enCurso = new ConcurrentHashMap<>();
+        this.limitesPorHost = new ConcurrentHashMap<>();
+        this.sondeosRealizados = new AtomicLong();
+        this.aciertosCache = new AtomicLong();
+    }
+    
+    /**
+     * Verifica si una URL responde. No bloquea: el resultado se completa cuando
+     * termina el sondeo, o de inmediato si la caché tiene un resultado vigente.
+     * Si el sondeo no puede lanzarse, por ejemplo con el verificador cerrado, el
+     * resultado se completa con la excepción correspondiente.
+     * @param url La URL a verificar
+     * @return true si el servidor responde con un código 2xx o 3xx
+     */
+    public CompletableFuture<Boolean> verificar(String url) {
+        if (url == null || url.isEmpty()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        ResultadoVerificacion resultado = cache.get(url);
+        if (resultado != null && resultado.vigente()) {
+            aciertosCache.incrementAndGet();
+            return CompletableFuture.completedFuture(resultado.disponible());
+        }
+        
+        CompletableFuture<Boolean> nueva = new CompletableFuture<>();
+        CompletableFuture<Boolean> existente = enCurso.putIfAbsent(url, nueva);
+        if (existente != null) {
+            return existente;
+        }
+        try {
+            ejecutor.execute(() -> {
+                try {
+                    boolean disponible = sondear(url);
+                    cache.put(url, new ResultadoVerificacion(disponible, System.nanoTime() + ttlNanos));
+                    enCurso.remove(url, nueva);
+                    nueva.complete(disponible);
+                } catch (RuntimeException e) {
+                    fallar(url, nueva, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // El verificador ya está cerrado
+            fallar(url, nueva, e);
+        }
+        return nueva;
+    }
+    
+    /**
+     * Verifica un conjunto de URLs a la vez.
+     * @param urls Las URLs a verificar
+     * @return Disponibilidad de cada URL, en el orden recibido
+     */
+    public CompletableFuture<Map<String, Boolean>> verificarTodas(Collection<String> urls) {
+        Map<String, CompletableFuture<Boolean>> pendientes = new LinkedHashMap<>();
+        for (String url : urls) {
+            pendientes.computeIfAbsent(url, this::verificar);
+        }
+        return CompletableFuture.allOf(pendientes.values().toArray(new CompletableFuture<?>[0]))
+            .thenApply(_ -> {
+                Map<String, Boolean> resultados = new LinkedHashMap<>();
+                pendientes.forEach((url, verificacion) -> resultados.put(url, verificacion.join()));
+                return resultados;
+            });
+    }
+    
+    /**
+     * Descarta el resultado en caché de una URL.
+     * @param url La URL
+     */
+    public void invalidar(String url) {
+        cache.remove(url);
+    }
+    
+    /**
+     * Descarta todos los resultados en caché.
+     */
+    public void limpiarCache() {
+        cache.clear();
+    }
+    
+    /**
+     * Obtiene el número de peticiones HEAD enviadas.
+     * @return Sondeos realizados
+     */
+    public long getSondeosRealizados() {
+        return sondeosRealizados.get();
+    }
+    
+    /**
+     * Obtiene el número de verificaciones resueltas desde la caché.
+     * @return Aciertos de caché
+     */
+    public long getAciertosCache() {
+        return aciertosCache.get();
+    }
+    
+    @Override
+    public void close() {
+        ejecutor.shutdownNow();
+    }
+    
+    /**
+     * Termina con error una verificación que no llegó a completarse y la retira de las
+     * que están en curso, para que los llamadores no esperen indefinidamente y la
+     * siguiente verificación de la URL vuelva a intentarlo.
+     */
+    private void fallar(String url, CompletableFuture<Boolean> verificacion, Throwable causa) {
+        enCurso.remove(url, verificacion);
+        verificacion.completeExceptionally(causa);
+    }
+    
+    private boolean sondear(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (uri.getHost() == null || uri.getScheme() == null || !uri.getScheme().startsWith("http")) {
+            return false;
+        }
+        
+        Semaphore limite = limitesPorHost.computeIfAbsent(
+            uri.getHost() + ":" + uri.getPort(), _ -> new Semaphore(concurrentesPorHost));
+        try {
+            limite.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            HttpRequest peticion = HttpRequest.newBuilder(uri)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(tiempoEspera)
+                .build();
+            sondeosRealizados.incrementAndGet();
+            int estado = cliente.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return estado >= 200 && estado < 400;
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            limite.release();
+        }
+    }
+    
+    private static class ResultadoVerificacion {
+        private final boolean disponible;
+        private final long expiraNanos;
+        
+        ResultadoVerificacion(boolean disponible, long expiraNanos) {
+            this.disponible = disponible;
+            this.expiraNanos = expiraNanos;
+        }
+        
+        boolean disponible() {
+            return disponible;
+        }
+        
+        boolean vigente() {
+            return System.nanoTime() - expiraNanos < 0;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package Modelos.Pago;
 
+import Bitacora.Bitacora;
+import Bitacora.NivelRegistro;
+import Bitacora.Registrador;
 import java.util.Date;
 import java.util.UUID;
 
@@ -8,6 +11,8 @@ import java.util.UUID;
  * Maneja pagos realizados a través de la plataforma PayPal.
  */
 public class PagoPayPal implements ProcesoPago {
+    private static final Registrador REGISTRO = Bitacora.obtenerRegistrador(PagoPayPal.class);
+    
     private String idTransaccion;
     private Double monto;
     private String moneda;
@@ -27,7 +32,7 @@ public class PagoPayPal implements ProcesoPago {
             // Validar email de PayPal
             if (!validarEmailPayPal()) {
                 this.estado = EstadoPago.ERROR;
-                System.out.println("Error: Email de PayPal inválido");
+                REGISTRO.advertencia("Email de PayPal inválido: {}", emailPayPal);
                 return false;
             }
             
@@ -40,16 +45,15 @@ public class PagoPayPal implements ProcesoPago {
             // Simular obtención de token de acceso de PayPal
             this.tokenAcceso = generarTokenAcceso();
             
-            System.out.println("Pago con PayPal iniciado:");
-            System.out.println("  - ID Transacción: " + idTransaccion);
-            System.out.println("  - Monto: " + monto + " " + moneda);
-            System.out.println("  - Email PayPal: " + emailPayPal);
-            System.out.println("  - Token de acceso obtenido");
+            if (REGISTRO.estaHabilitado(NivelRegistro.INFO)) {
+                REGISTRO.info("Pago con PayPal iniciado - ID Transacción: {} - Monto: {} {} - Email PayPal: {} - Token de acceso obtenido",
+                    idTransaccion, monto, moneda, emailPayPal);
+            }
             
             return true;
         } catch (Exception e) {
             this.estado = EstadoPago.ERROR;
-            System.out.println("Error al iniciar pago con PayPal: " + e.getMessage());
+            REGISTRO.error("Error al iniciar pago con PayPal", e);
             return false;
         }
     }
@@ -57,12 +61,12 @@ public class PagoPayPal implements ProcesoPago {
     @Override
     public boolean verificarPago(String idTransaccion) {
         if (!this.idTransaccion.equals(idTransaccion)) {
-            System.out.println("Error: ID de transacción no coincide");
+            REGISTRO.advertencia("ID de transacción no coincide: {}", idTransaccion);
             return false;
         }
         
         if (this.estado != EstadoPago.INICIADO) {
-            System.out.println("Error: El pago no está en estado iniciado");
+            REGISTRO.advertencia("El pago no está en estado iniciado: {}", idTransaccion);
             return false;
         }
         
@@ -71,13 +75,11 @@ public class PagoPayPal implements ProcesoPago {
         
         if (verificado) {
             this.estado = EstadoPago.VERIFICADO;
-            System.out.println("Pago verificado exitosamente con PayPal");
-            System.out.println("  - Saldo disponible verificado");
-            System.out.println("  - Cuenta PayPal activa y válida");
+            REGISTRO.info("Pago verificado exitosamente con PayPal - Saldo disponible verificado - Cuenta PayPal activa y válida: {}", idTransaccion);
             return true;
         } else {
             this.estado = EstadoPago.ERROR;
-            System.out.println("Error: PayPal rechazó la transacción");
+            REGISTRO.advertencia("PayPal rechazó la transacción: {}", idTransaccion);
             return false;
         }
     }
@@ -85,12 +87,12 @@ public class PagoPayPal implements ProcesoPago {
     @Override
     public boolean confirmarPago(String idTransaccion) {
         if (!this.idTransaccion.equals(idTransaccion)) {
-            System.out.println("Error: ID de transacción no coincide");
+            REGISTRO.advertencia("ID de transacción no coincide: {}", idTransaccion);
             return false;
         }
         
         if (this.estado != EstadoPago.VERIFICADO) {
-            System.out.println("Error: El pago debe estar verificado antes de confirmar");
+            REGISTRO.advertencia("El pago debe estar verificado antes de confirmar: {}", idTransaccion);
             return false;
         }
         
@@ -99,14 +101,12 @@ public class PagoPayPal implements ProcesoPago {
         
         if (procesado) {
             this.estado = EstadoPago.CONFIRMADO;
-            System.out.println("Pago confirmado exitosamente con PayPal");
-            System.out.println("  - Monto transferido: " + monto + " " + moneda);
-            System.out.println("  - Fecha: " + fechaPago);
-            System.out.println("  - Comisión PayPal aplicada");
+            REGISTRO.info("Pago confirmado exitosamente con PayPal - Monto transferido: {} {} - Fecha: {} - Comisión PayPal aplicada",
+                monto, moneda, fechaPago);
             return true;
         } else {
             this.estado = EstadoPago.ERROR;
-            System.out.println("Error al procesar el pago final con PayPal");
+            REGISTRO.error("Error al procesar el pago final con PayPal: {}", idTransaccion);
             return false;
         }
     }
@@ -142,17 +142,17 @@ public class PagoPayPal implements ProcesoPago {
     @Override
     public boolean cancelarPago(String idTransaccion) {
         if (!this.idTransaccion.equals(idTransaccion)) {
-            System.out.println("Error: ID de transacción no coincide");
+            REGISTRO.advertencia("ID de transacción no coincide: {}", idTransaccion);
             return false;
         }
         
         if (this.estado == EstadoPago.CONFIRMADO) {
-            System.out.println("Error: No se puede cancelar un pago ya confirmado");
+            REGISTRO.advertencia("No se puede cancelar un pago ya confirmado: {}", idTransaccion);
             return false;
         }
         
         this.estado = EstadoPago.CANCELADO;
-        System.out.println("Pago con PayPal cancelado exitosamente");
+        REGISTRO.info("Pago con PayPal cancelado exitosamente: {}", idTransaccion);
         return true;
     }
     
@@ -1,5 +1,8 @@
 package Modelos.Pago;
 
+import Bitacora.Bitacora;
+import Bitacora.NivelRegistro;
+import Bitacora.Registrador;
 import Excepciones.PagoFallidoExcepcion;
 import java.util.Date;
 import java.util.UUID;
@@ -9,6 +12,8 @@ import java.util.UUID;
  * Maneja pagos realizados con tarjetas bancarias.
  */
 public class PagoTarjeta implements ProcesoPago {
+    private static final Registrador REGISTRO = Bitacora.obtenerRegistrador(PagoTarjeta.class);
+    
     private String idTransaccion;
     private Double monto;
     private String moneda;
@@ -60,14 +65,12 @@ public class PagoTarjeta implements ProcesoPago {
             this.fechaPago = new Date();
             this.estado = EstadoPago.INICIADO;
             
-            // Enmascarar número de tarjeta para seguridad
-            String tarjetaEnmascarada = enmascararTarjeta(numeroTarjeta);
-            
-            System.out.println("Pago con tarjeta iniciado:");
-            System.out.println("  - ID Transacción: " + idTransaccion);
-            System.out.println("  - Monto: " + monto + " " + moneda);
-            System.out.println("  - Tarjeta: " + tarjetaEnmascarada);
-            System.out.println("  - Titular: " + nombreTitular);
+            if (REGISTRO.estaHabilitado(NivelRegistro.INFO)) {
+                // Enmascarar número de tarjeta para seguridad
+                String tarjetaEnmascarada = enmascararTarjeta(numeroTarjeta);
+                REGISTRO.info("Pago con tarjeta iniciado - ID Transacción: {} - Monto: {} {} - Tarjeta: {} - Titular: {}",
+                    idTransaccion, monto, moneda, tarjetaEnmascarada, nombreTitular);
+            }
             
             return true;
         } catch (PagoFallidoExcepcion e) {
@@ -111,7 +114,7 @@ public class PagoTarjeta implements ProcesoPago {
             
             if (verificado) {
                 this.estado = EstadoPago.VERIFICADO;
-                System.out.println("Pago verificado exitosamente con el banco");
+                REGISTRO.info("Pago verificado exitosamente con el banco: {}", idTransaccion);
                 return true;
             } else {
                 this.estado = EstadoPago.ERROR;
@@ -160,9 +163,7 @@ public class PagoTarjeta implements ProcesoPago {
             
             if (procesado) {
                 this.estado = EstadoPago.CONFIRMADO;
-                System.out.println("Pago confirmado exitosamente");
-                System.out.println("  - Monto cobrado: " + monto + " " + moneda);
-                System.out.println("  - Fecha: " + fechaPago);
+                REGISTRO.info("Pago confirmado exitosamente - Monto cobrado: {} {} - Fecha: {}", monto, moneda, fechaPago);
                 return true;
             } else {
                 this.estado = EstadoPago.ERROR;
@@ -213,17 +214,17 @@ public class PagoTarjeta implements ProcesoPago {
     @Override
     public boolean cancelarPago(String idTransaccion) {
         if (!this.idTransaccion.equals(idTransaccion)) {
-            System.out.println("Error: ID de transacción no coincide");
+            REGISTRO.advertencia("ID de transacción no coincide: {}", idTransaccion);
             return false;
         }
         
         if (this.estado == EstadoPago.CONFIRMADO) {
-            System.out.println("Error: No se puede cancelar un pago ya confirmado");
+            REGISTRO.advertencia("No se puede cancelar un pago ya confirmado: {}", idTransaccion);
             return false;
         }
         
         this.estado = EstadoPago.CANCELADO;
-        System.out.println("Pago cancelado exitosamente");
+        REGISTRO.info("Pago cancelado exitosamente: {}", idTransaccion);
         return true;
     }
     
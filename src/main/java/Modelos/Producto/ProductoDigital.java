@@ -1,12 +1,20 @@
 package Modelos.Producto;
 
+import java.util.function.IntSupplier;
+
 public class ProductoDigital implements ProductoInterface {
     private String id;
     private String nombre;
     private Double precio;
     private Integer cantidad;
     private String formato;
+    // Con prefijo compartido, url guarda solo el resto de la URL
+    private String prefijoUrl;
     private String url;
+    // URL completa unida en la primera lectura; sin sincronizar porque String es inmutable
+    private String urlCompleta;
+    // Fuente de la cantidad cuando el stock lo gestiona otro objeto, como un pool de licencias
+    private volatile IntSupplier cantidadVinculada;
 
     public ProductoDigital(String id, String nombre, Double precio, Integer cantidad, String formato, String url) {
         this.id = id;
@@ -17,6 +25,17 @@ public class ProductoDigital implements ProductoInterface {
         this.url = url;
     }
 
+    /**
+     * Crea un producto cuya URL se guarda como un prefijo compartido con otros productos
+     * (por ejemplo, la URL del CDN) más el resto propio del producto.
+     * @param prefijoUrl Prefijo de la URL, normalmente la misma instancia para todo el catálogo
+     * @param restoUrl Resto de la URL tras el prefijo
+     */
+    public ProductoDigital(String id, String nombre, Double precio, Integer cantidad, String formato, String prefijoUrl, String restoUrl) {
+        this(id, nombre, precio, cantidad, formato, restoUrl);
+        this.prefijoUrl = prefijoUrl;
+    }
+
     public String getId() {
         return id;
     }
@@ -29,7 +48,14 @@ public class ProductoDigital implements ProductoInterface {
         return precio;
     }
 
+    /**
+     * Obtiene la cantidad en stock. Con la cantidad vinculada se calcula en cada lectura.
+     */
     public Integer getCantidad() {
+        IntSupplier fuente = cantidadVinculada;
+        if (fuente != null) {
+            return fuente.getAsInt();
+        }
         return cantidad;
     }
 
@@ -37,8 +63,20 @@ public class ProductoDigital implements ProductoInterface {
         return formato;
     }
 
+    /**
+     * Obtiene la URL completa. Si se guarda con prefijo compartido, se une en la primera llamada
+     * y se reutiliza en las siguientes.
+     */
     public String getUrl() {
-        return url;
+        if (prefijoUrl == null) {
+            return url;
+        }
+        String completa = urlCompleta;
+        if (completa == null) {
+            completa = prefijoUrl + url;
+            urlCompleta = completa;
+        }
+        return completa;
     }
     
     public void setId(String id) {
@@ -53,15 +91,47 @@ public class ProductoDigital implements ProductoInterface {
         this.precio = precio;
     }
 
+    /**
+     * @throws IllegalStateException Si la cantidad está vinculada a otra fuente
+     */
     public void setCantidad(Integer cantidad) {
+        if (cantidadVinculada != null) {
+            throw new IllegalStateException("La cantidad del producto " + id + " se calcula a partir de su fuente vinculada");
+        }
         this.cantidad = cantidad;
     }
+    
+    /**
+     * Vincula la cantidad del producto a una fuente externa: desde ese momento getCantidad
+     * devuelve su valor y setCantidad se rechaza.
+     * @param fuente La fuente de la cantidad
+     */
+    public synchronized void vincularCantidad(IntSupplier fuente) {
+        if (fuente == null) {
+            throw new IllegalArgumentException("La fuente de la cantidad no puede ser nula");
+        }
+        this.cantidadVinculada = fuente;
+    }
+    
+    /**
+     * Desvincula la cantidad de su fuente, conservando el último valor leído de ella.
+     * No hace nada si el producto está vinculado a otra fuente.
+     * @param fuente La fuente a la que se vinculó
+     */
+    public synchronized void desvincularCantidad(IntSupplier fuente) {
+        if (cantidadVinculada == fuente) {
+            this.cantidad = fuente.getAsInt();
+            this.cantidadVinculada = null;
+        }
+    }
 
     public void setFormato(String formato) {
         this.formato = formato;
     }
 
     public void setUrl(String url) {
+        this.prefijoUrl = null;
+        this.urlCompleta = null;
         this.url = url;
     }
 }
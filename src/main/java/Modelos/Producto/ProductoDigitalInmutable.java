@@ -0,0 +1,114 @@
+package Modelos.Producto;
+
+import java.util.Objects;
+
+/**
+ * Producto digital inmutable con el precio en centavos y la cantidad como primitivos.
+ * Se puede compartir entre hilos sin sincronización y se compara por valor.
+ * Implementa solo la vista de lectura ProductoSoloLectura; para modificarlo o pasarlo a los
+ * gestores y repositorios se convierte con aMutable().
+ */
+public final class ProductoDigitalInmutable implements ProductoSoloLectura {
+    private final String id;
+    private final String nombre;
+    private final long precioCentavos;
+    private final int cantidad;
+    private final String formato;
+    private final String url;
+    
+    public ProductoDigitalInmutable(String id, String nombre, long precioCentavos, int cantidad, String formato, String url) {
+        if (id == null) {
+            throw new IllegalArgumentException("El ID del producto no puede ser nulo");
+        }
+        this.id = id;
+        this.nombre = nombre;
+        this.precioCentavos = precioCentavos;
+        this.cantidad = cantidad;
+        this.formato = formato;
+        this.url = url;
+    }
+    
+    /**
+     * Crea una copia inmutable de un producto digital.
+     * @param producto El producto
+     * @return La copia
+     * @throws IllegalArgumentException Si el producto no tiene ID o precio
+     */
+    public static ProductoDigitalInmutable desde(ProductoDigital producto) {
+        if (producto.getPrecio() == null) {
+            throw new IllegalArgumentException("El producto " + producto.getId() + " no tiene precio");
+        }
+        return new ProductoDigitalInmutable(producto.getId(), producto.getNombre(), producto.getPrecioCentavos(),
+                                            producto.getUnidades(), producto.getFormato(), producto.getUrl());
+    }
+    
+    /**
+     * Crea un producto digital mutable con los mismos datos.
+     * @return El producto mutable
+     */
+    public ProductoDigital aMutable() {
+        return new ProductoDigital(id, nombre, getPrecio(), cantidad, formato, url);
+    }
+    
+    @Override
+    public String getId() {
+        return id;
+    }
+    
+    @Override
+    public String getNombre() {
+        return nombre;
+    }
+    
+    @Override
+    public Double getPrecio() {
+        return precioCentavos / 100.0;
+    }
+    
+    @Override
+    public long getPrecioCentavos() {
+        return precioCentavos;
+    }
+    
+    @Override
+    public Integer getCantidad() {
+        return cantidad;
+    }
+    
+    @Override
+    public int getUnidades() {
+        return cantidad;
+    }
+    
+    public String getFormato() {
+        return formato;
+    }
+    
+    public String getUrl() {
+        return url;
+    }
+    
+    @Override
+    public boolean equals(Object otro) {
+        if (this == otro) {
+            return true;
+        }
+        if (!(otro instanceof ProductoDigitalInmutable producto)) {
+            return false;
+        }
+        return precioCentavos == producto.precioCentavos && cantidad == producto.cantidad && id.equals(producto.id)
+            && Objects.equals(nombre, producto.nombre) && Objects.equals(formato, producto.formato)
+            && Objects.equals(url, producto.url);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, nombre, precioCentavos, cantidad, formato, url);
+    }
+    
+    @Override
+    public String toString() {
+        return "ProductoDigitalInmutable[id=" + id + ", nombre=" + nombre + ", precioCentavos=" + precioCentavos
+            + ", cantidad=" + cantidad + ", formato=" + formato + ", url=" + url + "]";
+    }
+}
@@ -53,6 +53,24 @@ public class ProductoFisico implements ProductoInterface {
         return profundidad;
     }
     
+    /**
+     * Obtiene el peso unitario en miligramos como primitivo.
+     * La escala fina evita que los artículos de menos de medio gramo cuenten como 0
+     * al multiplicar por las unidades.
+     * @return El peso en mg, redondeado al más cercano
+     */
+    public long getPesoMiligramos() {
+        return Math.round(peso * 1_000_000.0);
+    }
+    
+    /**
+     * Obtiene el volumen unitario en milímetros cúbicos como primitivo.
+     * @return El volumen en mm³, redondeado al más cercano
+     */
+    public long getVolumenMilimetrosCubicos() {
+        return Math.round(altura * ancho * profundidad * 1_000_000_000.0);
+    }
+    
     public void setId(String id) {
         this.id = id;
     }
@@ -0,0 +1,143 @@
+package Modelos.Producto;
+
+import java.util.Objects;
+
+/**
+ * Producto físico inmutable con el precio en centavos, la cantidad y las medidas como primitivos.
+ * El peso y el volumen unitarios se guardan ya en gramos y cm³, como los usan los controles de
+ * capacidad del inventario. Se puede compartir entre hilos sin sincronización y se compara por valor.
+ * Implementa solo la vista de lectura ProductoSoloLectura; para modificarlo o pasarlo a los
+ * gestores y repositorios se convierte con aMutable().
+ */
+public final class ProductoFisicoInmutable implements ProductoSoloLectura {
+    private final String id;
+    private final String nombre;
+    private final long precioCentavos;
+    private final int cantidad;
+    private final double peso;
+    private final double altura;
+    private final double ancho;
+    private final double profundidad;
+    private final long pesoMiligramos;
+    private final long volumenMilimetrosCubicos;
+    
+    public ProductoFisicoInmutable(String id, String nombre, long precioCentavos, int cantidad,
+                                   double peso, double altura, double ancho, double profundidad) {
+        if (id == null) {
+            throw new IllegalArgumentException("El ID del producto no puede ser nulo");
+        }
+        this.id = id;
+        this.nombre = nombre;
+        this.precioCentavos = precioCentavos;
+        this.cantidad = cantidad;
+        this.peso = peso;
+        this.altura = altura;
+        this.ancho = ancho;
+        this.profundidad = profundidad;
+        this.pesoMiligramos = Math.round(peso * 1_000_000.0);
+        this.volumenMilimetrosCubicos = Math.round(altura * ancho * profundidad * 1_000_000_000.0);
+    }
+    
+    /**
+     * Crea una copia inmutable de un producto físico.
+     * @param producto El producto
+     * @return La copia
+     * @throws IllegalArgumentException Si al producto le falta el ID, el precio o alguna medida
+     */
+    public static ProductoFisicoInmutable desde(ProductoFisico producto) {
+        if (producto.getPrecio() == null || producto.getPeso() == null || producto.getAltura() == null
+                || producto.getAncho() == null || producto.getProfundidad() == null) {
+            throw new IllegalArgumentException("Al producto " + producto.getId() + " le falta el precio o alguna medida");
+        }
+        return new ProductoFisicoInmutable(producto.getId(), producto.getNombre(), producto.getPrecioCentavos(), producto.getUnidades(),
+                                           producto.getPeso(), producto.getAltura(), producto.getAncho(), producto.getProfundidad());
+    }
+    
+    /**
+     * Crea un producto físico mutable con los mismos datos.
+     * @return El producto mutable
+     */
+    public ProductoFisico aMutable() {
+        return new ProductoFisico(id, nombre, getPrecio(), cantidad, peso, altura, ancho, profundidad);
+    }
+    
+    @Override
+    public String getId() {
+        return id;
+    }
+    
+    @Override
+    public String getNombre() {
+        return nombre;
+    }
+    
+    @Override
+    public Double getPrecio() {
+        return precioCentavos / 100.0;
+    }
+    
+    @Override
+    public long getPrecioCentavos() {
+        return precioCentavos;
+    }
+    
+    @Override
+    public Integer getCantidad() {
+        return cantidad;
+    }
+    
+    @Override
+    public int getUnidades() {
+        return cantidad;
+    }
+    
+    public double getPeso() {
+        return peso;
+    }
+    
+    public double getAltura() {
+        return altura;
+    }
+    
+    public double getAncho() {
+        return ancho;
+    }
+    
+    public double getProfundidad() {
+        return profundidad;
+    }
+    
+    public long getPesoMiligramos() {
+        return pesoMiligramos;
+    }
+    
+    public long getVolumenMilimetrosCubicos() {
+        return volumenMilimetrosCubicos;
+    }
+    
+    @Override
+    public boolean equals(Object otro) {
+        if (this == otro) {
+            return true;
+        }
+        if (!(otro instanceof ProductoFisicoInmutable producto)) {
+            return false;
+        }
+        return precioCentavos == producto.precioCentavos && cantidad == producto.cantidad && id.equals(producto.id)
+            && Objects.equals(nombre, producto.nombre)
+            && Double.compare(peso, producto.peso) == 0 && Double.compare(altura, producto.altura) == 0
+            && Double.compare(ancho, producto.ancho) == 0 && Double.compare(profundidad, producto.profundidad) == 0;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, nombre, precioCentavos, cantidad, peso, altura, ancho, profundidad);
+    }
+    
+    @Override
+    public String toString() {
+        return "ProductoFisicoInmutable[id=" + id + ", nombre=" + nombre + ", precioCentavos=" + precioCentavos
+            + ", cantidad=" + cantidad + ", peso=" + peso + ", altura=" + altura + ", ancho=" + ancho
+            + ", profundidad=" + profundidad + "]";
+    }
+}
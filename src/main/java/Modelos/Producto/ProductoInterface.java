@@ -1,10 +1,6 @@
 package Modelos.Producto;
 
-public interface ProductoInterface {
-    String getId();
-    String getNombre();
-    Double getPrecio();
-    Integer getCantidad();
+public interface ProductoInterface extends ProductoSoloLectura {
     void setId(String id);
     void setNombre(String nombre);
     void setPrecio(Double precio);
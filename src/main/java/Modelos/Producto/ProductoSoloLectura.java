@@ -0,0 +1,30 @@
+package Modelos.Producto;
+
+/**
+ * Vista de solo lectura de un producto.
+ * La implementan los productos inmutables, que no pueden ofrecer los setters de ProductoInterface.
+ */
+public interface ProductoSoloLectura {
+    String getId();
+    String getNombre();
+    Double getPrecio();
+    Integer getCantidad();
+    
+    /**
+     * Obtiene el precio en centavos como primitivo, para sumar importes sin crear objetos.
+     * @return El precio en centavos, redondeado al más cercano
+     * @throws NullPointerException Si el producto no tiene precio
+     */
+    default long getPrecioCentavos() {
+        return Math.round(getPrecio() * 100.0);
+    }
+    
+    /**
+     * Obtiene la cantidad como primitivo.
+     * @return La cantidad, o 0 si no está definida
+     */
+    default int getUnidades() {
+        Integer cantidad = getCantidad();
+        return cantidad != null ? cantidad : 0;
+    }
+}
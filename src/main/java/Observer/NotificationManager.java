@@ -1,27 +1,39 @@
 package Observer;
 
+import Bitacora.Bitacora;
+import Bitacora.NivelRegistro;
+import Bitacora.Registrador;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 
 /**
  * Gestor de notificaciones simplificado que implementa el patrón Observer.
  * Permite registrar closures (funciones) para eventos específicos.
+ * Los eventos pueden notificarse desde varios hilos, por ejemplo al cambiar el stock.
+ * Quien notifica mientras retiene bloqueos puede retener los eventos del hilo y publicarlos
+ * al soltarlos, para que los observadores no se ejecuten dentro de sus secciones críticas.
  */
 public class NotificationManager {
     
+    private static final Registrador REGISTRO = Bitacora.obtenerRegistrador(NotificationManager.class);
+    
     private static NotificationManager instancia;
     private final Map<TipoEvento, List<Consumer<Object>>> observadores;
-    private boolean notificacionesActivas;
+    private volatile boolean notificacionesActivas;
+    // Eventos notificados por cada hilo mientras retiene la publicación
+    private final ThreadLocal<EventosRetenidos> retenidos;
     
     /**
      * Constructor privado para implementar el patrón Singleton.
      */
     private NotificationManager() {
-        this.observadores = new HashMap<>();
+        this.observadores = new ConcurrentHashMap<>();
         this.notificacionesActivas = true;
+        this.retenidos = ThreadLocal.withInitial(EventosRetenidos::new);
     }
     
     /**
@@ -45,8 +57,23 @@ public class NotificationManager {
             return;
         }
         
-        observadores.computeIfAbsent(evento, _ -> new ArrayList<>()).add(callback);
-        System.out.println("✓ Observador registrado para evento: " + evento.getCodigo());
+        observadores.computeIfAbsent(evento, _ -> new CopyOnWriteArrayList<>()).add(callback);
+        REGISTRO.info("✓ Observador registrado para evento: {}", evento.getCodigo());
+    }
+    
+    /**
+     * Quita una función registrada previamente para un evento.
+     * @param evento El tipo de evento observado
+     * @param callback La misma función que se registró
+     * @return true si la función estaba registrada
+     */
+    public boolean desregistrarObserver(TipoEvento evento, Consumer<Object> callback) {
+        List<Consumer<Object>> callbacks = observadores.get(evento);
+        boolean eliminado = callbacks != null && callbacks.remove(callback);
+        if (eliminado) {
+            REGISTRO.info("✓ Observador eliminado para evento: {}", evento.getCodigo());
+        }
+        return eliminado;
     }
     
     /**
@@ -64,18 +91,29 @@ public class NotificationManager {
             return;
         }
         
-        System.out.println("\n🔔 NOTIFICACIÓN: " + evento.getDescripcion());
-        System.out.println("📊 Datos: " + (datos != null ? datos.toString() : "Sin datos"));
-        System.out.println("👥 Ejecutando " + callbacks.size() + " observadores...");
+        EventosRetenidos pendientes = retenidos.get();
+        if (pendientes.profundidad > 0) {
+            pendientes.eventos.add(new EventoRetenido(evento, datos));
+            return;
+        }
+        
+        // Se registra en depuración: los cambios de stock notifican con cada escritura
+        if (REGISTRO.estaHabilitado(NivelRegistro.DEPURACION)) {
+            // Los datos pueden cambiar después de notificar: se formatean ahora
+            String descripcionDatos = datos != null ? datos.toString() : "Sin datos";
+            int cantidadObservadores = callbacks.size();
+            REGISTRO.depuracion(() -> "🔔 NOTIFICACIÓN: " + evento.getDescripcion() + " - 📊 Datos: " + descripcionDatos
+                + " - 👥 Ejecutando " + cantidadObservadores + " observadores");
+        }
         
         for (Consumer<Object> callback : callbacks) {
             try {
                 callback.accept(datos);
             } catch (Exception e) {
-                System.err.println("❌ Error ejecutando observador: " + e.getMessage());
+                REGISTRO.error("❌ Error ejecutando observador", e);
             }
         }
-        System.out.println("✅ Notificación completada\n");
+        REGISTRO.depuracion("✅ Notificación completada: {}", evento.getCodigo());
     }
     
     /**
@@ -86,6 +124,35 @@ public class NotificationManager {
         notificarEvento(evento, null);
     }
     
+    /**
+     * Retiene los eventos que notifique el hilo actual hasta la llamada correspondiente a
+     * publicarEventosRetenidos. Las retenciones se pueden anidar; los eventos se publican al
+     * cerrar la más externa. Entre hilos distintos los eventos retenidos pueden publicarse en
+     * otro orden que el de los cambios, por lo que los observadores deben releer el estado.
+     */
+    public void retenerEventos() {
+        retenidos.get().profundidad++;
+    }
+    
+    /**
+     * Cierra una retención abierta con retenerEventos y, si era la más externa, publica en
+     * orden los eventos retenidos. Debe llamarse en un bloque finally y sin bloqueos retenidos.
+     */
+    public void publicarEventosRetenidos() {
+        EventosRetenidos pendientes = retenidos.get();
+        if (pendientes.profundidad == 0) {
+            throw new IllegalStateException("No hay eventos retenidos en este hilo");
+        }
+        if (--pendientes.profundidad > 0 || pendientes.eventos.isEmpty()) {
+            return;
+        }
+        List<EventoRetenido> eventos = new ArrayList<>(pendientes.eventos);
+        pendientes.eventos.clear();
+        for (EventoRetenido retenido : eventos) {
+            notificarEvento(retenido.evento, retenido.datos);
+        }
+    }
+    
     /**
      * Activa o desactiva las notificaciones.
      * @param activas true para activar, false para desactivar
@@ -93,7 +160,7 @@ public class NotificationManager {
     public void setNotificacionesActivas(boolean activas) {
         this.notificacionesActivas = activas;
         String estado = activas ? "activadas" : "desactivadas";
-        System.out.println("🔧 Notificaciones " + estado);
+        REGISTRO.info("🔧 Notificaciones {}", estado);
     }
     
     /**
@@ -128,7 +195,7 @@ public class NotificationManager {
     public void limpiarObservers() {
         int cantidad = getNumeroObservers();
         observadores.clear();
-        System.out.println("🧹 Se eliminaron " + cantidad + " observadores");
+        REGISTRO.info("🧹 Se eliminaron {} observadores", cantidad);
     }
     
     /**
@@ -138,7 +205,7 @@ public class NotificationManager {
     public void limpiarObservers(TipoEvento evento) {
         List<Consumer<Object>> callbacks = observadores.remove(evento);
         int cantidad = callbacks != null ? callbacks.size() : 0;
-        System.out.println("🧹 Se eliminaron " + cantidad + " observadores para " + evento.getCodigo());
+        REGISTRO.info("🧹 Se eliminaron {} observadores para {}", cantidad, evento.getCodigo());
     }
     
     /**
@@ -160,4 +227,19 @@ public class NotificationManager {
         
         return estado.toString();
     }
+    
+    private static class EventoRetenido {
+        private final TipoEvento evento;
+        private final Object datos;
+        
+        EventoRetenido(TipoEvento evento, Object datos) {
+            this.evento = evento;
+            this.datos = datos;
+        }
+    }
+    
+    private static class EventosRetenidos {
+        private final List<EventoRetenido> eventos = new ArrayList<>();
+        private int profundidad;
+    }
 }
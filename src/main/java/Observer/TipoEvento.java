@@ -18,6 +18,7 @@ public enum TipoEvento {
     STOCK_AGOTADO("STOCK_AGOTADO", "El stock de un producto se ha agotado"),
     PRODUCTO_AGREGADO("PRODUCTO_AGREGADO", "Se ha agregado un nuevo producto"),
     PRODUCTO_ELIMINADO("PRODUCTO_ELIMINADO", "Se ha eliminado un producto"),
+    PRODUCTO_ACTUALIZADO("PRODUCTO_ACTUALIZADO", "Se han actualizado los datos de un producto"),
     STOCK_ACTUALIZADO("STOCK_ACTUALIZADO", "Se ha actualizado el stock de un producto"),
     
     // Eventos de Pago
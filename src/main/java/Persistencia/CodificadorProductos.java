@@ -0,0 +1,603 @@
+package Persistencia;
+
+import Factory.FabricaEntidadesInterface;
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoFisico;
+import Modelos.Producto.ProductoInterface;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formato binario compacto y versionado para intercambiar productos entre procesos o guardarlos en disco.
+ * <p>
+ * Cada producto empieza con la versión del formato, la clase de producto y una máscara que indica cómo
+ * está codificado cada campo numérico; después van los campos en orden fijo:
+ * ID, nombre, precio y cantidad, seguidos del formato y la URL o de las cuatro dimensiones.
+ * <ul>
+ *   <li>Las longitudes y los enteros son varints; el sufijo numérico de los IDs ("CAJA1234")
+ *   se guarda como varint en lugar de como texto.</li>
+ *   <li>Los formatos habituales se codifican con su posición en un diccionario fijo de la versión.</li>
+ *   <li>Los precios se guardan en centavos y las dimensiones en milésimas, siempre que el valor
+ *   se pueda reconstruir exactamente; si no, se guarda el double completo.</li>
+ * </ul>
+ * Los métodos leer* obtienen un campo saltando los anteriores, sin decodificar el producto completo.
+ */
+public final class CodificadorProductos {
+    /** Versión del formato que escribe este codificador */
+    public static final byte VERSION = 1;
+    
+    private static final byte PRODUCTO_FISICO = 1;
+    private static final byte PRODUCTO_DIGITAL = 2;
+    
+    // Codificación de cada campo numérico en la máscara, dos bits por campo
+    private static final int AUSENTE = 0;
+    private static final int FIJO = 1;
+    private static final int DOBLE = 2;
+    
+    private static final int CAMPO_PRECIO = 0;
+    private static final int CAMPO_CANTIDAD = 1;
+    private static final int CAMPO_PESO = 2;
+    private static final int CAMPO_ALTURA = 3;
+    private static final int CAMPO_ANCHO = 4;
+    private static final int CAMPO_PROFUNDIDAD = 5;
+    
+    private static final double ESCALA_PRECIO = 100.0;
+    private static final double ESCALA_DIMENSION = 1000.0;
+    
+    // Límite a partir del cual un valor escalado ya no es un entero exacto en un double
+    private static final double MAXIMO_FIJO = 1L << 52;
+    
+    // Diccionario de formatos de la versión 1: solo se pueden agregar entradas con una versión nueva
+    private static final String[] FORMATOS = {
+        "PDF", "EPUB", "MOBI", "TXT", "DOCX", "XLSX", "PPTX", "MP3", "WAV", "FLAC",
+        "MP4", "AVI", "MKV", "MOV", "JPG", "PNG", "SVG", "ZIP", "ISO", "EXE"
+    };
+    
+    private static final int MAXIMO_DIGITOS_ID = 18;
+    
+    private CodificadorProductos() {
+    }
+    
+    /**
+     * Codifica un producto a partir de la posición actual del buffer, que queda detrás del producto.
+     * @param producto El producto
+     * @param destino Buffer de destino
+     * @throws BufferOverflowException Si el producto no cabe; la posición del buffer no cambia
+     * @throws IllegalArgumentException Si el tipo de producto no está soportado
+     */
+    public static void codificar(ProductoInterface producto, ByteBuffer destino) {
+        int inicio = destino.position();
+        try {
+            int mascara = mascara(producto);
+            escribirComunes(destino, producto instanceof ProductoFisico ? PRODUCTO_FISICO : PRODUCTO_DIGITAL, mascara, producto);
+            if (producto instanceof ProductoFisico fisico) {
+                escribirDecimal(destino, fisico.getPeso(), ESCALA_DIMENSION, codigo(mascara, CAMPO_PESO));
+                escribirDecimal(destino, fisico.getAltura(), ESCALA_DIMENSION, codigo(mascara, CAMPO_ALTURA));
+                escribirDecimal(destino, fisico.getAncho(), ESCALA_DIMENSION, codigo(mascara, CAMPO_ANCHO));
+                escribirDecimal(destino, fisico.getProfundidad(), ESCALA_DIMENSION, codigo(mascara, CAMPO_PROFUNDIDAD));
+            } else {
+                ProductoDigital digital = (ProductoDigital) producto;
+                escribirFormato(destino, digital.getFormato());
+                escribirTexto(destino, digital.getUrl());
+            }
+        } catch (BufferOverflowException e) {
+            destino.position(inicio);
+            throw e;
+        }
+    }
+    
+    /**
+     * Calcula cuántos bytes ocupa un producto codificado, para dimensionar el buffer de destino.
+     * @param producto El producto
+     * @return El tamaño codificado en bytes
+     */
+    public static int tamañoCodificado(ProductoInterface producto) {
+        int tamaño = 2 + tamañoVarint(mascara(producto)) + tamañoId(producto.getId()) + tamañoTexto(producto.getNombre())
+            + tamañoDecimal(producto.getPrecio(), ESCALA_PRECIO)
+            + (producto.getCantidad() == null ? 0 : tamañoVarint(zigzag(producto.getCantidad())));
+        if (producto instanceof ProductoFisico fisico) {
+            return tamaño + tamañoDecimal(fisico.getPeso(), ESCALA_DIMENSION) + tamañoDecimal(fisico.getAltura(), ESCALA_DIMENSION)
+                + tamañoDecimal(fisico.getAncho(), ESCALA_DIMENSION) + tamañoDecimal(fisico.getProfundidad(), ESCALA_DIMENSION);
+        }
+        return tamaño + tamañoFormato(((ProductoDigital) producto).getFormato()) + tamañoTexto(((ProductoDigital) producto).getUrl());
+    }
+    
+    /**
+     * Decodifica un producto a partir de la posición actual del buffer, que queda detrás del producto.
+     * @param origen Buffer posicionado al inicio del producto
+     * @param fabrica Fábrica usada para reconstruir el producto
+     * @return El producto
+     * @throws IllegalArgumentException Si la versión o la clase de producto no se reconocen
+     */
+    public static ProductoInterface decodificar(ByteBuffer origen, FabricaEntidadesInterface fabrica) {
+        int posicion = origen.position();
+        byte clase = leerClase(origen, posicion);
+        int mascara = (int) leerVarint(origen, posicion + 2);
+        posicion = inicioCampos(origen, posicion);
+        
+        String id = leerIdEn(origen, posicion);
+        posicion = saltarId(origen, posicion);
+        String nombre = leerTexto(origen, posicion);
+        posicion = saltarTexto(origen, posicion);
+        Double precio = leerDecimal(origen, posicion, ESCALA_PRECIO, codigo(mascara, CAMPO_PRECIO));
+        posicion = saltarNumero(origen, posicion, codigo(mascara, CAMPO_PRECIO));
+        Integer cantidad = codigo(mascara, CAMPO_CANTIDAD) == AUSENTE ? null : (int) deshacerZigzag(leerVarint(origen, posicion));
+        posicion = saltarNumero(origen, posicion, codigo(mascara, CAMPO_CANTIDAD));
+        
+        ProductoInterface producto;
+        if (clase == PRODUCTO_FISICO) {
+            Double[] dimensiones = new Double[4];
+            for (int i = 0; i < dimensiones.length; i++) {
+                int tipo = codigo(mascara, CAMPO_PESO + i);
+                dimensiones[i] = leerDecimal(origen, posicion, ESCALA_DIMENSION, tipo);
+                posicion = saltarNumero(origen, posicion, tipo);
+            }
+            producto = fabrica.crearProducto(id, nombre, precio, cantidad, dimensiones[0], dimensiones[1], dimensiones[2], dimensiones[3]);
+        } else {
+            String formato = leerFormatoEn(origen, posicion);
+            posicion = saltarFormato(origen, posicion);
+            String url = leerTexto(origen, posicion);
+            posicion = saltarTexto(origen, posicion);
+            producto = fabrica.crearProducto(id, nombre, precio, cantidad, formato, url);
+        }
+        origen.position(posicion);
+        return producto;
+    }
+    
+    /**
+     * Calcula cuántos bytes ocupa el producto codificado en una posición, para saltarlo sin decodificarlo.
+     * @param datos Buffer que contiene el producto
+     * @param inicio Índice del primer byte del producto
+     * @return El tamaño del producto en bytes
+     */
+    public static int longitud(ByteBuffer datos, int inicio) {
+        byte clase = leerClase(datos, inicio);
+        int mascara = (int) leerVarint(datos, inicio + 2);
+        int posicion = saltarNumero(datos, saltarNumero(datos, saltarTexto(datos, saltarId(datos, inicio + 2 + tamañoVarint(mascara))),
+                                                codigo(mascara, CAMPO_PRECIO)), codigo(mascara, CAMPO_CANTIDAD));
+        if (clase == PRODUCTO_FISICO) {
+            for (int campo = CAMPO_PESO; campo <= CAMPO_PROFUNDIDAD; campo++) {
+                posicion = saltarNumero(datos, posicion, codigo(mascara, campo));
+            }
+        } else {
+            posicion = saltarTexto(datos, saltarFormato(datos, posicion));
+        }
+        return posicion - inicio;
+    }
+    
+    /**
+     * Indica si el producto codificado en una posición es un producto físico.
+     * @param datos Buffer que contiene el producto
+     * @param inicio Índice del primer byte del producto
+     */
+    public static boolean esFisico(ByteBuffer datos, int inicio) {
+        return leerClase(datos, inicio) == PRODUCTO_FISICO;
+    }
+    
+    /**
+     * Lee el ID de un producto codificado sin decodificar el resto de campos.
+     * @param datos Buffer que contiene el producto
+     * @param inicio Índice del primer byte del producto
+     * @return El ID del producto
+     */
+    public static String leerId(ByteBuffer datos, int inicio) {
+        leerClase(datos, inicio);
+        return leerIdEn(datos, inicioCampos(datos, inicio));
+    }
+    
+    /**
+     * Lee el nombre de un producto codificado sin decodificar el resto de campos.
+     * @param datos Buffer que contiene el producto
+     * @param inicio Índice del primer byte del producto
+     * @return El nombre del producto
+     */
+    public static String leerNombre(ByteBuffer datos, int inicio) {
+        leerClase(datos, inicio);
+        return leerTexto(datos, saltarId(datos, inicioCampos(datos, inicio)));
+    }
+    
+    /**
+     * Lee el precio de un producto codificado sin decodificar sus textos.
+     * @param datos Buffer que contiene el producto
+     * @param inicio Índice del primer byte del producto
+     * @return El precio del producto
+     */
+    public static Double leerPrecio(ByteBuffer datos, int inicio) {
+        leerClase(datos, inicio);
+        int mascara = (int) leerVarint(datos, inicio + 2);
+        int posicion = saltarTexto(datos, saltarId(datos, inicioCampos(datos, inicio)));
+        return leerDecimal(datos, posicion, ESCALA_PRECIO, codigo(mascara, CAMPO_PRECIO));
+    }
+    
+    /**
+     * Lee la cantidad de un producto codificado sin decodificar sus textos.
+     * @param datos Buffer que contiene el producto
+     * @param inicio Índice del primer byte del producto
+     * @return La cantidad del producto
+     */
+    public static Integer leerCantidad(ByteBuffer datos, int inicio) {
+        leerClase(datos, inicio);
+        int mascara = (int) leerVarint(datos, inicio + 2);
+        if (codigo(mascara, CAMPO_CANTIDAD) == AUSENTE) {
+            return null;
+        }
+        int posicion = saltarNumero(datos, saltarTexto(datos, saltarId(datos, inicioCampos(datos, inicio))),
+                                    codigo(mascara, CAMPO_PRECIO));
+        return (int) deshacerZigzag(leerVarint(datos, posicion));
+    }
+    
+    /**
+     * Lee el formato de un producto digital codificado sin decodificar el resto de campos.
+     * @param datos Buffer que contiene el producto
+     * @param inicio Índice del primer byte del producto
+     * @return El formato del producto
+     * @throws IllegalArgumentException Si el producto no es digital
+     */
+    public static String leerFormato(ByteBuffer datos, int inicio) {
+        if (leerClase(datos, inicio) != PRODUCTO_DIGITAL) {
+            throw new IllegalArgumentException("El producto codificado no es un producto digital");
+        }
+        int mascara = (int) leerVarint(datos, inicio + 2);
+        int posicion = saltarNumero(datos, saltarNumero(datos, saltarTexto(datos, saltarId(datos, inicioCampos(datos, inicio))),
+                                                codigo(mascara, CAMPO_PRECIO)), codigo(mascara, CAMPO_CANTIDAD));
+        return leerFormatoEn(datos, posicion);
+    }
+    
+    private static byte leerClase(ByteBuffer datos, int inicio) {
+        byte version = datos.get(inicio);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Versión de codificación de producto no soportada: " + version);
+        }
+        byte clase = datos.get(inicio + 1);
+        if (clase != PRODUCTO_FISICO && clase != PRODUCTO_DIGITAL) {
+            throw new IllegalArgumentException("Tipo de producto desconocido en la codificación: " + clase);
+        }
+        return clase;
+    }
+    
+    private static int inicioCampos(ByteBuffer datos, int inicio) {
+        return inicio + 2 + longitudVarint(datos, inicio + 2);
+    }
+    
+    private static void escribirComunes(ByteBuffer destino, byte clase, int mascara, ProductoInterface producto) {
+        destino.put(VERSION);
+        destino.put(clase);
+        escribirVarint(destino, mascara);
+        escribirId(destino, producto.getId());
+        escribirTexto(destino, producto.getNombre());
+        escribirDecimal(destino, producto.getPrecio(), ESCALA_PRECIO, codigo(mascara, CAMPO_PRECIO));
+        if (producto.getCantidad() != null) {
+            escribirVarint(destino, zigzag(producto.getCantidad()));
+        }
+    }
+    
+    /**
+     * Calcula la máscara con la codificación de los campos numéricos del producto.
+     * @throws IllegalArgumentException Si el tipo de producto no está soportado
+     */
+    private static int mascara(ProductoInterface producto) {
+        int mascara = mascara(CAMPO_PRECIO, codificacion(producto.getPrecio(), ESCALA_PRECIO))
+            | mascara(CAMPO_CANTIDAD, producto.getCantidad() == null ? AUSENTE : FIJO);
+        if (producto instanceof ProductoFisico fisico) {
+            return mascara
+                | mascara(CAMPO_PESO, codificacion(fisico.getPeso(), ESCALA_DIMENSION))
+                | mascara(CAMPO_ALTURA, codificacion(fisico.getAltura(), ESCALA_DIMENSION))
+                | mascara(CAMPO_ANCHO, codificacion(fisico.getAncho(), ESCALA_DIMENSION))
+                | mascara(CAMPO_PROFUNDIDAD, codificacion(fisico.getProfundidad(), ESCALA_DIMENSION));
+        }
+        if (producto instanceof ProductoDigital) {
+            return mascara;
+        }
+        throw new IllegalArgumentException("Tipo de producto no soportado por el codificador: " + producto.getClass().getName());
+    }
+    
+    private static int mascara(int campo, int codigo) {
+        return codigo << (campo * 2);
+    }
+    
+    private static int codigo(int mascara, int campo) {
+        return (mascara >>> (campo * 2)) & 3;
+    }
+    
+    // Decimales
+    
+    private static int codificacion(Double valor, double escala) {
+        if (valor == null) {
+            return AUSENTE;
+        }
+        double escalado = valor * escala;
+        if (Math.abs(escalado) < MAXIMO_FIJO && Double.compare(Math.round(escalado) / escala, valor) == 0) {
+            return FIJO;
+        }
+        return DOBLE;
+    }
+    
+    private static void escribirDecimal(ByteBuffer destino, Double valor, double escala, int codigo) {
+        if (codigo == FIJO) {
+            escribirVarint(destino, zigzag(Math.round(valor * escala)));
+        } else if (codigo == DOBLE) {
+            // Big-endian explícito: el formato no depende del orden de bytes del buffer
+            long bits = Double.doubleToRawLongBits(valor);
+            for (int desplazamiento = 56; desplazamiento >= 0; desplazamiento -= 8) {
+                destino.put((byte) (bits >>> desplazamiento));
+            }
+        }
+    }
+    
+    private static Double leerDecimal(ByteBuffer datos, int posicion, double escala, int codigo) {
+        if (codigo == FIJO) {
+            return deshacerZigzag(leerVarint(datos, posicion)) / escala;
+        }
+        if (codigo == DOBLE) {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | (datos.get(posicion + i) & 0xFF);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+        return null;
+    }
+    
+    private static int tamañoDecimal(Double valor, double escala) {
+        return switch (codificacion(valor, escala)) {
+            case FIJO -> tamañoVarint(zigzag(Math.round(valor * escala)));
+            case DOBLE -> Double.BYTES;
+            default -> 0;
+        };
+    }
+    
+    private static int saltarNumero(ByteBuffer datos, int posicion, int codigo) {
+        return switch (codigo) {
+            case FIJO -> posicion + longitudVarint(datos, posicion);
+            case DOBLE -> posicion + Double.BYTES;
+            default -> posicion;
+        };
+    }
+    
+    // IDs: varint con (longitud del prefijo + 1) << 1 | tiene sufijo, el prefijo y el sufijo numérico; 0 si es null
+    
+    private static int inicioSufijo(String id) {
+        int inicio = id.length();
+        while (inicio > 0 && id.length() - inicio < MAXIMO_DIGITOS_ID && esDigito(id.charAt(inicio - 1))) {
+            inicio--;
+        }
+        // Los ceros a la izquierda se quedan en el prefijo para que el ID se reconstruya igual
+        while (inicio < id.length() - 1 && id.charAt(inicio) == '0') {
+            inicio++;
+        }
+        return inicio;
+    }
+    
+    private static boolean esDigito(char c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    private static void escribirId(ByteBuffer destino, String id) {
+        if (id == null) {
+            destino.put((byte) 0);
+            return;
+        }
+        int sufijo = inicioSufijo(id);
+        boolean conSufijo = sufijo < id.length();
+        escribirVarint(destino, ((long) (longitudUtf8(id, 0, sufijo) + 1) << 1) | (conSufijo ? 1 : 0));
+        escribirUtf8(destino, id, 0, sufijo);
+        if (conSufijo) {
+            escribirVarint(destino, Long.parseLong(id, sufijo, id.length(), 10));
+        }
+    }
+    
+    private static int tamañoId(String id) {
+        if (id == null) {
+            return 1;
+        }
+        int sufijo = inicioSufijo(id);
+        int prefijo = longitudUtf8(id, 0, sufijo);
+        int tamaño = tamañoVarint((long) (prefijo + 1) << 1) + prefijo;
+        return sufijo < id.length() ? tamaño + tamañoVarint(Long.parseLong(id, sufijo, id.length(), 10)) : tamaño;
+    }
+    
+    private static String leerIdEn(ByteBuffer datos, int posicion) {
+        long cabecera = leerVarint(datos, posicion);
+        if (cabecera == 0) {
+            return null;
+        }
+        int longitud = (int) (cabecera >>> 1) - 1;
+        posicion += longitudVarint(datos, posicion);
+        String prefijo = decodificarUtf8(datos, posicion, longitud);
+        if ((cabecera & 1) == 0) {
+            return prefijo;
+        }
+        return prefijo + leerVarint(datos, posicion + longitud);
+    }
+    
+    private static int saltarId(ByteBuffer datos, int posicion) {
+        long cabecera = leerVarint(datos, posicion);
+        posicion += longitudVarint(datos, posicion);
+        if (cabecera == 0) {
+            return posicion;
+        }
+        posicion += (int) (cabecera >>> 1) - 1;
+        return (cabecera & 1) == 0 ? posicion : posicion + longitudVarint(datos, posicion);
+    }
+    
+    // Formatos: 0 si es null, 1..N para el diccionario y N + 1 + longitud para un texto literal
+    
+    private static int indiceFormato(String formato) {
+        for (int i = 0; i < FORMATOS.length; i++) {
+            if (FORMATOS[i].equals(formato)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static void escribirFormato(ByteBuffer destino, String formato) {
+        if (formato == null) {
+            destino.put((byte) 0);
+            return;
+        }
+        int indice = indiceFormato(formato);
+        if (indice >= 0) {
+            escribirVarint(destino, indice + 1);
+            return;
+        }
+        int longitud = longitudUtf8(formato, 0, formato.length());
+        escribirVarint(destino, FORMATOS.length + 1L + longitud);
+        escribirUtf8(destino, formato, 0, formato.length());
+    }
+    
+    private static int tamañoFormato(String formato) {
+        if (formato == null || indiceFormato(formato) >= 0) {
+            return 1;
+        }
+        int longitud = longitudUtf8(formato, 0, formato.length());
+        return tamañoVarint(FORMATOS.length + 1L + longitud) + longitud;
+    }
+    
+    private static String leerFormatoEn(ByteBuffer datos, int posicion) {
+        long codigo = leerVarint(datos, posicion);
+        if (codigo == 0) {
+            return null;
+        }
+        if (codigo <= FORMATOS.length) {
+            return FORMATOS[(int) codigo - 1];
+        }
+        return decodificarUtf8(datos, posicion + longitudVarint(datos, posicion), (int) (codigo - FORMATOS.length - 1));
+    }
+    
+    private static int saltarFormato(ByteBuffer datos, int posicion) {
+        long codigo = leerVarint(datos, posicion);
+        posicion += longitudVarint(datos, posicion);
+        return codigo <= FORMATOS.length ? posicion : posicion + (int) (codigo - FORMATOS.length - 1);
+    }
+    
+    // Textos: varint con la longitud en bytes + 1 (0 si es null) y los bytes UTF-8
+    
+    private static void escribirTexto(ByteBuffer destino, String texto) {
+        if (texto == null) {
+            destino.put((byte) 0);
+            return;
+        }
+        escribirVarint(destino, longitudUtf8(texto, 0, texto.length()) + 1L);
+        escribirUtf8(destino, texto, 0, texto.length());
+    }
+    
+    private static int tamañoTexto(String texto) {
+        if (texto == null) {
+            return 1;
+        }
+        int longitud = longitudUtf8(texto, 0, texto.length());
+        return tamañoVarint(longitud + 1L) + longitud;
+    }
+    
+    private static String leerTexto(ByteBuffer datos, int posicion) {
+        long cabecera = leerVarint(datos, posicion);
+        if (cabecera == 0) {
+            return null;
+        }
+        return decodificarUtf8(datos, posicion + longitudVarint(datos, posicion), (int) cabecera - 1);
+    }
+    
+    private static int saltarTexto(ByteBuffer datos, int posicion) {
+        long cabecera = leerVarint(datos, posicion);
+        posicion += longitudVarint(datos, posicion);
+        return cabecera == 0 ? posicion : posicion + (int) cabecera - 1;
+    }
+    
+    // UTF-8 escrito directamente en el buffer; los sustitutos sin pareja se escriben como '?', igual que String.getBytes
+    
+    private static int longitudUtf8(String texto, int desde, int hasta) {
+        int longitud = 0;
+        for (int i = desde; i < hasta; i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                longitud++;
+            } else if (c < 0x800) {
+                longitud += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < hasta && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                longitud += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                longitud++;
+            } else {
+                longitud += 3;
+            }
+        }
+        return longitud;
+    }
+    
+    private static void escribirUtf8(ByteBuffer destino, String texto, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                destino.put((byte) c);
+            } else if (c < 0x800) {
+                destino.put((byte) (0xC0 | (c >> 6)));
+                destino.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < hasta && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                int punto = Character.toCodePoint(c, texto.charAt(++i));
+                destino.put((byte) (0xF0 | (punto >> 18)));
+                destino.put((byte) (0x80 | ((punto >> 12) & 0x3F)));
+                destino.put((byte) (0x80 | ((punto >> 6) & 0x3F)));
+                destino.put((byte) (0x80 | (punto & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                destino.put((byte) '?');
+            } else {
+                destino.put((byte) (0xE0 | (c >> 12)));
+                destino.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                destino.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+    
+    private static String decodificarUtf8(ByteBuffer datos, int posicion, int longitud) {
+        if (datos.hasArray()) {
+            return new String(datos.array(), datos.arrayOffset() + posicion, longitud, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[longitud];
+        datos.get(posicion, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    // Varints (LEB128 sin signo) y zigzag para los valores con signo
+    
+    private static void escribirVarint(ByteBuffer destino, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            destino.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        destino.put((byte) valor);
+    }
+    
+    private static long leerVarint(ByteBuffer datos, int posicion) {
+        long valor = 0;
+        for (int desplazamiento = 0; ; desplazamiento += 7) {
+            byte b = datos.get(posicion++);
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if (b >= 0) {
+                return valor;
+            }
+        }
+    }
+    
+    private static int longitudVarint(ByteBuffer datos, int posicion) {
+        int longitud = 1;
+        while (datos.get(posicion + longitud - 1) < 0) {
+            longitud++;
+        }
+        return longitud;
+    }
+    
+    private static int tamañoVarint(long valor) {
+        return Math.max(1, (64 - Long.numberOfLeadingZeros(valor) + 6) / 7);
+    }
+    
+    private static long zigzag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+    
+    private static long deshacerZigzag(long valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+}
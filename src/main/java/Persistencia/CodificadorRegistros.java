@@ -0,0 +1,326 @@
+package Persistencia;
+
+import Factory.FabricaEntidadesInterface;
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoFisico;
+import Modelos.Producto.ProductoInterface;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Codificación binaria de las entradas del registro y de los productos de los puntos de control.
+ * Cada entrada empieza con un byte de tipo: alta (producto completo), baja (ID),
+ * cambio de stock (ID y cantidad absoluta), lote de stock (pares ID y cantidad absoluta que
+ * se aplican juntos), pool de licencias (ID y estado completo del pool) o licencia
+ * (ID, número y si queda asignada), de modo que volver a aplicarla es idempotente.
+ */
+class CodificadorRegistros {
+    static final byte TIPO_ALTA = 1;
+    static final byte TIPO_BAJA = 2;
+    static final byte TIPO_STOCK = 3;
+    static final byte TIPO_POOL_LICENCIAS = 4;
+    static final byte TIPO_LICENCIA = 5;
+    static final byte TIPO_STOCK_LOTE = 6;
+    
+    private static final byte PRODUCTO_FISICO = 1;
+    private static final byte PRODUCTO_DIGITAL = 2;
+    
+    private CodificadorRegistros() {
+    }
+    
+    static byte[] codificarAlta(ProductoInterface producto) {
+        Escritor escritor = new Escritor(64);
+        escritor.escribirByte(TIPO_ALTA);
+        escribirProducto(escritor, producto);
+        return escritor.aBytes();
+    }
+    
+    static byte[] codificarBaja(String idProducto) {
+        Escritor escritor = new Escritor(16 + idProducto.length());
+        escritor.escribirByte(TIPO_BAJA);
+        escritor.escribirTexto(idProducto);
+        return escritor.aBytes();
+    }
+    
+    static byte[] codificarStock(String idProducto, int cantidad) {
+        Escritor escritor = new Escritor(16 + idProducto.length());
+        escritor.escribirByte(TIPO_STOCK);
+        escritor.escribirTexto(idProducto);
+        escritor.escribirEntero(cantidad);
+        return escritor.aBytes();
+    }
+    
+    static byte[] codificarStockLote(Map<String, Integer> cantidades) {
+        Escritor escritor = new Escritor(8 + cantidades.size() * 24);
+        escritor.escribirByte(TIPO_STOCK_LOTE);
+        escritor.escribirEntero(cantidades.size());
+        for (Map.Entry<String, Integer> entrada : cantidades.entrySet()) {
+            escritor.escribirTexto(entrada.getKey());
+            escritor.escribirEntero(entrada.getValue());
+        }
+        return escritor.aBytes();
+    }
+    
+    static byte[] codificarPoolLicencias(String idProducto, EstadoLicencias licencias) {
+        Escritor escritor = new Escritor(32 + idProducto.length() + licencias.getCapacidad() / 8);
+        escritor.escribirByte(TIPO_POOL_LICENCIAS);
+        escribirLicencias(escritor, idProducto, licencias);
+        return escritor.aBytes();
+    }
+    
+    static byte[] codificarLicencia(String idProducto, int licencia, boolean asignada) {
+        Escritor escritor = new Escritor(16 + idProducto.length());
+        escritor.escribirByte(TIPO_LICENCIA);
+        escritor.escribirTexto(idProducto);
+        escritor.escribirEntero(licencia);
+        escritor.escribirByte(asignada ? (byte) 1 : (byte) 0);
+        return escritor.aBytes();
+    }
+    
+    /**
+     * Aplica una entrada del registro sobre el estado que se está recuperando.
+     * @param entrada Buffer posicionado al inicio de la entrada
+     * @param estado Productos recuperados por ID
+     * @param licencias Licencias asignadas de los productos con pool, por ID
+     * @param fabrica Fábrica usada para reconstruir los productos
+     */
+    static void aplicar(ByteBuffer entrada, Map<String, ProductoInterface> estado,
+                        Map<String, EstadoLicencias> licencias, FabricaEntidadesInterface fabrica) {
+        byte tipo = entrada.get();
+        switch (tipo) {
+            case TIPO_ALTA -> {
+                ProductoInterface producto = leerProducto(entrada, fabrica);
+                estado.put(producto.getId(), producto);
+                licencias.remove(producto.getId());
+            }
+            case TIPO_BAJA -> {
+                String idProducto = leerTexto(entrada);
+                estado.remove(idProducto);
+                licencias.remove(idProducto);
+            }
+            case TIPO_STOCK -> {
+                ProductoInterface producto = estado.get(leerTexto(entrada));
+                int cantidad = entrada.getInt();
+                if (producto != null) {
+                    producto.setCantidad(cantidad);
+                }
+            }
+            case TIPO_STOCK_LOTE -> {
+                int tamaño = entrada.getInt();
+                for (int i = 0; i < tamaño; i++) {
+                    ProductoInterface producto = estado.get(leerTexto(entrada));
+                    int cantidad = entrada.getInt();
+                    if (producto != null) {
+                        producto.setCantidad(cantidad);
+                    }
+                }
+            }
+            case TIPO_POOL_LICENCIAS -> leerLicencias(entrada, licencias);
+            case TIPO_LICENCIA -> {
+                String idProducto = leerTexto(entrada);
+                int licencia = entrada.getInt();
+                boolean asignada = entrada.get() != 0;
+                EstadoLicencias actual = licencias.get(idProducto);
+                if (actual != null) {
+                    actual.marcar(licencia, asignada);
+                }
+            }
+            default -> throw new IllegalStateException("Tipo de entrada desconocido en el registro: " + tipo);
+        }
+    }
+    
+    static void escribirLicencias(Escritor escritor, String idProducto, EstadoLicencias licencias) {
+        escritor.escribirTexto(idProducto);
+        escritor.escribirEntero(licencias.getCapacidad());
+        long[] palabras = licencias.getAsignadas().toLongArray();
+        escritor.escribirEntero(palabras.length);
+        for (long palabra : palabras) {
+            escritor.escribirLargo(palabra);
+        }
+    }
+    
+    static void leerLicencias(ByteBuffer entrada, Map<String, EstadoLicencias> licencias) {
+        String idProducto = leerTexto(entrada);
+        int capacidad = entrada.getInt();
+        long[] palabras = new long[entrada.getInt()];
+        for (int i = 0; i < palabras.length; i++) {
+            palabras[i] = entrada.getLong();
+        }
+        licencias.put(idProducto, new EstadoLicencias(capacidad, BitSet.valueOf(palabras)));
+    }
+    
+    static void escribirProducto(Escritor escritor, ProductoInterface producto) {
+        if (producto instanceof ProductoFisico fisico) {
+            escritor.escribirByte(PRODUCTO_FISICO);
+            escribirComunes(escritor, producto);
+            escritor.escribirDecimal(fisico.getPeso());
+            escritor.escribirDecimal(fisico.getAltura());
+            escritor.escribirDecimal(fisico.getAncho());
+            escritor.escribirDecimal(fisico.getProfundidad());
+        } else if (producto instanceof ProductoDigital digital) {
+            escritor.escribirByte(PRODUCTO_DIGITAL);
+            escribirComunes(escritor, producto);
+            escritor.escribirTexto(digital.getFormato());
+            escritor.escribirTexto(digital.getUrl());
+        } else {
+            throw new IllegalArgumentException("Tipo de producto no soportado por el registro: " + producto.getClass().getName());
+        }
+    }
+    
+    static ProductoInterface leerProducto(ByteBuffer entrada, FabricaEntidadesInterface fabrica) {
+        byte clase = entrada.get();
+        String id = leerTexto(entrada);
+        String nombre = leerTexto(entrada);
+        Double precio = leerDecimal(entrada);
+        Integer cantidad = leerEnteroOpcional(entrada);
+        if (clase == PRODUCTO_FISICO) {
+            return fabrica.crearProducto(id, nombre, precio, cantidad,
+                                         leerDecimal(entrada), leerDecimal(entrada), leerDecimal(entrada), leerDecimal(entrada));
+        }
+        if (clase == PRODUCTO_DIGITAL) {
+            return fabrica.crearProducto(id, nombre, precio, cantidad, leerTexto(entrada), leerTexto(entrada));
+        }
+        throw new IllegalStateException("Tipo de producto desconocido en el registro: " + clase);
+    }
+    
+    /**
+     * Obtiene el índice donde empieza el ID (su longitud) en una entrada de alta o de baja,
+     * para compararlo o calcular su hash sin copiarlo.
+     * @param datos Buffer que contiene la entrada
+     * @param inicio Índice del byte de tipo de la entrada
+     * @return El índice de la longitud del ID
+     */
+    static int indiceIdEntrada(ByteBuffer datos, int inicio) {
+        // Las altas llevan la clase de producto antes del ID
+        return datos.get(inicio) == TIPO_ALTA ? inicio + 2 : inicio + 1;
+    }
+    
+    /**
+     * Lee el nombre de un producto codificado sin reconstruirlo.
+     * @param producto Buffer posicionado al inicio del producto
+     * @return El nombre del producto
+     */
+    static String leerNombreProducto(ByteBuffer producto) {
+        producto.get();
+        saltarTexto(producto);
+        return leerTexto(producto);
+    }
+    
+    /**
+     * Lee el precio de un producto codificado sin reconstruirlo ni decodificar sus textos.
+     * @param producto Buffer posicionado al inicio del producto
+     * @return El precio del producto
+     */
+    static Double leerPrecioProducto(ByteBuffer producto) {
+        producto.get();
+        saltarTexto(producto);
+        saltarTexto(producto);
+        return leerDecimal(producto);
+    }
+    
+    private static void escribirComunes(Escritor escritor, ProductoInterface producto) {
+        escritor.escribirTexto(producto.getId());
+        escritor.escribirTexto(producto.getNombre());
+        escritor.escribirDecimal(producto.getPrecio());
+        escritor.escribirEnteroOpcional(producto.getCantidad());
+    }
+    
+    static String leerTexto(ByteBuffer entrada) {
+        int longitud = entrada.getInt();
+        if (longitud < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[longitud];
+        entrada.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static void saltarTexto(ByteBuffer entrada) {
+        int longitud = entrada.getInt();
+        if (longitud > 0) {
+            entrada.position(entrada.position() + longitud);
+        }
+    }
+    
+    private static Double leerDecimal(ByteBuffer entrada) {
+        return entrada.get() == 0 ? null : entrada.getDouble();
+    }
+    
+    private static Integer leerEnteroOpcional(ByteBuffer entrada) {
+        return entrada.get() == 0 ? null : entrada.getInt();
+    }
+    
+    /**
+     * Buffer de escritura que crece según se necesita.
+     */
+    static class Escritor {
+        private byte[] datos;
+        private int posicion;
+        
+        Escritor(int capacidadInicial) {
+            this.datos = new byte[Math.max(16, capacidadInicial)];
+        }
+        
+        void escribirByte(byte valor) {
+            asegurar(1);
+            datos[posicion++] = valor;
+        }
+        
+        void escribirEntero(int valor) {
+            asegurar(4);
+            ByteBuffer.wrap(datos, posicion, 4).putInt(valor);
+            posicion += 4;
+        }
+        
+        void escribirLargo(long valor) {
+            asegurar(8);
+            ByteBuffer.wrap(datos, posicion, 8).putLong(valor);
+            posicion += 8;
+        }
+        
+        void escribirEnteroOpcional(Integer valor) {
+            escribirByte(valor == null ? (byte) 0 : (byte) 1);
+            if (valor != null) {
+                escribirEntero(valor);
+            }
+        }
+        
+        void escribirDecimal(Double valor) {
+            escribirByte(valor == null ? (byte) 0 : (byte) 1);
+            if (valor != null) {
+                asegurar(8);
+                ByteBuffer.wrap(datos, posicion, 8).putDouble(valor);
+                posicion += 8;
+            }
+        }
+        
+        void escribirTexto(String texto) {
+            if (texto == null) {
+                escribirEntero(-1);
+                return;
+            }
+            byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+            escribirEntero(bytes.length);
+            asegurar(bytes.length);
+            System.arraycopy(bytes, 0, datos, posicion, bytes.length);
+            posicion += bytes.length;
+        }
+        
+        int tamaño() {
+            return posicion;
+        }
+        
+        byte[] aBytes() {
+            return Arrays.copyOf(datos, posicion);
+        }
+        
+        private void asegurar(int adicional) {
+            if (posicion + adicional > datos.length) {
+                datos = Arrays.copyOf(datos, Math.max(datos.length * 2, posicion + adicional));
+            }
+        }
+    }
+}
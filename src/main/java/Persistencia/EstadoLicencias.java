@@ -0,0 +1,43 @@
+package Persistencia;
+
+import java.util.BitSet;
+
+/**
+ * Estado persistido del pool de licencias de un producto: su capacidad y las
+ * licencias asignadas. El mapa de bits se copia al crearlo y al leerlo; solo la
+ * recuperación del registro lo modifica mientras aplica las entradas de licencia.
+ */
+public final class EstadoLicencias {
+    private final int capacidad;
+    private final BitSet asignadas;
+    
+    public EstadoLicencias(int capacidad, BitSet asignadas) {
+        if (capacidad < 0) {
+            throw new IllegalArgumentException("La capacidad del pool no puede ser negativa");
+        }
+        this.capacidad = capacidad;
+        this.asignadas = (BitSet) asignadas.clone();
+    }
+    
+    public int getCapacidad() {
+        return capacidad;
+    }
+    
+    public BitSet getAsignadas() {
+        return (BitSet) asignadas.clone();
+    }
+    
+    void marcar(int licencia, boolean asignada) {
+        if (licencia >= 0 && licencia < capacidad) {
+            asignadas.set(licencia, asignada);
+        }
+    }
+    
+    /**
+     * Obtiene el número de licencias libres, que es el stock del producto.
+     * @return Licencias libres
+     */
+    public int getDisponibles() {
+        return capacidad - asignadas.cardinality();
+    }
+}
@@ -0,0 +1,213 @@
+package Persistencia;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Tabla hash de direccionamiento abierto que asocia el ID de cada producto con la posición
+ * de su registro vigente en el archivo y con su precio en centavos.
+ * Solo guarda arreglos primitivos de posiciones, hashes y precios: los IDs no se copian a memoria,
+ * sino que se comparan contra el archivo mediante el comparador que recibe cada operación.
+ * Las colisiones se resuelven con sondeo lineal y las bajas desplazan hacia atrás las entradas
+ * siguientes, de modo que no quedan marcas de borrado.
+ * No es segura para hilos: el repositorio que la usa serializa las modificaciones.
+ */
+class IndicePosiciones {
+    private static final long VACIA = -1;
+    
+    private long[] posiciones;
+    private int[] hashes;
+    private long[] centavos;
+    private int mascara;
+    private int tamaño;
+    
+    IndicePosiciones(int capacidadInicial) {
+        int capacidad = Integer.highestOneBit(Math.max(16, capacidadInicial * 2 - 1)) << 1;
+        this.posiciones = new long[capacidad];
+        this.hashes = new int[capacidad];
+        this.centavos = new long[capacidad];
+        this.mascara = capacidad - 1;
+        Arrays.fill(posiciones, VACIA);
+    }
+    
+    /**
+     * Indica si la posición de un registro guarda el ID buscado.
+     */
+    interface ComparadorId {
+        boolean coincide(long posicion);
+    }
+    
+    /**
+     * Recibe cada entrada de la tabla al recorrerla.
+     */
+    interface VisitanteEntrada {
+        void visitar(long posicion, long centavos);
+    }
+    
+    /**
+     * Busca la posición asociada a un ID.
+     * @param hash Hash del ID
+     * @param comparador Compara el ID buscado con el de una posición
+     * @return La posición del registro vigente, o -1 si el ID no está
+     */
+    long buscar(int hash, ComparadorId comparador) {
+        for (int i = hash & mascara; posiciones[i] != VACIA; i = (i + 1) & mascara) {
+            if (hashes[i] == hash && comparador.coincide(posiciones[i])) {
+                return posiciones[i];
+            }
+        }
+        return VACIA;
+    }
+    
+    /**
+     * Asocia un ID con una posición, reemplazando la anterior si la había.
+     * @param hash Hash del ID
+     * @param posicion Posición del nuevo registro vigente
+     * @param precio Precio en centavos del producto del registro
+     * @param comparador Compara el ID con el de una posición existente
+     * @return La posición reemplazada, o -1 si el ID no estaba
+     */
+    long poner(int hash, long posicion, long precio, ComparadorId comparador) {
+        int i = hash & mascara;
+        for (; posiciones[i] != VACIA; i = (i + 1) & mascara) {
+            if (hashes[i] == hash && comparador.coincide(posiciones[i])) {
+                long anterior = posiciones[i];
+                posiciones[i] = posicion;
+                centavos[i] = precio;
+                return anterior;
+            }
+        }
+        posiciones[i] = posicion;
+        hashes[i] = hash;
+        centavos[i] = precio;
+        if (++tamaño * 2 > posiciones.length) {
+            redimensionar();
+        }
+        return VACIA;
+    }
+    
+    /**
+     * Elimina un ID de la tabla.
+     * @param hash Hash del ID
+     * @param comparador Compara el ID con el de una posición existente
+     * @return La posición que tenía asociada, o -1 si el ID no estaba
+     */
+    long quitar(int hash, ComparadorId comparador) {
+        for (int i = hash & mascara; posiciones[i] != VACIA; i = (i + 1) & mascara) {
+            if (hashes[i] == hash && comparador.coincide(posiciones[i])) {
+                long anterior = posiciones[i];
+                desplazarHaciaAtras(i);
+                tamaño--;
+                return anterior;
+            }
+        }
+        return VACIA;
+    }
+    
+    /**
+     * Indica si una posición es la vigente para el ID con el hash dado,
+     * sin necesidad de comparar IDs.
+     */
+    boolean esVigente(int hash, long posicion) {
+        for (int i = hash & mascara; posiciones[i] != VACIA; i = (i + 1) & mascara) {
+            if (posiciones[i] == posicion) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Recorre las entradas de la tabla sin un orden definido.
+     * @param visitante Recibe la posición y el precio de cada registro vigente
+     */
+    void recorrer(VisitanteEntrada visitante) {
+        for (int i = 0; i < posiciones.length; i++) {
+            if (posiciones[i] != VACIA) {
+                visitante.visitar(posiciones[i], centavos[i]);
+            }
+        }
+    }
+    
+    /**
+     * Obtiene las posiciones de los registros vigentes en el orden del archivo.
+     * @return Posiciones ordenadas de menor a mayor
+     */
+    long[] posicionesOrdenadas() {
+        long[] resultado = new long[tamaño];
+        int cantidad = 0;
+        for (long posicion : posiciones) {
+            if (posicion != VACIA) {
+                resultado[cantidad++] = posicion;
+            }
+        }
+        Arrays.sort(resultado);
+        return resultado;
+    }
+    
+    int getTamaño() {
+        return tamaño;
+    }
+    
+    /**
+     * Calcula el hash (FNV-1a con mezcla final) de los bytes UTF-8 de un ID que están en un buffer.
+     */
+    static int hash(ByteBuffer datos, int inicio, int longitud) {
+        int hash = 0x811C9DC5;
+        for (int i = inicio; i < inicio + longitud; i++) {
+            hash = (hash ^ (datos.get(i) & 0xFF)) * 0x01000193;
+        }
+        return mezclar(hash);
+    }
+    
+    private static int mezclar(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        return hash ^ (hash >>> 13);
+    }
+    
+    /**
+     * Cierra el hueco dejado en la posición i moviendo las entradas siguientes del mismo
+     * grupo cuya posición ideal queda antes o en el hueco.
+     */
+    private void desplazarHaciaAtras(int hueco) {
+        int i = hueco;
+        while (true) {
+            i = (i + 1) & mascara;
+            if (posiciones[i] == VACIA) {
+                break;
+            }
+            int ideal = hashes[i] & mascara;
+            // La entrada puede ocupar el hueco si su posición ideal no está entre el hueco y ella
+            if (((i - ideal) & mascara) >= ((i - hueco) & mascara)) {
+                posiciones[hueco] = posiciones[i];
+                hashes[hueco] = hashes[i];
+                centavos[hueco] = centavos[i];
+                hueco = i;
+            }
+        }
+        posiciones[hueco] = VACIA;
+    }
+    
+    private void redimensionar() {
+        long[] posicionesAnteriores = posiciones;
+        int[] hashesAnteriores = hashes;
+        long[] centavosAnteriores = centavos;
+        posiciones = new long[posicionesAnteriores.length * 2];
+        hashes = new int[posiciones.length];
+        centavos = new long[posiciones.length];
+        mascara = posiciones.length - 1;
+        Arrays.fill(posiciones, VACIA);
+        for (int j = 0; j < posicionesAnteriores.length; j++) {
+            if (posicionesAnteriores[j] != VACIA) {
+                int i = hashesAnteriores[j] & mascara;
+                while (posiciones[i] != VACIA) {
+                    i = (i + 1) & mascara;
+                }
+                posiciones[i] = posicionesAnteriores[j];
+                hashes[i] = hashesAnteriores[j];
+                centavos[i] = centavosAnteriores[j];
+            }
+        }
+    }
+}
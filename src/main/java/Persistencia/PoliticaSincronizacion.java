@@ -0,0 +1,35 @@
+package Persistencia;
+
+/**
+ * Enum que define cuándo se fuerzan a disco las entradas del registro de escritura anticipada.
+ */
+public enum PoliticaSincronizacion {
+
+    // Cada operación espera a que su entrada esté en disco; las esperas concurrentes comparten un fsync
+    SIEMPRE("SIEMPRE", "Cada operación confirmada está en disco antes de terminar"),
+    // Un hilo en segundo plano fuerza el registro periódicamente
+    PERIODICA("PERIODICA", "El registro se fuerza a disco periódicamente"),
+    // El sistema operativo decide cuándo escribir las páginas del registro
+    NUNCA("NUNCA", "El registro solo se fuerza a disco en los puntos de control y al cerrar");
+    
+    private final String codigo;
+    private final String descripcion;
+    
+    PoliticaSincronizacion(String codigo, String descripcion) {
+        this.codigo = codigo;
+        this.descripcion = descripcion;
+    }
+    
+    public String getCodigo() {
+        return codigo;
+    }
+    
+    public String getDescripcion() {
+        return descripcion;
+    }
+    
+    @Override
+    public String toString() {
+        return codigo + ": " + descripcion;
+    }
+}
@@ -0,0 +1,945 @@
+package Persistencia;
+
+import Bitacora.Bitacora;
+import Bitacora.Registrador;
+import Excepciones.ProductoNoEncontradoExcepcion;
+import Factory.FabricaEntidades;
+import Factory.FabricaEntidadesInterface;
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoFisico;
+import Modelos.Producto.ProductoInterface;
+import Repositorios.CursorPagina;
+import Repositorios.IndicePrecios;
+import Repositorios.IndiceTrigramas;
+import Repositorios.PaginaProductos;
+import Repositorios.ProductoRepositoryInterface;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Repositorio de productos persistido en un archivo de solo anexado mapeado en memoria.
+ * Cada alta o actualización añade el producto completo y cada baja añade su ID; en memoria
+ * solo se guarda una tabla con la posición y el precio de los registros vigentes, sin copiar
+ * los IDs, y las lecturas decodifican directamente desde la región mapeada sin copiar el registro.
+ * Las consultas por precio se resuelven con la tabla y solo leen del archivo los productos
+ * que devuelven; las demás leen únicamente los registros vigentes.
+ * Al abrir se recorren los registros calculando el hash de su ID sobre el archivo, por lo que
+ * el arranque no reconstruye productos. Cuando los bytes de registros obsoletos superan a los
+ * vigentes, una tarea en segundo plano reescribe los vigentes en una nueva generación del
+ * archivo; la compactación de lo que quedó obsoleto en ejecuciones anteriores se programa con
+ * la primera escritura.
+ *
+ * Formato de cada registro: [longitud][crc32c][contenido], con el contenido codificado como las
+ * entradas de alta y baja del registro de escritura anticipada. Una longitud cero marca el final
+ * de la región y un crc inválido indica una escritura incompleta.
+ * Los productos devueltos son copias: los cambios deben guardarse con actualizarProducto.
+ */
+public class ProductoRepositoryArchivo implements ProductoRepositoryInterface, AutoCloseable {
+    private static final Registrador REGISTRO = Bitacora.obtenerRegistrador(ProductoRepositoryArchivo.class);
+    private static final int TAMAÑO_REGION_POR_DEFECTO = 64 * 1024 * 1024;
+    private static final long BYTES_OBSOLETOS_POR_DEFECTO = 16 * 1024 * 1024;
+    private static final int CABECERA_REGISTRO = 4 + 4;
+    private static final String PREFIJO_ARCHIVO = "productos-";
+    private static final String EXTENSION_ARCHIVO = ".dat";
+    private static final String EXTENSION_TEMPORAL = ".tmp";
+    
+    private final Path directorio;
+    private final int tamañoRegion;
+    private final long bytesObsoletosParaCompactar;
+    private final FabricaEntidadesInterface fabrica;
+    private final ReentrantReadWriteLock bloqueo;
+    private final ExecutorService tareasFondo;
+    // Serializa las compactaciones, que copian los registros sin el bloqueo tomado
+    private final Object bloqueoCompactacion = new Object();
+    
+    // Estado del archivo, protegido por bloqueo
+    private final CRC32C crc = new CRC32C();
+    private final List<MappedByteBuffer> regiones = new ArrayList<>();
+    private IndicePosiciones indice = new IndicePosiciones(1024);
+    private FileChannel canal;
+    private Path rutaArchivo;
+    private long generacion;
+    private int regionEscritura;
+    private int posicionEscritura;
+    private long bytesVigentes;
+    private long bytesObsoletos;
+    private boolean cerrado;
+    private volatile boolean compactacionProgramada;
+    
+    public ProductoRepositoryArchivo(Path directorio) throws IOException {
+        this(directorio, TAMAÑO_REGION_POR_DEFECTO, BYTES_OBSOLETOS_POR_DEFECTO);
+    }
+    
+    /**
+     * Abre el repositorio en un directorio, cargando las posiciones de los productos que contenga.
+     * @param directorio Directorio del archivo de productos
+     * @param tamañoRegion Tamaño en bytes de cada región mapeada
+     * @param bytesObsoletosParaCompactar Bytes obsoletos a partir de los cuales se puede compactar
+     * @throws IOException Si no se puede leer o crear el archivo
+     */
+    public ProductoRepositoryArchivo(Path directorio, int tamañoRegion, long bytesObsoletosParaCompactar) throws IOException {
+        if (directorio == null) {
+            throw new IllegalArgumentException("El directorio es obligatorio");
+        }
+        if (tamañoRegion < 1024) {
+            throw new IllegalArgumentException("El tamaño de región debe ser de al menos 1024 bytes");
+        }
+        if (bytesObsoletosParaCompactar < 0) {
+            throw new IllegalArgumentException("Los bytes obsoletos para compactar no pueden ser negativos");
+        }
+        this.directorio = directorio;
+        this.tamañoRegion = tamañoRegion;
+        this.bytesObsoletosParaCompactar = bytesObsoletosParaCompactar;
+        this.fabrica = new FabricaEntidades();
+        this.bloqueo = new ReentrantReadWriteLock();
+        
+        Files.createDirectories(directorio);
+        abrir();
+        
+        this.tareasFondo = Executors.newSingleThreadExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "compactacion-productos-" + directorio.getFileName());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+    
+    @Override
+    public ProductoInterface obtenerProducto(String id) {
+        if (id == null) {
+            return null;
+        }
+        bloqueo.readLock().lock();
+        try {
+            validarAbierto();
+            long posicion = buscarPosicion(codificarId(id));
+            return posicion >= 0 ? CodificadorRegistros.leerProducto(producto(posicion), fabrica) : null;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<ProductoInterface> obtenerProductos() {
+        bloqueo.readLock().lock();
+        try {
+            validarAbierto();
+            long[] vigentes = vigentes();
+            List<ProductoInterface> resultado = new ArrayList<>(vigentes.length);
+            for (long posicion : vigentes) {
+                resultado.add(CodificadorRegistros.leerProducto(producto(posicion), fabrica));
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Obtiene los productos con un precio exacto.
+     * Recorre la tabla de posiciones comparando el precio y reconstruye solo los que coinciden.
+     * @param precio El precio buscado
+     * @return Los productos con ese precio
+     */
+    @Override
+    public List<ProductoInterface> obtenerProductosPorPrecio(Double precio) {
+        long centavos = IndicePrecios.aCentavos(precio);
+        return obtenerProductosPorRangoPrecio(centavos, centavos);
+    }
+    
+    @Override
+    public List<ProductoInterface> obtenerProductosPorRangoPrecio(Double precioMinimo, Double precioMaximo) {
+        return obtenerProductosPorRangoPrecio(IndicePrecios.aCentavos(precioMinimo), IndicePrecios.aCentavos(precioMaximo));
+    }
+    
+    @Override
+    public List<ProductoInterface> obtenerProductosMasBaratos(int cantidad) {
+        return obtenerExtremosPrecio(cantidad, Comparator.naturalOrder());
+    }
+    
+    @Override
+    public List<ProductoInterface> obtenerProductosMasCaros(int cantidad) {
+        return obtenerExtremosPrecio(cantidad, Candidato::compararMasCaro);
+    }
+    
+    /**
+     * Busca productos cuyo nombre contenga el texto, sin distinguir mayúsculas ni tildes.
+     * Lee solo el nombre de los registros vigentes, sin pasar por los obsoletos.
+     * @param nombre El texto buscado
+     * @return Los productos encontrados, en orden de alta
+     */
+    @Override
+    public List<ProductoInterface> obtenerProductosPorNombre(String nombre) {
+        List<ProductoInterface> resultado = new ArrayList<>();
+        String buscado = IndiceTrigramas.normalizar(nombre);
+        if (buscado.isEmpty()) {
+            return resultado;
+        }
+        bloqueo.readLock().lock();
+        try {
+            validarAbierto();
+            for (long posicion : vigentes()) {
+                String nombreProducto = CodificadorRegistros.leerNombreProducto(producto(posicion));
+                if (IndiceTrigramas.normalizar(nombreProducto).contains(buscado)) {
+                    resultado.add(CodificadorRegistros.leerProducto(producto(posicion), fabrica));
+                }
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Obtiene una página del catálogo ordenado por ID.
+     * Recorre los registros vigentes leyendo solo el ID y conserva en un montículo los
+     * tamañoPagina + 1 primeros posteriores al cursor; solo se reconstruyen los de la página.
+     * @param token Token de continuación de la página anterior, o null para la primera
+     * @param tamañoPagina Número máximo de productos de la página
+     * @return La página con el token de la siguiente
+     */
+    @Override
+    public PaginaProductos obtenerPaginaProductos(String token, int tamañoPagina) {
+        PaginaProductos.validarTamaño(tamañoPagina);
+        CursorPagina cursor = CursorPagina.desdeToken(token, CursorPagina.POR_ID);
+        Comparator<CandidatoId> porId = Comparator.comparing(candidato -> candidato.id);
+        PriorityQueue<CandidatoId> primeros = new PriorityQueue<>(porId.reversed());
+        bloqueo.readLock().lock();
+        try {
+            validarAbierto();
+            for (long posicion : vigentes()) {
+                String id = leerId(posicion);
+                if (cursor != null && id.compareTo(cursor.getId()) <= 0) {
+                    continue;
+                }
+                if (primeros.size() <= tamañoPagina) {
+                    primeros.add(new CandidatoId(id, posicion));
+                } else if (id.compareTo(primeros.peek().id) < 0) {
+                    primeros.poll();
+                    primeros.add(new CandidatoId(id, posicion));
+                }
+            }
+            List<CandidatoId> ordenados = new ArrayList<>(primeros);
+            ordenados.sort(porId);
+            List<ProductoInterface> candidatos = new ArrayList<>(ordenados.size());
+            for (CandidatoId candidato : ordenados) {
+                candidatos.add(CodificadorRegistros.leerProducto(producto(candidato.posicion), fabrica));
+            }
+            return PaginaProductos.desdeCandidatos(candidatos, tamañoPagina, producto -> CursorPagina.porId(producto.getId()));
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Recorre los productos vigentes en el momento de la llamada, en el orden del archivo.
+     * Solo se copian las posiciones de los registros y cada producto se reconstruye al consumirlo.
+     * Los registros no cambian una vez escritos y las regiones de una generación ya compactada
+     * siguen mapeadas mientras el recorrido las use, así que no se mantiene el bloqueo y los
+     * cambios posteriores a la llamada no se ven.
+     * @return Stream secuencial de los productos
+     */
+    @Override
+    public Stream<ProductoInterface> recorrerProductos() {
+        long[] posiciones;
+        List<MappedByteBuffer> regionesRecorrido;
+        bloqueo.readLock().lock();
+        try {
+            validarAbierto();
+            posiciones = vigentes();
+            regionesRecorrido = List.copyOf(regiones);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+        return Arrays.stream(posiciones).mapToObj(posicion -> {
+            MappedByteBuffer region = regionesRecorrido.get((int) (posicion / tamañoRegion));
+            int desplazamiento = (int) (posicion % tamañoRegion);
+            ByteBuffer producto = region.slice(desplazamiento + CABECERA_REGISTRO + 1, region.getInt(desplazamiento) - 1);
+            return CodificadorRegistros.leerProducto(producto, fabrica);
+        });
+    }
+    
+    @Override
+    public void agregarProducto(ProductoDigital producto) {
+        agregar(producto);
+    }
+    
+    @Override
+    public void agregarProducto(ProductoFisico producto) {
+        agregar(producto);
+    }
+    
+    @Override
+    public void eliminarProducto(String id) throws ProductoNoEncontradoExcepcion {
+        bloqueo.writeLock().lock();
+        try {
+            validarAbierto();
+            ByteBuffer idCodificado = codificarId(id);
+            long anterior = buscarPosicion(idCodificado);
+            if (anterior < 0) {
+                throw new ProductoNoEncontradoExcepcion("El producto con ID " + id + " no se encuentra en el repositorio", id);
+            }
+            long posicion = anexar(CodificadorRegistros.codificarBaja(id));
+            indice.quitar(hashId(idCodificado, 0), existente -> existente == anterior);
+            marcarObsoleto(anterior);
+            bytesObsoletos += tamañoRegistro(posicion);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        REGISTRO.depuracion("Eliminar producto: {}", id);
+        programarCompactacionSiConviene();
+    }
+    
+    @Override
+    public void actualizarProducto(ProductoDigital producto) throws ProductoNoEncontradoExcepcion {
+        actualizar(producto);
+    }
+    
+    @Override
+    public void actualizarProducto(ProductoFisico producto) throws ProductoNoEncontradoExcepcion {
+        actualizar(producto);
+    }
+    
+    /**
+     * Reescribe los registros vigentes en una nueva generación del archivo y elimina la anterior.
+     * Los registros se copian sin bloquear el repositorio, porque no cambian una vez escritos;
+     * el bloqueo solo se toma para copiar los que se escribieron durante la copia y cambiar de
+     * generación. La nueva generación se escribe en un archivo temporal que se renombra al
+     * terminar, de modo que una interrupción deja intacta la generación anterior.
+     * @throws IOException Si no se puede escribir la nueva generación
+     */
+    public void compactar() throws IOException {
+        synchronized (bloqueoCompactacion) {
+            long[] posiciones;
+            List<MappedByteBuffer> regionesOrigen;
+            int regionCopiada;
+            int posicionCopiada;
+            long nuevaGeneracion;
+            bloqueo.readLock().lock();
+            try {
+                validarAbierto();
+                posiciones = vigentes();
+                regionesOrigen = List.copyOf(regiones);
+                regionCopiada = regionEscritura;
+                posicionCopiada = posicionEscritura;
+                nuevaGeneracion = generacion + 1;
+            } finally {
+                bloqueo.readLock().unlock();
+            }
+            
+            Path temporal = directorio.resolve(nombreArchivo(nuevaGeneracion, EXTENSION_TEMPORAL));
+            FileChannel nuevoCanal = FileChannel.open(temporal, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                      StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            List<MappedByteBuffer> nuevasRegiones = new ArrayList<>();
+            IndicePosiciones nuevoIndice = new IndicePosiciones(posiciones.length);
+            int region = 0;
+            int desplazamiento = 0;
+            long bytesCopiados = 0;
+            try {
+                nuevasRegiones.add(nuevoCanal.map(FileChannel.MapMode.READ_WRITE, 0, tamañoRegion));
+                for (long posicion : posiciones) {
+                    // Se copia el registro tal cual, con su longitud y su crc
+                    ByteBuffer registro = registro(regionesOrigen, posicion);
+                    if (desplazamiento + registro.remaining() > tamañoRegion) {
+                        region++;
+                        desplazamiento = 0;
+                        nuevasRegiones.add(nuevoCanal.map(FileChannel.MapMode.READ_WRITE, (long) region * tamañoRegion, tamañoRegion));
+                    }
+                    // Los IDs vigentes son únicos, así que no hace falta compararlos
+                    nuevoIndice.poner(hashId(registro, CodificadorRegistros.indiceIdEntrada(registro, CABECERA_REGISTRO)),
+                                      (long) region * tamañoRegion + desplazamiento,
+                                      centavos(CodificadorRegistros.leerPrecioProducto(
+                                          registro.slice(CABECERA_REGISTRO + 1, registro.remaining() - CABECERA_REGISTRO - 1))),
+                                      _ -> false);
+                    int longitud = registro.remaining();
+                    nuevasRegiones.get(region).put(desplazamiento, registro, 0, longitud);
+                    desplazamiento += longitud;
+                    bytesCopiados += longitud;
+                }
+                for (MappedByteBuffer nueva : nuevasRegiones) {
+                    nueva.force();
+                }
+            } catch (IOException | RuntimeException e) {
+                nuevoCanal.close();
+                Files.deleteIfExists(temporal);
+                throw e;
+            }
+            
+            long obsoletosEliminados;
+            bloqueo.writeLock().lock();
+            try {
+                if (cerrado) {
+                    nuevoCanal.close();
+                    Files.deleteIfExists(temporal);
+                    validarAbierto();
+                }
+                List<MappedByteBuffer> regionesAnteriores = new ArrayList<>(regiones);
+                int regionFinal = regionEscritura;
+                int posicionFinal = posicionEscritura;
+                FileChannel canalAnterior = canal;
+                Path rutaAnterior = rutaArchivo;
+                obsoletosEliminados = bytesObsoletos;
+                
+                canal = nuevoCanal;
+                rutaArchivo = temporal;
+                regiones.clear();
+                regiones.addAll(nuevasRegiones);
+                indice = nuevoIndice;
+                regionEscritura = region;
+                posicionEscritura = desplazamiento;
+                bytesVigentes = bytesCopiados;
+                bytesObsoletos = 0;
+                // Los registros escritos durante la copia se vuelven a anexar y aplicar en orden
+                copiarCola(regionesAnteriores, regionCopiada, posicionCopiada, regionFinal, posicionFinal);
+                for (int i = region; i < regiones.size(); i++) {
+                    regiones.get(i).force();
+                }
+                obsoletosEliminados -= bytesObsoletos;
+                
+                Path nuevaRuta = directorio.resolve(nombreArchivo(nuevaGeneracion, EXTENSION_ARCHIVO));
+                Files.move(temporal, nuevaRuta, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                rutaArchivo = nuevaRuta;
+                generacion = nuevaGeneracion;
+                canalAnterior.close();
+                Files.deleteIfExists(rutaAnterior);
+            } finally {
+                bloqueo.writeLock().unlock();
+            }
+            REGISTRO.info("Archivo de productos compactado a la generación {}: {} bytes obsoletos eliminados",
+                          nuevaGeneracion, obsoletosEliminados);
+        }
+    }
+    
+    /**
+     * Fuerza a disco los registros escritos.
+     */
+    public void sincronizar() {
+        bloqueo.readLock().lock();
+        try {
+            validarAbierto();
+            for (MappedByteBuffer region : regiones) {
+                region.force();
+            }
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    public int getTamaño() {
+        bloqueo.readLock().lock();
+        try {
+            return indice.getTamaño();
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    public long getBytesVigentes() {
+        bloqueo.readLock().lock();
+        try {
+            return bytesVigentes;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    public long getBytesObsoletos() {
+        bloqueo.readLock().lock();
+        try {
+            return bytesObsoletos;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    public long getGeneracion() {
+        bloqueo.readLock().lock();
+        try {
+            return generacion;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Espera a la compactación en curso, fuerza los registros a disco y cierra el archivo.
+     */
+    @Override
+    public void close() {
+        tareasFondo.shutdown();
+        try {
+            tareasFondo.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        bloqueo.writeLock().lock();
+        try {
+            if (cerrado) {
+                return;
+            }
+            for (MappedByteBuffer region : regiones) {
+                region.force();
+            }
+            canal.close();
+        } catch (IOException e) {
+            REGISTRO.error("Error al cerrar el archivo de productos", e);
+        } finally {
+            cerrado = true;
+            bloqueo.writeLock().unlock();
+        }
+    }
+    
+    private void agregar(ProductoInterface producto) {
+        validarProducto(producto);
+        byte[] contenido = CodificadorRegistros.codificarAlta(producto);
+        bloqueo.writeLock().lock();
+        try {
+            validarAbierto();
+            ByteBuffer idCodificado = codificarId(producto.getId());
+            if (buscarPosicion(idCodificado) >= 0) {
+                throw new IllegalArgumentException("Ya existe un producto con ID: " + producto.getId());
+            }
+            long posicion = anexar(contenido);
+            indice.poner(hashId(idCodificado, 0), posicion, centavos(producto.getPrecio()), _ -> false);
+            bytesVigentes += tamañoRegistro(posicion);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        REGISTRO.depuracion("Agregar producto: {}", producto.getId());
+        programarCompactacionSiConviene();
+    }
+    
+    private void actualizar(ProductoInterface producto) throws ProductoNoEncontradoExcepcion {
+        validarProducto(producto);
+        byte[] contenido = CodificadorRegistros.codificarAlta(producto);
+        bloqueo.writeLock().lock();
+        try {
+            validarAbierto();
+            ByteBuffer idCodificado = codificarId(producto.getId());
+            long anterior = buscarPosicion(idCodificado);
+            if (anterior < 0) {
+                throw new ProductoNoEncontradoExcepcion(
+                    "El producto con ID " + producto.getId() + " no se encuentra en el repositorio", producto.getId());
+            }
+            long posicion = anexar(contenido);
+            indice.poner(hashId(idCodificado, 0), posicion, centavos(producto.getPrecio()), existente -> existente == anterior);
+            marcarObsoleto(anterior);
+            bytesVigentes += tamañoRegistro(posicion);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        REGISTRO.depuracion("Actualizar producto: {}", producto.getId());
+        programarCompactacionSiConviene();
+    }
+    
+    private List<ProductoInterface> obtenerProductosPorRangoPrecio(long minimo, long maximo) {
+        List<Candidato> candidatos = new ArrayList<>();
+        bloqueo.readLock().lock();
+        try {
+            validarAbierto();
+            if (minimo > maximo) {
+                return new ArrayList<>();
+            }
+            indice.recorrer((posicion, centavos) -> {
+                if (centavos >= minimo && centavos <= maximo) {
+                    candidatos.add(new Candidato(centavos, posicion));
+                }
+            });
+            candidatos.sort(null);
+            return materializar(candidatos);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Selecciona los productos con los precios más bajos o más altos manteniendo en un montículo
+     * solo los k mejores candidatos.
+     */
+    private List<ProductoInterface> obtenerExtremosPrecio(int cantidad, Comparator<Candidato> orden) {
+        if (cantidad <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Candidato> mejores = new PriorityQueue<>(orden.reversed());
+        bloqueo.readLock().lock();
+        try {
+            validarAbierto();
+            indice.recorrer((posicion, centavos) -> {
+                Candidato candidato = new Candidato(centavos, posicion);
+                if (mejores.size() < cantidad) {
+                    mejores.add(candidato);
+                } else if (orden.compare(candidato, mejores.peek()) < 0) {
+                    mejores.poll();
+                    mejores.add(candidato);
+                }
+            });
+            List<Candidato> candidatos = new ArrayList<>(mejores);
+            candidatos.sort(orden);
+            return materializar(candidatos);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    private List<ProductoInterface> materializar(List<Candidato> candidatos) {
+        List<ProductoInterface> resultado = new ArrayList<>(candidatos.size());
+        for (Candidato candidato : candidatos) {
+            resultado.add(CodificadorRegistros.leerProducto(producto(candidato.posicion), fabrica));
+        }
+        return resultado;
+    }
+    
+    private String leerId(long posicion) {
+        MappedByteBuffer region = regiones.get((int) (posicion / tamañoRegion));
+        int indice = CodificadorRegistros.indiceIdEntrada(region, (int) (posicion % tamañoRegion) + CABECERA_REGISTRO);
+        byte[] bytes = new byte[region.getInt(indice)];
+        region.get(indice + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static long centavos(Double precio) {
+        return precio != null ? IndicePrecios.aCentavos(precio) : 0;
+    }
+    
+    private void marcarObsoleto(long posicion) {
+        int tamaño = tamañoRegistro(posicion);
+        bytesVigentes -= tamaño;
+        bytesObsoletos += tamaño;
+    }
+    
+    private void programarCompactacionSiConviene() {
+        bloqueo.readLock().lock();
+        try {
+            if (cerrado || compactacionProgramada || bytesObsoletos < bytesObsoletosParaCompactar
+                || bytesObsoletos <= bytesVigentes) {
+                return;
+            }
+            compactacionProgramada = true;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+        try {
+            tareasFondo.execute(() -> {
+                try {
+                    compactar();
+                } catch (IOException | IllegalStateException e) {
+                    REGISTRO.error("Error al compactar el archivo de productos", e);
+                } finally {
+                    compactacionProgramada = false;
+                }
+            });
+        } catch (RuntimeException e) {
+            // El repositorio se está cerrando
+            compactacionProgramada = false;
+        }
+    }
+    
+    /**
+     * Anexa a la generación actual los registros de otra generación comprendidos entre dos
+     * posiciones de escritura, aplicando cada uno igual que al abrir el archivo.
+     */
+    private void copiarCola(List<MappedByteBuffer> regionesOrigen, int regionInicio, int posicionInicio,
+                            int regionFin, int posicionFin) {
+        for (int region = regionInicio; region <= regionFin; region++) {
+            MappedByteBuffer datos = regionesOrigen.get(region);
+            int fin = region == regionFin ? posicionFin : tamañoRegion;
+            int desplazamiento = region == regionInicio ? posicionInicio : 0;
+            while (desplazamiento + CABECERA_REGISTRO <= fin) {
+                int longitud = datos.getInt(desplazamiento);
+                if (longitud == 0) {
+                    break;
+                }
+                byte[] contenido = new byte[longitud];
+                datos.get(desplazamiento + CABECERA_REGISTRO, contenido);
+                long posicion = anexar(contenido);
+                aplicarRegistro(regiones.get((int) (posicion / tamañoRegion)), posicion - posicion % tamañoRegion,
+                                (int) (posicion % tamañoRegion));
+                desplazamiento += CABECERA_REGISTRO + longitud;
+            }
+        }
+    }
+    
+    /**
+     * Añade un registro al final del archivo, pasando a una nueva región si no cabe en la actual.
+     * @return La posición global del registro
+     */
+    private long anexar(byte[] contenido) {
+        int tamaño = CABECERA_REGISTRO + contenido.length;
+        if (tamaño > tamañoRegion) {
+            throw new IllegalArgumentException("El registro de " + tamaño + " bytes no cabe en una región");
+        }
+        if (posicionEscritura + tamaño > tamañoRegion) {
+            regionEscritura++;
+            posicionEscritura = 0;
+            if (regionEscritura == regiones.size()) {
+                try {
+                    regiones.add(canal.map(FileChannel.MapMode.READ_WRITE, (long) regionEscritura * tamañoRegion, tamañoRegion));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo ampliar el archivo de productos", e);
+                }
+            }
+        }
+        MappedByteBuffer region = regiones.get(regionEscritura);
+        int inicio = posicionEscritura;
+        region.put(inicio + CABECERA_REGISTRO, contenido);
+        crc.reset();
+        crc.update(contenido);
+        region.putInt(inicio + 4, (int) crc.getValue());
+        // La longitud se escribe al final: un registro con longitud distinta de cero está completo
+        region.putInt(inicio, contenido.length);
+        posicionEscritura += tamaño;
+        return (long) regionEscritura * tamañoRegion + inicio;
+    }
+    
+    /**
+     * Posiciones de los registros vigentes en el orden del archivo. Se toman de la tabla,
+     * así que el coste no depende de los registros obsoletos ni de las bajas del archivo.
+     */
+    private long[] vigentes() {
+        return indice.posicionesOrdenadas();
+    }
+    
+    private long buscarPosicion(ByteBuffer idCodificado) {
+        return indice.buscar(hashId(idCodificado, 0), existente -> mismoId(existente, idCodificado, 0));
+    }
+    
+    /**
+     * Hash de un ID calculado sobre sus bytes, sin copiarlos.
+     * @param datos Buffer con el ID
+     * @param indiceId Índice de la longitud del ID
+     */
+    private static int hashId(ByteBuffer datos, int indiceId) {
+        return IndicePosiciones.hash(datos, indiceId + 4, datos.getInt(indiceId));
+    }
+    
+    /**
+     * Compara el ID del registro en una posición con un ID que empieza (con su longitud) en otro buffer.
+     */
+    private boolean mismoId(long posicion, ByteBuffer otro, int indiceOtro) {
+        MappedByteBuffer region = regiones.get((int) (posicion / tamañoRegion));
+        int indice = CodificadorRegistros.indiceIdEntrada(region, (int) (posicion % tamañoRegion) + CABECERA_REGISTRO);
+        int longitud = region.getInt(indice);
+        if (longitud != otro.getInt(indiceOtro)) {
+            return false;
+        }
+        return region.slice(indice + 4, longitud).equals(otro.slice(indiceOtro + 4, longitud));
+    }
+    
+    /**
+     * ID en el mismo formato que dentro de los registros: longitud seguida de los bytes UTF-8.
+     */
+    private static ByteBuffer codificarId(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(4 + bytes.length).putInt(bytes.length).put(bytes);
+    }
+    
+    /**
+     * Vista sin copia del registro completo, incluida la cabecera.
+     */
+    private ByteBuffer registro(List<MappedByteBuffer> regiones, long posicion) {
+        MappedByteBuffer region = regiones.get((int) (posicion / tamañoRegion));
+        int desplazamiento = (int) (posicion % tamañoRegion);
+        return region.slice(desplazamiento, CABECERA_REGISTRO + region.getInt(desplazamiento));
+    }
+    
+    /**
+     * Vista sin copia del producto codificado en un registro de alta, sin el byte de tipo.
+     */
+    private ByteBuffer producto(long posicion) {
+        MappedByteBuffer region = regiones.get((int) (posicion / tamañoRegion));
+        int desplazamiento = (int) (posicion % tamañoRegion);
+        return region.slice(desplazamiento + CABECERA_REGISTRO + 1, region.getInt(desplazamiento) - 1);
+    }
+    
+    private int tamañoRegistro(long posicion) {
+        return CABECERA_REGISTRO + regiones.get((int) (posicion / tamañoRegion)).getInt((int) (posicion % tamañoRegion));
+    }
+    
+    /**
+     * Abre la última generación completa del archivo y recorre sus registros para reconstruir
+     * las posiciones. Se detiene en el primer registro incompleto y limpia todo lo que le sigue.
+     */
+    private void abrir() throws IOException {
+        List<Path> archivos = listar(EXTENSION_ARCHIVO);
+        for (Path temporal : listar(EXTENSION_TEMPORAL)) {
+            // Compactación interrumpida: la generación anterior sigue siendo válida
+            Files.deleteIfExists(temporal);
+        }
+        if (archivos.isEmpty()) {
+            generacion = 0;
+            rutaArchivo = directorio.resolve(nombreArchivo(generacion, EXTENSION_ARCHIVO));
+        } else {
+            rutaArchivo = archivos.get(archivos.size() - 1);
+            generacion = numeroEnNombre(rutaArchivo);
+            for (Path anterior : archivos.subList(0, archivos.size() - 1)) {
+                Files.deleteIfExists(anterior);
+            }
+        }
+        canal = FileChannel.open(rutaArchivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long numeroRegiones = Math.max(1, (canal.size() + tamañoRegion - 1) / tamañoRegion);
+        for (long i = 0; i < numeroRegiones; i++) {
+            regiones.add(canal.map(FileChannel.MapMode.READ_WRITE, i * tamañoRegion, tamañoRegion));
+        }
+        
+        CRC32C verificador = new CRC32C();
+        recorrido:
+        for (int region = 0; region < regiones.size(); region++) {
+            MappedByteBuffer datos = regiones.get(region);
+            ByteBuffer lectura = datos.duplicate();
+            int desplazamiento = 0;
+            while (desplazamiento + CABECERA_REGISTRO <= tamañoRegion) {
+                int longitud = datos.getInt(desplazamiento);
+                if (longitud == 0) {
+                    break;
+                }
+                int inicioContenido = desplazamiento + CABECERA_REGISTRO;
+                boolean completo = longitud > 0 && inicioContenido + longitud <= tamañoRegion;
+                if (completo) {
+                    verificador.reset();
+                    verificador.update(lectura.limit(inicioContenido + longitud).position(inicioContenido));
+                    completo = (int) verificador.getValue() == datos.getInt(desplazamiento + 4);
+                }
+                if (!completo) {
+                    // Escritura incompleta: se descarta el resto del archivo para que los bytes
+                    // que quedan detrás no se tomen por registros al reutilizar el espacio
+                    for (int i = desplazamiento; i < tamañoRegion; i++) {
+                        datos.put(i, (byte) 0);
+                    }
+                    for (int siguiente = region + 1; siguiente < regiones.size(); siguiente++) {
+                        MappedByteBuffer resto = regiones.get(siguiente);
+                        for (int i = 0; i < tamañoRegion; i++) {
+                            resto.put(i, (byte) 0);
+                        }
+                    }
+                    regionEscritura = region;
+                    posicionEscritura = desplazamiento;
+                    break recorrido;
+                }
+                aplicarRegistro(datos, (long) region * tamañoRegion, desplazamiento);
+                desplazamiento = inicioContenido + longitud;
+                regionEscritura = region;
+                posicionEscritura = desplazamiento;
+            }
+        }
+    }
+    
+    private void aplicarRegistro(ByteBuffer datos, long inicioRegion, int desplazamiento) {
+        long posicion = inicioRegion + desplazamiento;
+        int inicioContenido = desplazamiento + CABECERA_REGISTRO;
+        int tamaño = CABECERA_REGISTRO + datos.getInt(desplazamiento);
+        byte tipo = datos.get(inicioContenido);
+        int indiceId = CodificadorRegistros.indiceIdEntrada(datos, inicioContenido);
+        switch (tipo) {
+            case CodificadorRegistros.TIPO_ALTA -> {
+                ByteBuffer producto = datos.slice(inicioContenido + 1, tamaño - CABECERA_REGISTRO - 1);
+                long anterior = indice.poner(hashId(datos, indiceId), posicion, centavos(CodificadorRegistros.leerPrecioProducto(producto)),
+                                             existente -> mismoId(existente, datos, indiceId));
+                if (anterior >= 0) {
+                    marcarObsoleto(anterior);
+                }
+                bytesVigentes += tamaño;
+            }
+            case CodificadorRegistros.TIPO_BAJA -> {
+                long anterior = indice.quitar(hashId(datos, indiceId), existente -> mismoId(existente, datos, indiceId));
+                if (anterior >= 0) {
+                    marcarObsoleto(anterior);
+                }
+                bytesObsoletos += tamaño;
+            }
+            default -> throw new IllegalStateException("Tipo de registro desconocido en el archivo de productos: " + tipo);
+        }
+    }
+    
+    private List<Path> listar(String extension) throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return new ArrayList<>(archivos
+                .filter(ruta -> {
+                    String nombre = ruta.getFileName().toString();
+                    return nombre.startsWith(PREFIJO_ARCHIVO) && nombre.endsWith(extension);
+                })
+                .sorted()
+                .toList());
+        }
+    }
+    
+    private static String nombreArchivo(long generacion, String extension) {
+        // Números con ceros a la izquierda para que el orden alfabético sea el numérico
+        return String.format("%s%020d%s", PREFIJO_ARCHIVO, generacion, extension);
+    }
+    
+    private static long numeroEnNombre(Path ruta) {
+        String nombre = ruta.getFileName().toString();
+        return Long.parseLong(nombre.substring(PREFIJO_ARCHIVO.length(), nombre.length() - EXTENSION_ARCHIVO.length()));
+    }
+    
+    private static void validarProducto(ProductoInterface producto) {
+        if (producto == null || producto.getId() == null) {
+            throw new IllegalArgumentException("El producto y su ID no pueden ser nulos");
+        }
+    }
+    
+    private void validarAbierto() {
+        if (cerrado) {
+            throw new IllegalStateException("El repositorio de productos está cerrado");
+        }
+    }
+    
+    /**
+     * Registro vigente junto con su precio, ordenado por precio y luego por orden de alta,
+     * que es el de su posición en el archivo.
+     */
+    private static class Candidato implements Comparable<Candidato> {
+        private final long centavos;
+        private final long posicion;
+        
+        Candidato(long centavos, long posicion) {
+            this.centavos = centavos;
+            this.posicion = posicion;
+        }
+        
+        @Override
+        public int compareTo(Candidato otro) {
+            int porPrecio = Long.compare(centavos, otro.centavos);
+            return porPrecio != 0 ? porPrecio : Long.compare(posicion, otro.posicion);
+        }
+        
+        /**
+         * Orden de mayor a menor precio; a igual precio se mantiene el orden de alta.
+         */
+        static int compararMasCaro(Candidato uno, Candidato otro) {
+            int porPrecio = Long.compare(otro.centavos, uno.centavos);
+            return porPrecio != 0 ? porPrecio : Long.compare(uno.posicion, otro.posicion);
+        }
+    }
+    
+    /**
+     * Registro vigente junto con su ID, para la paginación por ID.
+     */
+    private static class CandidatoId {
+        private final String id;
+        private final long posicion;
+        
+        CandidatoId(String id, long posicion) {
+            this.id = id;
+            this.posicion = posicion;
+        }
+    }
+}
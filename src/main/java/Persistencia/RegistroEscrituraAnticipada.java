@@ -0,0 +1,599 @@
+package Persistencia;
+
+import Bitacora.Bitacora;
+import Bitacora.Registrador;
+import Factory.FabricaEntidades;
+import Factory.FabricaEntidadesInterface;
+import Modelos.Producto.ProductoInterface;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Registro de escritura anticipada (WAL) para las operaciones del inventario.
+ * Las entradas se escriben en segmentos de tamaño fijo mapeados en memoria, de modo
+ * que añadir una entrada es una copia de memoria bajo un bloqueo muy breve.
+ * Con la política SIEMPRE los hilos que esperan su fsync se agrupan (group commit):
+ * un hilo fuerza el registro y con ello confirma las entradas de todos los demás.
+ *
+ * Formato de cada entrada: [longitud][crc32c][lsn][contenido]. Una longitud cero
+ * marca el final del segmento y un crc inválido indica una escritura incompleta.
+ * Los puntos de control guardan una instantánea de los productos y de los pools de
+ * licencias, con el nombre del inventario que los creó, y eliminan los
+ * segmentos anteriores; la recuperación carga el último punto de control y aplica
+ * las entradas posteriores.
+ */
+public class RegistroEscrituraAnticipada implements AutoCloseable {
+    private static final Registrador REGISTRO = Bitacora.obtenerRegistrador(RegistroEscrituraAnticipada.class);
+    private static final int TAMAÑO_SEGMENTO_POR_DEFECTO = 64 * 1024 * 1024;
+    private static final long ENTRADAS_POR_PUNTO_CONTROL_POR_DEFECTO = 1_000_000;
+    private static final long INTERVALO_SINCRONIZACION_MS = 50;
+    private static final int CABECERA_ENTRADA = 4 + 4 + 8;
+    private static final int MARCA_PUNTO_CONTROL = 0x57414C31;
+    private static final int MARCA_PUNTO_CONTROL_PROPIETARIO = 0x57414C32;
+    private static final String PREFIJO_SEGMENTO = "wal-";
+    private static final String EXTENSION_SEGMENTO = ".log";
+    private static final String PREFIJO_PUNTO_CONTROL = "punto-control-";
+    private static final String EXTENSION_PUNTO_CONTROL = ".dat";
+    
+    private final Path directorio;
+    private final PoliticaSincronizacion politica;
+    private final int tamañoSegmento;
+    private final long entradasPorPuntoControl;
+    private final FabricaEntidadesInterface fabrica;
+    private final List<ProductoInterface> productosRecuperados;
+    private final Map<String, EstadoLicencias> licenciasRecuperadas;
+    private final ScheduledExecutorService tareasFondo;
+    
+    // Estado de escritura, protegido por bloqueoEscritura
+    private final Object bloqueoEscritura = new Object();
+    private final CRC32C crc = new CRC32C();
+    private final List<MappedByteBuffer> segmentosPendientes = new ArrayList<>();
+    private MappedByteBuffer segmentoActual;
+    private Path rutaSegmentoActual;
+    private volatile long ultimoLsn;
+    private volatile boolean cerrado;
+    
+    // Sincronización a disco: un solo hilo fuerza a la vez y los demás reutilizan su resultado
+    private final Object bloqueoSincronizacion = new Object();
+    private volatile long lsnPersistido;
+    
+    // Puntos de control
+    private final Object bloqueoPuntoControl = new Object();
+    private volatile Supplier<? extends Collection<ProductoInterface>> fuenteProductos;
+    private volatile Supplier<Map<String, EstadoLicencias>> fuenteLicencias;
+    private volatile String propietario; // inventario vinculado, dueño de los puntos de control
+    private volatile String propietarioPuntoControl; // quien creó el punto de control recuperado
+    private volatile long lsnUltimoPuntoControl;
+    private volatile boolean puntoControlProgramado;
+    
+    public RegistroEscrituraAnticipada(Path directorio, PoliticaSincronizacion politica) throws IOException {
+        this(directorio, politica, TAMAÑO_SEGMENTO_POR_DEFECTO, ENTRADAS_POR_PUNTO_CONTROL_POR_DEFECTO);
+    }
+    
+    /**
+     * Abre el registro en un directorio, recuperando el estado que contenga.
+     * @param directorio Directorio de los segmentos y puntos de control
+     * @param politica Política de sincronización a disco
+     * @param tamañoSegmento Tamaño en bytes de cada segmento mapeado
+     * @param entradasPorPuntoControl Entradas tras las que se crea un punto de control automático (0 para desactivarlo)
+     * @throws IOException Si no se puede leer o crear el registro
+     */
+    public RegistroEscrituraAnticipada(Path directorio, PoliticaSincronizacion politica,
+                                       int tamañoSegmento, long entradasPorPuntoControl) throws IOException {
+        if (directorio == null || politica == null) {
+            throw new IllegalArgumentException("El directorio y la política de sincronización son obligatorios");
+        }
+        if (tamañoSegmento < 1024) {
+            throw new IllegalArgumentException("El tamaño de segmento debe ser de al menos 1024 bytes");
+        }
+        if (entradasPorPuntoControl < 0) {
+            throw new IllegalArgumentException("Las entradas por punto de control no pueden ser negativas");
+        }
+        this.directorio = directorio;
+        this.politica = politica;
+        this.tamañoSegmento = tamañoSegmento;
+        this.entradasPorPuntoControl = entradasPorPuntoControl;
+        this.fabrica = new FabricaEntidades();
+        
+        Files.createDirectories(directorio);
+        Map<String, EstadoLicencias> licencias = new LinkedHashMap<>();
+        this.productosRecuperados = recuperar(licencias);
+        this.licenciasRecuperadas = Collections.unmodifiableMap(licencias);
+        this.lsnPersistido = ultimoLsn;
+        this.lsnUltimoPuntoControl = ultimoLsn;
+        abrirSegmento(ultimoLsn + 1);
+        
+        this.tareasFondo = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "registro-inventario-" + directorio.getFileName());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        if (politica == PoliticaSincronizacion.PERIODICA) {
+            tareasFondo.scheduleWithFixedDelay(this::sincronizarEnFondo,
+                INTERVALO_SINCRONIZACION_MS, INTERVALO_SINCRONIZACION_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Obtiene los productos reconstruidos al abrir el registro.
+     * @return Lista inmutable de productos en el orden en que fueron añadidos
+     */
+    public List<ProductoInterface> obtenerProductosRecuperados() {
+        return productosRecuperados;
+    }
+    
+    /**
+     * Obtiene el estado de los pools de licencias reconstruido al abrir el registro.
+     * La cantidad de cada producto recuperado con pool ya es su número de licencias libres.
+     * @return Mapa inmutable del ID de producto al estado de su pool
+     */
+    public Map<String, EstadoLicencias> obtenerLicenciasRecuperadas() {
+        return licenciasRecuperadas;
+    }
+    
+    /**
+     * Indica de dónde obtener los productos para los puntos de control automáticos.
+     * @param fuenteProductos Proveedor de la lista actual de productos
+     */
+    public void vincular(Supplier<? extends Collection<ProductoInterface>> fuenteProductos) {
+        vincular(fuenteProductos, Map::of);
+    }
+    
+    /**
+     * Indica de dónde obtener los productos y los pools de licencias para los puntos de control automáticos.
+     * @param fuenteProductos Proveedor de la lista actual de productos
+     * @param fuenteLicencias Proveedor del estado actual de los pools de licencias
+     */
+    public void vincular(Supplier<? extends Collection<ProductoInterface>> fuenteProductos,
+                         Supplier<Map<String, EstadoLicencias>> fuenteLicencias) {
+        vincular(null, fuenteProductos, fuenteLicencias);
+    }
+    
+    /**
+     * Vincula el registro a un inventario, que pasa a ser el único que puede crear sus puntos de control.
+     * Su nombre se guarda en cada punto de control para comprobarlo al recuperar.
+     * @param propietario Nombre del inventario que gestiona el registro
+     * @param fuenteProductos Proveedor de la lista actual de productos
+     * @param fuenteLicencias Proveedor del estado actual de los pools de licencias
+     */
+    public void vincular(String propietario, Supplier<? extends Collection<ProductoInterface>> fuenteProductos,
+                         Supplier<Map<String, EstadoLicencias>> fuenteLicencias) {
+        this.propietario = propietario;
+        this.fuenteLicencias = fuenteLicencias;
+        this.fuenteProductos = fuenteProductos;
+    }
+    
+    /**
+     * Registra el alta de un producto.
+     * @param producto El producto añadido
+     * @return El número de secuencia (LSN) de la entrada
+     */
+    public long registrarAlta(ProductoInterface producto) {
+        return registrar(CodificadorRegistros.codificarAlta(producto));
+    }
+    
+    /**
+     * Registra la baja de un producto.
+     * @param idProducto El ID del producto eliminado
+     * @return El número de secuencia (LSN) de la entrada
+     */
+    public long registrarBaja(String idProducto) {
+        return registrar(CodificadorRegistros.codificarBaja(idProducto));
+    }
+    
+    /**
+     * Registra la nueva cantidad en stock de un producto.
+     * @param idProducto El ID del producto
+     * @param cantidad La nueva cantidad
+     * @return El número de secuencia (LSN) de la entrada
+     */
+    public long registrarStock(String idProducto, int cantidad) {
+        return registrar(CodificadorRegistros.codificarStock(idProducto, cantidad));
+    }
+    
+    /**
+     * Registra en una única entrada las nuevas cantidades de un lote de productos,
+     * de modo que la recuperación aplica el lote completo o no aplica nada.
+     * @param cantidades Mapa de ID de producto a nueva cantidad
+     * @return El número de secuencia (LSN) de la entrada
+     */
+    public long registrarStockLote(Map<String, Integer> cantidades) {
+        return registrar(CodificadorRegistros.codificarStockLote(cantidades));
+    }
+    
+    /**
+     * Registra el estado completo del pool de licencias de un producto, al crearlo o al trasladarlo.
+     * @param idProducto El ID del producto
+     * @param licencias El estado del pool
+     * @return El número de secuencia (LSN) de la entrada
+     */
+    public long registrarPoolLicencias(String idProducto, EstadoLicencias licencias) {
+        return registrar(CodificadorRegistros.codificarPoolLicencias(idProducto, licencias));
+    }
+    
+    /**
+     * Registra la asignación o la devolución de una licencia.
+     * @param idProducto El ID del producto
+     * @param licencia El número de licencia
+     * @param asignada true si la licencia queda asignada, false si se devolvió
+     * @return El número de secuencia (LSN) de la entrada
+     */
+    public long registrarLicencia(String idProducto, int licencia, boolean asignada) {
+        return registrar(CodificadorRegistros.codificarLicencia(idProducto, licencia, asignada));
+    }
+    
+    /**
+     * Espera, según la política, a que una entrada esté en disco.
+     * Con la política SIEMPRE un único hilo fuerza el registro por cada grupo de esperas.
+     * @param lsn El número de secuencia de la entrada
+     */
+    public void esperarPersistencia(long lsn) {
+        if (politica != PoliticaSincronizacion.SIEMPRE || lsnPersistido >= lsn) {
+            return;
+        }
+        sincronizar(lsn);
+    }
+    
+    /**
+     * Crea un punto de control con los productos actuales y elimina los segmentos anteriores.
+     * La instantánea puede incluir cambios posteriores al corte; como las entradas
+     * son idempotentes, volver a aplicarlas al recuperar da el mismo estado.
+     * @param productos Proveedor de la lista actual de productos
+     * @return El LSN hasta el que el punto de control cubre el registro
+     * @throws IOException Si no se puede escribir el punto de control
+     */
+    public long crearPuntoControl(Supplier<? extends Collection<ProductoInterface>> productos) throws IOException {
+        return crearPuntoControl(productos, Map::of);
+    }
+    
+    /**
+     * Crea un punto de control con los productos y los pools de licencias actuales.
+     * @param productos Proveedor de la lista actual de productos
+     * @param licencias Proveedor del estado actual de los pools de licencias
+     * @return El LSN hasta el que el punto de control cubre el registro
+     * @throws IOException Si no se puede escribir el punto de control
+     */
+    public long crearPuntoControl(Supplier<? extends Collection<ProductoInterface>> productos,
+                                  Supplier<Map<String, EstadoLicencias>> licencias) throws IOException {
+        return crearPuntoControl(propietario, productos, licencias);
+    }
+    
+    /**
+     * Crea un punto de control en nombre de un inventario. Con el registro vinculado solo lo
+     * acepta de su propietario: un punto de control con los productos de otro inventario
+     * truncaría entradas que no contiene.
+     * @param solicitante Nombre del inventario que crea el punto de control
+     * @param productos Proveedor de la lista actual de productos
+     * @param licencias Proveedor del estado actual de los pools de licencias
+     * @return El LSN hasta el que el punto de control cubre el registro
+     * @throws IOException Si no se puede escribir el punto de control
+     * @throws IllegalStateException Si el registro está vinculado a otro inventario
+     */
+    public long crearPuntoControl(String solicitante, Supplier<? extends Collection<ProductoInterface>> productos,
+                                  Supplier<Map<String, EstadoLicencias>> licencias) throws IOException {
+        String dueño = propietario;
+        if (dueño != null && !dueño.equals(solicitante)) {
+            throw new IllegalStateException("El registro lo gestiona el inventario " + dueño
+                + "; " + solicitante + " no puede crear sus puntos de control");
+        }
+        synchronized (bloqueoPuntoControl) {
+            long corte;
+            List<Path> segmentosAnteriores;
+            synchronized (bloqueoEscritura) {
+                validarAbierto();
+                corte = ultimoLsn;
+                rotarSegmento(corte + 1);
+                segmentosAnteriores = listar(PREFIJO_SEGMENTO, EXTENSION_SEGMENTO);
+                segmentosAnteriores.remove(rutaSegmentoActual);
+            }
+            
+            escribirPuntoControl(corte, solicitante, productos.get(), licencias.get());
+            for (Path segmento : segmentosAnteriores) {
+                Files.deleteIfExists(segmento);
+            }
+            for (Path anterior : listar(PREFIJO_PUNTO_CONTROL, EXTENSION_PUNTO_CONTROL)) {
+                if (numeroEnNombre(anterior, PREFIJO_PUNTO_CONTROL, EXTENSION_PUNTO_CONTROL) < corte) {
+                    Files.deleteIfExists(anterior);
+                }
+            }
+            lsnUltimoPuntoControl = corte;
+            return corte;
+        }
+    }
+    
+    public PoliticaSincronizacion getPolitica() {
+        return politica;
+    }
+    
+    public long getUltimoLsn() {
+        return ultimoLsn;
+    }
+    
+    public long getLsnPersistido() {
+        return lsnPersistido;
+    }
+    
+    public long getLsnUltimoPuntoControl() {
+        return lsnUltimoPuntoControl;
+    }
+    
+    /**
+     * Obtiene el inventario que creó el punto de control recuperado al abrir el registro.
+     * @return Su nombre, o null si no había punto de control o no guardaba propietario
+     */
+    public String getPropietarioPuntoControl() {
+        return propietarioPuntoControl;
+    }
+    
+    /**
+     * Fuerza a disco las entradas pendientes y detiene las tareas en segundo plano.
+     */
+    @Override
+    public void close() {
+        tareasFondo.shutdown();
+        try {
+            tareasFondo.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sincronizar(ultimoLsn);
+        cerrado = true;
+    }
+    
+    private long registrar(byte[] contenido) {
+        long lsn;
+        synchronized (bloqueoEscritura) {
+            validarAbierto();
+            int tamañoEntrada = CABECERA_ENTRADA + contenido.length;
+            // Se reservan 4 bytes para la marca de fin de segmento
+            if (tamañoEntrada + 4 > tamañoSegmento) {
+                throw new IllegalArgumentException("La entrada de " + tamañoEntrada + " bytes no cabe en un segmento");
+            }
+            lsn = ultimoLsn + 1;
+            if (segmentoActual.remaining() < tamañoEntrada + 4) {
+                rotarSegmento(lsn);
+            }
+            
+            int inicio = segmentoActual.position();
+            segmentoActual.position(inicio + 8);
+            segmentoActual.putLong(lsn);
+            segmentoActual.put(contenido);
+            crc.reset();
+            crc.update(segmentoActual.slice(inicio + 8, 8 + contenido.length));
+            segmentoActual.putInt(inicio + 4, (int) crc.getValue());
+            // La longitud se escribe al final: una entrada con longitud distinta de cero está completa
+            segmentoActual.putInt(inicio, 8 + contenido.length);
+            ultimoLsn = lsn;
+        }
+        
+        if (entradasPorPuntoControl > 0 && lsn - lsnUltimoPuntoControl >= entradasPorPuntoControl) {
+            programarPuntoControl();
+        }
+        return lsn;
+    }
+    
+    private void sincronizar(long lsn) {
+        synchronized (bloqueoSincronizacion) {
+            if (lsnPersistido >= lsn) {
+                // Otro hilo ya forzó el registro incluyendo esta entrada
+                return;
+            }
+            long objetivo;
+            List<MappedByteBuffer> aForzar;
+            synchronized (bloqueoEscritura) {
+                objetivo = ultimoLsn;
+                aForzar = new ArrayList<>(segmentosPendientes);
+                segmentosPendientes.clear();
+                aForzar.add(segmentoActual);
+            }
+            for (MappedByteBuffer segmento : aForzar) {
+                segmento.force();
+            }
+            lsnPersistido = objetivo;
+        }
+    }
+    
+    private void sincronizarEnFondo() {
+        if (!cerrado && lsnPersistido < ultimoLsn) {
+            sincronizar(ultimoLsn);
+        }
+    }
+    
+    private void programarPuntoControl() {
+        Supplier<? extends Collection<ProductoInterface>> fuente = fuenteProductos;
+        Supplier<Map<String, EstadoLicencias>> licencias = fuenteLicencias;
+        String dueño = propietario;
+        if (fuente == null || puntoControlProgramado || tareasFondo.isShutdown()) {
+            return;
+        }
+        puntoControlProgramado = true;
+        tareasFondo.execute(() -> {
+            try {
+                crearPuntoControl(dueño, fuente, licencias);
+            } catch (IOException | IllegalStateException e) {
+                REGISTRO.error("Error al crear el punto de control del registro", e);
+            } finally {
+                puntoControlProgramado = false;
+            }
+        });
+    }
+    
+    private void rotarSegmento(long primerLsn) {
+        if (segmentoActual.position() == 0) {
+            // El segmento actual está vacío y ya empieza en primerLsn
+            return;
+        }
+        if (politica != PoliticaSincronizacion.NUNCA) {
+            segmentosPendientes.add(segmentoActual);
+        }
+        try {
+            abrirSegmento(primerLsn);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear un nuevo segmento del registro", e);
+        }
+    }
+    
+    private void abrirSegmento(long primerLsn) throws IOException {
+        Path ruta = directorio.resolve(nombreArchivo(PREFIJO_SEGMENTO, primerLsn, EXTENSION_SEGMENTO));
+        // Un segmento con este nombre no contiene entradas recuperadas, por lo que se sobrescribe
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                  StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            segmentoActual = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamañoSegmento);
+        }
+        rutaSegmentoActual = ruta;
+    }
+    
+    private List<ProductoInterface> recuperar(Map<String, EstadoLicencias> licencias) throws IOException {
+        Map<String, ProductoInterface> estado = new LinkedHashMap<>();
+        long corte = cargarPuntoControl(estado, licencias);
+        long maximo = corte;
+        
+        for (Path segmento : listar(PREFIJO_SEGMENTO, EXTENSION_SEGMENTO)) {
+            try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.READ)) {
+                ByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+                CRC32C verificador = new CRC32C();
+                while (datos.remaining() >= CABECERA_ENTRADA) {
+                    int inicio = datos.position();
+                    int longitud = datos.getInt();
+                    int crcEsperado = datos.getInt();
+                    if (longitud < 8 || longitud > datos.remaining()) {
+                        break;
+                    }
+                    verificador.reset();
+                    verificador.update(datos.slice(inicio + 8, longitud));
+                    if ((int) verificador.getValue() != crcEsperado) {
+                        // Escritura incompleta: el resto del segmento no es válido
+                        break;
+                    }
+                    long lsn = datos.getLong();
+                    ByteBuffer contenido = datos.slice(inicio + CABECERA_ENTRADA, longitud - 8);
+                    if (lsn > corte) {
+                        CodificadorRegistros.aplicar(contenido, estado, licencias, fabrica);
+                    }
+                    maximo = Math.max(maximo, lsn);
+                    datos.position(inicio + 8 + longitud);
+                }
+            }
+        }
+        ultimoLsn = maximo;
+        // El stock de un producto con pool son sus licencias libres, aunque la instantánea
+        // del punto de control se tomara en otro momento que la del pool
+        licencias.keySet().retainAll(estado.keySet());
+        licencias.forEach((idProducto, pool) -> estado.get(idProducto).setCantidad(pool.getDisponibles()));
+        return List.copyOf(estado.values());
+    }
+    
+    private long cargarPuntoControl(Map<String, ProductoInterface> estado, Map<String, EstadoLicencias> licencias) throws IOException {
+        List<Path> puntosControl = listar(PREFIJO_PUNTO_CONTROL, EXTENSION_PUNTO_CONTROL);
+        for (int i = puntosControl.size() - 1; i >= 0; i--) {
+            ByteBuffer datos = ByteBuffer.wrap(Files.readAllBytes(puntosControl.get(i)));
+            int marca = datos.remaining() >= 20 ? datos.getInt() : 0;
+            if (marca != MARCA_PUNTO_CONTROL && marca != MARCA_PUNTO_CONTROL_PROPIETARIO) {
+                continue;
+            }
+            CRC32C verificador = new CRC32C();
+            verificador.update(datos.slice(0, datos.limit() - 4));
+            if ((int) verificador.getValue() != datos.getInt(datos.limit() - 4)) {
+                continue;
+            }
+            long corte = datos.getLong();
+            // Los puntos de control anteriores al propietario no lo guardan
+            propietarioPuntoControl = marca == MARCA_PUNTO_CONTROL_PROPIETARIO ? CodificadorRegistros.leerTexto(datos) : null;
+            int cantidad = datos.getInt();
+            for (int j = 0; j < cantidad; j++) {
+                ProductoInterface producto = CodificadorRegistros.leerProducto(datos, fabrica);
+                estado.put(producto.getId(), producto);
+            }
+            // Los puntos de control anteriores a los pools de licencias terminan en el crc
+            if (datos.remaining() > 4) {
+                int pools = datos.getInt();
+                for (int j = 0; j < pools; j++) {
+                    CodificadorRegistros.leerLicencias(datos, licencias);
+                }
+            }
+            return corte;
+        }
+        return 0;
+    }
+    
+    private void escribirPuntoControl(long corte, String solicitante, Collection<ProductoInterface> productos,
+                                      Map<String, EstadoLicencias> licencias) throws IOException {
+        CodificadorRegistros.Escritor escritor = new CodificadorRegistros.Escritor(64 * Math.max(1, productos.size()));
+        escritor.escribirEntero(MARCA_PUNTO_CONTROL_PROPIETARIO);
+        escritor.escribirLargo(corte);
+        escritor.escribirTexto(solicitante);
+        escritor.escribirEntero(productos.size());
+        for (ProductoInterface producto : productos) {
+            synchronized (producto) {
+                CodificadorRegistros.escribirProducto(escritor, producto);
+            }
+        }
+        escritor.escribirEntero(licencias.size());
+        for (Map.Entry<String, EstadoLicencias> pool : licencias.entrySet()) {
+            CodificadorRegistros.escribirLicencias(escritor, pool.getKey(), pool.getValue());
+        }
+        byte[] contenido = escritor.aBytes();
+        CRC32C verificador = new CRC32C();
+        verificador.update(contenido);
+        
+        Path temporal = directorio.resolve(nombreArchivo(PREFIJO_PUNTO_CONTROL, corte, ".tmp"));
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                  StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(contenido.length + 4);
+            buffer.put(contenido).putInt((int) verificador.getValue()).flip();
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            canal.force(true);
+        }
+        Files.move(temporal, directorio.resolve(nombreArchivo(PREFIJO_PUNTO_CONTROL, corte, EXTENSION_PUNTO_CONTROL)),
+                   StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    private List<Path> listar(String prefijo, String extension) throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return new ArrayList<>(archivos
+                .filter(ruta -> {
+                    String nombre = ruta.getFileName().toString();
+                    return nombre.startsWith(prefijo) && nombre.endsWith(extension);
+                })
+                .sorted()
+                .toList());
+        }
+    }
+    
+    private static String nombreArchivo(String prefijo, long numero, String extension) {
+        // Números con ceros a la izquierda para que el orden alfabético sea el numérico
+        return String.format("%s%020d%s", prefijo, numero, extension);
+    }
+    
+    private static long numeroEnNombre(Path ruta, String prefijo, String extension) {
+        String nombre = ruta.getFileName().toString();
+        return Long.parseLong(nombre.substring(prefijo.length(), nombre.length() - extension.length()));
+    }
+    
+    private void validarAbierto() {
+        if (cerrado) {
+            throw new IllegalStateException("El registro de escritura anticipada está cerrado");
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package Repositorios;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * Caché de tamaño acotado con política W-TinyLFU.
+ * Las entradas nuevas entran en una ventana LRU pequeña (1 % de la capacidad); al salir de ella
+ * compiten por entrar en la zona principal con la víctima de la zona de prueba, y solo entran si
+ * su frecuencia estimada es mayor. La zona principal es un LRU segmentado: una entrada de prueba
+ * que vuelve a leerse pasa a la zona protegida (80 % de la zona principal).
+ * Las frecuencias se estiman con un sketch Count-Min de contadores de 4 bits que se reduce a la
+ * mitad periódicamente para olvidar la popularidad antigua.
+ * Es segura para hilos mediante un bloqueo único.
+ * @param <K> Tipo de las claves
+ * @param <V> Tipo de los valores
+ */
+class CacheTinyLfu<K, V> {
+    private final int capacidadVentana;
+    private final int capacidadPrincipal;
+    private final int capacidadProtegida;
+    private final SketchFrecuencias sketch;
+    
+    // Orden de acceso: la primera entrada es la menos usada recientemente
+    private final LinkedHashMap<K, V> ventana = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> prueba = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> protegida = new LinkedHashMap<>(16, 0.75f, true);
+    
+    private long aciertos;
+    private long fallos;
+    private long desalojos;
+    private long invalidaciones;
+    
+    /**
+     * @param capacidad Número máximo de entradas
+     */
+    CacheTinyLfu(int capacidad) {
+        if (capacidad < 2) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser de al menos 2 entradas");
+        }
+        this.capacidadVentana = Math.max(1, capacidad / 100);
+        this.capacidadPrincipal = capacidad - capacidadVentana;
+        this.capacidadProtegida = Math.max(1, capacidadPrincipal * 8 / 10);
+        this.sketch = new SketchFrecuencias(capacidad);
+    }
+    
+    /**
+     * Obtiene un valor registrando el acceso.
+     * @param clave La clave
+     * @return El valor, o null si no está en la caché
+     */
+    synchronized V obtener(K clave) {
+        sketch.incrementar(clave);
+        V valor = ventana.get(clave);
+        if (valor == null) {
+            valor = protegida.get(clave);
+        }
+        if (valor == null) {
+            valor = prueba.remove(clave);
+            if (valor != null) {
+                promover(clave, valor);
+            }
+        }
+        if (valor != null) {
+            aciertos++;
+        } else {
+            fallos++;
+        }
+        return valor;
+    }
+    
+    /**
+     * Guarda un valor. Si la clave ya estaba se reemplaza su valor sin cambiar su zona.
+     * @param clave La clave
+     * @param valor El valor
+     */
+    synchronized void guardar(K clave, V valor) {
+        if (ventana.containsKey(clave)) {
+            ventana.put(clave, valor);
+        } else if (prueba.containsKey(clave)) {
+            prueba.put(clave, valor);
+        } else if (protegida.containsKey(clave)) {
+            protegida.put(clave, valor);
+        } else {
+            ventana.put(clave, valor);
+            if (ventana.size() > capacidadVentana) {
+                admitir(primera(ventana));
+            }
+        }
+    }
+    
+    /**
+     * Elimina una clave de la caché.
+     * @param clave La clave
+     * @return true si estaba en la caché
+     */
+    synchronized boolean invalidar(K clave) {
+        boolean estaba = ventana.remove(clave) != null
+            | prueba.remove(clave) != null
+            | protegida.remove(clave) != null;
+        if (estaba) {
+            invalidaciones++;
+        }
+        return estaba;
+    }
+    
+    /**
+     * Elimina las entradas que cumplen una condición.
+     * @param condicion Condición sobre la clave y el valor
+     * @return Número de entradas eliminadas
+     */
+    synchronized int invalidarSi(BiPredicate<K, V> condicion) {
+        int eliminadas = eliminarSi(ventana, condicion) + eliminarSi(prueba, condicion) + eliminarSi(protegida, condicion);
+        invalidaciones += eliminadas;
+        return eliminadas;
+    }
+    
+    /**
+     * Vacía la caché conservando las frecuencias y las estadísticas.
+     */
+    synchronized void invalidarTodo() {
+        invalidaciones += tamañoActual();
+        ventana.clear();
+        prueba.clear();
+        protegida.clear();
+    }
+    
+    synchronized int getTamaño() {
+        return tamañoActual();
+    }
+    
+    synchronized long getAciertos() {
+        return aciertos;
+    }
+    
+    synchronized long getFallos() {
+        return fallos;
+    }
+    
+    synchronized long getDesalojos() {
+        return desalojos;
+    }
+    
+    synchronized long getInvalidaciones() {
+        return invalidaciones;
+    }
+    
+    private int tamañoActual() {
+        return ventana.size() + prueba.size() + protegida.size();
+    }
+    
+    /**
+     * Pasa a la zona protegida una entrada de prueba; si la protegida se llena, su entrada
+     * menos reciente vuelve a prueba.
+     */
+    private void promover(K clave, V valor) {
+        protegida.put(clave, valor);
+        if (protegida.size() > capacidadProtegida) {
+            Map.Entry<K, V> degradada = primera(protegida);
+            prueba.put(degradada.getKey(), degradada.getValue());
+        }
+    }
+    
+    /**
+     * Decide si el candidato que sale de la ventana entra en la zona principal, comparando
+     * su frecuencia con la de la víctima de prueba.
+     */
+    private void admitir(Map.Entry<K, V> candidato) {
+        if (prueba.size() + protegida.size() < capacidadPrincipal) {
+            prueba.put(candidato.getKey(), candidato.getValue());
+            return;
+        }
+        LinkedHashMap<K, V> zonaVictima = prueba.isEmpty() ? protegida : prueba;
+        K victima = zonaVictima.keySet().iterator().next();
+        desalojos++;
+        if (sketch.frecuencia(candidato.getKey()) > sketch.frecuencia(victima)) {
+            zonaVictima.remove(victima);
+            prueba.put(candidato.getKey(), candidato.getValue());
+        }
+    }
+    
+    /**
+     * Quita y devuelve la entrada menos usada recientemente de una zona.
+     */
+    private static <K, V> Map.Entry<K, V> primera(LinkedHashMap<K, V> zona) {
+        Iterator<Map.Entry<K, V>> iterador = zona.entrySet().iterator();
+        Map.Entry<K, V> entrada = iterador.next();
+        Map.Entry<K, V> copia = Map.entry(entrada.getKey(), entrada.getValue());
+        iterador.remove();
+        return copia;
+    }
+    
+    private static <K, V> int eliminarSi(LinkedHashMap<K, V> zona, BiPredicate<K, V> condicion) {
+        int eliminadas = 0;
+        Iterator<Map.Entry<K, V>> iterador = zona.entrySet().iterator();
+        while (iterador.hasNext()) {
+            Map.Entry<K, V> entrada = iterador.next();
+            if (condicion.test(entrada.getKey(), entrada.getValue())) {
+                iterador.remove();
+                eliminadas++;
+            }
+        }
+        return eliminadas;
+    }
+    
+    /**
+     * Sketch Count-Min con cuatro funciones hash y contadores de 4 bits empaquetados en longs.
+     */
+    private static class SketchFrecuencias {
+        private static final int[] SEMILLAS = {0x97CB3127, 0xB4B82E39, 0x9E3779B9, 0xC2B2AE35};
+        
+        private final long[] tabla;
+        private final int mascara;
+        private final int tamañoMuestra;
+        private int adiciones;
+        
+        SketchFrecuencias(int capacidad) {
+            int longitud = Integer.highestOneBit(Math.max(64, capacidad) - 1) << 1;
+            this.tabla = new long[longitud];
+            this.mascara = longitud - 1;
+            this.tamañoMuestra = 10 * Math.max(64, capacidad);
+        }
+        
+        void incrementar(Object clave) {
+            int hash = mezclar(clave.hashCode());
+            boolean incrementado = false;
+            for (int i = 0; i < SEMILLAS.length; i++) {
+                int h = mezclar(hash * SEMILLAS[i]);
+                int indice = (h >>> 4) & mascara;
+                int desplazamiento = (h & 15) << 2;
+                if (((tabla[indice] >>> desplazamiento) & 15) < 15) {
+                    tabla[indice] += 1L << desplazamiento;
+                    incrementado = true;
+                }
+            }
+            if (incrementado && ++adiciones >= tamañoMuestra) {
+                reducir();
+            }
+        }
+        
+        int frecuencia(Object clave) {
+            int hash = mezclar(clave.hashCode());
+            int minimo = 15;
+            for (int i = 0; i < SEMILLAS.length; i++) {
+                int h = mezclar(hash * SEMILLAS[i]);
+                int indice = (h >>> 4) & mascara;
+                int desplazamiento = (h & 15) << 2;
+                minimo = Math.min(minimo, (int) ((tabla[indice] >>> desplazamiento) & 15));
+            }
+            return minimo;
+        }
+        
+        /**
+         * Divide todos los contadores entre dos para que las frecuencias envejezcan.
+         */
+        private void reducir() {
+            for (int i = 0; i < tabla.length; i++) {
+                tabla[i] = (tabla[i] >>> 1) & 0x7777777777777777L;
+            }
+            adiciones /= 2;
+        }
+        
+        private static int mezclar(int hash) {
+            hash ^= hash >>> 16;
+            hash *= 0x85EBCA6B;
+            return hash ^ (hash >>> 13);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package Repositorios;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posición de continuación de una consulta paginada: la clave del último producto entregado.
+ * Se intercambia con los llamadores como un token opaco en Base64 apto para URLs, que
+ * incluye el orden de la consulta para rechazar tokens de otra consulta.
+ */
+public class CursorPagina {
+    /** Orden por ID */
+    public static final byte POR_ID = 'I';
+    /** Orden por precio y, a igual precio, por ID */
+    public static final byte POR_PRECIO = 'P';
+    
+    private final byte orden;
+    private final long centavos;
+    private final String id;
+    
+    private CursorPagina(byte orden, long centavos, String id) {
+        this.orden = orden;
+        this.centavos = centavos;
+        this.id = id;
+    }
+    
+    public static CursorPagina porId(String id) {
+        return new CursorPagina(POR_ID, 0, id);
+    }
+    
+    public static CursorPagina porPrecio(long centavos, String id) {
+        return new CursorPagina(POR_PRECIO, centavos, id);
+    }
+    
+    /**
+     * Decodifica un token de continuación.
+     * @param token El token, o null para la primera página
+     * @param ordenEsperado Orden de la consulta que recibe el token
+     * @return El cursor, o null si el token es null
+     * @throws IllegalArgumentException Si el token está mal formado o es de otra consulta
+     */
+    public static CursorPagina desdeToken(String token, byte ordenEsperado) {
+        if (token == null) {
+            return null;
+        }
+        CursorPagina cursor;
+        try {
+            ByteBuffer datos = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            byte orden = datos.get();
+            long centavos = datos.getLong();
+            cursor = new CursorPagina(orden, centavos, StandardCharsets.UTF_8.decode(datos).toString());
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new IllegalArgumentException("Token de paginación no válido: " + token, e);
+        }
+        if (cursor.orden != ordenEsperado) {
+            throw new IllegalArgumentException("El token de paginación pertenece a otra consulta");
+        }
+        return cursor;
+    }
+    
+    public String aToken() {
+        byte[] bytesId = id.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer datos = ByteBuffer.allocate(1 + Long.BYTES + bytesId.length)
+            .put(orden)
+            .putLong(centavos)
+            .put(bytesId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(datos.array());
+    }
+    
+    public long getCentavos() {
+        return centavos;
+    }
+    
+    public String getId() {
+        return id;
+    }
+}
@@ -0,0 +1,220 @@
+package Repositorios;
+
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoFisico;
+import Modelos.Producto.ProductoInterface;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Índices secundarios por atributos propios de cada tipo de producto.
+ * El formato de los productos digitales se indexa en un mapa hash, sin distinguir mayúsculas.
+ * El peso y el volumen de los productos físicos se indexan en árboles de cubetas de punto fijo
+ * (gramos y cm³, con el peso en kg y las medidas en metros), así que un rango se localiza en
+ * O(log n) y se recorre en O(k). Cada producto ocupa una entrada en cada índice que le aplica.
+ * No es seguro para hilos: el repositorio que lo usa serializa las modificaciones.
+ */
+public class IndiceAtributos {
+    /** Valor de las claves numéricas de un producto sin peso o volumen indexable */
+    public static final long SIN_VALOR = Long.MIN_VALUE;
+    
+    private static final double GRAMOS_POR_KG = 1_000.0;
+    private static final double CM3_POR_M3 = 1_000_000.0;
+    
+    private final Map<String, Map<String, ProductoInterface>> porFormato;
+    private final NavigableMap<Long, Map<String, ProductoInterface>> porPeso;
+    private final NavigableMap<Long, Map<String, ProductoInterface>> porVolumen;
+    
+    public IndiceAtributos() {
+        this.porFormato = new HashMap<>();
+        this.porPeso = new TreeMap<>();
+        this.porVolumen = new TreeMap<>();
+    }
+    
+    /**
+     * Normaliza un formato para usarlo como clave del índice.
+     * @param formato El formato
+     * @return El formato sin espacios y en mayúsculas, o null si está vacío
+     */
+    public static String claveFormato(String formato) {
+        if (formato == null || formato.isBlank()) {
+            return null;
+        }
+        return formato.strip().toUpperCase(Locale.ROOT);
+    }
+    
+    /**
+     * Convierte un peso en kg a gramos redondeando al más cercano.
+     * @param peso El peso
+     * @return El peso en gramos
+     */
+    public static long aGramos(Double peso) {
+        return aPuntoFijo(peso, GRAMOS_POR_KG, "El peso");
+    }
+    
+    /**
+     * Convierte un volumen en m³ a cm³ redondeando al más cercano.
+     * @param volumen El volumen
+     * @return El volumen en cm³
+     */
+    public static long aCentimetrosCubicos(Double volumen) {
+        return aPuntoFijo(volumen, CM3_POR_M3, "El volumen");
+    }
+    
+    /**
+     * Calcula las claves con las que se indexa un producto. Se guardan junto al producto
+     * para poder quitarlo de los índices aunque después se modifique.
+     * @param producto El producto
+     * @return Sus claves
+     */
+    public static Claves claves(ProductoInterface producto) {
+        if (producto instanceof ProductoDigital digital) {
+            String formato = claveFormato(digital.getFormato());
+            return formato != null ? new Claves(formato, SIN_VALOR, SIN_VALOR) : Claves.NINGUNA;
+        }
+        if (producto instanceof ProductoFisico fisico) {
+            long gramos = esFinito(fisico.getPeso()) ? aGramos(fisico.getPeso()) : SIN_VALOR;
+            long volumen = SIN_VALOR;
+            if (esFinito(fisico.getAltura()) && esFinito(fisico.getAncho()) && esFinito(fisico.getProfundidad())) {
+                volumen = aCentimetrosCubicos(fisico.getAltura() * fisico.getAncho() * fisico.getProfundidad());
+            }
+            return new Claves(null, gramos, volumen);
+        }
+        return Claves.NINGUNA;
+    }
+    
+    /**
+     * Agrega un producto a los índices que le aplican.
+     * @param producto El producto
+     * @param claves Sus claves, obtenidas con claves(producto)
+     */
+    public void agregar(ProductoInterface producto, Claves claves) {
+        if (claves.formato != null) {
+            porFormato.computeIfAbsent(claves.formato, _ -> new LinkedHashMap<>()).put(producto.getId(), producto);
+        }
+        if (claves.gramos != SIN_VALOR) {
+            porPeso.computeIfAbsent(claves.gramos, _ -> new LinkedHashMap<>()).put(producto.getId(), producto);
+        }
+        if (claves.centimetrosCubicos != SIN_VALOR) {
+            porVolumen.computeIfAbsent(claves.centimetrosCubicos, _ -> new LinkedHashMap<>()).put(producto.getId(), producto);
+        }
+    }
+    
+    /**
+     * Elimina un producto de los índices.
+     * @param idProducto El ID del producto
+     * @param claves Las claves con las que se agregó
+     */
+    public void eliminar(String idProducto, Claves claves) {
+        if (claves.formato != null) {
+            eliminarDeCubeta(porFormato, claves.formato, idProducto);
+        }
+        if (claves.gramos != SIN_VALOR) {
+            eliminarDeCubeta(porPeso, claves.gramos, idProducto);
+        }
+        if (claves.centimetrosCubicos != SIN_VALOR) {
+            eliminarDeCubeta(porVolumen, claves.centimetrosCubicos, idProducto);
+        }
+    }
+    
+    /**
+     * Obtiene los productos digitales con un formato, en orden de inserción.
+     * @param formato El formato, sin distinguir mayúsculas
+     * @return Los productos con ese formato
+     */
+    public List<ProductoInterface> buscarPorFormato(String formato) {
+        String clave = claveFormato(formato);
+        Map<String, ProductoInterface> cubeta = clave != null ? porFormato.get(clave) : null;
+        return cubeta != null ? new ArrayList<>(cubeta.values()) : new ArrayList<>();
+    }
+    
+    /**
+     * Obtiene los productos físicos con peso dentro de un rango, de menor a mayor peso.
+     * @param minimo Peso mínimo en gramos (incluido)
+     * @param maximo Peso máximo en gramos (incluido)
+     * @return Los productos del rango
+     */
+    public List<ProductoInterface> rangoPeso(long minimo, long maximo) {
+        return rango(porPeso, minimo, maximo);
+    }
+    
+    /**
+     * Obtiene los productos físicos con volumen dentro de un rango, de menor a mayor volumen.
+     * @param minimo Volumen mínimo en cm³ (incluido)
+     * @param maximo Volumen máximo en cm³ (incluido)
+     * @return Los productos del rango
+     */
+    public List<ProductoInterface> rangoVolumen(long minimo, long maximo) {
+        return rango(porVolumen, minimo, maximo);
+    }
+    
+    public void limpiar() {
+        porFormato.clear();
+        porPeso.clear();
+        porVolumen.clear();
+    }
+    
+    private static List<ProductoInterface> rango(NavigableMap<Long, Map<String, ProductoInterface>> indice, long minimo, long maximo) {
+        List<ProductoInterface> resultado = new ArrayList<>();
+        if (minimo > maximo) {
+            return resultado;
+        }
+        for (Map<String, ProductoInterface> cubeta : indice.subMap(minimo, true, maximo, true).values()) {
+            resultado.addAll(cubeta.values());
+        }
+        return resultado;
+    }
+    
+    private static <K> void eliminarDeCubeta(Map<K, Map<String, ProductoInterface>> indice, K clave, String idProducto) {
+        Map<String, ProductoInterface> cubeta = indice.get(clave);
+        if (cubeta != null && cubeta.remove(idProducto) != null && cubeta.isEmpty()) {
+            indice.remove(clave);
+        }
+    }
+    
+    private static long aPuntoFijo(Double valor, double escala, String campo) {
+        if (!esFinito(valor)) {
+            throw new IllegalArgumentException(campo + " debe ser un número finito");
+        }
+        return Math.round(valor * escala);
+    }
+    
+    private static boolean esFinito(Double valor) {
+        return valor != null && Double.isFinite(valor);
+    }
+    
+    /**
+     * Claves con las que está indexado un producto.
+     */
+    public static class Claves {
+        static final Claves NINGUNA = new Claves(null, SIN_VALOR, SIN_VALOR);
+        
+        private final String formato;
+        private final long gramos;
+        private final long centimetrosCubicos;
+        
+        private Claves(String formato, long gramos, long centimetrosCubicos) {
+            this.formato = formato;
+            this.gramos = gramos;
+            this.centimetrosCubicos = centimetrosCubicos;
+        }
+        
+        public String getFormato() {
+            return formato;
+        }
+        
+        public long getGramos() {
+            return gramos;
+        }
+        
+        public long getCentimetrosCubicos() {
+            return centimetrosCubicos;
+        }
+    }
+}
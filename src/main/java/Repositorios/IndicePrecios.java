@@ -0,0 +1,230 @@
+package Repositorios;
+
+import Modelos.Producto.ProductoInterface;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Índice ordenado de productos por precio.
+ * Los precios se guardan en centavos (punto fijo) como claves de un árbol, y cada clave
+ * agrupa en un arreglo compacto, ordenado por ID, los productos con ese precio. Localizar un
+ * precio o el inicio de un rango cuesta O(log n) y recorrer los k resultados O(k), sin revisar
+ * el catálogo ni ordenar los grupos al paginar.
+ * No es seguro para hilos: el repositorio que lo usa serializa las modificaciones.
+ */
+public class IndicePrecios {
+    private final NavigableMap<Long, GrupoPrecio> grupos;
+    private int tamaño;
+    
+    public IndicePrecios() {
+        this.grupos = new TreeMap<>();
+    }
+    
+    /**
+     * Convierte un precio a centavos redondeando al más cercano.
+     * @param precio El precio
+     * @return El precio en centavos
+     */
+    public static long aCentavos(Double precio) {
+        if (precio == null || precio.isNaN() || precio.isInfinite()) {
+            throw new IllegalArgumentException("El precio debe ser un número finito");
+        }
+        return Math.round(precio * 100.0);
+    }
+    
+    /**
+     * Agrega un producto al índice con el precio indicado.
+     * @param producto El producto
+     * @param centavos Su precio en centavos
+     */
+    public void agregar(ProductoInterface producto, long centavos) {
+        grupos.computeIfAbsent(centavos, _ -> new GrupoPrecio()).agregar(producto);
+        tamaño++;
+    }
+    
+    /**
+     * Elimina un producto del índice.
+     * @param idProducto El ID del producto
+     * @param centavos El precio en centavos con el que se agregó
+     * @return true si el producto estaba en el índice
+     */
+    public boolean eliminar(String idProducto, long centavos) {
+        GrupoPrecio grupo = grupos.get(centavos);
+        if (grupo == null || !grupo.eliminar(idProducto)) {
+            return false;
+        }
+        if (grupo.tamaño == 0) {
+            grupos.remove(centavos);
+        }
+        tamaño--;
+        return true;
+    }
+    
+    /**
+     * Obtiene los productos con un precio exacto.
+     * @param centavos El precio en centavos
+     * @return Los productos con ese precio, ordenados por ID
+     */
+    public List<ProductoInterface> buscar(long centavos) {
+        GrupoPrecio grupo = grupos.get(centavos);
+        List<ProductoInterface> resultado = new ArrayList<>(grupo != null ? grupo.tamaño : 0);
+        if (grupo != null) {
+            grupo.copiarEn(resultado, Integer.MAX_VALUE);
+        }
+        return resultado;
+    }
+    
+    /**
+     * Obtiene los productos con precio dentro de un rango, de menor a mayor precio.
+     * @param minimo Precio mínimo en centavos (incluido)
+     * @param maximo Precio máximo en centavos (incluido)
+     * @return Los productos del rango
+     */
+    public List<ProductoInterface> rango(long minimo, long maximo) {
+        List<ProductoInterface> resultado = new ArrayList<>();
+        if (minimo > maximo) {
+            return resultado;
+        }
+        copiarGrupos(grupos.subMap(minimo, true, maximo, true).values(), resultado, Integer.MAX_VALUE);
+        return resultado;
+    }
+    
+    /**
+     * Obtiene los k productos más baratos, de menor a mayor precio.
+     * @param k Número máximo de productos
+     * @return Los productos más baratos
+     */
+    public List<ProductoInterface> masBaratos(int k) {
+        List<ProductoInterface> resultado = new ArrayList<>(Math.max(0, Math.min(k, tamaño)));
+        copiarGrupos(grupos.values(), resultado, k);
+        return resultado;
+    }
+    
+    /**
+     * Obtiene los k productos más caros, de mayor a menor precio.
+     * @param k Número máximo de productos
+     * @return Los productos más caros
+     */
+    public List<ProductoInterface> masCaros(int k) {
+        List<ProductoInterface> resultado = new ArrayList<>(Math.max(0, Math.min(k, tamaño)));
+        copiarGrupos(grupos.descendingMap().values(), resultado, k);
+        return resultado;
+    }
+    
+    /**
+     * Obtiene una página de los productos con precio dentro de un rango, ordenados por precio
+     * y, a igual precio, por ID. La página anterior se retoma con una búsqueda binaria en su grupo.
+     * @param minimo Precio mínimo en centavos (incluido)
+     * @param maximo Precio máximo en centavos (incluido)
+     * @param centavosDesde Precio del último producto de la página anterior
+     * @param idDesde ID del último producto de la página anterior, o null para empezar por el principio
+     * @param limite Número máximo de productos
+     * @return Los productos siguientes al último de la página anterior
+     */
+    public List<ProductoInterface> paginaRango(long minimo, long maximo, long centavosDesde, String idDesde, int limite) {
+        List<ProductoInterface> resultado = new ArrayList<>(Math.min(limite, 1024));
+        long inicio = idDesde != null ? Math.max(minimo, centavosDesde) : minimo;
+        if (inicio > maximo) {
+            return resultado;
+        }
+        for (Map.Entry<Long, GrupoPrecio> entrada : grupos.subMap(inicio, true, maximo, true).entrySet()) {
+            GrupoPrecio grupo = entrada.getValue();
+            int desde = 0;
+            if (idDesde != null && entrada.getKey() == centavosDesde) {
+                // Primer producto con ID mayor que el último de la página anterior
+                int posicion = grupo.buscarPosicion(idDesde);
+                desde = posicion >= 0 ? posicion + 1 : -posicion - 1;
+            }
+            grupo.copiarEn(resultado, desde, limite);
+            if (resultado.size() >= limite) {
+                break;
+            }
+        }
+        return resultado;
+    }
+    
+    public int getTamaño() {
+        return tamaño;
+    }
+    
+    public void limpiar() {
+        grupos.clear();
+        tamaño = 0;
+    }
+    
+    private static void copiarGrupos(Collection<GrupoPrecio> origen, List<ProductoInterface> destino, int limite) {
+        for (GrupoPrecio grupo : origen) {
+            if (destino.size() >= limite) {
+                return;
+            }
+            grupo.copiarEn(destino, limite);
+        }
+    }
+    
+    /**
+     * Productos con el mismo precio, ordenados por ID en un arreglo que crece al doble.
+     * Las altas y bajas desplazan los elementos siguientes, lo que es barato con grupos
+     * pequeños, y a cambio las páginas se retoman con una búsqueda binaria.
+     */
+    private static class GrupoPrecio {
+        private ProductoInterface[] productos = new ProductoInterface[2];
+        private int tamaño;
+        
+        void agregar(ProductoInterface producto) {
+            int posicion = buscarPosicion(producto.getId());
+            int insercion = posicion >= 0 ? posicion : -posicion - 1;
+            if (tamaño == productos.length) {
+                productos = Arrays.copyOf(productos, tamaño * 2);
+            }
+            System.arraycopy(productos, insercion, productos, insercion + 1, tamaño - insercion);
+            productos[insercion] = producto;
+            tamaño++;
+        }
+        
+        boolean eliminar(String idProducto) {
+            int posicion = buscarPosicion(idProducto);
+            if (posicion < 0) {
+                return false;
+            }
+            System.arraycopy(productos, posicion + 1, productos, posicion, tamaño - posicion - 1);
+            productos[--tamaño] = null;
+            return true;
+        }
+        
+        /**
+         * Búsqueda binaria por ID.
+         * @return La posición del producto, o (-(punto de inserción) - 1) si no está
+         */
+        int buscarPosicion(String idProducto) {
+            int bajo = 0;
+            int alto = tamaño - 1;
+            while (bajo <= alto) {
+                int medio = (bajo + alto) >>> 1;
+                int comparacion = productos[medio].getId().compareTo(idProducto);
+                if (comparacion < 0) {
+                    bajo = medio + 1;
+                } else if (comparacion > 0) {
+                    alto = medio - 1;
+                } else {
+                    return medio;
+                }
+            }
+            return -(bajo + 1);
+        }
+        
+        void copiarEn(List<ProductoInterface> destino, int limite) {
+            copiarEn(destino, 0, limite);
+        }
+        
+        void copiarEn(List<ProductoInterface> destino, int desde, int limite) {
+            for (int i = desde; i < tamaño && destino.size() < limite; i++) {
+                destino.add(productos[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package Repositorios;
+
+import Modelos.Producto.ProductoInterface;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Índice invertido de trigramas sobre los nombres de los productos.
+ * Los nombres se normalizan (minúsculas, sin tildes ni signos) y se parten en trigramas;
+ * cada trigrama apunta a una lista de documentos codificada con deltas en varint, de modo
+ * que la mayoría de las entradas ocupa un solo byte.
+ * Las búsquedas mezclan en orden las listas de los trigramas de la consulta, verifican los
+ * documentos que comparten suficientes trigramas y devuelven primero las coincidencias
+ * exactas de subcadena y después las aproximadas (errores de tipeo), ordenadas por la
+ * proporción de trigramas compartidos. Las consultas de dos caracteres usan un índice
+ * aparte de bigramas, y las de uno buscan palabras que empiecen por ese carácter.
+ * Las bajas marcan el documento como eliminado y las listas se reconstruyen cuando los
+ * eliminados superan a los vivos.
+ * No es seguro para hilos: el repositorio que lo usa serializa las modificaciones.
+ */
+public class IndiceTrigramas {
+    /** Proporción mínima de trigramas compartidos para aceptar una coincidencia aproximada */
+    private static final double SIMILITUD_MINIMA = 0.5;
+    private static final int ELIMINADOS_MINIMOS_COMPACTAR = 1024;
+    
+    private final Map<Long, ListaPostings> postings;
+    private final Map<Integer, ListaPostings> bigramas;
+    private final Map<String, Integer> documentoPorId;
+    private ProductoInterface[] documentos;
+    private String[] nombres;
+    private int siguienteDocumento;
+    private int eliminados;
+    
+    public IndiceTrigramas() {
+        this.postings = new HashMap<>();
+        this.bigramas = new HashMap<>();
+        this.documentoPorId = new HashMap<>();
+        this.documentos = new ProductoInterface[16];
+        this.nombres = new String[16];
+    }
+    
+    /**
+     * Normaliza un texto para indexarlo: minúsculas, sin tildes y con los signos
+     * convertidos en un único espacio entre palabras.
+     * @param texto El texto
+     * @return El texto normalizado, vacío si es nulo
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        // Los nombres sin caracteres acentuados no necesitan la descomposición Unicode
+        String descompuesto = esAscii(texto) ? texto : Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder resultado = new StringBuilder(descompuesto.length());
+        boolean espacioPendiente = false;
+        for (int i = 0; i < descompuesto.length(); i++) {
+            char c = descompuesto.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (espacioPendiente && resultado.length() > 0) {
+                    resultado.append(' ');
+                }
+                espacioPendiente = false;
+                resultado.append(Character.toLowerCase(c));
+            } else {
+                espacioPendiente = true;
+            }
+        }
+        return resultado.toString();
+    }
+    
+    private static boolean esAscii(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Agrega un producto al índice. Si ya estaba indexado se reemplaza.
+     * @param producto El producto
+     */
+    public void agregar(ProductoInterface producto) {
+        eliminar(producto.getId());
+        int documento = siguienteDocumento++;
+        if (documento == documentos.length) {
+            documentos = Arrays.copyOf(documentos, documentos.length * 2);
+            nombres = Arrays.copyOf(nombres, nombres.length * 2);
+        }
+        documentos[documento] = producto;
+        documentoPorId.put(producto.getId(), documento);
+        indexar(documento, producto.getNombre());
+    }
+    
+    /**
+     * Elimina un producto del índice.
+     * @param idProducto El ID del producto
+     * @return true si el producto estaba indexado
+     */
+    public boolean eliminar(String idProducto) {
+        Integer documento = documentoPorId.remove(idProducto);
+        if (documento == null) {
+            return false;
+        }
+        documentos[documento] = null;
+        nombres[documento] = null;
+        eliminados++;
+        if (eliminados >= ELIMINADOS_MINIMOS_COMPACTAR && eliminados > documentoPorId.size()) {
+            compactar();
+        }
+        return true;
+    }
+    
+    /**
+     * Busca productos cuyo nombre contenga el texto o se le parezca.
+     * Las coincidencias exactas de subcadena van primero; dentro de cada grupo se ordena
+     * por similitud, prefiriendo las que empiezan palabra y los nombres más cortos.
+     * @param texto El texto buscado
+     * @return Los productos encontrados, de más a menos relevante
+     */
+    public List<ProductoInterface> buscar(String texto) {
+        String consulta = normalizar(texto);
+        if (consulta.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Coincidencia> coincidencias = consulta.length() < 3
+            ? buscarConsultaCorta(consulta)
+            : buscarPorTrigramas(consulta);
+        coincidencias.sort(null);
+        List<ProductoInterface> resultado = new ArrayList<>(coincidencias.size());
+        for (Coincidencia coincidencia : coincidencias) {
+            resultado.add(coincidencia.producto);
+        }
+        return resultado;
+    }
+    
+    public int getTamaño() {
+        return documentoPorId.size();
+    }
+    
+    public int getNumeroTrigramas() {
+        return postings.size();
+    }
+    
+    /**
+     * Obtiene los bytes ocupados por las listas de documentos comprimidas.
+     * @return Bytes usados por las listas de trigramas y de bigramas
+     */
+    public long getBytesPostings() {
+        long total = 0;
+        for (ListaPostings lista : postings.values()) {
+            total += lista.longitud;
+        }
+        for (ListaPostings lista : bigramas.values()) {
+            total += lista.longitud;
+        }
+        return total;
+    }
+    
+    public void limpiar() {
+        postings.clear();
+        bigramas.clear();
+        documentoPorId.clear();
+        documentos = new ProductoInterface[16];
+        nombres = new String[16];
+        siguienteDocumento = 0;
+        eliminados = 0;
+    }
+    
+    private void indexar(int documento, String nombre) {
+        String normalizado = normalizar(nombre);
+        nombres[documento] = normalizado;
+        for (long trigrama : trigramas(normalizado)) {
+            postings.computeIfAbsent(trigrama, _ -> new ListaPostings()).agregar(documento);
+        }
+        String texto = " " + normalizado + " ";
+        for (int i = 0; i + 2 <= texto.length(); i++) {
+            bigramas.computeIfAbsent(bigrama(texto.charAt(i), texto.charAt(i + 1)), _ -> new ListaPostings()).agregar(documento);
+        }
+    }
+    
+    /**
+     * Mezcla las listas de los trigramas de la consulta en orden de documento, contando
+     * cuántas contienen cada uno, y verifica solo los que alcanzan el mínimo. El coste
+     * depende de la longitud de esas listas y no del número de documentos indexados.
+     */
+    private List<Coincidencia> buscarPorTrigramas(String consulta) {
+        Set<Long> trigramasConsulta = trigramas(consulta);
+        int total = trigramasConsulta.size();
+        // Una subcadena en medio de una palabra no comparte los dos trigramas de los bordes
+        int minimo = Math.max(1, Math.min(total - 2, (int) Math.ceil(total * SIMILITUD_MINIMA)));
+        
+        PriorityQueue<CursorPostings> cursores = new PriorityQueue<>(Math.max(1, total), Comparator.comparingInt(CursorPostings::getDocumento));
+        for (long trigrama : trigramasConsulta) {
+            ListaPostings lista = postings.get(trigrama);
+            if (lista != null) {
+                CursorPostings cursor = new CursorPostings(lista);
+                if (cursor.avanzar()) {
+                    cursores.add(cursor);
+                }
+            }
+        }
+        
+        List<Coincidencia> coincidencias = new ArrayList<>();
+        // Con menos listas pendientes que el mínimo ningún documento posterior puede alcanzarlo
+        while (cursores.size() >= minimo) {
+            int documento = cursores.peek().getDocumento();
+            int compartidos = 0;
+            while (!cursores.isEmpty() && cursores.peek().getDocumento() == documento) {
+                CursorPostings cursor = cursores.poll();
+                compartidos++;
+                if (cursor.avanzar()) {
+                    cursores.add(cursor);
+                }
+            }
+            if (compartidos < minimo || documentos[documento] == null) {
+                continue;
+            }
+            String nombre = nombres[documento];
+            int posicion = nombre.indexOf(consulta);
+            double similitud = (double) compartidos / total;
+            if (posicion >= 0 || similitud >= SIMILITUD_MINIMA) {
+                coincidencias.add(new Coincidencia(documentos[documento], documento, posicion, similitud, nombre));
+            }
+        }
+        return coincidencias;
+    }
+    
+    /**
+     * Las consultas de menos de tres caracteres no forman trigramas internos. Las de dos
+     * se resuelven con la lista de su bigrama; las de un carácter, con la del bigrama que
+     * forma con el espacio anterior, es decir, buscan palabras que empiecen por él.
+     */
+    private List<Coincidencia> buscarConsultaCorta(String consulta) {
+        boolean inicioPalabra = consulta.length() == 1;
+        ListaPostings lista = inicioPalabra
+            ? bigramas.get(bigrama(' ', consulta.charAt(0)))
+            : bigramas.get(bigrama(consulta.charAt(0), consulta.charAt(1)));
+        List<Coincidencia> coincidencias = new ArrayList<>();
+        if (lista == null) {
+            return coincidencias;
+        }
+        CursorPostings cursor = new CursorPostings(lista);
+        while (cursor.avanzar()) {
+            int documento = cursor.getDocumento();
+            if (documentos[documento] == null) {
+                continue;
+            }
+            String nombre = nombres[documento];
+            int posicion = !inicioPalabra || nombre.startsWith(consulta)
+                ? nombre.indexOf(consulta)
+                : nombre.indexOf(" " + consulta) + 1;
+            coincidencias.add(new Coincidencia(documentos[documento], documento, posicion, 1.0, nombre));
+        }
+        return coincidencias;
+    }
+    
+    /**
+     * Reconstruye las listas con los documentos vivos renumerados de forma consecutiva.
+     */
+    private void compactar() {
+        ProductoInterface[] vivos = new ProductoInterface[Math.max(16, documentoPorId.size() * 2)];
+        int cantidad = 0;
+        for (int documento = 0; documento < siguienteDocumento; documento++) {
+            if (documentos[documento] != null) {
+                vivos[cantidad++] = documentos[documento];
+            }
+        }
+        postings.clear();
+        bigramas.clear();
+        documentoPorId.clear();
+        documentos = vivos;
+        nombres = new String[vivos.length];
+        siguienteDocumento = cantidad;
+        eliminados = 0;
+        for (int documento = 0; documento < cantidad; documento++) {
+            documentoPorId.put(vivos[documento].getId(), documento);
+            indexar(documento, vivos[documento].getNombre());
+        }
+    }
+    
+    /**
+     * Trigramas del texto rodeado de espacios, para que los bordes de palabra cuenten
+     * y una palabra mal escrita conserve parte de sus trigramas.
+     * Cada trigrama se empaqueta en un long con 16 bits por carácter.
+     */
+    private static Set<Long> trigramas(String normalizado) {
+        Set<Long> resultado = new LinkedHashSet<>();
+        if (normalizado.isEmpty()) {
+            return resultado;
+        }
+        String texto = " " + normalizado + " ";
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            resultado.add(((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2));
+        }
+        return resultado;
+    }
+    
+    private static int bigrama(char primero, char segundo) {
+        return (primero << 16) | segundo;
+    }
+    
+    /**
+     * Lista creciente de documentos codificada como deltas en varint.
+     */
+    private static class ListaPostings {
+        private byte[] datos = new byte[4];
+        private int longitud;
+        private int ultimo = -1;
+        
+        void agregar(int documento) {
+            if (documento == ultimo) {
+                return;
+            }
+            int delta = documento - ultimo;
+            ultimo = documento;
+            if (longitud + 5 > datos.length) {
+                datos = Arrays.copyOf(datos, Math.max(datos.length * 2, longitud + 5));
+            }
+            while ((delta & ~0x7F) != 0) {
+                datos[longitud++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            datos[longitud++] = (byte) delta;
+        }
+    }
+    
+    /**
+     * Recorrido de una lista de documentos en orden creciente.
+     */
+    private static class CursorPostings {
+        private final ListaPostings lista;
+        private int posicion;
+        private int documento = -1;
+        
+        CursorPostings(ListaPostings lista) {
+            this.lista = lista;
+        }
+        
+        /**
+         * Avanza al siguiente documento de la lista.
+         * @return false si la lista se ha terminado
+         */
+        boolean avanzar() {
+            if (posicion >= lista.longitud) {
+                return false;
+            }
+            int delta = 0;
+            int desplazamiento = 0;
+            byte b;
+            do {
+                b = lista.datos[posicion++];
+                delta |= (b & 0x7F) << desplazamiento;
+                desplazamiento += 7;
+            } while ((b & 0x80) != 0);
+            documento += delta;
+            return true;
+        }
+        
+        int getDocumento() {
+            return documento;
+        }
+    }
+    
+    /**
+     * Resultado candidato con los datos usados para ordenarlo.
+     */
+    private static class Coincidencia implements Comparable<Coincidencia> {
+        private final ProductoInterface producto;
+        private final int documento;
+        private final boolean exacta;
+        private final boolean inicioPalabra;
+        private final double similitud;
+        private final int longitudNombre;
+        
+        Coincidencia(ProductoInterface producto, int documento, int posicion, double similitud, String nombre) {
+            this.producto = producto;
+            this.documento = documento;
+            this.exacta = posicion >= 0;
+            this.inicioPalabra = posicion == 0 || (posicion > 0 && nombre.charAt(posicion - 1) == ' ');
+            this.similitud = similitud;
+            this.longitudNombre = nombre.length();
+        }
+        
+        @Override
+        public int compareTo(Coincidencia otra) {
+            if (exacta != otra.exacta) {
+                return exacta ? -1 : 1;
+            }
+            if (inicioPalabra != otra.inicioPalabra) {
+                return inicioPalabra ? -1 : 1;
+            }
+            int porSimilitud = Double.compare(otra.similitud, similitud);
+            if (porSimilitud != 0) {
+                return porSimilitud;
+            }
+            int porLongitud = Integer.compare(longitudNombre, otra.longitudNombre);
+            return porLongitud != 0 ? porLongitud : Integer.compare(documento, otra.documento);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package Repositorios;
+
+import Modelos.Producto.ProductoInterface;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de resultados de una consulta paginada por clave.
+ * El token de la siguiente página identifica el último producto entregado, así que las
+ * altas y bajas concurrentes no desplazan las páginas siguientes como lo haría un desplazamiento.
+ */
+public class PaginaProductos {
+    private final List<ProductoInterface> productos;
+    private final String tokenSiguiente;
+    
+    /**
+     * @param productos Productos de la página
+     * @param tokenSiguiente Token para pedir la siguiente página, o null si es la última
+     */
+    public PaginaProductos(List<ProductoInterface> productos, String tokenSiguiente) {
+        this.productos = Collections.unmodifiableList(productos);
+        this.tokenSiguiente = tokenSiguiente;
+    }
+    
+    /**
+     * Crea una página a partir de hasta tamañoPagina + 1 candidatos en orden: si sobra uno,
+     * hay más resultados y el token apunta al último producto de la página.
+     * @param candidatos Los candidatos en el orden de la consulta
+     * @param tamañoPagina Tamaño de la página
+     * @param cursor Obtiene el cursor de un producto
+     * @return La página
+     */
+    public static PaginaProductos desdeCandidatos(List<ProductoInterface> candidatos, int tamañoPagina,
+                                                  Function<ProductoInterface, CursorPagina> cursor) {
+        // Se copia para no retener la lista de candidatos, que puede ser mayor que la página
+        if (candidatos.size() <= tamañoPagina) {
+            return new PaginaProductos(new ArrayList<>(candidatos), null);
+        }
+        List<ProductoInterface> pagina = new ArrayList<>(candidatos.subList(0, tamañoPagina));
+        return new PaginaProductos(pagina, cursor.apply(pagina.get(tamañoPagina - 1)).aToken());
+    }
+    
+    /**
+     * Comprueba que el tamaño de página pedido sea válido.
+     * @param tamañoPagina Tamaño de la página
+     */
+    public static void validarTamaño(int tamañoPagina) {
+        if (tamañoPagina <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor que cero");
+        }
+    }
+    
+    public List<ProductoInterface> getProductos() {
+        return productos;
+    }
+    
+    public String getTokenSiguiente() {
+        return tokenSiguiente;
+    }
+    
+    public boolean hayMas() {
+        return tokenSiguiente != null;
+    }
+}
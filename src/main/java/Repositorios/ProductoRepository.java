@@ -1,79 +1,401 @@
 package Repositorios;
 
+import Bitacora.Bitacora;
+import Bitacora.Registrador;
+import Excepciones.ProductoNoEncontradoExcepcion;
 import Modelos.Producto.ProductoDigital;
 import Modelos.Producto.ProductoFisico;
 import Modelos.Producto.ProductoInterface;
-import Repositorios.ProductoRepositoryInterface;
-import java.util.List;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Repositorio de productos en memoria.
+ * Además del mapa por ID mantiene un índice ordenado por precio que se actualiza
+ * en cada alta, baja y modificación, de modo que las consultas por precio exacto,
+ * por rango y los más baratos/caros no recorren el catálogo. Las búsquedas por nombre
+ * usan un índice de trigramas que tolera tildes y errores de tipeo, y las consultas por
+ * formato, peso y volumen usan los índices secundarios de IndiceAtributos.
+ * El precio, el nombre y los atributos indexados son los que tenía el producto al agregarlo o
+ * actualizarlo: los cambios deben pasar por actualizarProducto.
+ */
 public class ProductoRepository implements ProductoRepositoryInterface {
+    private static final Registrador REGISTRO = Bitacora.obtenerRegistrador(ProductoRepository.class);
+    
+    private static final long RECHAZADO = Long.MIN_VALUE;
+    
+    private final Map<String, Entrada> productos;
+    // Las mismas entradas ordenadas por ID para la paginación por clave
+    private final NavigableMap<String, Entrada> productosPorId;
+    private final IndicePrecios indicePrecios;
+    private final IndiceTrigramas indiceNombres;
+    private final IndiceAtributos indiceAtributos;
+    private final ReentrantReadWriteLock bloqueo;
+    
+    public ProductoRepository() {
+        this.productos = new HashMap<>();
+        this.productosPorId = new TreeMap<>();
+        this.indicePrecios = new IndicePrecios();
+        this.indiceNombres = new IndiceTrigramas();
+        this.indiceAtributos = new IndiceAtributos();
+        this.bloqueo = new ReentrantReadWriteLock();
+    }
+    
     @Override
     public ProductoInterface obtenerProducto(String id) {
-        // TODO: Implementar
-        return new ProductoDigital(id, "producto 1", 1234.2, 200, "jpg", null);
+        bloqueo.readLock().lock();
+        try {
+            Entrada entrada = productos.get(id);
+            return entrada != null ? entrada.producto : null;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
     }
-
+    
     @Override
     public List<ProductoInterface> obtenerProductos() {
-        // TODO: Implementar con data real conectada a la base de datos
-        
-        return new ArrayList<>(Arrays.asList(
-            new ProductoDigital("1", "producto 1", 1234.2, 200, "jpg", null),
-            new ProductoDigital("2", "producto 2", 444.2, 100, "zip", null),
-            new ProductoFisico("3", "producto 3", 1234.2, 200, 100.2, 100.2, 100.2, 100.2)
-        ));
+        bloqueo.readLock().lock();
+        try {
+            List<ProductoInterface> resultado = new ArrayList<>(productos.size());
+            for (Entrada entrada : productos.values()) {
+                resultado.add(entrada.producto);
+            }
+            return resultado;
+        } finally {
+            bloqueo.readLock().unlock();
+        }
     }
-
+    
     @Override
     public List<ProductoInterface> obtenerProductosPorPrecio(Double precio) {
-        // TODO: Implementar
-        return new ArrayList<>(Arrays.asList(
-            new ProductoDigital("1", "producto 1", 1234.2, 200, "jpg", null),
-            new ProductoDigital("2", "producto 2", 444.2, 100, "zip", null),
-            new ProductoFisico("3", "producto 3", 1234.2, 200, 100.2, 100.2, 100.2, 100.2)
-        ));
+        long centavos = IndicePrecios.aCentavos(precio);
+        bloqueo.readLock().lock();
+        try {
+            return indicePrecios.buscar(centavos);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
     }
     
+    /**
+     * Obtiene los productos con precio entre dos valores, ordenados de menor a mayor precio.
+     * @param precioMinimo Precio mínimo (incluido)
+     * @param precioMaximo Precio máximo (incluido)
+     * @return Los productos del rango
+     */
+    @Override
+    public List<ProductoInterface> obtenerProductosPorRangoPrecio(Double precioMinimo, Double precioMaximo) {
+        long minimo = IndicePrecios.aCentavos(precioMinimo);
+        long maximo = IndicePrecios.aCentavos(precioMaximo);
+        bloqueo.readLock().lock();
+        try {
+            return indicePrecios.rango(minimo, maximo);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
     
+    @Override
+    public List<ProductoInterface> obtenerProductosMasBaratos(int cantidad) {
+        bloqueo.readLock().lock();
+        try {
+            return indicePrecios.masBaratos(cantidad);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<ProductoInterface> obtenerProductosMasCaros(int cantidad) {
+        bloqueo.readLock().lock();
+        try {
+            return indicePrecios.masCaros(cantidad);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Busca productos por nombre sin distinguir mayúsculas ni tildes.
+     * Devuelve primero los que contienen el texto y después los parecidos, de más a menos relevante.
+     * @param nombre El texto buscado
+     * @return Los productos encontrados
+     */
     @Override
     public List<ProductoInterface> obtenerProductosPorNombre(String nombre) {
-        // TODO: Implementar con data real conectada a la base de datos
-        return new ArrayList<>(Arrays.asList(
-            new ProductoDigital("1", "producto 1", 1234.2, 200, "jpg", null),
-            new ProductoDigital("2", "producto 2", 444.2, 100, "zip", null),
-            new ProductoFisico("3", "producto 3", 1234.2, 200, 100.2, 100.2, 100.2, 100.2)
-        ));
+        if (nombre == null || nombre.isBlank()) {
+            return new ArrayList<>();
+        }
+        bloqueo.readLock().lock();
+        try {
+            return indiceNombres.buscar(nombre);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
     }
-
+    
+    /**
+     * Obtiene los productos digitales con un formato, sin distinguir mayúsculas.
+     * @param formato El formato
+     * @return Los productos con ese formato, en orden de inserción
+     */
+    @Override
+    public List<ProductoInterface> obtenerProductosPorFormato(String formato) {
+        bloqueo.readLock().lock();
+        try {
+            return indiceAtributos.buscarPorFormato(formato);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Obtiene los productos físicos con peso entre dos valores, ordenados de menor a mayor peso.
+     * @param pesoMinimo Peso mínimo en kg (incluido)
+     * @param pesoMaximo Peso máximo en kg (incluido)
+     * @return Los productos del rango
+     */
+    @Override
+    public List<ProductoInterface> obtenerProductosPorRangoPeso(Double pesoMinimo, Double pesoMaximo) {
+        long minimo = IndiceAtributos.aGramos(pesoMinimo);
+        long maximo = IndiceAtributos.aGramos(pesoMaximo);
+        bloqueo.readLock().lock();
+        try {
+            return indiceAtributos.rangoPeso(minimo, maximo);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Obtiene los productos físicos con volumen entre dos valores, ordenados de menor a mayor volumen.
+     * @param volumenMinimo Volumen mínimo en m³ (incluido)
+     * @param volumenMaximo Volumen máximo en m³ (incluido)
+     * @return Los productos del rango
+     */
+    @Override
+    public List<ProductoInterface> obtenerProductosPorRangoVolumen(Double volumenMinimo, Double volumenMaximo) {
+        long minimo = IndiceAtributos.aCentimetrosCubicos(volumenMinimo);
+        long maximo = IndiceAtributos.aCentimetrosCubicos(volumenMaximo);
+        bloqueo.readLock().lock();
+        try {
+            return indiceAtributos.rangoVolumen(minimo, maximo);
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Obtiene una página del catálogo ordenado por ID recorriendo solo la página pedida.
+     * @param token Token de continuación de la página anterior, o null para la primera
+     * @param tamañoPagina Número máximo de productos de la página
+     * @return La página con el token de la siguiente
+     */
+    @Override
+    public PaginaProductos obtenerPaginaProductos(String token, int tamañoPagina) {
+        PaginaProductos.validarTamaño(tamañoPagina);
+        CursorPagina cursor = CursorPagina.desdeToken(token, CursorPagina.POR_ID);
+        List<ProductoInterface> candidatos = new ArrayList<>(Math.min(tamañoPagina + 1, 1024));
+        bloqueo.readLock().lock();
+        try {
+            Collection<Entrada> siguientes = cursor == null
+                ? productosPorId.values()
+                : productosPorId.tailMap(cursor.getId(), false).values();
+            for (Entrada entrada : siguientes) {
+                if (candidatos.size() > tamañoPagina) {
+                    break;
+                }
+                candidatos.add(entrada.producto);
+            }
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+        return PaginaProductos.desdeCandidatos(candidatos, tamañoPagina, producto -> CursorPagina.porId(producto.getId()));
+    }
+    
+    /**
+     * Obtiene una página de los productos con precio en un rango, ordenados por precio y,
+     * a igual precio, por ID. Parte del precio del cursor en el índice de precios.
+     * @param precioMinimo Precio mínimo (incluido)
+     * @param precioMaximo Precio máximo (incluido)
+     * @param token Token de continuación de la página anterior, o null para la primera
+     * @param tamañoPagina Número máximo de productos de la página
+     * @return La página con el token de la siguiente
+     */
+    @Override
+    public PaginaProductos obtenerPaginaPorRangoPrecio(Double precioMinimo, Double precioMaximo, String token, int tamañoPagina) {
+        PaginaProductos.validarTamaño(tamañoPagina);
+        CursorPagina cursor = CursorPagina.desdeToken(token, CursorPagina.POR_PRECIO);
+        long minimo = IndicePrecios.aCentavos(precioMinimo);
+        long maximo = IndicePrecios.aCentavos(precioMaximo);
+        List<ProductoInterface> candidatos;
+        long centavosUltimo = 0;
+        bloqueo.readLock().lock();
+        try {
+            candidatos = cursor == null
+                ? indicePrecios.paginaRango(minimo, maximo, 0, null, tamañoPagina + 1)
+                : indicePrecios.paginaRango(minimo, maximo, cursor.getCentavos(), cursor.getId(), tamañoPagina + 1);
+            if (candidatos.size() > tamañoPagina) {
+                centavosUltimo = productos.get(candidatos.get(tamañoPagina - 1).getId()).centavos;
+            }
+        } finally {
+            bloqueo.readLock().unlock();
+        }
+        long centavosToken = centavosUltimo;
+        return PaginaProductos.desdeCandidatos(candidatos, tamañoPagina,
+                                               producto -> CursorPagina.porPrecio(centavosToken, producto.getId()));
+    }
+    
     @Override
     public void agregarProducto(ProductoDigital producto) {
-        // TODO: Implementar con data real conectada a la base de datos
-        System.out.println("Agregar producto digital: " + producto);
+        agregar(producto);
     }
-
+    
     @Override
     public void agregarProducto(ProductoFisico producto) {
-        // TODO: Implementar
-        System.out.println("Agregar producto fisico: " + producto);
+        agregar(producto);
     }
-
+    
     @Override
-    public void eliminarProducto(String id) {
-        // TODO: Implementar
-        System.out.println("Eliminar producto: " + id);
+    public void eliminarProducto(String id) throws ProductoNoEncontradoExcepcion {
+        bloqueo.writeLock().lock();
+        try {
+            Entrada entrada = productos.remove(id);
+            if (entrada == null) {
+                throw new ProductoNoEncontradoExcepcion("El producto con ID " + id + " no se encuentra en el repositorio", id);
+            }
+            productosPorId.remove(id);
+            indicePrecios.eliminar(id, entrada.centavos);
+            indiceNombres.eliminar(id);
+            indiceAtributos.eliminar(id, entrada.atributos);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        REGISTRO.depuracion("Eliminar producto: {}", id);
     }
-
+    
     @Override
-    public void actualizarProducto(ProductoDigital producto) {
-        // TODO: Implementar
-        System.out.println("Actualizar producto digital: " + producto);
+    public void actualizarProducto(ProductoDigital producto) throws ProductoNoEncontradoExcepcion {
+        actualizar(producto);
     }
-
+    
     @Override
-    public void actualizarProducto(ProductoFisico producto) {
-        // TODO: Implementar
-        System.out.println("Actualizar producto fisico: " + producto);
+    public void actualizarProducto(ProductoFisico producto) throws ProductoNoEncontradoExcepcion {
+        actualizar(producto);
+    }
+    
+    /**
+     * Agrega un lote de productos tomando el bloqueo de escritura una sola vez.
+     * @param lote Productos digitales o físicos a agregar
+     * @return Las posiciones dentro del lote de los productos nulos, sin ID, con un precio
+     *         no válido o con un ID que ya existe
+     */
+    @Override
+    public List<Integer> agregarProductos(List<? extends ProductoInterface> lote) {
+        // Las claves se calculan fuera del bloqueo; RECHAZADO marca los productos no válidos
+        long[] centavos = new long[lote.size()];
+        IndiceAtributos.Claves[] atributos = new IndiceAtributos.Claves[lote.size()];
+        for (int i = 0; i < centavos.length; i++) {
+            ProductoInterface producto = lote.get(i);
+            centavos[i] = RECHAZADO;
+            if (producto != null && producto.getId() != null && producto.getPrecio() != null
+                    && Double.isFinite(producto.getPrecio())) {
+                centavos[i] = IndicePrecios.aCentavos(producto.getPrecio());
+                atributos[i] = IndiceAtributos.claves(producto);
+            }
+        }
+        List<Integer> rechazados = new ArrayList<>();
+        bloqueo.writeLock().lock();
+        try {
+            for (int i = 0; i < centavos.length; i++) {
+                ProductoInterface producto = lote.get(i);
+                Entrada entrada = centavos[i] != RECHAZADO ? new Entrada(producto, centavos[i], atributos[i]) : null;
+                if (entrada == null || productos.putIfAbsent(producto.getId(), entrada) != null) {
+                    rechazados.add(i);
+                    continue;
+                }
+                productosPorId.put(producto.getId(), entrada);
+                indicePrecios.agregar(producto, centavos[i]);
+                indiceNombres.agregar(producto);
+                indiceAtributos.agregar(producto, atributos[i]);
+            }
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        REGISTRO.depuracion("Agregar lote de {} productos", centavos.length);
+        return rechazados;
+    }
+    
+    private void agregar(ProductoInterface producto) {
+        validarProducto(producto);
+        long centavos = IndicePrecios.aCentavos(producto.getPrecio());
+        IndiceAtributos.Claves atributos = IndiceAtributos.claves(producto);
+        bloqueo.writeLock().lock();
+        try {
+            if (productos.containsKey(producto.getId())) {
+                throw new IllegalArgumentException("Ya existe un producto con ID: " + producto.getId());
+            }
+            Entrada entrada = new Entrada(producto, centavos, atributos);
+            productos.put(producto.getId(), entrada);
+            productosPorId.put(producto.getId(), entrada);
+            indicePrecios.agregar(producto, centavos);
+            indiceNombres.agregar(producto);
+            indiceAtributos.agregar(producto, atributos);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        REGISTRO.depuracion("Agregar producto: {}", producto.getId());
+    }
+    
+    private void actualizar(ProductoInterface producto) throws ProductoNoEncontradoExcepcion {
+        validarProducto(producto);
+        long centavos = IndicePrecios.aCentavos(producto.getPrecio());
+        IndiceAtributos.Claves atributos = IndiceAtributos.claves(producto);
+        bloqueo.writeLock().lock();
+        try {
+            Entrada anterior = productos.get(producto.getId());
+            if (anterior == null) {
+                throw new ProductoNoEncontradoExcepcion(
+                    "El producto con ID " + producto.getId() + " no se encuentra en el repositorio", producto.getId());
+            }
+            indicePrecios.eliminar(producto.getId(), anterior.centavos);
+            indiceAtributos.eliminar(producto.getId(), anterior.atributos);
+            Entrada entrada = new Entrada(producto, centavos, atributos);
+            productos.put(producto.getId(), entrada);
+            productosPorId.put(producto.getId(), entrada);
+            indicePrecios.agregar(producto, centavos);
+            indiceNombres.agregar(producto);
+            indiceAtributos.agregar(producto, atributos);
+        } finally {
+            bloqueo.writeLock().unlock();
+        }
+        REGISTRO.depuracion("Actualizar producto: {}", producto.getId());
+    }
+    
+    private static void validarProducto(ProductoInterface producto) {
+        if (producto == null || producto.getId() == null) {
+            throw new IllegalArgumentException("El producto y su ID no pueden ser nulos");
+        }
+    }
+    
+    /**
+     * Producto junto con el precio y los atributos con los que está indexado.
+     */
+    private static class Entrada {
+        private final ProductoInterface producto;
+        private final long centavos;
+        private final IndiceAtributos.Claves atributos;
+        
+        Entrada(ProductoInterface producto, long centavos, IndiceAtributos.Claves atributos) {
+            this.producto = producto;
+            this.centavos = centavos;
+            this.atributos = atributos;
+        }
     }
 }
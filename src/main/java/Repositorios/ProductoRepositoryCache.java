@@ -0,0 +1,393 @@
+package Repositorios;
+
+import Excepciones.ProductoNoEncontradoExcepcion;
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoFisico;
+import Modelos.Producto.ProductoInterface;
+import Observer.NotificationManager;
+import Observer.TipoEvento;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Decorador de ProductoRepositoryInterface que guarda en caché las lecturas.
+ * Los productos por ID y los resultados de las consultas de listas se guardan en dos cachés
+ * W-TinyLFU independientes. Las entradas se invalidan con los eventos del NotificationManager:
+ * PRODUCTO_ELIMINADO y STOCK_ACTUALIZADO quitan el producto y solo las consultas que lo
+ * contienen, porque no pueden añadirlo a otros resultados; PRODUCTO_AGREGADO y
+ * PRODUCTO_ACTUALIZADO quitan el producto y todas las consultas.
+ * Las escrituras hechas a través del decorador invalidan la caché antes de publicar su evento,
+ * de modo que se leen los propios cambios aunque las notificaciones estén desactivadas.
+ * La caché guarda y devuelve copias de los productos mutables: modificar un producto leído no
+ * altera la caché, y los cambios deben pasar por actualizarProducto como en el repositorio decorado.
+ * Debe cerrarse para dejar de observar los eventos.
+ */
+public class ProductoRepositoryCache implements ProductoRepositoryInterface, AutoCloseable {
+    private static final int CAPACIDAD_PRODUCTOS_POR_DEFECTO = 10_000;
+    private static final int CAPACIDAD_CONSULTAS_POR_DEFECTO = 256;
+    
+    private final ProductoRepositoryInterface repositorio;
+    private final CacheTinyLfu<String, ProductoInterface> productos;
+    private final CacheTinyLfu<String, List<ProductoInterface>> consultas;
+    private final Consumer<Object> alCambiarProducto;
+    private final Consumer<Object> alCambiarCatalogo;
+    // Se incrementa en cada invalidación para no guardar lecturas hechas antes de ella
+    private long generacion;
+    
+    public ProductoRepositoryCache(ProductoRepositoryInterface repositorio) {
+        this(repositorio, CAPACIDAD_PRODUCTOS_POR_DEFECTO, CAPACIDAD_CONSULTAS_POR_DEFECTO);
+    }
+    
+    /**
+     * @param repositorio Repositorio decorado
+     * @param capacidadProductos Número máximo de productos en caché
+     * @param capacidadConsultas Número máximo de resultados de consultas en caché
+     */
+    public ProductoRepositoryCache(ProductoRepositoryInterface repositorio, int capacidadProductos, int capacidadConsultas) {
+        if (repositorio == null) {
+            throw new IllegalArgumentException("El repositorio decorado no puede ser nulo");
+        }
+        this.repositorio = repositorio;
+        this.productos = new CacheTinyLfu<>(capacidadProductos);
+        this.consultas = new CacheTinyLfu<>(capacidadConsultas);
+        this.alCambiarProducto = this::invalidarProducto;
+        this.alCambiarCatalogo = this::invalidarCatalogo;
+        
+        NotificationManager notificador = NotificationManager.getInstancia();
+        notificador.registrarObserver(TipoEvento.PRODUCTO_ELIMINADO, alCambiarProducto);
+        notificador.registrarObserver(TipoEvento.STOCK_ACTUALIZADO, alCambiarProducto);
+        notificador.registrarObserver(TipoEvento.PRODUCTO_AGREGADO, alCambiarCatalogo);
+        notificador.registrarObserver(TipoEvento.PRODUCTO_ACTUALIZADO, alCambiarCatalogo);
+    }
+    
+    @Override
+    public ProductoInterface obtenerProducto(String id) {
+        if (id == null) {
+            return null;
+        }
+        ProductoInterface producto = productos.obtener(id);
+        if (producto != null) {
+            return copiar(producto);
+        }
+        long generacionLectura = getGeneracion();
+        producto = repositorio.obtenerProducto(id);
+        if (producto != null) {
+            ProductoInterface copia = copiar(producto);
+            synchronized (this) {
+                if (generacion == generacionLectura) {
+                    productos.guardar(id, copia);
+                }
+            }
+        }
+        return producto;
+    }
+    
+    @Override
+    public List<ProductoInterface> obtenerProductos() {
+        return consultar("todos", repositorio::obtenerProductos);
+    }
+    
+    @Override
+    public List<ProductoInterface> obtenerProductosPorPrecio(Double precio) {
+        return consultar("precio:" + precio, () -> repositorio.obtenerProductosPorPrecio(precio));
+    }
+    
+    @Override
+    public List<ProductoInterface> obtenerProductosPorRangoPrecio(Double precioMinimo, Double precioMaximo) {
+        return consultar("rango:" + precioMinimo + ":" + precioMaximo,
+                         () -> repositorio.obtenerProductosPorRangoPrecio(precioMinimo, precioMaximo));
+    }
+    
+    @Override
+    public List<ProductoInterface> obtenerProductosMasBaratos(int cantidad) {
+        return consultar("baratos:" + cantidad, () -> repositorio.obtenerProductosMasBaratos(cantidad));
+    }
+    
+    @Override
+    public List<ProductoInterface> obtenerProductosMasCaros(int cantidad) {
+        return consultar("caros:" + cantidad, () -> repositorio.obtenerProductosMasCaros(cantidad));
+    }
+    
+    @Override
+    public List<ProductoInterface> obtenerProductosPorNombre(String nombre) {
+        return consultar("nombre:" + nombre, () -> repositorio.obtenerProductosPorNombre(nombre));
+    }
+    
+    @Override
+    public List<ProductoInterface> obtenerProductosPorFormato(String formato) {
+        return consultar("formato:" + IndiceAtributos.claveFormato(formato), () -> repositorio.obtenerProductosPorFormato(formato));
+    }
+    
+    @Override
+    public List<ProductoInterface> obtenerProductosPorRangoPeso(Double pesoMinimo, Double pesoMaximo) {
+        return consultar("peso:" + pesoMinimo + ":" + pesoMaximo,
+                         () -> repositorio.obtenerProductosPorRangoPeso(pesoMinimo, pesoMaximo));
+    }
+    
+    @Override
+    public List<ProductoInterface> obtenerProductosPorRangoVolumen(Double volumenMinimo, Double volumenMaximo) {
+        return consultar("volumen:" + volumenMinimo + ":" + volumenMaximo,
+                         () -> repositorio.obtenerProductosPorRangoVolumen(volumenMinimo, volumenMaximo));
+    }
+    
+    /**
+     * Las páginas no se guardan en caché: cada token se usa normalmente una sola vez.
+     */
+    @Override
+    public PaginaProductos obtenerPaginaProductos(String token, int tamañoPagina) {
+        return repositorio.obtenerPaginaProductos(token, tamañoPagina);
+    }
+    
+    @Override
+    public PaginaProductos obtenerPaginaPorRangoPrecio(Double precioMinimo, Double precioMaximo, String token, int tamañoPagina) {
+        return repositorio.obtenerPaginaPorRangoPrecio(precioMinimo, precioMaximo, token, tamañoPagina);
+    }
+    
+    @Override
+    public Stream<ProductoInterface> recorrerProductos() {
+        return repositorio.recorrerProductos();
+    }
+    
+    @Override
+    public void agregarProducto(ProductoDigital producto) {
+        repositorio.agregarProducto(producto);
+        publicar(TipoEvento.PRODUCTO_AGREGADO, producto.getId());
+    }
+    
+    @Override
+    public void agregarProducto(ProductoFisico producto) {
+        repositorio.agregarProducto(producto);
+        publicar(TipoEvento.PRODUCTO_AGREGADO, producto.getId());
+    }
+    
+    /**
+     * Agrega el lote en el repositorio decorado y publica un único PRODUCTO_AGREGADO cuyos
+     * datos son la lista de IDs aceptados, para que los observadores invaliden una sola vez.
+     */
+    @Override
+    public List<Integer> agregarProductos(List<? extends ProductoInterface> lote) {
+        List<Integer> rechazados = repositorio.agregarProductos(lote);
+        if (rechazados.size() == lote.size()) {
+            return rechazados;
+        }
+        List<String> aceptados = new ArrayList<>(lote.size() - rechazados.size());
+        int siguienteRechazado = 0;
+        for (int i = 0; i < lote.size(); i++) {
+            if (siguienteRechazado < rechazados.size() && rechazados.get(siguienteRechazado) == i) {
+                siguienteRechazado++;
+            } else {
+                aceptados.add(lote.get(i).getId());
+            }
+        }
+        List<String> ids = List.copyOf(aceptados);
+        invalidarCatalogo(ids);
+        NotificationManager.getInstancia().notificarEvento(TipoEvento.PRODUCTO_AGREGADO, ids);
+        return rechazados;
+    }
+    
+    @Override
+    public void eliminarProducto(String id) throws ProductoNoEncontradoExcepcion {
+        repositorio.eliminarProducto(id);
+        publicar(TipoEvento.PRODUCTO_ELIMINADO, id);
+    }
+    
+    @Override
+    public void actualizarProducto(ProductoDigital producto) throws ProductoNoEncontradoExcepcion {
+        repositorio.actualizarProducto(producto);
+        publicar(TipoEvento.PRODUCTO_ACTUALIZADO, producto.getId());
+    }
+    
+    @Override
+    public void actualizarProducto(ProductoFisico producto) throws ProductoNoEncontradoExcepcion {
+        repositorio.actualizarProducto(producto);
+        publicar(TipoEvento.PRODUCTO_ACTUALIZADO, producto.getId());
+    }
+    
+    /**
+     * Vacía ambas cachés.
+     */
+    public void invalidarTodo() {
+        synchronized (this) {
+            generacion++;
+        }
+        productos.invalidarTodo();
+        consultas.invalidarTodo();
+    }
+    
+    public long getAciertos() {
+        return productos.getAciertos() + consultas.getAciertos();
+    }
+    
+    public long getFallos() {
+        return productos.getFallos() + consultas.getFallos();
+    }
+    
+    public long getDesalojos() {
+        return productos.getDesalojos() + consultas.getDesalojos();
+    }
+    
+    public long getInvalidaciones() {
+        return productos.getInvalidaciones() + consultas.getInvalidaciones();
+    }
+    
+    /**
+     * Obtiene la proporción de lecturas servidas desde la caché.
+     * @return Tasa de aciertos entre 0 y 1
+     */
+    public double getTasaAciertos() {
+        long aciertos = getAciertos();
+        long total = aciertos + getFallos();
+        return total == 0 ? 0.0 : (double) aciertos / total;
+    }
+    
+    public int getProductosEnCache() {
+        return productos.getTamaño();
+    }
+    
+    public int getConsultasEnCache() {
+        return consultas.getTamaño();
+    }
+    
+    /**
+     * Obtiene un resumen de las estadísticas para dimensionar la caché.
+     * @return String con aciertos, fallos, desalojos e invalidaciones
+     */
+    public String obtenerEstadisticas() {
+        return String.format("Caché de productos - Aciertos: %d - Fallos: %d - Tasa: %.1f%% - Desalojos: %d - Invalidaciones: %d"
+                             + " - Productos: %d - Consultas: %d",
+                             getAciertos(), getFallos(), getTasaAciertos() * 100, getDesalojos(), getInvalidaciones(),
+                             getProductosEnCache(), getConsultasEnCache());
+    }
+    
+    /**
+     * Deja de observar los eventos del NotificationManager.
+     */
+    @Override
+    public void close() {
+        NotificationManager notificador = NotificationManager.getInstancia();
+        notificador.desregistrarObserver(TipoEvento.PRODUCTO_ELIMINADO, alCambiarProducto);
+        notificador.desregistrarObserver(TipoEvento.STOCK_ACTUALIZADO, alCambiarProducto);
+        notificador.desregistrarObserver(TipoEvento.PRODUCTO_AGREGADO, alCambiarCatalogo);
+        notificador.desregistrarObserver(TipoEvento.PRODUCTO_ACTUALIZADO, alCambiarCatalogo);
+    }
+    
+    private List<ProductoInterface> consultar(String clave, Supplier<List<ProductoInterface>> consulta) {
+        List<ProductoInterface> resultado = consultas.obtener(clave);
+        if (resultado == null) {
+            long generacionLectura = getGeneracion();
+            // Se guarda una copia: los productos devueltos son los del repositorio decorado
+            resultado = consulta.get();
+            List<ProductoInterface> copia = List.copyOf(copiar(resultado));
+            synchronized (this) {
+                if (generacion == generacionLectura) {
+                    consultas.guardar(clave, copia);
+                }
+            }
+            return resultado;
+        }
+        // Los llamadores reciben una lista y unos productos propios
+        return copiar(resultado);
+    }
+    
+    private void publicar(TipoEvento evento, String idProducto) {
+        if (evento == TipoEvento.PRODUCTO_ELIMINADO) {
+            invalidarProducto(idProducto);
+        } else {
+            invalidarCatalogo(idProducto);
+        }
+        NotificationManager.getInstancia().notificarEvento(evento, idProducto);
+    }
+    
+    /**
+     * Quita un producto y las consultas que lo contienen.
+     * Si el evento no indica el producto se vacía toda la caché.
+     */
+    private void invalidarProducto(Object datos) {
+        String id = idEnEvento(datos);
+        if (id == null) {
+            invalidarTodo();
+            return;
+        }
+        synchronized (this) {
+            generacion++;
+        }
+        productos.invalidar(id);
+        consultas.invalidarSi((_, resultado) -> contiene(resultado, id));
+    }
+    
+    /**
+     * Quita un producto, o los de un lote de IDs, y todas las consultas, ya que su alta o sus
+     * nuevos datos pueden cambiar cualquier resultado.
+     */
+    private void invalidarCatalogo(Object datos) {
+        synchronized (this) {
+            generacion++;
+        }
+        if (datos instanceof Collection<?> lote) {
+            for (Object elemento : lote) {
+                String id = idEnEvento(elemento);
+                if (id != null) {
+                    productos.invalidar(id);
+                }
+            }
+        } else {
+            String id = idEnEvento(datos);
+            if (id != null) {
+                productos.invalidar(id);
+            } else {
+                productos.invalidarTodo();
+            }
+        }
+        consultas.invalidarTodo();
+    }
+    
+    private synchronized long getGeneracion() {
+        return generacion;
+    }
+    
+    private static String idEnEvento(Object datos) {
+        if (datos instanceof String id) {
+            return id;
+        }
+        if (datos instanceof ProductoInterface producto) {
+            return producto.getId();
+        }
+        return null;
+    }
+    
+    /**
+     * Copia un producto digital o físico; otras implementaciones se devuelven tal cual.
+     */
+    private static ProductoInterface copiar(ProductoInterface producto) {
+        if (producto instanceof ProductoDigital digital) {
+            return new ProductoDigital(digital.getId(), digital.getNombre(), digital.getPrecio(), digital.getCantidad(),
+                                       digital.getFormato(), digital.getUrl());
+        }
+        if (producto instanceof ProductoFisico fisico) {
+            return new ProductoFisico(fisico.getId(), fisico.getNombre(), fisico.getPrecio(), fisico.getCantidad(),
+                                      fisico.getPeso(), fisico.getAltura(), fisico.getAncho(), fisico.getProfundidad());
+        }
+        return producto;
+    }
+    
+    private static List<ProductoInterface> copiar(List<ProductoInterface> productos) {
+        List<ProductoInterface> copia = new ArrayList<>(productos.size());
+        for (ProductoInterface producto : productos) {
+            copia.add(copiar(producto));
+        }
+        return copia;
+    }
+    
+    private static boolean contiene(List<ProductoInterface> resultado, String id) {
+        for (ProductoInterface producto : resultado) {
+            if (id.equals(producto.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
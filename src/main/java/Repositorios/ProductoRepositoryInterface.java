@@ -1,18 +1,169 @@
 package Repositorios;
 
+import Excepciones.ProductoNoEncontradoExcepcion;
 import Modelos.Producto.ProductoDigital;
 import Modelos.Producto.ProductoFisico;
 import Modelos.Producto.ProductoInterface;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface ProductoRepositoryInterface {
     ProductoInterface obtenerProducto(String id);
     List<ProductoInterface> obtenerProductos();
     List<ProductoInterface> obtenerProductosPorPrecio(Double precio);
+    List<ProductoInterface> obtenerProductosPorRangoPrecio(Double precioMinimo, Double precioMaximo);
+    List<ProductoInterface> obtenerProductosMasBaratos(int cantidad);
+    List<ProductoInterface> obtenerProductosMasCaros(int cantidad);
     List<ProductoInterface> obtenerProductosPorNombre(String nombre);
     void agregarProducto(ProductoDigital producto);
     void agregarProducto(ProductoFisico producto);
-    void eliminarProducto(String id);
-    void actualizarProducto(ProductoDigital producto);
-    void actualizarProducto(ProductoFisico producto);
+    void eliminarProducto(String id) throws ProductoNoEncontradoExcepcion;
+    void actualizarProducto(ProductoDigital producto) throws ProductoNoEncontradoExcepcion;
+    void actualizarProducto(ProductoFisico producto) throws ProductoNoEncontradoExcepcion;
+    
+    /**
+     * Agrega un lote de productos. Los productos rechazados (por ejemplo, por tener un ID
+     * que ya existe) se omiten sin interrumpir el resto del lote.
+     * @param productos Productos digitales o físicos a agregar
+     * @return Las posiciones dentro del lote de los productos rechazados
+     */
+    default List<Integer> agregarProductos(List<? extends ProductoInterface> productos) {
+        List<Integer> rechazados = new ArrayList<>();
+        for (int i = 0; i < productos.size(); i++) {
+            ProductoInterface producto = productos.get(i);
+            try {
+                if (producto instanceof ProductoDigital digital) {
+                    agregarProducto(digital);
+                } else if (producto instanceof ProductoFisico fisico) {
+                    agregarProducto(fisico);
+                } else {
+                    rechazados.add(i);
+                }
+            } catch (IllegalArgumentException e) {
+                rechazados.add(i);
+            }
+        }
+        return rechazados;
+    }
+    
+    /**
+     * Obtiene los productos digitales con un formato, sin distinguir mayúsculas.
+     * La implementación por defecto recorre el catálogo; los repositorios con
+     * índices secundarios deberían sobrescribirla.
+     * @param formato El formato
+     * @return Los productos con ese formato
+     */
+    default List<ProductoInterface> obtenerProductosPorFormato(String formato) {
+        String clave = IndiceAtributos.claveFormato(formato);
+        List<ProductoInterface> resultado = new ArrayList<>();
+        if (clave == null) {
+            return resultado;
+        }
+        for (ProductoInterface producto : obtenerProductos()) {
+            if (producto instanceof ProductoDigital digital && clave.equals(IndiceAtributos.claveFormato(digital.getFormato()))) {
+                resultado.add(producto);
+            }
+        }
+        return resultado;
+    }
+    
+    /**
+     * Obtiene los productos físicos con peso entre dos valores, ordenados de menor a mayor peso.
+     * La implementación por defecto recorre el catálogo.
+     * @param pesoMinimo Peso mínimo en kg (incluido)
+     * @param pesoMaximo Peso máximo en kg (incluido)
+     * @return Los productos del rango
+     */
+    default List<ProductoInterface> obtenerProductosPorRangoPeso(Double pesoMinimo, Double pesoMaximo) {
+        long minimo = IndiceAtributos.aGramos(pesoMinimo);
+        long maximo = IndiceAtributos.aGramos(pesoMaximo);
+        List<ProductoInterface> resultado = new ArrayList<>();
+        for (ProductoInterface producto : obtenerProductos()) {
+            long gramos = IndiceAtributos.claves(producto).getGramos();
+            if (gramos != IndiceAtributos.SIN_VALOR && gramos >= minimo && gramos <= maximo) {
+                resultado.add(producto);
+            }
+        }
+        resultado.sort(Comparator.comparingLong(producto -> IndiceAtributos.claves(producto).getGramos()));
+        return resultado;
+    }
+    
+    /**
+     * Obtiene los productos físicos con volumen entre dos valores, ordenados de menor a mayor volumen.
+     * La implementación por defecto recorre el catálogo.
+     * @param volumenMinimo Volumen mínimo en m³ (incluido)
+     * @param volumenMaximo Volumen máximo en m³ (incluido)
+     * @return Los productos del rango
+     */
+    default List<ProductoInterface> obtenerProductosPorRangoVolumen(Double volumenMinimo, Double volumenMaximo) {
+        long minimo = IndiceAtributos.aCentimetrosCubicos(volumenMinimo);
+        long maximo = IndiceAtributos.aCentimetrosCubicos(volumenMaximo);
+        List<ProductoInterface> resultado = new ArrayList<>();
+        for (ProductoInterface producto : obtenerProductos()) {
+            long volumen = IndiceAtributos.claves(producto).getCentimetrosCubicos();
+            if (volumen != IndiceAtributos.SIN_VALOR && volumen >= minimo && volumen <= maximo) {
+                resultado.add(producto);
+            }
+        }
+        resultado.sort(Comparator.comparingLong(producto -> IndiceAtributos.claves(producto).getCentimetrosCubicos()));
+        return resultado;
+    }
+    
+    /**
+     * Obtiene una página del catálogo ordenado por ID.
+     * No tiene implementación por defecto: sin un orden por ID propio habría que ordenar el
+     * catálogo completo en cada página.
+     * @param token Token de continuación de la página anterior, o null para la primera
+     * @param tamañoPagina Número máximo de productos de la página
+     * @return La página con el token de la siguiente
+     */
+    PaginaProductos obtenerPaginaProductos(String token, int tamañoPagina);
+    
+    /**
+     * Obtiene una página de los productos con precio en un rango, ordenados por precio y,
+     * a igual precio, por ID.
+     * La implementación por defecto consulta y ordena el rango completo en cada llamada, así
+     * que recorrer un rango por páginas cuesta O(n log n) por página; los repositorios con un
+     * índice por precio deberían sobrescribirla.
+     * @param precioMinimo Precio mínimo (incluido)
+     * @param precioMaximo Precio máximo (incluido)
+     * @param token Token de continuación de la página anterior, o null para la primera
+     * @param tamañoPagina Número máximo de productos de la página
+     * @return La página con el token de la siguiente
+     */
+    default PaginaProductos obtenerPaginaPorRangoPrecio(Double precioMinimo, Double precioMaximo, String token, int tamañoPagina) {
+        PaginaProductos.validarTamaño(tamañoPagina);
+        CursorPagina cursor = CursorPagina.desdeToken(token, CursorPagina.POR_PRECIO);
+        Comparator<ProductoInterface> orden = Comparator
+            .comparingLong((ProductoInterface producto) -> IndicePrecios.aCentavos(producto.getPrecio()))
+            .thenComparing(ProductoInterface::getId);
+        List<ProductoInterface> candidatos = new ArrayList<>();
+        for (ProductoInterface producto : obtenerProductosPorRangoPrecio(precioMinimo, precioMaximo)) {
+            long centavos = IndicePrecios.aCentavos(producto.getPrecio());
+            if (cursor == null || centavos > cursor.getCentavos()
+                || (centavos == cursor.getCentavos() && producto.getId().compareTo(cursor.getId()) > 0)) {
+                candidatos.add(producto);
+            }
+        }
+        candidatos.sort(orden);
+        return PaginaProductos.desdeCandidatos(candidatos.subList(0, Math.min(candidatos.size(), tamañoPagina + 1)), tamañoPagina,
+            producto -> CursorPagina.porPrecio(IndicePrecios.aCentavos(producto.getPrecio()), producto.getId()));
+    }
+    
+    /**
+     * Recorre el catálogo de forma perezosa, en orden de ID y pidiendo una página cada vez,
+     * para procesarlo sin cargarlo completo en memoria. Los cambios concurrentes se ven o no
+     * según la página en la que caigan, pero ningún producto se entrega dos veces.
+     * @return Stream secuencial de los productos
+     */
+    default Stream<ProductoInterface> recorrerProductos() {
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(new RecorridoPaginado(this), Spliterator.ORDERED | Spliterator.NONNULL),
+            false);
+    }
 }
@@ -0,0 +1,42 @@
+package Repositorios;
+
+import Modelos.Producto.ProductoInterface;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterador que recorre el catálogo pidiendo al repositorio una página por ID cada vez,
+ * de modo que solo hay una página en memoria.
+ */
+class RecorridoPaginado implements Iterator<ProductoInterface> {
+    static final int TAMAÑO_PAGINA = 1000;
+    
+    private final ProductoRepositoryInterface repositorio;
+    private Iterator<ProductoInterface> paginaActual = Collections.emptyIterator();
+    private String tokenSiguiente;
+    private boolean ultimaPagina;
+    
+    RecorridoPaginado(ProductoRepositoryInterface repositorio) {
+        this.repositorio = repositorio;
+    }
+    
+    @Override
+    public boolean hasNext() {
+        while (!paginaActual.hasNext() && !ultimaPagina) {
+            PaginaProductos pagina = repositorio.obtenerPaginaProductos(tokenSiguiente, TAMAÑO_PAGINA);
+            paginaActual = pagina.getProductos().iterator();
+            tokenSiguiente = pagina.getTokenSiguiente();
+            ultimaPagina = !pagina.hayMas();
+        }
+        return paginaActual.hasNext();
+    }
+    
+    @Override
+    public ProductoInterface next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return paginaActual.next();
+    }
+}
@@ -0,0 +1,101 @@
+package Bitacora;
+
+import Modelos.Inventario.GestorInventarioFisico;
+import Modelos.Producto.ProductoFisico;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Medición del coste de registrar mensajes en el camino de actualizarStock: sin registro,
+ * con un println síncrono en el hilo que actualiza (como antes de la bitácora) y con la
+ * bitácora asíncrona. Varios hilos actualizan el stock de productos propios a la vez.
+ * No forma parte de las pruebas; se ejecuta a mano tras compilar las pruebas, con la salida
+ * estándar redirigida para que la consola no domine la medición (los resultados van a la
+ * salida de errores):
+ * {@code java -cp target/classes:target/test-classes Bitacora.BitacoraBenchmark [hilos] [llamadas] > /tmp/bitacora.log}
+ */
+public class BitacoraBenchmark {
+    private static final int RONDAS = 5;
+    private static final int PRODUCTOS_POR_HILO = 100;
+
+    public static void main(String[] args) throws Exception {
+        int hilos = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int llamadas = args.length > 1 ? Integer.parseInt(args[1]) : 800_000;
+        int llamadasPorHilo = llamadas / hilos;
+        GestorInventarioFisico gestor = new GestorInventarioFisico("Benchmark", "Local", 1e9, 1e9);
+
+        Bitacora.setNivel(NivelRegistro.DESACTIVADO);
+        for (int hilo = 0; hilo < hilos; hilo++) {
+            for (int i = 0; i < PRODUCTOS_POR_HILO; i++) {
+                gestor.añadirProducto(new ProductoFisico(id(hilo, i), "Producto " + hilo + "-" + i, 10.0, 1,
+                                                         1.0, 0.1, 0.1, 0.1));
+            }
+        }
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            for (int ronda = 1; ronda <= RONDAS; ronda++) {
+                Bitacora.setNivel(NivelRegistro.DESACTIVADO);
+                long sinRegistro = actualizar(ejecutor, gestor, hilos, llamadasPorHilo, false);
+
+                long println = actualizar(ejecutor, gestor, hilos, llamadasPorHilo, true);
+
+                Bitacora.setNivel(NivelRegistro.INFO);
+                long descartadosAntes = Bitacora.getMensajesDescartados();
+                long inicio = System.nanoTime();
+                long bitacora = actualizar(ejecutor, gestor, hilos, llamadasPorHilo, false);
+                Bitacora.vaciar();
+                long bitacoraVaciada = System.nanoTime() - inicio;
+                long descartados = Bitacora.getMensajesDescartados() - descartadosAntes;
+
+                System.err.printf("Ronda %d (%d hilos, %d llamadas): sin registro %s | println %s | bitácora %s, %s hasta vaciar, %d descartados%n",
+                                  ronda, hilos, llamadasPorHilo * hilos, duracion(sinRegistro), duracion(println),
+                                  duracion(bitacora), duracion(bitacoraVaciada), descartados);
+            }
+        } finally {
+            ejecutor.shutdownNow();
+            Bitacora.setNivel(NivelRegistro.INFO);
+        }
+    }
+
+    /**
+     * Lanza las actualizaciones en todos los hilos y espera a que terminen.
+     * @param imprimir true para escribir además con println en el hilo que actualiza
+     * @return Nanosegundos hasta que terminó el último hilo
+     */
+    private static long actualizar(ExecutorService ejecutor, GestorInventarioFisico gestor, int hilos,
+                                   int llamadasPorHilo, boolean imprimir) throws Exception {
+        List<Future<?>> tareas = new ArrayList<>(hilos);
+        long inicio = System.nanoTime();
+        for (int hilo = 0; hilo < hilos; hilo++) {
+            int propio = hilo;
+            tareas.add(ejecutor.submit(() -> {
+                for (int i = 0; i < llamadasPorHilo; i++) {
+                    String id = id(propio, i % PRODUCTOS_POR_HILO);
+                    int cantidad = 1 + i % 50;
+                    gestor.actualizarStock(id, cantidad);
+                    if (imprimir) {
+                        System.out.println("Stock actualizado para producto físico " + id + " a: " + cantidad + " unidades");
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private static String id(int hilo, int producto) {
+        return "FIS" + hilo + "-" + producto;
+    }
+
+    private static String duracion(long nanos) {
+        return String.format("%.0f ms", nanos / 1_000_000.0);
+    }
+}
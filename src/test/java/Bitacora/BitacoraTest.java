@@ -0,0 +1,152 @@
+package Bitacora;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pruebas unitarias para la bitácora asíncrona.
+ * Cubre el formateo diferido, los niveles y la publicación desde varios hilos.
+ */
+@DisplayName("Pruebas para la clase Bitacora")
+class BitacoraTest {
+
+    private final List<EventoRegistro> eventos = new ArrayList<>();
+    private final Registrador registro = Bitacora.obtenerRegistrador(BitacoraTest.class);
+    
+    @BeforeEach
+    void setUp() {
+        Bitacora.setDestino(eventos::add);
+        Bitacora.setNivel(NivelRegistro.INFO);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        Bitacora.setDestino(new DestinoConsola());
+        Bitacora.setNivel(NivelRegistro.INFO);
+    }
+    
+    private List<String> mensajes() {
+        Bitacora.vaciar();
+        List<String> mensajes = new ArrayList<>();
+        for (EventoRegistro evento : eventos) {
+            mensajes.add(evento.getMensaje());
+        }
+        return mensajes;
+    }
+    
+    @Nested
+    @DisplayName("Formateo y niveles")
+    class FormateoNiveles {
+    
+        @Test
+        @DisplayName("Debería sustituir los marcadores en el hilo escritor conservando el orden")
+        void testFormatearMensajes() {
+            registro.info("Stock actualizado para producto físico {} a: {} unidades", "Laptop", 7);
+            registro.info("Sin argumentos");
+            registro.info("Sobran {} marcadores {}", "uno");
+            registro.info("{} - {} - {} - {}", 1, 2, 3, 4);
+            
+            assertThat(mensajes()).containsExactly(
+                "Stock actualizado para producto físico Laptop a: 7 unidades",
+                "Sin argumentos",
+                "Sobran uno marcadores {}",
+                "1 - 2 - 3 - 4"
+            );
+            assertThat(eventos.get(0).getOrigen()).isEqualTo("BitacoraTest");
+            assertThat(eventos.get(0).getNivel()).isEqualTo(NivelRegistro.INFO);
+            assertThat(eventos.get(0).getHilo()).isEqualTo(Thread.currentThread().getName());
+        }
+        
+        @Test
+        @DisplayName("No debería publicar ni formatear mensajes de niveles desactivados")
+        void testNivelesDesactivados() {
+            AtomicInteger evaluaciones = new AtomicInteger();
+            Bitacora.setNivel(NivelRegistro.ADVERTENCIA);
+            
+            registro.info("Oculto {}", "info");
+            registro.depuracion(() -> "Oculto " + evaluaciones.incrementAndGet());
+            registro.advertencia("Visible {}", "advertencia");
+            registro.error("Fallo", new IllegalStateException("detalle"));
+            
+            assertThat(mensajes()).containsExactly("Visible advertencia", "Fallo");
+            assertThat(evaluaciones.get()).isZero();
+            assertThat(eventos.get(1).getError()).hasMessage("detalle");
+            
+            Bitacora.setNivel(NivelRegistro.DESACTIVADO);
+            registro.error("Tampoco");
+            assertThat(mensajes()).hasSize(2);
+            assertThat(registro.estaHabilitado(NivelRegistro.ERROR)).isFalse();
+        }
+        
+        @Test
+        @DisplayName("Debería seguir escribiendo aunque el destino falle con un mensaje")
+        void testDestinoConFallo() {
+            List<String> recibidos = new ArrayList<>();
+            Bitacora.setDestino(evento -> {
+                if (evento.getMensaje().contains("malo")) {
+                    throw new IllegalStateException("destino roto");
+                }
+                recibidos.add(evento.getMensaje());
+            });
+            
+            registro.info("bueno 1");
+            registro.info("malo");
+            registro.info("bueno 2");
+            Bitacora.vaciar();
+            
+            assertThat(recibidos).containsExactly("bueno 1", "bueno 2");
+        }
+    }
+    
+    @Nested
+    @DisplayName("Publicación concurrente")
+    class PublicacionConcurrente {
+    
+        @Test
+        @DisplayName("Debería entregar los mensajes de cada hilo en orden y sin pérdidas")
+        void testVariosProductores() throws Exception {
+            Map<String, List<Integer>> porHilo = new ConcurrentHashMap<>();
+            Bitacora.setDestino(evento -> porHilo.computeIfAbsent(evento.getHilo(), _ -> new ArrayList<>())
+                .add(Integer.parseInt(evento.getMensaje())));
+            long descartadosAntes = Bitacora.getMensajesDescartados();
+            
+            ExecutorService ejecutor = Executors.newFixedThreadPool(4);
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int hilo = 0; hilo < 4; hilo++) {
+                tareas.add(ejecutor.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        registro.info("{}", i);
+                        if (i % 500 == 0) {
+                            // Dar tiempo al escritor para no llenar el anillo
+                            Bitacora.vaciar();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+            ejecutor.shutdown();
+            Bitacora.vaciar();
+            
+            assertThat(Bitacora.getMensajesDescartados()).isEqualTo(descartadosAntes);
+            assertThat(porHilo).hasSize(4);
+            for (List<Integer> secuencia : porHilo.values()) {
+                assertThat(secuencia).hasSize(2_000).isSorted();
+            }
+        }
+    }
+}
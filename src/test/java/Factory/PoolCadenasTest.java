@@ -0,0 +1,79 @@
+package Factory;
+
+import Configuracion.ConfiguracionSistema;
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoFisico;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para la clase PoolCadenas y su uso desde FabricaEntidades.
+ * Cubre el internamiento de cadenas, sus estadísticas y el prefijo compartido de las URLs.
+ */
+@DisplayName("Pruebas para la clase PoolCadenas")
+class PoolCadenasTest {
+
+    private PoolCadenas pool;
+    private String cdnAnterior;
+    
+    @BeforeEach
+    void setUp() {
+        pool = new PoolCadenas();
+        cdnAnterior = ConfiguracionSistema.getInstancia().getCdnURL();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        ConfiguracionSistema.getInstancia().setCdnURL(cdnAnterior);
+    }
+    
+    @Nested
+    @DisplayName("Internamiento")
+    class Internamiento {
+    
+        @Test
+        @DisplayName("Debería devolver la misma instancia para cadenas iguales y contar los aciertos")
+        void testInternar() {
+            String primera = pool.internar(new String("PDF"));
+            String segunda = pool.internar(new String("PDF"));
+            
+            assertThat(segunda).isSameAs(primera);
+            assertThat(pool.internar(new String("EXE"))).isNotSameAs(primera).isEqualTo("EXE");
+            assertThat(pool.internar(null)).isNull();
+            assertThat(pool.getConsultas()).isEqualTo(3);
+            assertThat(pool.getAciertos()).isEqualTo(1);
+            assertThat(pool.getCadenasUnicas()).isEqualTo(2);
+            assertThat(pool.getBytesAhorrados()).isPositive();
+        }
+    }
+    
+    @Nested
+    @DisplayName("Fábrica de entidades")
+    class Fabrica {
+    
+        @Test
+        @DisplayName("Debería compartir formatos y el prefijo del CDN, pero no los nombres")
+        void testAtributosCompartidos() {
+            ConfiguracionSistema.getInstancia().setCdnURL("https://cdn.ejemplo.com/");
+            FabricaEntidades fabrica = new FabricaEntidades(pool);
+            
+            ProductoDigital libro = (ProductoDigital) fabrica.crearProducto("DIG1", new String("Libro"), 9.99, 1,
+                                                                            new String("PDF"), "https://cdn.ejemplo.com/libro.pdf");
+            ProductoDigital manual = (ProductoDigital) fabrica.crearProducto("DIG2", new String("Libro"), 4.99, 1,
+                                                                             new String("PDF"), "https://otro.com/manual.pdf");
+            ProductoFisico caja = (ProductoFisico) fabrica.crearProducto("FIS1", new String("Libro"), 1.0, 1, 1.0, 1.0, 1.0, 1.0);
+            
+            assertThat(manual.getFormato()).isSameAs(libro.getFormato());
+            assertThat(caja.getNombre()).isNotSameAs(libro.getNombre());
+            assertThat(libro.getUrl()).isEqualTo("https://cdn.ejemplo.com/libro.pdf");
+            assertThat(libro.getUrl()).isSameAs(libro.getUrl());
+            assertThat(manual.getUrl()).isEqualTo("https://otro.com/manual.pdf");
+            libro.setUrl("https://otro.com/libro.pdf");
+            assertThat(libro.getUrl()).isEqualTo("https://otro.com/libro.pdf");
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package Importacion;
+
+import Factory.FabricaEntidades;
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoFisico;
+import Repositorios.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.io.TempDir;
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Pruebas unitarias para la clase ImportadorCatalogo.
+ * Cubre el formato de las líneas, el informe de errores por fila
+ * y la importación de archivos repartidos en varios segmentos.
+ */
+@DisplayName("Pruebas para la clase ImportadorCatalogo")
+class ImportadorCatalogoTest {
+
+    @TempDir
+    Path directorio;
+    
+    private ProductoRepository repositorio;
+    private ImportadorCatalogo importador;
+    
+    @BeforeEach
+    void setUp() {
+        repositorio = new ProductoRepository();
+        importador = new ImportadorCatalogo(repositorio, new FabricaEntidades(), 4);
+    }
+    
+    private Path escribir(String nombre, String contenido) throws Exception {
+        return Files.writeString(directorio.resolve(nombre), contenido, StandardCharsets.UTF_8);
+    }
+    
+    @Nested
+    @DisplayName("Formato de las líneas")
+    class Formato {
+    
+        @Test
+        @DisplayName("Debería importar ambos tipos de producto con encabezado, comillas y saltos CRLF")
+        void testImportarCsv() throws Exception {
+            Path archivo = escribir("catalogo.csv",
+                "tipo,id,nombre,precio,cantidad,formato,url\r\n"
+                + "DIGITAL,DIG1,\"Curso \"\"Java\"\", nivel 1\",49.90,100,MP4,https://cdn/curso.mp4\r\n"
+                + "\r\n"
+                + "fisico,FIS1,Silla de oficina,129.5,7,12.0,1.1,0.6,0.6\r\n");
+            
+            ResultadoImportacion resultado = importador.importar(archivo);
+            
+            assertThat(resultado.getProductosImportados()).isEqualTo(2);
+            assertThat(resultado.getLineasLeidas()).isEqualTo(4);
+            assertThat(resultado.tieneErrores()).isFalse();
+            ProductoDigital curso = (ProductoDigital) repositorio.obtenerProducto("DIG1");
+            assertThat(curso.getNombre()).isEqualTo("Curso \"Java\", nivel 1");
+            assertThat(curso.getPrecio()).isEqualTo(49.90);
+            assertThat(curso.getFormato()).isEqualTo("MP4");
+            ProductoFisico silla = (ProductoFisico) repositorio.obtenerProducto("FIS1");
+            assertThat(silla.getCantidad()).isEqualTo(7);
+            assertThat(silla.getPeso()).isEqualTo(12.0);
+            assertThat(silla.getProfundidad()).isEqualTo(0.6);
+        }
+        
+        @Test
+        @DisplayName("Debería usar el tabulador como separador en los archivos .tsv")
+        void testImportarTsv() throws Exception {
+            Path archivo = escribir("catalogo.tsv", "DIGITAL\tDIG1\tManual, edición 2\t4.5\t10\tPDF\thttps://cdn/manual.pdf");
+            
+            ResultadoImportacion resultado = importador.importar(archivo);
+            
+            assertThat(resultado.getProductosImportados()).isEqualTo(1);
+            assertThat(repositorio.obtenerProducto("DIG1").getNombre()).isEqualTo("Manual, edición 2");
+        }
+    }
+    
+    @Nested
+    @DisplayName("Errores por fila")
+    class Errores {
+    
+        @Test
+        @DisplayName("Debería informar cada fila errónea con su línea sin detener la importación")
+        void testErroresPorFila() throws Exception {
+            repositorio.agregarProducto(new ProductoDigital("DIG9", "Existente", 1.0, 1, "PDF", "https://cdn/x.pdf"));
+            Path archivo = escribir("catalogo.csv",
+                "DIGITAL,DIG1,Libro,9.99,10,PDF,https://cdn/libro.pdf\n"
+                + "SERVICIO,SRV1,Instalación,50,1\n"
+                + "FISICO,FIS1,Mesa,abc,1,10,1,1,1\n"
+                + "FISICO,FIS2,Mesa,80,1,10,1,1\n"
+                + "DIGITAL,DIG1,Libro repetido,9.99,10,PDF,https://cdn/libro.pdf\n"
+                + "DIGITAL,DIG9,Otro existente,2.0,1,PDF,https://cdn/y.pdf\n"
+                + "FISICO,FIS3,Lámpara,-5,1,1,1,1,1\n"
+                + "DIGITAL,DIG2,\"Sin cerrar,1.0,1,PDF,https://cdn/z.pdf\n"
+                + "FISICO,FIS4,Mesa,80,1,10,1,1,1\n");
+            
+            ResultadoImportacion resultado = importador.importar(archivo);
+            
+            assertThat(resultado.getProductosImportados()).isEqualTo(2);
+            assertThat(resultado.getFilasConError()).isEqualTo(7);
+            assertThat(resultado.getErrores())
+                .extracting(ErrorImportacion::getLinea)
+                .containsExactlyInAnyOrder(2L, 3L, 4L, 5L, 6L, 7L, 8L);
+            assertThat(resultado.getErrores())
+                .filteredOn(error -> error.getLinea() == 5)
+                .extracting(ErrorImportacion::getMensaje)
+                .containsExactly("Ya existe un producto con ID: DIG1");
+            assertThat(repositorio.obtenerProducto("DIG1").getNombre()).isEqualTo("Libro");
+            assertThat(repositorio.obtenerProducto("FIS4")).isNotNull();
+        }
+    }
+    
+    @Nested
+    @DisplayName("Archivos grandes")
+    class ArchivosGrandes {
+    
+        @Test
+        @DisplayName("Debería importar en orden un archivo repartido en varios segmentos")
+        void testVariosSegmentos() throws Exception {
+            int filas = 60_000;
+            StringBuilder contenido = new StringBuilder();
+            for (int i = 1; i <= filas; i++) {
+                if (i == 45_000) {
+                    contenido.append("FISICO,CAJA").append(i).append(",Caja,precio,1,1,1,1,1\n");
+                } else {
+                    contenido.append("FISICO,CAJA").append(i).append(",Caja de cartón número ").append(i)
+                             .append(',').append(i % 1000).append(".25,5,1.5,0.3,0.3,0.3\n");
+                }
+            }
+            Path archivo = escribir("catalogo.csv", contenido.toString());
+            assertThat(Files.size(archivo)).isGreaterThan(3L << 20);
+            
+            ResultadoImportacion resultado = importador.importar(archivo);
+            
+            assertThat(resultado.getProductosImportados()).isEqualTo(filas - 1);
+            assertThat(resultado.getLineasLeidas()).isEqualTo(filas);
+            assertThat(resultado.getErrores()).extracting(ErrorImportacion::getLinea).containsExactly(45_000L);
+            assertThat(repositorio.obtenerProducto("CAJA59999").getPrecio()).isEqualTo(999.25);
+        }
+    }
+}
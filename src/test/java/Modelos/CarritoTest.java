@@ -82,6 +82,28 @@ class CarritoTest {
             assertEquals(2, carritoConProductos.getProductos().size());
             assertFalse(carritoConProductos.estaVacio());
         }
+
+        @Test
+        @DisplayName("No debería llamar a métodos sobrescribibles desde el constructor")
+        void testConstructorSinMetodosSobrescritos() {
+            List<String> llamadas = new ArrayList<>();
+            Carrito subclase = new Carrito("CART003", usuario, List.of(productoFisico)) {
+                @Override
+                public void agregarProductos(List<ProductoInterface> productos) {
+                    llamadas.add("agregarProductos");
+                    super.agregarProductos(productos);
+                }
+                
+                @Override
+                public void agregarProducto(ProductoInterface producto, int cantidad) {
+                    llamadas.add("agregarProducto");
+                    super.agregarProducto(producto, cantidad);
+                }
+            };
+            
+            assertThat(llamadas).isEmpty();
+            assertThat(subclase.obtenerCantidad("FIS001")).isEqualTo(1);
+        }
     }
 
     @Nested
@@ -98,6 +120,26 @@ class CarritoTest {
             assertFalse(carrito.estaVacio());
         }
 
+        @Test
+        @DisplayName("Debería modificar el carrito a través de la lista de productos")
+        void testListaRespaldadaPorCarrito() {
+            List<ProductoInterface> productos = carrito.getProductos();
+            productos.add(productoFisico);
+            productos.add(productoDigital);
+            productos.add(productoFisico);
+            
+            assertThat(carrito.obtenerCantidad("FIS001")).isEqualTo(2);
+            assertThat(productos).containsExactly(productoFisico, productoFisico, productoDigital);
+            
+            assertTrue(productos.remove(productoFisico));
+            carrito.agregarProducto(productoDigital);
+            assertThat(productos).containsExactly(productoFisico, productoDigital, productoDigital);
+            assertThat(carrito.obtenerCantidadTotalProductos()).isEqualTo(3);
+            
+            productos.clear();
+            assertTrue(carrito.estaVacio());
+        }
+
         @Test
         @DisplayName("Debería agregar múltiples productos al carrito")
         void testAgregarProductos() {
@@ -159,6 +201,49 @@ class CarritoTest {
         }
     }
 
+    @Nested
+    @DisplayName("Líneas y cantidades")
+    class LineasCantidades {
+        
+        @Test
+        @DisplayName("Debería agrupar las unidades de un mismo producto en una sola línea")
+        void testAgruparUnidades() throws ProductoNoEncontradoExcepcion {
+            carrito.agregarProducto(productoFisico, 50);
+            carrito.agregarProducto(productoFisico);
+            carrito.agregarProducto(productoDigital);
+            
+            assertThat(carrito.obtenerNumeroLineas()).isEqualTo(2);
+            assertThat(carrito.obtenerCantidad("FIS001")).isEqualTo(51);
+            assertThat(carrito.obtenerCantidadTotalProductos()).isEqualTo(52);
+            assertThat(carrito.getProductos()).hasSize(52).startsWith(productoFisico).endsWith(productoDigital);
+            
+            carrito.eliminarProductoPorId("FIS001");
+            assertThat(carrito.obtenerCantidad("FIS001")).isEqualTo(50);
+            assertThat(carrito.obtenerCantidadTotalProductos()).isEqualTo(51);
+        }
+
+        @Test
+        @DisplayName("Debería cambiar la cantidad de una línea y eliminarla al llegar a cero")
+        void testEstablecerCantidad() throws ProductoNoEncontradoExcepcion {
+            carrito.agregarProducto(productoFisico);
+            carrito.agregarProducto(productoDigital, 3);
+            
+            carrito.establecerCantidad("FIS001", 4);
+            assertThat(carrito.obtenerCantidadTotalProductos()).isEqualTo(7);
+            
+            carrito.establecerCantidad("FIS001", 0);
+            assertThat(carrito.contieneProducto("FIS001")).isFalse();
+            
+            carrito.eliminarLinea("DIG001");
+            assertThat(carrito.estaVacio()).isTrue();
+            assertThat(carrito.obtenerCantidadTotalProductos()).isZero();
+            assertThatThrownBy(() -> carrito.establecerCantidad("DIG001", 1))
+                .isInstanceOf(ProductoNoEncontradoExcepcion.class);
+            assertThatThrownBy(() -> carrito.agregarProducto(productoFisico, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
     @Nested
     @DisplayName("Cálculos y operaciones")
     class CalculosOperaciones {
@@ -183,6 +268,50 @@ class CarritoTest {
             });
         }
 
+        @Test
+        @DisplayName("Debería mantener el total exacto en centavos al agregar, eliminar y limpiar")
+        void testTotalAcumulado() throws ProductoNoEncontradoExcepcion, CarritoVacioExcepcion {
+            ProductoDigital barato = new ProductoDigital("DIG002", "Icono", 0.10, 1, "PNG", null);
+            carrito.agregarProducto(barato, 3);
+            carrito.agregarProducto(productoFisico, 2);
+            
+            assertThat(carrito.calcularTotal()).isEqualTo(2_000.28);
+            
+            carrito.eliminarProductoPorId("FIS001");
+            carrito.establecerCantidad("DIG002", 1);
+            assertThat(carrito.calcularTotal()).isEqualTo(1_000.09);
+            
+            // El total conserva el precio con que se agregó hasta que se actualizan los precios
+            productoFisico.setPrecio(899.99);
+            assertThat(carrito.calcularTotal()).isEqualTo(1_000.09);
+            carrito.actualizarPrecios();
+            assertThat(carrito.calcularTotal()).isEqualTo(900.09);
+            
+            carrito.limpiar();
+            assertThrows(CarritoVacioExcepcion.class, () -> carrito.calcularTotal());
+        }
+
+        @Test
+        @DisplayName("Debería admitir productos sin precio y exigirlo solo al calcular el total")
+        void testProductoSinPrecio() throws ProductoNoEncontradoExcepcion, CarritoVacioExcepcion {
+            ProductoDigital sinPrecio = new ProductoDigital("DIG003", "Beta", null, 1, "ZIP", null);
+            carrito.agregarProducto(productoDigital);
+            carrito.agregarProducto(sinPrecio, 2);
+            
+            assertThatThrownBy(() -> carrito.calcularTotal())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("DIG003");
+            
+            sinPrecio.setPrecio(5.00);
+            carrito.actualizarPrecios();
+            assertThat(carrito.calcularTotal()).isEqualTo(309.99);
+            
+            carrito.agregarProducto(new ProductoDigital("DIG004", "Alfa", null, 1, "ZIP", null));
+            assertThatThrownBy(() -> carrito.calcularTotal()).hasMessageContaining("DIG004");
+            carrito.eliminarLinea("DIG004");
+            assertThat(carrito.calcularTotal()).isEqualTo(309.99);
+        }
+
         @Test
         @DisplayName("Debería obtener la cantidad total de productos")
         void testObtenerCantidadTotalProductos() {
@@ -0,0 +1,170 @@
+package Modelos.Inventario;
+
+import Observer.NotificationManager;
+import Observer.TipoEvento;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pruebas unitarias para la clase DetectorStockBajo.
+ * Cubre los cruces de umbral, el rearme con histéresis, la consulta por agotamiento
+ * y el traslado de umbrales entre detectores.
+ */
+@DisplayName("Pruebas para la clase DetectorStockBajo")
+class DetectorStockBajoTest {
+
+    private DetectorStockBajo detector;
+    private List<AlertaStock> alertasBajo;
+    private List<AlertaStock> alertasAgotado;
+    
+    @BeforeEach
+    void setUp() {
+        detector = new DetectorStockBajo();
+        alertasBajo = new CopyOnWriteArrayList<>();
+        alertasAgotado = new CopyOnWriteArrayList<>();
+        NotificationManager.getInstancia().registrarObserver(TipoEvento.STOCK_BAJO, datos -> alertasBajo.add((AlertaStock) datos));
+        NotificationManager.getInstancia().registrarObserver(TipoEvento.STOCK_AGOTADO, datos -> alertasAgotado.add((AlertaStock) datos));
+    }
+    
+    @AfterEach
+    void limpiarObservadores() {
+        NotificationManager.getInstancia().limpiarObservers(TipoEvento.STOCK_BAJO);
+        NotificationManager.getInstancia().limpiarObservers(TipoEvento.STOCK_AGOTADO);
+    }
+    
+    @Nested
+    @DisplayName("Cruces de umbral")
+    class CrucesUmbral {
+    
+        @Test
+        @DisplayName("Debería notificar una sola vez al llegar al umbral y otra al agotarse")
+        void testNotificarCruces() {
+            detector.configurarUmbral("P1", 10, 2, 20);
+            assertThat(detector.obtenerEstado("P1")).isEqualTo(EstadoStock.NORMAL);
+            
+            detector.evaluar("P1", 11);
+            detector.evaluar("P1", 10);
+            detector.evaluar("P1", 7);
+            detector.evaluar("P1", 3);
+            
+            assertThat(detector.obtenerEstado("P1")).isEqualTo(EstadoStock.BAJO);
+            assertThat(alertasBajo).hasSize(1);
+            assertThat(alertasBajo.get(0).getCantidad()).isEqualTo(10);
+            assertThat(alertasBajo.get(0).getUmbralReposicion()).isEqualTo(10);
+            
+            detector.evaluar("P1", 0);
+            detector.evaluar("P1", 0);
+            
+            assertThat(detector.obtenerEstado("P1")).isEqualTo(EstadoStock.AGOTADO);
+            assertThat(alertasAgotado).hasSize(1);
+        }
+        
+        @Test
+        @DisplayName("Debería notificar al configurar un umbral que ya está cruzado")
+        void testConfigurarUmbralCruzado() {
+            detector.configurarUmbral("P1", 10, 0, 0);
+            
+            assertThat(detector.obtenerEstado("P1")).isEqualTo(EstadoStock.AGOTADO);
+            assertThat(alertasAgotado).hasSize(1);
+        }
+        
+        @Test
+        @DisplayName("Debería ignorar los productos sin umbral y rechazar umbrales inválidos")
+        void testProductosSinUmbral() {
+            detector.evaluar("SIN", 0);
+            
+            assertThat(detector.obtenerEstado("SIN")).isNull();
+            assertThat(alertasAgotado).isEmpty();
+            assertThatThrownBy(() -> detector.configurarUmbral("P1", 0, 1, 5)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> detector.configurarUmbral("P1", 5, -1, 5)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+    
+    @Nested
+    @DisplayName("Rearme con histéresis")
+    class Rearme {
+    
+        @Test
+        @DisplayName("Debería volver a NORMAL solo al superar el umbral más la histéresis")
+        void testRearmarTrasHisteresis() {
+            detector.configurarUmbral("P1", 10, 5, 20);
+            detector.evaluar("P1", 9);
+            
+            detector.evaluar("P1", 15);
+            detector.evaluar("P1", 9);
+            assertThat(detector.obtenerEstado("P1")).isEqualTo(EstadoStock.BAJO);
+            assertThat(alertasBajo).hasSize(1);
+            
+            detector.evaluar("P1", 16);
+            assertThat(detector.obtenerEstado("P1")).isEqualTo(EstadoStock.NORMAL);
+            detector.evaluar("P1", 8);
+            assertThat(alertasBajo).hasSize(2);
+        }
+        
+        @Test
+        @DisplayName("Debería salir de AGOTADO solo al superar la histéresis")
+        void testSalirDeAgotado() {
+            detector.configurarUmbral("P1", 10, 3, 0);
+            
+            detector.evaluar("P1", 3);
+            assertThat(detector.obtenerEstado("P1")).isEqualTo(EstadoStock.AGOTADO);
+            detector.evaluar("P1", 4);
+            assertThat(detector.obtenerEstado("P1")).isEqualTo(EstadoStock.BAJO);
+            
+            detector.evaluar("P1", 0);
+            assertThat(alertasAgotado).hasSize(2);
+            assertThat(alertasBajo).isEmpty();
+        }
+    }
+    
+    @Nested
+    @DisplayName("Consultas y traslado")
+    class ConsultasTraslado {
+    
+        @Test
+        @DisplayName("Debería ordenar los productos por agotamiento relativo y retirar los eliminados")
+        void testMasAgotados() {
+            detector.configurarUmbral("P1", 10, 0, 5);
+            detector.configurarUmbral("P2", 100, 0, 20);
+            detector.configurarUmbral("P3", 4, 0, 3);
+            
+            assertThat(detector.obtenerMasAgotados(3)).extracting(AlertaStock::getIdProducto)
+                .containsExactly("P2", "P1", "P3");
+            
+            detector.evaluar("P3", 0);
+            detector.eliminarUmbral("P2");
+            
+            assertThat(detector.obtenerMasAgotados(5)).extracting(AlertaStock::getIdProducto)
+                .containsExactly("P3", "P1");
+            assertThat(detector.obtenerEstado("P2")).isNull();
+        }
+        
+        @Test
+        @DisplayName("Debería trasladar el umbral y el estado sin volver a notificar")
+        void testTrasladarUmbral() {
+            DetectorStockBajo destino = new DetectorStockBajo();
+            detector.configurarUmbral("P1", 10, 2, 5);
+            alertasBajo.clear();
+            
+            detector.trasladarUmbral("P1", destino);
+            detector.trasladarUmbral("SIN", destino);
+            
+            assertThat(destino.obtenerEstado("P1")).isEqualTo(EstadoStock.BAJO);
+            assertThat(destino.obtenerEstado("SIN")).isNull();
+            assertThat(alertasBajo).isEmpty();
+            
+            destino.evaluar("P1", 4);
+            assertThat(alertasBajo).isEmpty();
+            destino.evaluar("P1", 0);
+            assertThat(alertasAgotado).hasSize(1);
+            assertThat(detector.obtenerEstado("P1")).isEqualTo(EstadoStock.BAJO);
+        }
+    }
+}
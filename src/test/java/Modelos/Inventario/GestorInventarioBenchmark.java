@@ -0,0 +1,102 @@
+package Modelos.Inventario;
+
+import Bitacora.Bitacora;
+import Bitacora.NivelRegistro;
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoFisico;
+import Modelos.Producto.ProductoInterface;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Medición de la latencia de buscarProducto y actualizarStock en ambos gestores según crece
+ * el inventario, frente a un recorrido lineal de la lista de productos como el que hacían
+ * antes de indexarlos por ID.
+ * No forma parte de las pruebas; se ejecuta a mano tras compilar las pruebas:
+ * {@code java -cp target/classes:target/test-classes Modelos.Inventario.GestorInventarioBenchmark [tamaños...]}
+ */
+public class GestorInventarioBenchmark {
+    private static final int RONDAS = 3;
+    private static final int BUSQUEDAS = 1_000_000;
+    private static final int ACTUALIZACIONES = 200_000;
+    private static final int BUSQUEDAS_LINEALES = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        int[] tamaños = {1_000, 10_000, 100_000, 1_000_000};
+        if (args.length > 0) {
+            tamaños = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                tamaños[i] = Integer.parseInt(args[i]);
+            }
+        }
+        Bitacora.setNivel(NivelRegistro.DESACTIVADO);
+
+        for (int tamaño : tamaños) {
+            GestorInventarioFisico fisico = new GestorInventarioFisico("Benchmark", "Local", 1e9, 1e9);
+            for (int i = 0; i < tamaño; i++) {
+                fisico.añadirProducto(new ProductoFisico(id(i), "Producto " + i, 10.0, 1, 1.0, 0.1, 0.1, 0.1));
+            }
+            medir("físico", fisico, tamaño);
+            fisico = null;
+
+            GestorInventarioDigital digital = new GestorInventarioDigital("Benchmark", "Local", "cdn.local");
+            for (int i = 0; i < tamaño; i++) {
+                digital.añadirProducto(new ProductoDigital(id(i), "Producto " + i, 10.0, 1, "PDF", "https://cdn.local/" + i));
+            }
+            medir("digital", digital, tamaño);
+        }
+        Bitacora.setNivel(NivelRegistro.INFO);
+    }
+
+    private static void medir(String tipo, GestorInventario gestor, int tamaño) throws Exception {
+        Random aleatorio = new Random(42);
+        String[] ids = new String[BUSQUEDAS];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = id(aleatorio.nextInt(tamaño));
+        }
+        List<ProductoInterface> lista = gestor.obtenerProductos();
+
+        for (int ronda = 1; ronda <= RONDAS; ronda++) {
+            long verificacion = 0;
+            long inicio = System.nanoTime();
+            for (String id : ids) {
+                verificacion += gestor.buscarProducto(id).getCantidad();
+            }
+            long buscar = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            for (int i = 0; i < ACTUALIZACIONES; i++) {
+                gestor.actualizarStock(ids[i], 1 + i % 50);
+            }
+            long actualizar = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            for (int i = 0; i < BUSQUEDAS_LINEALES; i++) {
+                verificacion -= buscarLineal(lista, ids[i]).getCantidad();
+            }
+            long lineal = System.nanoTime() - inicio;
+
+            System.out.printf("%s, %d productos, ronda %d: buscar %s, actualizar stock %s | recorrido lineal %s (%d)%n",
+                              tipo, tamaño, ronda, latencia(buscar, BUSQUEDAS), latencia(actualizar, ACTUALIZACIONES),
+                              latencia(lineal, BUSQUEDAS_LINEALES), verificacion);
+        }
+    }
+
+    private static ProductoInterface buscarLineal(List<ProductoInterface> productos, String id) {
+        for (ProductoInterface producto : productos) {
+            if (producto.getId().equals(id)) {
+                return producto;
+            }
+        }
+        return null;
+    }
+
+    private static String id(int numero) {
+        return "PRD" + numero;
+    }
+
+    private static String latencia(long nanos, int operaciones) {
+        return String.format("%.0f ns/op", (double) nanos / operaciones);
+    }
+}
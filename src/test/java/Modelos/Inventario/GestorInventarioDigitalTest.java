@@ -0,0 +1,107 @@
+package Modelos.Inventario;
+
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoInterface;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para la clase GestorInventarioDigital.
+ * Cubre el índice secundario por formato y la cantidad de los productos con pool de licencias.
+ */
+@DisplayName("Pruebas para la clase GestorInventarioDigital")
+class GestorInventarioDigitalTest {
+
+    private GestorInventarioDigital gestor;
+    private ProductoDigital libro;
+    private ProductoDigital manual;
+    private ProductoDigital curso;
+
+    @BeforeEach
+    void setUp() {
+        gestor = new GestorInventarioDigital("Tienda Digital", "Santo Domingo, RD", "cdn.tienda.com");
+        libro = new ProductoDigital("DIG1", "Libro digital", 9.99, 100, "PDF", "https://cdn/libro.pdf");
+        manual = new ProductoDigital("DIG2", "Manual", 4.99, 100, "pdf", "https://cdn/manual.pdf");
+        curso = new ProductoDigital("DIG3", "Curso en video", 49.50, 100, "MP4", "https://cdn/curso.mp4");
+        gestor.añadirProducto(libro);
+        gestor.añadirProducto(manual);
+        gestor.añadirProducto(curso);
+    }
+
+    @Nested
+    @DisplayName("Índice por formato")
+    class IndiceFormato {
+
+        @Test
+        @DisplayName("Debería buscar por formato sin distinguir mayúsculas ni espacios")
+        void testBuscarSinDistinguirMayusculas() {
+            assertThat(gestor.obtenerProductosPorFormato("pdf")).extracting(ProductoInterface::getId)
+                .containsExactly("DIG1", "DIG2");
+            assertThat(gestor.obtenerProductosPorFormato(" Pdf ")).extracting(ProductoInterface::getId)
+                .containsExactly("DIG1", "DIG2");
+            assertThat(gestor.obtenerProductosPorFormato("MP4")).containsExactly(curso);
+            assertThat(gestor.obtenerProductosPorFormato("EPUB")).isEmpty();
+            assertThat(gestor.obtenerProductosPorFormato(null)).isEmpty();
+            assertThat(gestor.obtenerProductosPorFormato("  ")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Debería quitar del índice los productos eliminados")
+        void testEliminarDelIndice() {
+            assertThat(gestor.eliminarProducto("DIG1")).isTrue();
+
+            assertThat(gestor.obtenerProductosPorFormato("PDF")).containsExactly(manual);
+            assertThat(gestor.eliminarProducto("DIG2")).isTrue();
+            assertThat(gestor.obtenerProductosPorFormato("PDF")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Debería quitar del índice un producto cuyo formato cambió después de indexarlo")
+        void testCambioFormatoTrasIndexar() {
+            libro.setFormato("EPUB");
+
+            // El índice solo se actualiza en altas y bajas: sigue bajo el formato con el que se añadió
+            assertThat(gestor.obtenerProductosPorFormato("PDF")).containsExactly(libro, manual);
+            assertThat(gestor.obtenerProductosPorFormato("EPUB")).isEmpty();
+
+            assertThat(gestor.eliminarProducto("DIG1")).isTrue();
+            assertThat(gestor.obtenerProductosPorFormato("PDF")).containsExactly(manual);
+            assertThat(gestor.obtenerProductosPorFormato("EPUB")).isEmpty();
+
+            gestor.añadirProducto(libro);
+            assertThat(gestor.obtenerProductosPorFormato("epub")).containsExactly(libro);
+            assertThat(gestor.obtenerProductosPorFormato("PDF")).containsExactly(manual);
+        }
+    }
+
+    @Nested
+    @DisplayName("Pool de licencias")
+    class Licencias {
+
+        @Test
+        @DisplayName("Debería leer la cantidad del pool y conservarla al eliminar el producto")
+        void testCantidadVinculadaAlPool() throws Exception {
+            gestor.actualizarStock("DIG2", 3);
+            PoolLicencias pool = gestor.habilitarPoolLicencias("DIG2");
+
+            int licencia = gestor.asignarLicencia("DIG2");
+            gestor.asignarLicencia("DIG2");
+            assertThat(manual.getCantidad()).isEqualTo(1);
+            assertThat(gestor.obtenerStockDisponible("DIG2")).isEqualTo(1);
+            assertThatThrownBy(() -> manual.setCantidad(10)).isInstanceOf(IllegalStateException.class);
+
+            gestor.devolverLicencia("DIG2", licencia);
+            assertThat(manual.getCantidad()).isEqualTo(2);
+            assertThat(pool.getDisponibles()).isEqualTo(2);
+
+            assertThat(gestor.eliminarProducto("DIG2")).isTrue();
+            pool.asignar();
+            assertThat(manual.getCantidad()).isEqualTo(2);
+            manual.setCantidad(5);
+            assertThat(manual.getCantidad()).isEqualTo(5);
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package Modelos.Inventario;
+
+import Modelos.Producto.ProductoFisico;
+import Modelos.Producto.ProductoInterface;
+import Excepciones.InventarioInsuficienteExcepcion;
+import Excepciones.ProductoNoEncontradoExcepcion;
+import Persistencia.PoliticaSincronizacion;
+import Persistencia.RegistroEscrituraAnticipada;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pruebas unitarias para la clase GestorInventarioDistribuido.
+ * Cubre el enrutamiento por ID, las consultas sobre todos los almacenes y el rebalanceo.
+ */
+@DisplayName("Pruebas para la clase GestorInventarioDistribuido")
+class GestorInventarioDistribuidoTest {
+
+    private GestorInventarioFisico almacenNorte;
+    private GestorInventarioFisico almacenSur;
+    private GestorInventarioDistribuido gestor;
+    
+    @BeforeEach
+    void setUp() {
+        almacenNorte = new GestorInventarioFisico("Norte", "Santiago, RD", 10_000.0, 1_000.0);
+        almacenSur = new GestorInventarioFisico("Sur", "Barahona, RD", 10_000.0, 1_000.0);
+        gestor = new GestorInventarioDistribuido("Red de Almacenes", "RD", List.of(almacenNorte, almacenSur));
+    }
+    
+    private ProductoFisico crearProducto(int numero) {
+        return new ProductoFisico(String.format("FIS%04d", numero), "Producto " + numero, 10.0, 5,
+                                  1.0, 0.1, 0.1, 0.1);
+    }
+    
+    private void poblar(int cantidad) throws InventarioInsuficienteExcepcion {
+        for (int i = 0; i < cantidad; i++) {
+            gestor.añadirProducto(crearProducto(i));
+        }
+    }
+    
+    @Nested
+    @DisplayName("Pruebas de enrutamiento")
+    class Enrutamiento {
+    
+        @Test
+        @DisplayName("Debe guardar cada producto solo en el almacén responsable")
+        void testAñadirEnAlmacenResponsable() throws InventarioInsuficienteExcepcion {
+            poblar(50);
+            
+            for (ProductoInterface producto : gestor.obtenerProductos()) {
+                GestorInventario responsable = gestor.obtenerAlmacen(producto.getId());
+                GestorInventario otro = responsable == almacenNorte ? almacenSur : almacenNorte;
+                assertThat(responsable.buscarProducto(producto.getId())).isSameAs(producto);
+                assertThat(otro.buscarProducto(producto.getId())).isNull();
+            }
+        }
+        
+        @Test
+        @DisplayName("Debe repartir los productos entre los almacenes")
+        void testRepartoEntreAlmacenes() throws InventarioInsuficienteExcepcion {
+            poblar(200);
+            
+            assertThat(almacenNorte.obtenerProductos()).isNotEmpty();
+            assertThat(almacenSur.obtenerProductos()).isNotEmpty();
+            assertThat(gestor.obtenerProductos()).hasSize(200);
+        }
+        
+        @Test
+        @DisplayName("Debe buscar y actualizar productos a través del enrutador")
+        void testBuscarYActualizar() throws Exception {
+            poblar(20);
+            
+            assertThat(gestor.buscarProducto("FIS0007")).isNotNull();
+            assertTrue(gestor.actualizarStock("FIS0007", 9));
+            assertThat(gestor.buscarProducto("FIS0007").getCantidad()).isEqualTo(9);
+            assertTrue(gestor.eliminarProducto("FIS0007"));
+            assertThat(gestor.buscarProducto("FIS0007")).isNull();
+        }
+        
+        @Test
+        @DisplayName("Debe enrutar las reservas al almacén responsable")
+        void testReservasEnrutadas() throws Exception {
+            poblar(10);
+            
+            assertTrue(gestor.reservarStock("FIS0003", 2));
+            assertThat(gestor.obtenerStockDisponible("FIS0003")).isEqualTo(3);
+            assertThat(gestor.obtenerAlmacen("FIS0003").obtenerStockReservado("FIS0003")).isEqualTo(2);
+        }
+        
+        @Test
+        @DisplayName("Debe reutilizar la lista combinada mientras ningún almacén cambie")
+        void testInstantaneaCombinada() throws Exception {
+            poblar(20);
+            List<ProductoInterface> primeraLectura = gestor.obtenerProductos();
+            long version = gestor.obtenerVersion();
+            
+            assertThat(gestor.obtenerProductos()).isSameAs(primeraLectura);
+            
+            almacenNorte.actualizarStock(almacenNorte.obtenerProductos().get(0).getId(), 1);
+            
+            assertThat(gestor.obtenerVersion()).isGreaterThan(version);
+            assertThat(gestor.obtenerProductos()).isNotSameAs(primeraLectura).hasSize(20);
+        }
+        
+        @Test
+        @DisplayName("Debe rechazar IDs nulos al enrutar")
+        void testIdNulo() {
+            assertThrows(IllegalArgumentException.class, () -> gestor.obtenerAlmacen(null));
+            assertThrows(IllegalArgumentException.class, () -> gestor.reservarStock(null, 1));
+            assertThat(gestor.buscarProducto(null)).isNull();
+        }
+        
+        @Test
+        @DisplayName("Debe rechazar almacenes con nombre repetido")
+        void testAlmacenRepetido() {
+            GestorInventarioFisico duplicado = new GestorInventarioFisico("Norte", "Otro", 10.0, 10.0);
+            
+            assertThrows(IllegalArgumentException.class, () -> gestor.agregarAlmacen(duplicado));
+        }
+    }
+    
+    @Nested
+    @DisplayName("Pruebas de excepciones")
+    class ManejoExcepciones {
+    
+        @Test
+        @DisplayName("Debe lanzar ProductoNoEncontradoExcepcion al eliminar un producto inexistente")
+        void testEliminarInexistente() {
+            ProductoNoEncontradoExcepcion excepcion = assertThrows(ProductoNoEncontradoExcepcion.class,
+                () -> gestor.eliminarProducto("NOEXISTE"));
+            
+            assertThat(excepcion.getIdProducto()).isEqualTo("NOEXISTE");
+        }
+        
+        @Test
+        @DisplayName("Debe propagar InventarioInsuficienteExcepcion del almacén responsable")
+        void testCapacidadInsuficiente() {
+            ProductoFisico enorme = new ProductoFisico("FIS9999", "Contenedor", 1.0, 1,
+                                                       50_000.0, 1.0, 1.0, 1.0);
+            
+            assertThrows(InventarioInsuficienteExcepcion.class, () -> gestor.añadirProducto(enorme));
+            assertThat(gestor.buscarProducto("FIS9999")).isNull();
+        }
+        
+        @Test
+        @DisplayName("Debe validar todo el lote antes de aplicarlo en los almacenes")
+        void testLoteConProductoInexistente() throws InventarioInsuficienteExcepcion {
+            poblar(10);
+            Map<String, Integer> lote = new LinkedHashMap<>();
+            lote.put("FIS0001", 1);
+            lote.put("NOEXISTE", 1);
+            
+            assertThrows(ProductoNoEncontradoExcepcion.class, () -> gestor.actualizarStockLote(lote));
+            assertThat(gestor.buscarProducto("FIS0001").getCantidad()).isEqualTo(5);
+        }
+        
+        @Test
+        @DisplayName("Debe aplicar un lote repartido entre almacenes")
+        void testLoteEntreAlmacenes() throws Exception {
+            poblar(30);
+            Map<String, Integer> lote = new LinkedHashMap<>();
+            for (int i = 0; i < 30; i++) {
+                lote.put(String.format("FIS%04d", i), 7);
+            }
+            
+            assertTrue(gestor.actualizarStockLote(lote));
+            assertThat(gestor.obtenerProductos()).allMatch(p -> p.getCantidad() == 7);
+        }
+    }
+    
+    @Nested
+    @DisplayName("Pruebas de rebalanceo")
+    class Rebalanceo {
+    
+        @Test
+        @DisplayName("Debe trasladar solo los productos que pasan al nuevo almacén")
+        void testTrasladoMinimo() throws InventarioInsuficienteExcepcion {
+            poblar(300);
+            Map<String, GestorInventario> ubicacionAnterior = new HashMap<>();
+            for (ProductoInterface producto : gestor.obtenerProductos()) {
+                ubicacionAnterior.put(producto.getId(), gestor.obtenerAlmacen(producto.getId()));
+            }
+            GestorInventarioFisico almacenEste = new GestorInventarioFisico("Este", "La Romana, RD", 10_000.0, 1_000.0);
+            
+            int trasladados = gestor.agregarAlmacen(almacenEste);
+            
+            assertThat(trasladados).isEqualTo(almacenEste.obtenerProductos().size());
+            assertThat(trasladados).isGreaterThan(0).isLessThan(300);
+            assertThat(gestor.obtenerProductos()).hasSize(300);
+            List<String> movidosSinNecesidad = new ArrayList<>();
+            for (Map.Entry<String, GestorInventario> entrada : ubicacionAnterior.entrySet()) {
+                GestorInventario actual = gestor.obtenerAlmacen(entrada.getKey());
+                if (actual != almacenEste && actual != entrada.getValue()) {
+                    movidosSinNecesidad.add(entrada.getKey());
+                }
+                assertThat(actual.buscarProducto(entrada.getKey())).isNotNull();
+            }
+            assertThat(movidosSinNecesidad).isEmpty();
+        }
+        
+        @Test
+        @DisplayName("Debe conservar las reservas de los productos trasladados")
+        void testConservarReservas() throws Exception {
+            poblar(100);
+            for (int i = 0; i < 100; i++) {
+                gestor.reservarStock(String.format("FIS%04d", i), 2);
+            }
+            
+            gestor.agregarAlmacen(new GestorInventarioFisico("Este", "La Romana, RD", 10_000.0, 1_000.0));
+            
+            for (int i = 0; i < 100; i++) {
+                String id = String.format("FIS%04d", i);
+                assertThat(gestor.obtenerStockReservado(id)).isEqualTo(2);
+                assertThat(gestor.obtenerStockDisponible(id)).isEqualTo(3);
+            }
+        }
+
+        @Test
+        @DisplayName("Debe conservar los umbrales de stock de los productos trasladados")
+        void testConservarUmbralesStock() throws Exception {
+            poblar(100);
+            for (int i = 0; i < 100; i++) {
+                gestor.configurarUmbralStock(String.format("FIS%04d", i), 5, 1);
+            }
+
+            gestor.agregarAlmacen(new GestorInventarioFisico("Este", "La Romana, RD", 10_000.0, 1_000.0));
+
+            for (int i = 0; i < 100; i++) {
+                assertThat(gestor.obtenerEstadoStock(String.format("FIS%04d", i))).isEqualTo(EstadoStock.BAJO);
+            }
+            assertThat(gestor.obtenerProductosMasAgotados(150)).hasSize(100);
+        }
+        
+        @Test
+        @DisplayName("Debe devolver los productos y conservar el anillo si el nuevo almacén no tiene capacidad")
+        void testRebalanceoFallido() throws Exception {
+            poblar(100);
+            gestor.reservarStock("FIS0001", 2);
+            Map<String, GestorInventario> ubicacionAnterior = new HashMap<>();
+            for (ProductoInterface producto : gestor.obtenerProductos()) {
+                ubicacionAnterior.put(producto.getId(), gestor.obtenerAlmacen(producto.getId()));
+            }
+            GestorInventarioFisico almacenPequeño = new GestorInventarioFisico("Este", "La Romana, RD", 12.0, 1_000.0);
+            
+            assertThrows(InventarioInsuficienteExcepcion.class, () -> gestor.agregarAlmacen(almacenPequeño));
+            
+            assertThat(gestor.getAlmacenes()).containsExactly(almacenNorte, almacenSur);
+            assertThat(almacenPequeño.obtenerProductos()).isEmpty();
+            assertThat(almacenPequeño.getPesoActual()).isZero();
+            assertThat(gestor.obtenerProductos()).hasSize(100);
+            for (Map.Entry<String, GestorInventario> entrada : ubicacionAnterior.entrySet()) {
+                assertThat(gestor.obtenerAlmacen(entrada.getKey())).isSameAs(entrada.getValue());
+                assertThat(entrada.getValue().buscarProducto(entrada.getKey())).isNotNull();
+            }
+            assertThat(gestor.obtenerStockReservado("FIS0001")).isEqualTo(2);
+        }
+        
+        @Test
+        @DisplayName("Las escrituras sobre un producto trasladado deben esperar a que termine el rebalanceo")
+        void testEscriturasEsperanAlTraslado() throws Exception {
+            poblar(100);
+            ExecutorService ejecutor = Executors.newFixedThreadPool(2);
+            List<String> primerTrasladado = new CopyOnWriteArrayList<>();
+            List<Future<Boolean>> escrituras = new CopyOnWriteArrayList<>();
+            GestorInventarioFisico almacenEste = new GestorInventarioFisico("Este", "La Romana, RD", 10_000.0, 1_000.0) {
+                @Override
+                public boolean añadirProducto(ProductoInterface producto) throws InventarioInsuficienteExcepcion {
+                    boolean añadido = super.añadirProducto(producto);
+                    if (primerTrasladado.isEmpty()) {
+                        // Con el producto ya en el nuevo almacén y el anillo anterior aún publicado
+                        String id = producto.getId();
+                        primerTrasladado.add(id);
+                        escrituras.add(ejecutor.submit(() -> gestor.reservarStock(id, 2)));
+                        escrituras.add(ejecutor.submit(() -> gestor.añadirProducto(
+                            new ProductoFisico(id, "Duplicado", 1.0, 1, 1.0, 0.1, 0.1, 0.1))));
+                        for (Future<Boolean> escritura : escrituras) {
+                            assertThrows(TimeoutException.class, () -> escritura.get(200, TimeUnit.MILLISECONDS));
+                        }
+                    }
+                    return añadido;
+                }
+            };
+            
+            try {
+                gestor.agregarAlmacen(almacenEste);
+                
+                assertThat(escrituras.get(0).get(5, TimeUnit.SECONDS)).isTrue();
+                // El duplicado llega al nuevo almacén, que ya tiene el producto trasladado
+                assertThatThrownBy(() -> escrituras.get(1).get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalArgumentException.class);
+            } finally {
+                ejecutor.shutdownNow();
+            }
+            String id = primerTrasladado.get(0);
+            assertThat(gestor.obtenerAlmacen(id)).isSameAs(almacenEste);
+            assertThat(gestor.obtenerStockReservado(id)).isEqualTo(2);
+            assertThat(almacenNorte.buscarProducto(id)).isNull();
+            assertThat(almacenSur.buscarProducto(id)).isNull();
+            assertThat(gestor.obtenerProductos()).hasSize(100);
+        }
+        
+        @Test
+        @DisplayName("Debe abortar el rebalanceo si el nuevo almacén ya tiene un producto con el mismo ID")
+        void testColisionEnNuevoAlmacen() throws Exception {
+            poblar(100);
+            GestorInventarioFisico almacenEste = new GestorInventarioFisico("Este", "La Romana, RD", 10_000.0, 1_000.0);
+            // El anillo solo depende de los nombres de los almacenes
+            GestorInventarioDistribuido sonda = new GestorInventarioDistribuido("Sonda", "RD", List.of(
+                new GestorInventarioFisico("Norte", "Santiago, RD", 1.0, 1.0),
+                new GestorInventarioFisico("Sur", "Barahona, RD", 1.0, 1.0),
+                new GestorInventarioFisico("Este", "La Romana, RD", 1.0, 1.0)));
+            String idRepetido = null;
+            for (int i = 0; i < 100 && idRepetido == null; i++) {
+                String id = String.format("FIS%04d", i);
+                if (sonda.obtenerAlmacen(id).getNombreInventario().equals("Este")) {
+                    idRepetido = id;
+                }
+            }
+            assertThat(idRepetido).isNotNull();
+            ProductoFisico repetido = new ProductoFisico(idRepetido, "Repetido", 1.0, 1, 1.0, 0.1, 0.1, 0.1);
+            almacenEste.añadirProducto(repetido);
+            
+            assertThrows(IllegalArgumentException.class, () -> gestor.agregarAlmacen(almacenEste));
+            
+            assertThat(gestor.getAlmacenes()).containsExactly(almacenNorte, almacenSur);
+            assertThat(almacenEste.obtenerProductos()).containsExactly(repetido);
+            assertThat(gestor.obtenerProductos()).hasSize(100);
+            assertThat(gestor.obtenerAlmacen(idRepetido).buscarProducto(idRepetido).getNombre()).isNotEqualTo("Repetido");
+        }
+        
+        @Test
+        @DisplayName("Debe persistir los productos de todos los almacenes en un registro compartido")
+        void testPersistenciaCompartida(@TempDir Path directorio) throws Exception {
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE)) {
+                assertThat(gestor.habilitarPersistencia(registro)).isZero();
+                poblar(50);
+                gestor.actualizarStock("FIS0007", 9);
+                gestor.agregarAlmacen(new GestorInventarioFisico("Este", "La Romana, RD", 10_000.0, 1_000.0));
+                gestor.eliminarProducto("FIS0008");
+            }
+            
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE)) {
+                GestorInventarioDistribuido recuperado = new GestorInventarioDistribuido("Red de Almacenes", "RD", List.of(
+                    new GestorInventarioFisico("Norte", "Santiago, RD", 10_000.0, 1_000.0),
+                    new GestorInventarioFisico("Sur", "Barahona, RD", 10_000.0, 1_000.0)));
+                
+                assertThat(recuperado.habilitarPersistencia(registro)).isEqualTo(49);
+                assertThat(recuperado.buscarProducto("FIS0007").getCantidad()).isEqualTo(9);
+                assertThat(recuperado.buscarProducto("FIS0008")).isNull();
+            }
+        }
+        
+        @Test
+        @DisplayName("Solo el inventario distribuido debe crear puntos de control del registro compartido")
+        void testPuntoControlRegistroCompartido(@TempDir Path directorio) throws Exception {
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE)) {
+                gestor.habilitarPersistencia(registro);
+                poblar(20);
+                
+                assertThrows(IllegalStateException.class, () -> almacenNorte.crearPuntoControl());
+                assertThat(registro.getLsnUltimoPuntoControl()).isZero();
+                gestor.crearPuntoControl();
+            }
+            
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE)) {
+                assertThat(registro.getPropietarioPuntoControl()).isEqualTo("Red de Almacenes");
+                // Un almacén suelto no puede recuperar un registro cuyo punto de control creó otro inventario
+                GestorInventarioFisico suelto = new GestorInventarioFisico("Norte", "Santiago, RD", 10_000.0, 1_000.0);
+                assertThrows(IllegalStateException.class, () -> suelto.habilitarPersistencia(registro));
+                assertThat(suelto.obtenerProductos()).isEmpty();
+                
+                GestorInventarioDistribuido recuperado = new GestorInventarioDistribuido("Red de Almacenes", "RD", List.of(
+                    new GestorInventarioFisico("Norte", "Santiago, RD", 10_000.0, 1_000.0),
+                    new GestorInventarioFisico("Sur", "Barahona, RD", 10_000.0, 1_000.0)));
+                assertThat(recuperado.habilitarPersistencia(registro)).isEqualTo(20);
+            }
+        }
+    }
+}
@@ -4,6 +4,9 @@ import Modelos.Producto.ProductoFisico;
 import Modelos.Producto.ProductoDigital;
 import Excepciones.InventarioInsuficienteExcepcion;
 import Excepciones.ProductoNoEncontradoExcepcion;
+import Observer.NotificationManager;
+import Observer.TipoEvento;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -14,6 +17,17 @@ import org.junit.jupiter.params.provider.ValueSource;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.assertj.core.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
 /**
  * Pruebas unitarias para la clase GestorInventarioFisico.
  * Cubre casos de uso comunes, escenarios de error y manejo de excepciones.
@@ -229,6 +243,496 @@ class GestorInventarioFisicoTest {
         }
     }
 
+    @Nested
+    @DisplayName("Índice de productos")
+    class IndiceProductosGestor {
+
+        @Test
+        @DisplayName("Debería mantener el orden de inserción tras eliminar productos")
+        void testOrdenDeInsercionTrasEliminar() throws InventarioInsuficienteExcepcion, ProductoNoEncontradoExcepcion {
+            for (int i = 0; i < 5; i++) {
+                gestor.añadirProducto(new ProductoFisico("ORD" + i, "Caja " + i, 10.0, 1, 0.1, 0.1, 0.1, 0.1));
+            }
+
+            gestor.eliminarProducto("ORD2");
+
+            assertThat(gestor.obtenerProductos())
+                .extracting(producto -> producto.getId())
+                .containsExactly("ORD0", "ORD1", "ORD3", "ORD4");
+        }
+
+        @Test
+        @DisplayName("Debería rechazar un producto con ID duplicado sin alterar la ocupación")
+        void testAgregarProductoDuplicado() throws InventarioInsuficienteExcepcion {
+            gestor.añadirProducto(productoFisico);
+            double pesoInicial = gestor.getPesoActual();
+
+            assertThatThrownBy(() -> gestor.añadirProducto(productoFisico))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Ya existe un producto con ID FIS001 en el inventario");
+            assertThat(gestor.obtenerProductos()).hasSize(1);
+            assertThat(gestor.getPesoActual()).isEqualTo(pesoInicial);
+        }
+
+        @Test
+        @DisplayName("Debería encontrar y actualizar productos en un catálogo grande")
+        void testBuscarYActualizarEnCatalogoGrande() throws InventarioInsuficienteExcepcion, ProductoNoEncontradoExcepcion {
+            GestorInventarioFisico gestorGrande = new GestorInventarioFisico("Almacén Grande", "Santiago, RD", 1_000_000.0, 1_000_000.0);
+            for (int i = 0; i < 10_000; i++) {
+                gestorGrande.añadirProducto(new ProductoFisico("SKU" + i, "Artículo " + i, 1.0, 1, 0.01, 0.1, 0.1, 0.1));
+            }
+
+            gestorGrande.actualizarStock("SKU9999", 3);
+
+            assertThat(gestorGrande.buscarProducto("SKU9999").getCantidad()).isEqualTo(3);
+            assertThat(gestorGrande.buscarProducto("SKU10000")).isNull();
+            assertThat(gestorGrande.obtenerProductos()).hasSize(10_000);
+        }
+
+        @Test
+        @DisplayName("Debería compartir la misma instantánea mientras el inventario no cambie")
+        void testInstantaneaCompartida() throws InventarioInsuficienteExcepcion, ProductoNoEncontradoExcepcion {
+            gestor.añadirProducto(productoFisico);
+            List<?> primeraLectura = gestor.obtenerProductos();
+
+            assertThat(gestor.obtenerProductos()).isSameAs(primeraLectura);
+            assertThatThrownBy(() -> gestor.obtenerProductos().clear())
+                .isInstanceOf(UnsupportedOperationException.class);
+
+            gestor.eliminarProducto("FIS001");
+
+            assertThat(gestor.obtenerProductos()).isNotSameAs(primeraLectura).isEmpty();
+            assertThat(primeraLectura).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Debería aumentar la versión solo cuando el inventario cambia")
+        void testVersionDelInventario() throws InventarioInsuficienteExcepcion, ProductoNoEncontradoExcepcion {
+            long versionInicial = gestor.obtenerVersion();
+            gestor.añadirProducto(productoFisico);
+            long versionTrasAñadir = gestor.obtenerVersion();
+
+            gestor.obtenerProductos();
+            gestor.buscarProducto("FIS001");
+            assertThat(gestor.obtenerVersion()).isEqualTo(versionTrasAñadir).isGreaterThan(versionInicial);
+
+            gestor.actualizarStock("FIS001", 2);
+            assertThat(gestor.obtenerVersion()).isGreaterThan(versionTrasAñadir);
+        }
+    }
+
+    @Nested
+    @DisplayName("Actualización de stock en lote")
+    class ActualizacionStockLote {
+
+        @Test
+        @DisplayName("Debería aplicar todas las cantidades del lote")
+        void testActualizarStockLote() throws InventarioInsuficienteExcepcion, ProductoNoEncontradoExcepcion {
+            ProductoFisico mouse = new ProductoFisico("FIS003", "Mouse", 49.99, 10, 0.1, 0.12, 0.06, 0.04);
+            gestor.añadirProducto(productoFisico);
+            gestor.añadirProducto(mouse);
+
+            Map<String, Integer> lote = new LinkedHashMap<>();
+            lote.put("FIS001", 8);
+            lote.put("FIS003", 2);
+            boolean resultado = gestor.actualizarStockLote(lote);
+
+            assertThat(resultado).isTrue();
+            assertThat(productoFisico.getCantidad()).isEqualTo(8);
+            assertThat(mouse.getCantidad()).isEqualTo(2);
+            assertThat(gestor.getPesoActual()).isCloseTo(2.5 * 8 + 0.1 * 2, within(0.01));
+            assertThat(gestor.obtenerStockDisponible("FIS003")).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("No debería aplicar ningún cambio si el lote excede la capacidad")
+        void testActualizarStockLoteExcedeCapacidad() throws InventarioInsuficienteExcepcion {
+            ProductoFisico mouse = new ProductoFisico("FIS003", "Mouse", 49.99, 10, 0.1, 0.12, 0.06, 0.04);
+            gestor.añadirProducto(productoFisico);
+            gestor.añadirProducto(mouse);
+            double pesoInicial = gestor.getPesoActual();
+
+            Map<String, Integer> lote = new LinkedHashMap<>();
+            lote.put("FIS001", 50);  // 125 kg, supera los 100 kg del almacén
+            lote.put("FIS003", 1);
+
+            assertThatThrownBy(() -> gestor.actualizarStockLote(lote))
+                .isInstanceOf(InventarioInsuficienteExcepcion.class)
+                .hasMessageContaining("FIS001")
+                .satisfies(exception -> {
+                    InventarioInsuficienteExcepcion ex = (InventarioInsuficienteExcepcion) exception;
+                    assertThat(ex.getIdsProductos()).containsExactly("FIS001");
+                });
+            assertThat(productoFisico.getCantidad()).isEqualTo(5);
+            assertThat(mouse.getCantidad()).isEqualTo(10);
+            assertThat(gestor.getPesoActual()).isEqualTo(pesoInicial);
+        }
+
+        @Test
+        @DisplayName("No debería aplicar ningún cambio si el lote contiene productos inexistentes")
+        void testActualizarStockLoteProductoNoExiste() throws InventarioInsuficienteExcepcion {
+            gestor.añadirProducto(productoFisico);
+
+            Map<String, Integer> lote = new LinkedHashMap<>();
+            lote.put("FIS001", 1);
+            lote.put("NOEXISTE", 3);
+
+            assertThatThrownBy(() -> gestor.actualizarStockLote(lote))
+                .isInstanceOf(ProductoNoEncontradoExcepcion.class)
+                .hasMessageContaining("NOEXISTE");
+            assertThat(productoFisico.getCantidad()).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("Debería mantener los contadores de ocupación iguales a los totales recalculados")
+        void testTotalesRecalculados() throws InventarioInsuficienteExcepcion, ProductoNoEncontradoExcepcion {
+            for (int i = 0; i < 20; i++) {
+                gestor.añadirProducto(new ProductoFisico("CAJ" + i, "Caja " + i, 10.0, 2, 0.5, 0.1, 0.2, 0.3));
+            }
+            gestor.eliminarProducto("CAJ3");
+            gestor.actualizarStockLote(Map.of("CAJ7", 5, "CAJ8", 0));
+
+            assertThat(gestor.calcularPesoTotal()).isEqualTo(gestor.getPesoActual());
+            assertThat(gestor.calcularEspacioTotal()).isEqualTo(gestor.getEspacioOcupado());
+            assertThat(gestor.getPesoActual()).isCloseTo(0.5 * (17 * 2 + 5), within(0.001));
+        }
+
+        @Test
+        @DisplayName("Debería liberar las medidas admitidas aunque el producto cambie después")
+        void testLiberarMedidasAdmitidas() throws InventarioInsuficienteExcepcion, ProductoNoEncontradoExcepcion {
+            gestor.añadirProducto(productoFisico);
+            productoFisico.setPeso(4.0);
+            productoFisico.setAltura(0.6);
+
+            gestor.actualizarStock("FIS001", 2);
+            assertThat(gestor.getPesoActual()).isCloseTo(5.0, within(0.001));
+            assertThat(gestor.calcularPesoTotal()).isEqualTo(gestor.getPesoActual());
+            assertThat(gestor.calcularEspacioTotal()).isEqualTo(gestor.getEspacioOcupado());
+
+            gestor.eliminarProducto("FIS001");
+            assertThat(gestor.getPesoActual()).isZero();
+            assertThat(gestor.getEspacioOcupado()).isZero();
+        }
+
+        @Test
+        @DisplayName("Debería contabilizar el peso y volumen de artículos de menos de un gramo")
+        void testArticulosLigeros() throws InventarioInsuficienteExcepcion {
+            // 0.4 g y 0.4 cm³ por unidad: redondeados a gramos y cm³ contarían como 0
+            gestor.añadirProducto(new ProductoFisico("TOR1", "Tornillo", 0.05, 10_000, 0.0004, 0.01, 0.01, 0.004));
+
+            assertThat(gestor.getPesoActual()).isCloseTo(4.0, within(0.001));
+            assertThat(gestor.getEspacioOcupado()).isCloseTo(0.004, within(0.000001));
+            assertThat(gestor.calcularPesoTotal()).isEqualTo(gestor.getPesoActual());
+        }
+
+        @Test
+        @DisplayName("Debería notificar a los observadores después de soltar el bloqueo del lote")
+        void testEventosFueraDelBloqueo() throws Exception {
+            ProductoFisico mouse = new ProductoFisico("FIS003", "Mouse", 49.99, 10, 0.1, 0.12, 0.06, 0.04);
+            gestor.añadirProducto(productoFisico);
+            gestor.añadirProducto(mouse);
+            ExecutorService ejecutor = Executors.newSingleThreadExecutor();
+            List<Boolean> escriturasCompletadas = new CopyOnWriteArrayList<>();
+            // Otro hilo solo puede actualizar stock si el observador no corre bajo el bloqueo del lote
+            Consumer<Object> observador = datos -> {
+                if ("FIS001".equals(datos)) {
+                    Future<Boolean> escritura = ejecutor.submit(() -> gestor.actualizarStock("FIS003", 4));
+                    try {
+                        escriturasCompletadas.add(escritura.get(5, TimeUnit.SECONDS));
+                    } catch (Exception e) {
+                        escriturasCompletadas.add(false);
+                    }
+                }
+            };
+            NotificationManager.getInstancia().registrarObserver(TipoEvento.STOCK_ACTUALIZADO, observador);
+            try {
+                gestor.actualizarStockLote(Map.of("FIS001", 2));
+            } finally {
+                NotificationManager.getInstancia().desregistrarObserver(TipoEvento.STOCK_ACTUALIZADO, observador);
+                ejecutor.shutdownNow();
+            }
+
+            assertThat(escriturasCompletadas).containsExactly(true);
+            assertThat(mouse.getCantidad()).isEqualTo(4);
+        }
+    }
+
+    @Nested
+    @DisplayName("Reservas de stock")
+    class ReservasStock {
+
+        @Test
+        @DisplayName("Debería reservar, confirmar y liberar unidades correctamente")
+        void testReservarConfirmarYLiberar() throws InventarioInsuficienteExcepcion, ProductoNoEncontradoExcepcion {
+            gestor.añadirProducto(productoFisico);
+
+            gestor.reservarStock("FIS001", 3);
+            assertThat(gestor.obtenerStockDisponible("FIS001")).isEqualTo(2);
+            assertThat(gestor.obtenerStockReservado("FIS001")).isEqualTo(3);
+
+            gestor.confirmarReserva("FIS001", 2);
+            assertThat(productoFisico.getCantidad()).isEqualTo(3);
+            assertThat(gestor.getPesoActual()).isCloseTo(productoFisico.getPeso() * 3, within(0.01));
+
+            gestor.liberarReserva("FIS001", 1);
+            assertThat(gestor.obtenerStockDisponible("FIS001")).isEqualTo(3);
+            assertThat(gestor.obtenerStockReservado("FIS001")).isZero();
+        }
+
+        @Test
+        @DisplayName("Debería lanzar excepción al reservar más unidades de las disponibles")
+        void testReservarMasDeLoDisponible() throws InventarioInsuficienteExcepcion {
+            gestor.añadirProducto(productoFisico);
+
+            assertThatThrownBy(() -> gestor.reservarStock("FIS001", 6))
+                .isInstanceOf(InventarioInsuficienteExcepcion.class)
+                .satisfies(exception -> {
+                    InventarioInsuficienteExcepcion ex = (InventarioInsuficienteExcepcion) exception;
+                    assertThat(ex.getIdProducto()).isEqualTo("FIS001");
+                    assertThat(ex.getStockDisponible()).isEqualTo(5);
+                    assertThat(ex.getStockRequerido()).isEqualTo(6);
+                });
+        }
+
+        @Test
+        @DisplayName("Debería lanzar excepción al reservar un producto que no existe")
+        void testReservarProductoNoExiste() {
+            assertThatThrownBy(() -> gestor.reservarStock("NOEXISTE", 1))
+                .isInstanceOf(ProductoNoEncontradoExcepcion.class);
+        }
+
+        @Test
+        @DisplayName("Debería reflejar en las reservas las actualizaciones de stock")
+        void testActualizarStockAjustaDisponible() throws InventarioInsuficienteExcepcion, ProductoNoEncontradoExcepcion {
+            gestor.añadirProducto(productoFisico);
+            gestor.reservarStock("FIS001", 2);
+
+            gestor.actualizarStock("FIS001", 10);
+
+            assertThat(gestor.obtenerStockDisponible("FIS001")).isEqualTo(8);
+            assertThat(gestor.obtenerStockReservado("FIS001")).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("No debería reducir el stock por debajo de lo reservado")
+        void testReducirStockPorDebajoDeLoReservado() throws InventarioInsuficienteExcepcion, ProductoNoEncontradoExcepcion {
+            gestor.añadirProducto(productoFisico);
+            gestor.actualizarStock("FIS001", 10);
+            gestor.reservarStock("FIS001", 8);
+            double pesoAntes = gestor.getPesoActual();
+
+            assertThatThrownBy(() -> gestor.actualizarStock("FIS001", 3))
+                .isInstanceOf(InventarioInsuficienteExcepcion.class);
+            assertThatThrownBy(() -> gestor.actualizarStockLote(Map.of("FIS001", 3)))
+                .isInstanceOf(InventarioInsuficienteExcepcion.class);
+            assertThat(productoFisico.getCantidad()).isEqualTo(10);
+            assertThat(gestor.obtenerStockDisponible("FIS001")).isEqualTo(2);
+            assertThat(gestor.getPesoActual()).isEqualTo(pesoAntes);
+
+            gestor.confirmarReserva("FIS001", 8);
+            assertThat(productoFisico.getCantidad()).isEqualTo(2);
+
+            gestor.actualizarStock("FIS001", 0);
+            assertThat(gestor.obtenerStockDisponible("FIS001")).isZero();
+        }
+
+        @Test
+        @DisplayName("No debería sobrevender con reservas concurrentes")
+        void testReservasConcurrentesSinSobreventa() throws Exception {
+            ProductoFisico producto = new ProductoFisico("FIS100", "Teclado", 49.99, 1000, 0.01, 0.1, 0.1, 0.1);
+            gestor.añadirProducto(producto);
+
+            ExecutorService ejecutor = Executors.newFixedThreadPool(8);
+            List<Future<Integer>> resultados = new ArrayList<>();
+            for (int hilo = 0; hilo < 8; hilo++) {
+                resultados.add(ejecutor.submit(() -> {
+                    int reservadas = 0;
+                    for (int intento = 0; intento < 500; intento++) {
+                        try {
+                            gestor.reservarStock("FIS100", 1);
+                            reservadas++;
+                        } catch (InventarioInsuficienteExcepcion e) {
+                            // Stock agotado: el intento no cuenta
+                        }
+                    }
+                    return reservadas;
+                }));
+            }
+
+            int totalReservadas = 0;
+            for (Future<Integer> resultado : resultados) {
+                totalReservadas += resultado.get();
+            }
+            ejecutor.shutdown();
+
+            assertThat(totalReservadas).isEqualTo(1000);
+            assertThat(gestor.obtenerStockDisponible("FIS100")).isZero();
+            assertThat(gestor.obtenerStockReservado("FIS100")).isEqualTo(1000);
+        }
+    }
+
+    @Nested
+    @DisplayName("Capacidad con escritores concurrentes")
+    class CapacidadConcurrente {
+
+        @Test
+        @DisplayName("No debería exceder la capacidad de peso con inserciones concurrentes")
+        void testInsercionesConcurrentesNoExcedenCapacidad() throws Exception {
+            ExecutorService ejecutor = Executors.newFixedThreadPool(8);
+            List<Future<Integer>> resultados = new ArrayList<>();
+            for (int hilo = 0; hilo < 8; hilo++) {
+                final int numeroHilo = hilo;
+                resultados.add(ejecutor.submit(() -> {
+                    int añadidos = 0;
+                    for (int i = 0; i < 50; i++) {
+                        ProductoFisico caja = new ProductoFisico(
+                            "CAJA-" + numeroHilo + "-" + i, "Caja", 5.0, 1, 1.0, 0.1, 0.1, 0.1
+                        );
+                        try {
+                            gestor.añadirProducto(caja);
+                            añadidos++;
+                        } catch (InventarioInsuficienteExcepcion e) {
+                            // Almacén lleno: la caja no se admite
+                        }
+                    }
+                    return añadidos;
+                }));
+            }
+
+            int totalAñadidos = 0;
+            for (Future<Integer> resultado : resultados) {
+                totalAñadidos += resultado.get();
+            }
+            ejecutor.shutdown();
+
+            assertThat(totalAñadidos).isEqualTo(100);
+            assertThat(gestor.obtenerProductos()).hasSize(100);
+            assertThat(gestor.getPesoActual()).isEqualTo(100.0);
+            assertThat(gestor.verificarEspacioDisponible(0.001, 0.0)).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Ubicación estricta en casilleros")
+    class UbicacionEstricta {
+        
+        private MotorUbicacion motor;
+        
+        @BeforeEach
+        void setUp() {
+            motor = new MotorUbicacion();
+            motor.agregarCasilleros("CUBO", 2, 0.4, 0.4, 0.4);
+            gestor.setMotorUbicacion(motor);
+        }
+        
+        @Test
+        @DisplayName("Debería rechazar un producto que cabe por volumen pero no en ningún casillero")
+        void testRechazarProductoQueNoCabeFisicamente() {
+            ProductoFisico barra = new ProductoFisico("FIS100", "Barra", 20.0, 1, 1.0, 2.0, 0.05, 0.05);
+            
+            assertThrows(InventarioInsuficienteExcepcion.class, () -> gestor.añadirProducto(barra));
+            assertThat(gestor.buscarProducto("FIS100")).isNull();
+            assertThat(gestor.getPesoActual()).isEqualTo(0.0);
+            assertThat(gestor.getEspacioOcupado()).isEqualTo(0.0);
+        }
+        
+        @Test
+        @DisplayName("Debería liberar la capacidad reservada si el motor rechaza las medidas del producto")
+        void testMedidasNoPositivasLiberanCapacidad() {
+            ProductoFisico plano = new ProductoFisico("FIS103", "Lámina", 2.0, 3, 1.0, 0.3, 0.3, 0.0);
+            
+            assertThrows(IllegalArgumentException.class, () -> gestor.añadirProducto(plano));
+            assertThat(gestor.buscarProducto("FIS103")).isNull();
+            assertThat(gestor.getPesoActual()).isEqualTo(0.0);
+            assertThat(gestor.getEspacioOcupado()).isEqualTo(0.0);
+        }
+        
+        @Test
+        @DisplayName("Debería rotar el producto para aprovechar el casillero")
+        void testRotacionDelProducto() throws InventarioInsuficienteExcepcion {
+            // 0.4 x 0.2 x 0.1 en un cubo de 0.4: caben 1 x 2 x 4 = 8 unidades por casillero
+            ProductoFisico caja = new ProductoFisico("FIS101", "Caja", 5.0, 16, 0.5, 0.4, 0.2, 0.1);
+            
+            assertThat(motor.puedeUbicar(caja, 16)).isTrue();
+            assertThat(motor.puedeUbicar(caja, 17)).isFalse();
+            assertTrue(gestor.añadirProducto(caja));
+            assertThat(motor.obtenerCasilleros("FIS101")).hasSize(2);
+            assertThat(motor.getCasillerosLibres()).isZero();
+        }
+        
+        @Test
+        @DisplayName("Debería ajustar los casilleros al actualizar y eliminar stock")
+        void testActualizarYEliminarLiberanCasilleros() throws Exception {
+            ProductoFisico caja = new ProductoFisico("FIS101", "Caja", 5.0, 8, 0.5, 0.4, 0.2, 0.1);
+            gestor.añadirProducto(caja);
+            
+            assertThrows(InventarioInsuficienteExcepcion.class, () -> gestor.actualizarStock("FIS101", 17));
+            assertThat(caja.getCantidad()).isEqualTo(8);
+            assertThat(gestor.getPesoActual()).isEqualTo(4.0);
+            
+            gestor.actualizarStock("FIS101", 16);
+            assertThat(motor.getCasillerosLibres()).isZero();
+            gestor.actualizarStock("FIS101", 3);
+            assertThat(motor.getCasillerosLibres()).isEqualTo(1);
+            
+            gestor.eliminarProducto("FIS101");
+            assertThat(motor.getCasillerosLibres()).isEqualTo(2);
+        }
+        
+        @Test
+        @DisplayName("Debería aplicar los casilleros del lote completo o de ningún producto")
+        void testLoteAtomicoEnCasilleros() throws Exception {
+            ProductoFisico cajaA = new ProductoFisico("FIS101", "Caja A", 5.0, 8, 0.5, 0.4, 0.2, 0.1);
+            ProductoFisico cajaB = new ProductoFisico("FIS102", "Caja B", 5.0, 8, 0.5, 0.4, 0.2, 0.1);
+            gestor.añadirProducto(cajaA);
+            gestor.añadirProducto(cajaB);
+            List<String> casillerosA = motor.obtenerCasilleros("FIS101");
+            
+            Map<String, Integer> loteImposible = new LinkedHashMap<>();
+            loteImposible.put("FIS101", 16);
+            loteImposible.put("FIS102", 1);
+            assertThrows(InventarioInsuficienteExcepcion.class, () -> gestor.actualizarStockLote(loteImposible));
+            assertThat(motor.obtenerCasilleros("FIS101")).isEqualTo(casillerosA);
+            assertThat(cajaA.getCantidad()).isEqualTo(8);
+            
+            Map<String, Integer> loteValido = new LinkedHashMap<>();
+            loteValido.put("FIS101", 16);
+            loteValido.put("FIS102", 0);
+            assertTrue(gestor.actualizarStockLote(loteValido));
+            assertThat(motor.obtenerCasilleros("FIS101")).hasSize(2);
+            assertThat(motor.obtenerCasilleros("FIS102")).isEmpty();
+        }
+        
+        @Test
+        @DisplayName("Debería responder rápidamente con cien mil casilleros")
+        void testMuchosCasilleros() throws InventarioInsuficienteExcepcion {
+            GestorInventarioFisico grande = new GestorInventarioFisico("Centro", "Santiago, RD", 1_000_000.0, 100_000.0);
+            MotorUbicacion motorGrande = new MotorUbicacion();
+            motorGrande.agregarCasilleros("PEQUEÑO", 60_000, 0.3, 0.3, 0.3);
+            motorGrande.agregarCasilleros("MEDIANO", 30_000, 0.6, 0.6, 0.6);
+            motorGrande.agregarCasilleros("GRANDE", 10_000, 1.2, 1.2, 1.2);
+            grande.setMotorUbicacion(motorGrande);
+            
+            ProductoFisico caja = new ProductoFisico("FIS200", "Caja", 5.0, 5_000, 0.2, 0.25, 0.25, 0.25);
+            ProductoFisico mueble = new ProductoFisico("FIS201", "Mueble", 5.0, 100, 10.0, 1.0, 0.5, 0.5);
+            grande.añadirProducto(caja);
+            grande.añadirProducto(mueble);
+            
+            assertThat(motorGrande.getTotalCasilleros()).isEqualTo(100_000);
+            assertThat(motorGrande.obtenerCasilleros("FIS200")).hasSize(5_000).allMatch(c -> c.startsWith("PEQUEÑO"));
+            assertThat(motorGrande.obtenerCasilleros("FIS201")).hasSize(25).allMatch(c -> c.startsWith("GRANDE"));
+        }
+        
+        @Test
+        @DisplayName("No debería permitir asignar el motor con productos en el inventario")
+        void testAsignarMotorConProductos() throws InventarioInsuficienteExcepcion {
+            gestor.setMotorUbicacion(null);
+            gestor.añadirProducto(productoFisico);
+            
+            assertThrows(IllegalStateException.class, () -> gestor.setMotorUbicacion(new MotorUbicacion()));
+        }
+    }
+
     @Nested
     @DisplayName("Estado del almacén")
     class EstadoAlmacen {
@@ -258,6 +762,106 @@ class GestorInventarioFisicoTest {
         }
     }
 
+    @Nested
+    @DisplayName("Detección de stock bajo")
+    class DeteccionStockBajo {
+        
+        private List<AlertaStock> alertasBajo;
+        private List<AlertaStock> alertasAgotado;
+        
+        @BeforeEach
+        void registrarObservadores() {
+            alertasBajo = new ArrayList<>();
+            alertasAgotado = new ArrayList<>();
+            NotificationManager.getInstancia().registrarObserver(TipoEvento.STOCK_BAJO, datos -> alertasBajo.add((AlertaStock) datos));
+            NotificationManager.getInstancia().registrarObserver(TipoEvento.STOCK_AGOTADO, datos -> alertasAgotado.add((AlertaStock) datos));
+        }
+        
+        @AfterEach
+        void limpiarObservadores() {
+            NotificationManager.getInstancia().limpiarObservers(TipoEvento.STOCK_BAJO);
+            NotificationManager.getInstancia().limpiarObservers(TipoEvento.STOCK_AGOTADO);
+        }
+        
+        @Test
+        @DisplayName("Debería notificar una sola vez al cruzar el umbral aunque el stock oscile")
+        void testNotificarUnaVezConHisteresis() throws Exception {
+            gestor.añadirProducto(productoFisico);
+            gestor.actualizarStock("FIS001", 10);
+            gestor.configurarUmbralStock("FIS001", 5, 2);
+            
+            gestor.actualizarStock("FIS001", 5);
+            gestor.actualizarStock("FIS001", 4);
+            gestor.actualizarStock("FIS001", 6);
+            gestor.actualizarStock("FIS001", 5);
+            
+            assertThat(alertasBajo).hasSize(1);
+            assertThat(alertasBajo.get(0).getCantidad()).isEqualTo(5);
+            assertThat(gestor.obtenerEstadoStock("FIS001")).isEqualTo(EstadoStock.BAJO);
+            
+            // Superar umbral + histéresis rearma la alerta
+            gestor.actualizarStock("FIS001", 8);
+            assertThat(gestor.obtenerEstadoStock("FIS001")).isEqualTo(EstadoStock.NORMAL);
+            gestor.actualizarStock("FIS001", 5);
+            
+            assertThat(alertasBajo).hasSize(2);
+            assertThat(alertasAgotado).isEmpty();
+        }
+        
+        @Test
+        @DisplayName("Debería notificar stock agotado al confirmar una reserva")
+        void testNotificarAgotadoAlConfirmarReserva() throws Exception {
+            gestor.añadirProducto(productoFisico);
+            gestor.configurarUmbralStock("FIS001", 2, 1);
+            
+            gestor.reservarStock("FIS001", 5);
+            gestor.confirmarReserva("FIS001", 5);
+            
+            assertThat(alertasAgotado).hasSize(1);
+            assertThat(gestor.obtenerEstadoStock("FIS001")).isEqualTo(EstadoStock.AGOTADO);
+            
+            // Salir de AGOTADO exige superar la histéresis
+            gestor.actualizarStock("FIS001", 1);
+            assertThat(gestor.obtenerEstadoStock("FIS001")).isEqualTo(EstadoStock.AGOTADO);
+            gestor.actualizarStock("FIS001", 2);
+            assertThat(gestor.obtenerEstadoStock("FIS001")).isEqualTo(EstadoStock.BAJO);
+            assertThat(alertasBajo).isEmpty();
+        }
+        
+        @Test
+        @DisplayName("Debería devolver los productos más agotados respecto a su umbral")
+        void testObtenerProductosMasAgotados() throws Exception {
+            for (int i = 1; i <= 4; i++) {
+                gestor.añadirProducto(new ProductoFisico("CAJA" + i, "Caja " + i, 5.0, 10, 1.0, 0.1, 0.1, 0.1));
+                gestor.configurarUmbralStock("CAJA" + i, 10, 0);
+            }
+            gestor.actualizarStock("CAJA1", 9);
+            gestor.actualizarStock("CAJA2", 1);
+            gestor.actualizarStock("CAJA3", 20);
+            gestor.actualizarStock("CAJA4", 4);
+            
+            assertThat(gestor.obtenerProductosMasAgotados(2))
+                .extracting(AlertaStock::getIdProducto)
+                .containsExactly("CAJA2", "CAJA4");
+            
+            gestor.eliminarProducto("CAJA2");
+            assertThat(gestor.obtenerProductosMasAgotados(10))
+                .extracting(AlertaStock::getIdProducto)
+                .containsExactly("CAJA4", "CAJA1", "CAJA3");
+        }
+        
+        @Test
+        @DisplayName("Debería lanzar excepción al configurar el umbral de un producto inexistente")
+        void testConfigurarUmbralProductoInexistente() {
+            assertThrows(ProductoNoEncontradoExcepcion.class,
+                () -> gestor.configurarUmbralStock("NOEXISTE", 5, 1));
+            assertThrows(IllegalArgumentException.class, () -> {
+                gestor.añadirProducto(productoFisico);
+                gestor.configurarUmbralStock("FIS001", 0, 1);
+            });
+        }
+    }
+
     @Nested
     @DisplayName("Pruebas parametrizadas")
     class PruebasParametrizadas {
@@ -0,0 +1,159 @@
+package Modelos.Inventario;
+
+import Excepciones.InventarioInsuficienteExcepcion;
+import Excepciones.ProductoNoEncontradoExcepcion;
+import Modelos.Producto.ProductoDigital;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Pruebas unitarias para la clase PoolLicencias y su uso desde GestorInventarioDigital.
+ */
+@DisplayName("Pruebas para la clase PoolLicencias")
+class PoolLicenciasTest {
+
+    @Nested
+    @DisplayName("Asignación y devolución")
+    class AsignacionDevolucion {
+    
+        @Test
+        @DisplayName("Debería asignar todas las licencias una sola vez y agotarse después")
+        void testAsignarHastaAgotar() {
+            PoolLicencias pool = new PoolLicencias(100, 4);
+            BitSet vistas = new BitSet();
+            
+            for (int i = 0; i < 100; i++) {
+                int licencia = pool.asignar();
+                assertThat(licencia).isBetween(0, 99);
+                assertThat(vistas.get(licencia)).isFalse();
+                vistas.set(licencia);
+            }
+            
+            assertThat(pool.asignar()).isEqualTo(-1);
+            assertThat(pool.getDisponibles()).isZero();
+            assertThat(pool.getAsignadas()).isEqualTo(100);
+        }
+        
+        @Test
+        @DisplayName("Debería reutilizar una licencia devuelta")
+        void testReutilizarLicenciaDevuelta() {
+            PoolLicencias pool = new PoolLicencias(3, 8);
+            pool.asignar();
+            int licencia = pool.asignar();
+            pool.asignar();
+            
+            pool.devolver(licencia);
+            
+            assertThat(pool.estaAsignada(licencia)).isFalse();
+            assertThat(pool.asignar()).isEqualTo(licencia);
+            assertThat(pool.getNumeroFragmentos()).isEqualTo(1);
+        }
+        
+        @Test
+        @DisplayName("Debería rechazar devoluciones de licencias no asignadas o fuera del pool")
+        void testDevolucionInvalida() {
+            PoolLicencias pool = new PoolLicencias(10);
+            int licencia = pool.asignar();
+            pool.devolver(licencia);
+            
+            assertThrows(IllegalStateException.class, () -> pool.devolver(licencia));
+            assertThrows(IllegalArgumentException.class, () -> pool.devolver(10));
+            assertThat(pool.getDisponibles()).isEqualTo(10);
+        }
+        
+        @Test
+        @DisplayName("No debería entregar la misma licencia a dos hilos")
+        void testAsignacionConcurrente() throws Exception {
+            PoolLicencias pool = new PoolLicencias(100_000, 16);
+            ExecutorService ejecutor = Executors.newFixedThreadPool(8);
+            List<Future<List<Integer>>> tareas = new ArrayList<>();
+            for (int hilo = 0; hilo < 8; hilo++) {
+                tareas.add(ejecutor.submit(() -> {
+                    List<Integer> obtenidas = new ArrayList<>();
+                    for (int licencia = pool.asignar(); licencia >= 0; licencia = pool.asignar()) {
+                        obtenidas.add(licencia);
+                    }
+                    return obtenidas;
+                }));
+            }
+            
+            BitSet vistas = new BitSet();
+            int total = 0;
+            for (Future<List<Integer>> tarea : tareas) {
+                for (int licencia : tarea.get()) {
+                    assertThat(vistas.get(licencia)).isFalse();
+                    vistas.set(licencia);
+                    total++;
+                }
+            }
+            ejecutor.shutdown();
+            
+            assertThat(total).isEqualTo(100_000);
+            assertThat(pool.getDisponibles()).isZero();
+        }
+    }
+    
+    @Nested
+    @DisplayName("Integración con GestorInventarioDigital")
+    class IntegracionGestor {
+    
+        @Test
+        @DisplayName("Debería vender licencias del pool y bloquear la actualización manual del stock")
+        void testVenderLicencias() throws Exception {
+            GestorInventarioDigital gestor = new GestorInventarioDigital("Digital", "Nube", "cdn");
+            gestor.añadirProducto(new ProductoDigital("DIG001", "Software", 299.99, 2, "EXE", "https://download.com"));
+            gestor.habilitarPoolLicencias("DIG001");
+            
+            int primera = gestor.asignarLicencia("DIG001");
+            gestor.asignarLicencia("DIG001");
+            
+            assertThrows(InventarioInsuficienteExcepcion.class, () -> gestor.asignarLicencia("DIG001"));
+            assertThat(gestor.actualizarStock("DIG001", 50)).isFalse();
+            
+            gestor.devolverLicencia("DIG001", primera);
+            assertThat(gestor.obtenerPoolLicencias("DIG001").getDisponibles()).isEqualTo(1);
+            assertThat(gestor.buscarProducto("DIG001").getCantidad()).isEqualTo(1);
+            assertThat(gestor.obtenerStockDisponible("DIG001")).isEqualTo(1);
+            assertThrows(IllegalStateException.class, () -> gestor.devolverLicencia("DIG001", primera));
+        }
+        
+        @Test
+        @DisplayName("No debería permitir reservas sobre productos vendidos por licencias")
+        void testReservasConPool() throws Exception {
+            GestorInventarioDigital gestor = new GestorInventarioDigital("Digital", "Nube", "cdn");
+            gestor.añadirProducto(new ProductoDigital("DIG001", "Software", 299.99, 5, "EXE", "https://download.com"));
+            gestor.añadirProducto(new ProductoDigital("DIG002", "Juego", 59.99, 5, "EXE", "https://download.com"));
+            gestor.habilitarPoolLicencias("DIG001");
+            gestor.reservarStock("DIG002", 1);
+            
+            assertThrows(IllegalStateException.class, () -> gestor.reservarStock("DIG001", 1));
+            assertThrows(IllegalStateException.class, () -> gestor.confirmarReserva("DIG001", 1));
+            assertThrows(IllegalStateException.class, () -> gestor.habilitarPoolLicencias("DIG002"));
+            assertThat(gestor.obtenerPoolLicencias("DIG002")).isNull();
+        }
+        
+        @Test
+        @DisplayName("Debería lanzar excepción para productos sin pool de licencias")
+        void testProductoSinPool() throws Exception {
+            GestorInventarioDigital gestor = new GestorInventarioDigital("Digital", "Nube", "cdn");
+            gestor.añadirProducto(new ProductoDigital("DIG001", "Software", 299.99, 2, "EXE", "https://download.com"));
+            
+            assertThrows(ProductoNoEncontradoExcepcion.class, () -> gestor.asignarLicencia("DIG001"));
+            assertThrows(ProductoNoEncontradoExcepcion.class, () -> gestor.habilitarPoolLicencias("NOEXISTE"));
+            
+            gestor.habilitarPoolLicencias("DIG001");
+            gestor.eliminarProducto("DIG001");
+            assertThat(gestor.obtenerPoolLicencias("DIG001")).isNull();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package Modelos.Inventario;
+
+import Modelos.Producto.ProductoDigital;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import static org.assertj.core.api.Assertions.*;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pruebas unitarias para la clase VerificadorUrls contra un servidor HTTP local.
+ */
+@DisplayName("Pruebas para la clase VerificadorUrls")
+class VerificadorUrlsTest {
+
+    private HttpServer servidor;
+    private ExecutorService hilosServidor;
+    private String base;
+    private final AtomicInteger peticiones = new AtomicInteger();
+    private final AtomicInteger simultaneas = new AtomicInteger();
+    private final AtomicInteger maximoSimultaneas = new AtomicInteger();
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+        servidor.createContext("/", intercambio -> {
+            peticiones.incrementAndGet();
+            maximoSimultaneas.accumulateAndGet(simultaneas.incrementAndGet(), Math::max);
+            String ruta = intercambio.getRequestURI().getPath();
+            try {
+                if (ruta.startsWith("/lento")) {
+                    Thread.sleep(20);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // Antes de responder: el cliente puede lanzar la siguiente petición al recibir la respuesta
+                simultaneas.decrementAndGet();
+            }
+            intercambio.sendResponseHeaders(ruta.startsWith("/falta") ? 404 : 200, -1);
+            intercambio.close();
+        });
+        hilosServidor = Executors.newCachedThreadPool();
+        servidor.setExecutor(hilosServidor);
+        servidor.start();
+        base = "http://127.0.0.1:" + servidor.getAddress().getPort();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        servidor.stop(0);
+        hilosServidor.shutdownNow();
+    }
+    
+    @Nested
+    @DisplayName("Verificación de URLs")
+    class Verificacion {
+    
+        @Test
+        @DisplayName("Debería distinguir URLs disponibles, inexistentes e inválidas")
+        void testVerificarUrls() {
+            try (VerificadorUrls verificador = new VerificadorUrls()) {
+                assertThat(verificador.verificar(base + "/libro.pdf").join()).isTrue();
+                assertThat(verificador.verificar(base + "/falta.pdf").join()).isFalse();
+                assertThat(verificador.verificar("no es una url").join()).isFalse();
+                assertThat(verificador.verificar("http://127.0.0.1:1/cerrado").join()).isFalse();
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería responder desde la caché mientras el resultado esté vigente")
+        void testCacheConTiempoDeVida() throws Exception {
+            try (VerificadorUrls verificador = new VerificadorUrls(Duration.ofMillis(200), 4, Duration.ofSeconds(2))) {
+                verificador.verificar(base + "/libro.pdf").join();
+                verificador.verificar(base + "/libro.pdf").join();
+                
+                assertThat(peticiones.get()).isEqualTo(1);
+                assertThat(verificador.getAciertosCache()).isEqualTo(1);
+                
+                TimeUnit.MILLISECONDS.sleep(250);
+                verificador.verificar(base + "/libro.pdf").join();
+                assertThat(peticiones.get()).isEqualTo(2);
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería fallar sin dejar la verificación en curso si el verificador está cerrado")
+        void testVerificadorCerrado() {
+            VerificadorUrls verificador = new VerificadorUrls();
+            verificador.close();
+            
+            CompletableFuture<Boolean> primera = verificador.verificar(base + "/libro.pdf");
+            CompletableFuture<Boolean> segunda = verificador.verificar(base + "/libro.pdf");
+            
+            assertThat(primera).isCompletedExceptionally();
+            assertThat(segunda).isNotSameAs(primera).isCompletedExceptionally();
+            assertThatThrownBy(primera::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        }
+        
+        @Test
+        @DisplayName("No debería superar el límite de peticiones simultáneas por host")
+        void testLimitePorHost() {
+            List<String> urls = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                urls.add(base + "/lento/" + i);
+            }
+            
+            try (VerificadorUrls verificador = new VerificadorUrls(Duration.ofMinutes(1), 3, Duration.ofSeconds(5))) {
+                Map<String, Boolean> resultados = verificador.verificarTodas(urls).join();
+                
+                assertThat(resultados).hasSize(40).containsOnlyKeys(urls);
+                assertThat(resultados.values()).containsOnly(true);
+            }
+            assertThat(maximoSimultaneas.get()).isLessThanOrEqualTo(3);
+        }
+    }
+    
+    @Nested
+    @DisplayName("Barrido del catálogo digital")
+    class BarridoCatalogo {
+    
+        @Test
+        @DisplayName("Debería verificar todo el catálogo concurrentemente en poco tiempo")
+        void testBarridoCatalogo() {
+            GestorInventarioDigital gestor = new GestorInventarioDigital("Digital", "Nube", base);
+            for (int i = 0; i < 300; i++) {
+                String ruta = i % 10 == 0 ? "/falta/" : "/lento/";
+                gestor.añadirProducto(new ProductoDigital("DIG" + i, "Libro " + i, 9.99, 1, "PDF", base + ruta + i));
+            }
+            
+            try (VerificadorUrls verificador = new VerificadorUrls(Duration.ofMinutes(1), 64, Duration.ofSeconds(5))) {
+                long inicio = System.nanoTime();
+                Map<String, Boolean> resultados = gestor.verificarDisponibilidadUrls(verificador).join();
+                long milisegundos = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+                
+                // En serie serían al menos 270 * 20 ms
+                assertThat(milisegundos).isLessThan(270 * 20);
+                assertThat(resultados).hasSize(300);
+                assertThat(resultados.values().stream().filter(Boolean::booleanValue).count()).isEqualTo(270);
+                assertThat(resultados.get("DIG10")).isFalse();
+                
+                gestor.verificarDisponibilidadUrls(verificador).join();
+                assertThat(verificador.getSondeosRealizados()).isEqualTo(300);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package Modelos.Producto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para ProductoFisicoInmutable y ProductoDigitalInmutable.
+ * Cubre la conversión desde y hacia los productos mutables, los accesores primitivos y la vista de solo lectura.
+ */
+@DisplayName("Pruebas para los productos inmutables")
+class ProductoInmutableTest {
+
+    @Nested
+    @DisplayName("Conversión")
+    class Conversion {
+    
+        @Test
+        @DisplayName("Debería copiar un producto físico con el precio en centavos y las medidas en miligramos y mm³")
+        void testDesdeProductoFisico() {
+            ProductoFisico mutable = new ProductoFisico("FIS001", "Laptop", 999.99, 5, 2.5, 0.3, 0.4, 0.05);
+            
+            ProductoFisicoInmutable inmutable = ProductoFisicoInmutable.desde(mutable);
+            
+            assertThat(inmutable.getPrecioCentavos()).isEqualTo(99_999L);
+            assertThat(inmutable.getPrecio()).isEqualTo(999.99);
+            assertThat(inmutable.getUnidades()).isEqualTo(5);
+            assertThat(inmutable.getPesoMiligramos()).isEqualTo(mutable.getPesoMiligramos()).isEqualTo(2_500_000L);
+            assertThat(inmutable.getVolumenMilimetrosCubicos()).isEqualTo(mutable.getVolumenMilimetrosCubicos()).isEqualTo(6_000_000L);
+            assertThat(ProductoFisicoInmutable.desde(inmutable.aMutable())).isEqualTo(inmutable).hasSameHashCodeAs(inmutable);
+        }
+        
+        @Test
+        @DisplayName("Debería copiar un producto digital y rechazar productos sin precio")
+        void testDesdeProductoDigital() {
+            ProductoDigital mutable = new ProductoDigital("DIG001", "Libro", 19.90, null, "PDF", "https://ejemplo.com/libro.pdf");
+            
+            ProductoDigitalInmutable inmutable = ProductoDigitalInmutable.desde(mutable);
+            
+            assertThat(inmutable.getPrecioCentavos()).isEqualTo(1_990L);
+            assertThat(inmutable.getUnidades()).isZero();
+            assertThat(inmutable.aMutable().getUrl()).isEqualTo("https://ejemplo.com/libro.pdf");
+            
+            mutable.setPrecio(null);
+            assertThatThrownBy(() -> ProductoDigitalInmutable.desde(mutable))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+    
+    @Nested
+    @DisplayName("Inmutabilidad")
+    class Inmutabilidad {
+    
+        @Test
+        @DisplayName("Debería ofrecer solo la vista de lectura, sin los setters de ProductoInterface")
+        void testSoloLectura() {
+            ProductoSoloLectura digital = new ProductoDigitalInmutable("DIG001", "Libro", 1_990L, 1, "PDF", null);
+            ProductoSoloLectura fisico = ProductoFisicoInmutable.desde(
+                new ProductoFisico("FIS001", "Laptop", 999.99, 5, 2.5, 0.3, 0.4, 0.05));
+            
+            assertThat(digital).isNotInstanceOf(ProductoInterface.class);
+            assertThat(fisico).isNotInstanceOf(ProductoInterface.class);
+            assertThat(digital.getPrecioCentavos()).isEqualTo(1_990L);
+            assertThat(fisico.getUnidades()).isEqualTo(5);
+        }
+    }
+}
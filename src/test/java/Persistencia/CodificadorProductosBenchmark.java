@@ -0,0 +1,124 @@
+package Persistencia;
+
+import Factory.FabricaEntidades;
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoFisico;
+import Modelos.Producto.ProductoInterface;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Medición de rendimiento de CodificadorProductos frente a una codificación textual separada por comas.
+ * No forma parte de las pruebas; se ejecuta a mano tras compilar las pruebas:
+ * {@code java -cp target/classes:target/test-classes Persistencia.CodificadorProductosBenchmark [productos]}
+ */
+public class CodificadorProductosBenchmark {
+    private static final int RONDAS = 5;
+    
+    public static void main(String[] args) {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<ProductoInterface> productos = crearProductos(cantidad);
+        FabricaEntidades fabrica = new FabricaEntidades();
+        
+        int tamañoBinario = 0;
+        for (ProductoInterface producto : productos) {
+            tamañoBinario += CodificadorProductos.tamañoCodificado(producto);
+        }
+        ByteBuffer binario = ByteBuffer.allocate(tamañoBinario);
+        byte[] texto = new byte[0];
+        
+        for (int ronda = 1; ronda <= RONDAS; ronda++) {
+            long inicio = System.nanoTime();
+            binario.clear();
+            for (ProductoInterface producto : productos) {
+                CodificadorProductos.codificar(producto, binario);
+            }
+            long codificarBinario = System.nanoTime() - inicio;
+            
+            inicio = System.nanoTime();
+            binario.flip();
+            long verificacion = 0;
+            while (binario.hasRemaining()) {
+                verificacion += CodificadorProductos.decodificar(binario, fabrica).getCantidad();
+            }
+            long decodificarBinario = System.nanoTime() - inicio;
+            
+            inicio = System.nanoTime();
+            double sumaPrecios = 0;
+            for (int posicion = 0; posicion < binario.limit(); posicion += CodificadorProductos.longitud(binario, posicion)) {
+                sumaPrecios += CodificadorProductos.leerPrecio(binario, posicion);
+            }
+            long leerPrecios = System.nanoTime() - inicio;
+            
+            inicio = System.nanoTime();
+            StringBuilder lineas = new StringBuilder();
+            for (ProductoInterface producto : productos) {
+                codificarTexto(producto, lineas);
+            }
+            texto = lineas.toString().getBytes(StandardCharsets.UTF_8);
+            long codificarTexto = System.nanoTime() - inicio;
+            
+            inicio = System.nanoTime();
+            for (String linea : new String(texto, StandardCharsets.UTF_8).split("\n")) {
+                verificacion -= decodificarTexto(linea, fabrica).getCantidad();
+            }
+            long decodificarTexto = System.nanoTime() - inicio;
+            
+            System.out.printf("Ronda %d: binario codificar %s, decodificar %s, leer precios %s | texto codificar %s, decodificar %s (%d, %.0f)%n",
+                              ronda, rendimiento(cantidad, codificarBinario), rendimiento(cantidad, decodificarBinario),
+                              rendimiento(cantidad, leerPrecios), rendimiento(cantidad, codificarTexto),
+                              rendimiento(cantidad, decodificarTexto), verificacion, sumaPrecios);
+        }
+        System.out.printf("Tamaño: binario %.1f bytes por producto, texto %.1f bytes por producto%n",
+                          (double) tamañoBinario / cantidad, (double) texto.length / cantidad);
+    }
+    
+    private static List<ProductoInterface> crearProductos(int cantidad) {
+        List<ProductoInterface> productos = new ArrayList<>(cantidad);
+        String[] formatos = {"PDF", "EPUB", "MP4", "MP3", "ZIP"};
+        for (int i = 0; i < cantidad; i++) {
+            if (i % 2 == 0) {
+                productos.add(new ProductoFisico("FIS" + i, "Caja de cartón número " + i, (i % 100_000) / 100.0 + 0.99,
+                                                 i % 500, 1.5 + (i % 10), 0.3, 0.25, 0.125));
+            } else {
+                productos.add(new ProductoDigital("DIG" + i, "Curso en línea " + i, (i % 10_000) / 10.0 + 4.5, i % 1000,
+                                                  formatos[i % formatos.length], "https://cdn.ejemplo.com/descargas/" + i));
+            }
+        }
+        return productos;
+    }
+    
+    private static void codificarTexto(ProductoInterface producto, StringBuilder destino) {
+        destino.append(producto instanceof ProductoFisico ? "FISICO" : "DIGITAL").append(',')
+               .append(producto.getId()).append(',')
+               .append(producto.getNombre()).append(',')
+               .append(producto.getPrecio()).append(',')
+               .append(producto.getCantidad()).append(',');
+        if (producto instanceof ProductoFisico fisico) {
+            destino.append(fisico.getPeso()).append(',').append(fisico.getAltura()).append(',')
+                   .append(fisico.getAncho()).append(',').append(fisico.getProfundidad());
+        } else {
+            ProductoDigital digital = (ProductoDigital) producto;
+            destino.append(digital.getFormato()).append(',').append(digital.getUrl());
+        }
+        destino.append('\n');
+    }
+    
+    private static ProductoInterface decodificarTexto(String linea, FabricaEntidades fabrica) {
+        String[] campos = linea.split(",");
+        Double precio = Double.parseDouble(campos[3]);
+        Integer cantidad = Integer.parseInt(campos[4]);
+        if (campos[0].equals("FISICO")) {
+            return fabrica.crearProducto(campos[1], campos[2], precio, cantidad, Double.parseDouble(campos[5]),
+                                         Double.parseDouble(campos[6]), Double.parseDouble(campos[7]), Double.parseDouble(campos[8]));
+        }
+        return fabrica.crearProducto(campos[1], campos[2], precio, cantidad, campos[5], campos[6]);
+    }
+    
+    private static String rendimiento(int cantidad, long nanos) {
+        return String.format("%.2f M/s", cantidad * 1_000.0 / nanos);
+    }
+}
@@ -0,0 +1,134 @@
+package Persistencia;
+
+import Factory.FabricaEntidades;
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoFisico;
+import Modelos.Producto.ProductoInterface;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pruebas unitarias para la clase CodificadorProductos.
+ * Cubre la ida y vuelta de ambos tipos de producto, la lectura de campos sueltos
+ * y el tamaño de la codificación.
+ */
+@DisplayName("Pruebas para la clase CodificadorProductos")
+class CodificadorProductosTest {
+
+    private final FabricaEntidades fabrica = new FabricaEntidades();
+    
+    private ByteBuffer codificar(ProductoInterface... productos) {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for (ProductoInterface producto : productos) {
+            CodificadorProductos.codificar(producto, buffer);
+        }
+        return buffer.flip();
+    }
+    
+    @Nested
+    @DisplayName("Ida y vuelta")
+    class IdaYVuelta {
+    
+        @Test
+        @DisplayName("Debería reconstruir un producto digital con formato del diccionario y textos no ASCII")
+        void testProductoDigital() {
+            ByteBuffer buffer = codificar(new ProductoDigital("DIG001", "Guía de café ☕ 𝄞", 49.90, 100, "PDF", "https://cdn/guía.pdf"));
+            
+            ProductoDigital copia = (ProductoDigital) CodificadorProductos.decodificar(buffer, fabrica);
+            
+            assertThat(copia.getId()).isEqualTo("DIG001");
+            assertThat(copia.getNombre()).isEqualTo("Guía de café ☕ 𝄞");
+            assertThat(copia.getPrecio()).isEqualTo(49.90);
+            assertThat(copia.getCantidad()).isEqualTo(100);
+            assertThat(copia.getFormato()).isEqualTo("PDF");
+            assertThat(copia.getUrl()).isEqualTo("https://cdn/guía.pdf");
+            assertThat(buffer.hasRemaining()).isFalse();
+        }
+        
+        @Test
+        @DisplayName("Debería conservar exactamente valores sin representación fija, nulos y formatos fuera del diccionario")
+        void testValoresNoHabituales() {
+            ByteBuffer buffer = codificar(
+                new ProductoFisico("X-1.0", "Pieza", 1.0 / 3, -2, 0.0001, null, -0.0, 12.5),
+                new ProductoDigital(null, null, null, null, "webm", null));
+            
+            ProductoFisico pieza = (ProductoFisico) CodificadorProductos.decodificar(buffer, fabrica);
+            ProductoDigital vacio = (ProductoDigital) CodificadorProductos.decodificar(buffer, fabrica);
+            
+            assertThat(pieza.getId()).isEqualTo("X-1.0");
+            assertThat(pieza.getPrecio()).isEqualTo(1.0 / 3);
+            assertThat(pieza.getCantidad()).isEqualTo(-2);
+            assertThat(pieza.getPeso()).isEqualTo(0.0001);
+            assertThat(pieza.getAltura()).isNull();
+            assertThat(Double.doubleToRawLongBits(pieza.getAncho())).isEqualTo(Double.doubleToRawLongBits(-0.0));
+            assertThat(pieza.getProfundidad()).isEqualTo(12.5);
+            assertThat(vacio.getId()).isNull();
+            assertThat(vacio.getPrecio()).isNull();
+            assertThat(vacio.getFormato()).isEqualTo("webm");
+        }
+        
+        @Test
+        @DisplayName("Debería rechazar una versión desconocida y dejar el buffer intacto si el producto no cabe")
+        void testErrores() {
+            ByteBuffer buffer = codificar(new ProductoDigital("DIG1", "Libro", 9.99, 1, "EPUB", "https://cdn/libro.epub"));
+            buffer.put(0, (byte) 99);
+            assertThatThrownBy(() -> CodificadorProductos.decodificar(buffer, fabrica))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Versión");
+            
+            ByteBuffer pequeño = ByteBuffer.allocate(8);
+            assertThatThrownBy(() -> CodificadorProductos.codificar(new ProductoFisico("FIS1", "Mesa grande", 80.0, 1, 10.0, 1.0, 1.0, 1.0), pequeño))
+                .isInstanceOf(BufferOverflowException.class);
+            assertThat(pequeño.position()).isZero();
+        }
+    }
+    
+    @Nested
+    @DisplayName("Lectura de campos")
+    class LecturaCampos {
+    
+        @Test
+        @DisplayName("Debería leer campos sueltos y saltar productos sin decodificarlos")
+        void testLeerCampos() {
+            ProductoInterface[] productos = {
+                new ProductoFisico("CAJA7", "Caja", 5.25, 10, 1.5, 0.3, 0.3, 0.3),
+                new ProductoDigital("DIG2", "Curso", 120.0, null, "MP4", "https://cdn/curso.mp4"),
+                new ProductoFisico("CAJA8", "Caja grande", 7.5, 3, 2.0, 0.5, 0.5, 0.5)
+            };
+            ByteBuffer buffer = codificar(productos);
+            
+            int inicio = 0;
+            for (ProductoInterface producto : productos) {
+                assertThat(CodificadorProductos.leerId(buffer, inicio)).isEqualTo(producto.getId());
+                assertThat(CodificadorProductos.leerNombre(buffer, inicio)).isEqualTo(producto.getNombre());
+                assertThat(CodificadorProductos.leerPrecio(buffer, inicio)).isEqualTo(producto.getPrecio());
+                assertThat(CodificadorProductos.leerCantidad(buffer, inicio)).isEqualTo(producto.getCantidad());
+                assertThat(CodificadorProductos.esFisico(buffer, inicio)).isEqualTo(producto instanceof ProductoFisico);
+                inicio += CodificadorProductos.longitud(buffer, inicio);
+            }
+            assertThat(inicio).isEqualTo(buffer.limit());
+            assertThat(buffer.position()).isZero();
+            int digital = CodificadorProductos.longitud(buffer, 0);
+            assertThat(CodificadorProductos.leerFormato(buffer, digital)).isEqualTo("MP4");
+            assertThatThrownBy(() -> CodificadorProductos.leerFormato(buffer, 0)).isInstanceOf(IllegalArgumentException.class);
+        }
+        
+        @Test
+        @DisplayName("Debería ocupar lo calculado y menos de dos tercios del texto equivalente")
+        void testTamaño() {
+            ProductoFisico producto = new ProductoFisico("CAJA123456", "Caja de cartón", 1299.99, 250, 1.5, 0.3, 0.25, 0.125);
+            String texto = "FISICO,CAJA123456,Caja de cartón,1299.99,250,1.5,0.3,0.25,0.125";
+            
+            ByteBuffer buffer = codificar(producto);
+            
+            assertThat(buffer.limit()).isEqualTo(CodificadorProductos.tamañoCodificado(producto));
+            assertThat(buffer.limit()).isLessThan(texto.getBytes(StandardCharsets.UTF_8).length * 2 / 3);
+        }
+    }
+}
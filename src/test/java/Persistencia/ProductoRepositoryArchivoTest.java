@@ -0,0 +1,351 @@
+package Persistencia;
+
+import Excepciones.ProductoNoEncontradoExcepcion;
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoFisico;
+import Modelos.Producto.ProductoInterface;
+import Repositorios.PaginaProductos;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Pruebas unitarias para la clase ProductoRepositoryArchivo.
+ * Cubre la recuperación al reabrir, las consultas sobre el archivo mapeado,
+ * las escrituras incompletas y la compactación.
+ */
+@DisplayName("Pruebas para la clase ProductoRepositoryArchivo")
+class ProductoRepositoryArchivoTest {
+
+    private static final int TAMAÑO_REGION = 4096;
+    
+    @TempDir
+    Path directorio;
+    
+    private ProductoRepositoryArchivo abrir() throws Exception {
+        return new ProductoRepositoryArchivo(directorio, TAMAÑO_REGION, Long.MAX_VALUE);
+    }
+    
+    private ProductoFisico crearCaja(int numero, double precio) {
+        return new ProductoFisico("CAJA" + numero, "Caja " + numero, precio, 10, 1.0, 0.1, 0.1, 0.1);
+    }
+    
+    private List<Path> archivos() throws Exception {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.sorted().toList();
+        }
+    }
+    
+    @Nested
+    @DisplayName("Recuperación al reabrir")
+    class Recuperacion {
+    
+        @Test
+        @DisplayName("Debería recuperar altas, actualizaciones y bajas de ambos tipos de producto")
+        void testRecuperarOperaciones() throws Exception {
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                repositorio.agregarProducto(new ProductoDigital("DIG1", "Libro Digital", 9.99, 100, "PDF", "https://cdn/libro.pdf"));
+                repositorio.agregarProducto(crearCaja(1, 5.0));
+                repositorio.agregarProducto(crearCaja(2, 7.5));
+                repositorio.actualizarProducto(new ProductoFisico("CAJA1", "Caja Grande", 6.0, 3, 2.0, 0.2, 0.2, 0.2));
+                repositorio.eliminarProducto("CAJA2");
+            }
+            
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                assertThat(repositorio.obtenerProductos())
+                    .extracting(ProductoInterface::getId)
+                    .containsExactly("DIG1", "CAJA1");
+                ProductoFisico caja = (ProductoFisico) repositorio.obtenerProducto("CAJA1");
+                assertThat(caja.getNombre()).isEqualTo("Caja Grande");
+                assertThat(caja.getCantidad()).isEqualTo(3);
+                assertThat(caja.getPeso()).isEqualTo(2.0);
+                ProductoDigital libro = (ProductoDigital) repositorio.obtenerProducto("DIG1");
+                assertThat(libro.getUrl()).isEqualTo("https://cdn/libro.pdf");
+                assertThat(repositorio.obtenerProducto("CAJA2")).isNull();
+                assertThat(repositorio.getBytesObsoletos()).isPositive();
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería repartir los registros en varias regiones y recuperarlos todos")
+        void testVariasRegiones() throws Exception {
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                for (int i = 0; i < 500; i++) {
+                    repositorio.agregarProducto(crearCaja(i, i));
+                }
+            }
+            assertThat(Files.size(archivos().get(0))).isGreaterThan(TAMAÑO_REGION);
+            
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                assertThat(repositorio.getTamaño()).isEqualTo(500);
+                assertThat(repositorio.obtenerProducto("CAJA499").getPrecio()).isEqualTo(499.0);
+                repositorio.agregarProducto(crearCaja(500, 1.0));
+                assertThat(repositorio.getTamaño()).isEqualTo(501);
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería descartar un registro incompleto y seguir escribiendo tras él")
+        void testRegistroIncompleto() throws Exception {
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                repositorio.agregarProducto(crearCaja(1, 5.0));
+                repositorio.agregarProducto(crearCaja(2, 6.0));
+            }
+            
+            // Se corrompe el último registro como si la escritura se hubiera interrumpido
+            try (FileChannel canal = FileChannel.open(archivos().get(0), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer datos = canal.map(FileChannel.MapMode.READ_WRITE, 0, TAMAÑO_REGION);
+                int ultimo = 0;
+                for (int inicio = 0; datos.getInt(inicio) != 0; inicio += 8 + datos.getInt(inicio)) {
+                    ultimo = inicio;
+                }
+                datos.put(ultimo + 12, (byte) (datos.get(ultimo + 12) ^ 0x7F));
+            }
+            
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                assertThat(repositorio.obtenerProductos())
+                    .extracting(ProductoInterface::getId)
+                    .containsExactly("CAJA1");
+                repositorio.agregarProducto(crearCaja(3, 7.0));
+            }
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                assertThat(repositorio.obtenerProductos())
+                    .extracting(ProductoInterface::getId)
+                    .containsExactly("CAJA1", "CAJA3");
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería limpiar también las regiones posteriores a un registro incompleto")
+        void testLimpiarRegionesPosteriores() throws Exception {
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                for (int i = 0; i < 500; i++) {
+                    repositorio.agregarProducto(crearCaja(i, i));
+                }
+            }
+            
+            try (FileChannel canal = FileChannel.open(archivos().get(0), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer datos = canal.map(FileChannel.MapMode.READ_WRITE, 0, TAMAÑO_REGION);
+                datos.put(12, (byte) (datos.get(12) ^ 0x7F));
+            }
+            
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                assertThat(repositorio.getTamaño()).isZero();
+                repositorio.agregarProducto(crearCaja(1, 5.0));
+            }
+            try (FileChannel canal = FileChannel.open(archivos().get(0), StandardOpenOption.READ)) {
+                assertThat(canal.map(FileChannel.MapMode.READ_ONLY, TAMAÑO_REGION, TAMAÑO_REGION).getInt(0)).isZero();
+            }
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                assertThat(repositorio.obtenerProductos())
+                    .extracting(ProductoInterface::getId)
+                    .containsExactly("CAJA1");
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("Consultas")
+    class Consultas {
+    
+        @Test
+        @DisplayName("Debería consultar por precio y por nombre leyendo el archivo")
+        void testConsultas() throws Exception {
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                repositorio.agregarProducto(new ProductoFisico("FIS1", "Mouse Inalámbrico", 19.99, 5, 0.1, 0.1, 0.05, 0.03));
+                repositorio.agregarProducto(new ProductoFisico("FIS2", "Laptop", 999.99, 5, 2.5, 0.3, 0.4, 0.05));
+                repositorio.agregarProducto(new ProductoDigital("DIG1", "Curso", 19.99, 100, "MP4", "https://cdn/curso.mp4"));
+                repositorio.agregarProducto(new ProductoDigital("DIG2", "Manual", 4.50, 100, "PDF", "https://cdn/manual.pdf"));
+                
+                assertThat(repositorio.obtenerProductosPorPrecio(19.99))
+                    .extracting(ProductoInterface::getId)
+                    .containsExactly("FIS1", "DIG1");
+                assertThat(repositorio.obtenerProductosPorRangoPrecio(1.0, 100.0))
+                    .extracting(ProductoInterface::getId)
+                    .containsExactly("DIG2", "FIS1", "DIG1");
+                assertThat(repositorio.obtenerProductosMasBaratos(2))
+                    .extracting(ProductoInterface::getId)
+                    .containsExactly("DIG2", "FIS1");
+                assertThat(repositorio.obtenerProductosMasCaros(3))
+                    .extracting(ProductoInterface::getId)
+                    .containsExactly("FIS2", "FIS1", "DIG1");
+                assertThat(repositorio.obtenerProductosPorNombre("inalambrico"))
+                    .extracting(ProductoInterface::getId)
+                    .containsExactly("FIS1");
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería paginar por ID y recorrer una instantánea que sobrevive a la compactación")
+        void testPaginacionYRecorrido() throws Exception {
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                for (int i = 9; i >= 0; i--) {
+                    repositorio.agregarProducto(crearCaja(i, i));
+                }
+                repositorio.actualizarProducto(crearCaja(3, 30.0));
+                
+                PaginaProductos primera = repositorio.obtenerPaginaProductos(null, 4);
+                PaginaProductos segunda = repositorio.obtenerPaginaProductos(primera.getTokenSiguiente(), 4);
+                assertThat(primera.getProductos())
+                    .extracting(ProductoInterface::getId)
+                    .containsExactly("CAJA0", "CAJA1", "CAJA2", "CAJA3");
+                assertThat(segunda.getProductos())
+                    .extracting(ProductoInterface::getId)
+                    .containsExactly("CAJA4", "CAJA5", "CAJA6", "CAJA7");
+                
+                Stream<ProductoInterface> recorrido = repositorio.recorrerProductos();
+                repositorio.eliminarProducto("CAJA0");
+                repositorio.compactar();
+                repositorio.agregarProducto(crearCaja(10, 1.0));
+                
+                assertThat(recorrido.map(ProductoInterface::getId).toList())
+                    .hasSize(10)
+                    .contains("CAJA0", "CAJA3")
+                    .doesNotContain("CAJA10");
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería rechazar IDs duplicados o inexistentes y el uso tras cerrar")
+        void testOperacionesInvalidas() throws Exception {
+            ProductoRepositoryArchivo repositorio = abrir();
+            repositorio.agregarProducto(crearCaja(1, 5.0));
+            
+            assertThrows(IllegalArgumentException.class, () -> repositorio.agregarProducto(crearCaja(1, 6.0)));
+            assertThrows(ProductoNoEncontradoExcepcion.class, () -> repositorio.eliminarProducto("NOEXISTE"));
+            assertThrows(ProductoNoEncontradoExcepcion.class, () -> repositorio.actualizarProducto(crearCaja(2, 1.0)));
+            
+            repositorio.close();
+            assertThrows(IllegalStateException.class, () -> repositorio.obtenerProducto("CAJA1"));
+        }
+    }
+    
+    @Nested
+    @DisplayName("Compactación")
+    class Compactacion {
+    
+        @Test
+        @DisplayName("Debería reescribir solo los registros vigentes en una nueva generación")
+        void testCompactar() throws Exception {
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                for (int i = 0; i < 100; i++) {
+                    repositorio.agregarProducto(crearCaja(i, i));
+                }
+                for (int vuelta = 1; vuelta <= 3; vuelta++) {
+                    for (int i = 0; i < 100; i++) {
+                        repositorio.actualizarProducto(crearCaja(i, i + vuelta * 1000));
+                    }
+                }
+                for (int i = 50; i < 100; i++) {
+                    repositorio.eliminarProducto("CAJA" + i);
+                }
+                long vigentes = repositorio.getBytesVigentes();
+                
+                repositorio.compactar();
+                
+                assertThat(repositorio.getGeneracion()).isEqualTo(1);
+                assertThat(repositorio.getBytesObsoletos()).isZero();
+                assertThat(repositorio.getBytesVigentes()).isEqualTo(vigentes);
+                assertThat(archivos()).hasSize(1);
+                assertThat(repositorio.obtenerProducto("CAJA7").getPrecio()).isEqualTo(3007.0);
+                repositorio.agregarProducto(crearCaja(200, 1.0));
+            }
+            
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                assertThat(repositorio.getGeneracion()).isEqualTo(1);
+                assertThat(repositorio.getTamaño()).isEqualTo(51);
+                assertThat(repositorio.obtenerProductosMasBaratos(1))
+                    .extracting(ProductoInterface::getId)
+                    .containsExactly("CAJA200");
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería compactar en segundo plano cuando los obsoletos superan a los vigentes")
+        void testCompactacionEnFondo() throws Exception {
+            try (ProductoRepositoryArchivo repositorio = new ProductoRepositoryArchivo(directorio, TAMAÑO_REGION, 1024)) {
+                for (int i = 0; i < 20; i++) {
+                    repositorio.agregarProducto(crearCaja(i, i));
+                }
+                for (int vuelta = 1; vuelta <= 5 && repositorio.getGeneracion() == 0; vuelta++) {
+                    for (int i = 0; i < 20; i++) {
+                        repositorio.actualizarProducto(crearCaja(i, vuelta));
+                    }
+                }
+                
+                long limite = System.currentTimeMillis() + 5_000;
+                while (repositorio.getGeneracion() == 0 && System.currentTimeMillis() < limite) {
+                    Thread.sleep(10);
+                }
+                assertThat(repositorio.getGeneracion()).isPositive();
+                assertThat(repositorio.getTamaño()).isEqualTo(20);
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería conservar las escrituras hechas mientras se compacta")
+        void testEscriturasDuranteCompactacion() throws Exception {
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                for (int i = 0; i < 300; i++) {
+                    repositorio.agregarProducto(crearCaja(i, i));
+                }
+                Thread escritor = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 300; i++) {
+                            repositorio.actualizarProducto(crearCaja(i, i + 1000));
+                            repositorio.agregarProducto(crearCaja(1000 + i, 1.0));
+                            if (i % 3 == 0) {
+                                repositorio.eliminarProducto("CAJA" + i);
+                            }
+                        }
+                    } catch (ProductoNoEncontradoExcepcion e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                escritor.start();
+                while (escritor.isAlive()) {
+                    repositorio.compactar();
+                }
+                escritor.join();
+                
+                assertThat(repositorio.getTamaño()).isEqualTo(500);
+            }
+            
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                assertThat(repositorio.getTamaño()).isEqualTo(500);
+                assertThat(repositorio.obtenerProducto("CAJA0")).isNull();
+                assertThat(repositorio.obtenerProducto("CAJA299").getPrecio()).isEqualTo(1299.0);
+                assertThat(repositorio.obtenerProducto("CAJA1299")).isNotNull();
+                assertThat(repositorio.obtenerProductosPorRangoPrecio(1000.0, 1001.0))
+                    .extracting(ProductoInterface::getId)
+                    .containsExactly("CAJA1");
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería ignorar una compactación interrumpida antes de terminar")
+        void testCompactacionInterrumpida() throws Exception {
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                repositorio.agregarProducto(crearCaja(1, 5.0));
+            }
+            Files.write(directorio.resolve(String.format("productos-%020d.tmp", 1)), new byte[] {1, 2, 3});
+            
+            try (ProductoRepositoryArchivo repositorio = abrir()) {
+                assertThat(repositorio.getGeneracion()).isZero();
+                assertThat(repositorio.getTamaño()).isEqualTo(1);
+            }
+            assertThat(archivos()).hasSize(1);
+        }
+    }
+}
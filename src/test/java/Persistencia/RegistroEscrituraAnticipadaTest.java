@@ -0,0 +1,366 @@
+package Persistencia;
+
+import Modelos.Inventario.GestorInventarioDigital;
+import Modelos.Inventario.GestorInventarioFisico;
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoFisico;
+import Modelos.Producto.ProductoInterface;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Pruebas unitarias para la clase RegistroEscrituraAnticipada.
+ * Cubre la recuperación tras reiniciar, las escrituras incompletas, los puntos de control
+ * y la escritura concurrente con group commit.
+ */
+@DisplayName("Pruebas para la clase RegistroEscrituraAnticipada")
+class RegistroEscrituraAnticipadaTest {
+
+    @TempDir
+    Path directorio;
+    
+    private GestorInventarioFisico crearGestorFisico() {
+        return new GestorInventarioFisico("Almacén Principal", "Santo Domingo, RD", 10_000.0, 1_000.0);
+    }
+    
+    private ProductoFisico crearCaja(int numero) {
+        return new ProductoFisico("CAJA" + numero, "Caja " + numero, 5.0, 10, 1.0, 0.1, 0.1, 0.1);
+    }
+    
+    private List<Path> segmentos() throws Exception {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.filter(ruta -> ruta.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+    
+    @Nested
+    @DisplayName("Recuperación tras reiniciar")
+    class Recuperacion {
+    
+        @Test
+        @DisplayName("Debería recuperar altas, bajas y cambios de stock de ambos inventarios")
+        void testRecuperarOperaciones() throws Exception {
+            Path directorioDigital = directorio.resolve("digital");
+            try (RegistroEscrituraAnticipada registroFisico = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE);
+                 RegistroEscrituraAnticipada registroDigital = new RegistroEscrituraAnticipada(directorioDigital, PoliticaSincronizacion.SIEMPRE)) {
+                GestorInventarioFisico fisico = crearGestorFisico();
+                GestorInventarioDigital digital = new GestorInventarioDigital("Digital", "Nube", "cdn");
+                assertThat(fisico.habilitarPersistencia(registroFisico)).isZero();
+                assertThat(digital.habilitarPersistencia(registroDigital)).isZero();
+                
+                fisico.añadirProducto(crearCaja(1));
+                fisico.añadirProducto(crearCaja(2));
+                fisico.actualizarStock("CAJA1", 7);
+                fisico.eliminarProducto("CAJA2");
+                digital.añadirProducto(new ProductoDigital("DIG1", "Libro", 9.99, 100, "PDF", "https://cdn/libro.pdf"));
+                digital.actualizarStock("DIG1", 42);
+            }
+            
+            try (RegistroEscrituraAnticipada registroFisico = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE);
+                 RegistroEscrituraAnticipada registroDigital = new RegistroEscrituraAnticipada(directorioDigital, PoliticaSincronizacion.SIEMPRE)) {
+                GestorInventarioFisico fisico = crearGestorFisico();
+                GestorInventarioDigital digital = new GestorInventarioDigital("Digital", "Nube", "cdn");
+                
+                assertThat(fisico.habilitarPersistencia(registroFisico)).isEqualTo(1);
+                assertThat(digital.habilitarPersistencia(registroDigital)).isEqualTo(1);
+                assertThat(fisico.buscarProducto("CAJA1").getCantidad()).isEqualTo(7);
+                assertThat(fisico.buscarProducto("CAJA2")).isNull();
+                assertThat(fisico.getPesoActual()).isEqualTo(7.0);
+                ProductoDigital libro = (ProductoDigital) digital.buscarProducto("DIG1");
+                assertThat(libro.getCantidad()).isEqualTo(42);
+                assertThat(libro.getUrl()).isEqualTo("https://cdn/libro.pdf");
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería ignorar una entrada escrita a medias al final del registro")
+        void testIgnorarEscrituraIncompleta() throws Exception {
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE)) {
+                GestorInventarioFisico gestor = crearGestorFisico();
+                gestor.habilitarPersistencia(registro);
+                gestor.añadirProducto(crearCaja(1));
+                gestor.actualizarStock("CAJA1", 3);
+            }
+            
+            // Corromper el contenido de la última entrada
+            try (FileChannel canal = FileChannel.open(segmentos().get(0), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer datos = canal.map(FileChannel.MapMode.READ_WRITE, 0, canal.size());
+                int posicion = 0;
+                int ultima = 0;
+                while (datos.getInt(posicion) != 0) {
+                    ultima = posicion;
+                    posicion += 8 + datos.getInt(posicion);
+                }
+                datos.put(ultima + 20, (byte) (datos.get(ultima + 20) ^ 0x7F));
+            }
+            
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE)) {
+                List<ProductoInterface> recuperados = registro.obtenerProductosRecuperados();
+                
+                assertThat(recuperados).hasSize(1);
+                assertThat(recuperados.get(0).getCantidad()).isEqualTo(10);
+                assertThat(registro.getUltimoLsn()).isEqualTo(1);
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería recuperar entradas repartidas en varios segmentos")
+        void testRecuperarVariosSegmentos() throws Exception {
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.NUNCA, 1024, 0)) {
+                GestorInventarioFisico gestor = crearGestorFisico();
+                gestor.habilitarPersistencia(registro);
+                for (int i = 0; i < 100; i++) {
+                    gestor.añadirProducto(crearCaja(i));
+                }
+            }
+            
+            assertThat(segmentos()).hasSizeGreaterThan(1);
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.NUNCA, 1024, 0)) {
+                assertThat(registro.obtenerProductosRecuperados())
+                    .hasSize(100)
+                    .extracting(ProductoInterface::getId)
+                    .startsWith("CAJA0", "CAJA1")
+                    .endsWith("CAJA99");
+            }
+        }
+        
+        @Test
+        @DisplayName("No debería permitir habilitar la persistencia con productos en el inventario")
+        void testHabilitarConProductos() throws Exception {
+            GestorInventarioFisico gestor = crearGestorFisico();
+            gestor.añadirProducto(crearCaja(1));
+            
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE)) {
+                assertThrows(IllegalStateException.class, () -> gestor.habilitarPersistencia(registro));
+            }
+        }
+        
+        @Test
+        @DisplayName("No debería dejar en el inventario un alta que el registro no pudo escribir")
+        void testAltaRechazadaPorRegistro() throws Exception {
+            GestorInventarioFisico fisico = crearGestorFisico();
+            GestorInventarioDigital digital = new GestorInventarioDigital("Digital", "Nube", "cdn");
+            RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE);
+            fisico.habilitarPersistencia(registro);
+            digital.habilitarPersistencia(registro);
+            registro.close();
+            
+            assertThrows(IllegalStateException.class, () -> fisico.añadirProducto(crearCaja(1)));
+            assertThrows(IllegalStateException.class, () -> digital.añadirProducto(
+                new ProductoDigital("DIG1", "Libro", 9.99, 100, "PDF", "https://cdn/libro.pdf")));
+            
+            assertThat(fisico.obtenerProductos()).isEmpty();
+            assertThat(fisico.getPesoActual()).isZero();
+            assertThat(fisico.getEspacioOcupado()).isZero();
+            assertThat(digital.buscarProducto("DIG1")).isNull();
+            assertThat(digital.obtenerProductosPorFormato("PDF")).isEmpty();
+        }
+        
+        @Test
+        @DisplayName("No debería aplicar un cambio de stock que el registro no pudo escribir")
+        void testStockRechazadoPorRegistro() throws Exception {
+            GestorInventarioFisico fisico = crearGestorFisico();
+            GestorInventarioDigital digital = new GestorInventarioDigital("Digital", "Nube", "cdn");
+            RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE);
+            fisico.habilitarPersistencia(registro);
+            digital.habilitarPersistencia(registro);
+            fisico.añadirProducto(crearCaja(1));
+            fisico.añadirProducto(crearCaja(2));
+            digital.añadirProducto(new ProductoDigital("DIG1", "Libro", 9.99, 100, "PDF", "https://cdn/libro.pdf"));
+            registro.close();
+            
+            assertThrows(IllegalStateException.class, () -> fisico.actualizarStock("CAJA1", 20));
+            assertThrows(IllegalStateException.class, () -> fisico.actualizarStockLote(Map.of("CAJA1", 2, "CAJA2", 30)));
+            assertThrows(IllegalStateException.class, () -> digital.actualizarStock("DIG1", 5));
+            
+            assertThat(fisico.buscarProducto("CAJA1").getCantidad()).isEqualTo(10);
+            assertThat(fisico.buscarProducto("CAJA2").getCantidad()).isEqualTo(10);
+            assertThat(fisico.getPesoActual()).isEqualTo(20.0);
+            assertThat(fisico.reservarStock("CAJA1", 10)).isTrue();
+            assertThat(digital.buscarProducto("DIG1").getCantidad()).isEqualTo(100);
+        }
+        
+        @Test
+        @DisplayName("Debería recuperar un lote de stock completo desde una única entrada")
+        void testRecuperarLote() throws Exception {
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE)) {
+                GestorInventarioFisico gestor = crearGestorFisico();
+                gestor.habilitarPersistencia(registro);
+                gestor.añadirProducto(crearCaja(1));
+                gestor.añadirProducto(crearCaja(2));
+                long antes = registro.getUltimoLsn();
+                gestor.actualizarStockLote(Map.of("CAJA1", 3, "CAJA2", 0));
+                assertThat(registro.getUltimoLsn()).isEqualTo(antes + 1);
+            }
+            
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE)) {
+                assertThat(registro.obtenerProductosRecuperados())
+                    .extracting(ProductoInterface::getCantidad)
+                    .containsExactly(3, 0);
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería recuperar el pool de licencias y las licencias asignadas")
+        void testRecuperarLicencias() throws Exception {
+            int devuelta;
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE)) {
+                GestorInventarioDigital digital = new GestorInventarioDigital("Digital", "Nube", "cdn");
+                digital.habilitarPersistencia(registro);
+                digital.añadirProducto(new ProductoDigital("DIG1", "Software", 49.99, 3, "EXE", "https://cdn/app.exe"));
+                digital.habilitarPoolLicencias("DIG1");
+                devuelta = digital.asignarLicencia("DIG1");
+                digital.asignarLicencia("DIG1");
+                digital.devolverLicencia("DIG1", devuelta);
+            }
+            
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE)) {
+                GestorInventarioDigital digital = new GestorInventarioDigital("Digital", "Nube", "cdn");
+                digital.habilitarPersistencia(registro);
+                
+                assertThat(digital.obtenerPoolLicencias("DIG1").getAsignadas()).isEqualTo(1);
+                assertThat(digital.obtenerPoolLicencias("DIG1").estaAsignada(devuelta)).isFalse();
+                assertThat(digital.buscarProducto("DIG1").getCantidad()).isEqualTo(2);
+                assertThat(digital.obtenerStockDisponible("DIG1")).isEqualTo(2);
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("Puntos de control")
+    class PuntosControl {
+    
+        @Test
+        @DisplayName("Debería truncar el registro y recuperar desde el punto de control")
+        void testPuntoControlTruncaRegistro() throws Exception {
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.NUNCA, 1024, 0)) {
+                GestorInventarioFisico gestor = crearGestorFisico();
+                gestor.habilitarPersistencia(registro);
+                for (int i = 0; i < 50; i++) {
+                    gestor.añadirProducto(crearCaja(i));
+                }
+                int segmentosAntes = segmentos().size();
+                
+                long corte = gestor.crearPuntoControl();
+                gestor.actualizarStock("CAJA0", 1);
+                
+                assertThat(corte).isEqualTo(50);
+                assertThat(segmentos()).hasSizeLessThan(segmentosAntes).hasSize(1);
+            }
+            
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.NUNCA, 1024, 0)) {
+                GestorInventarioFisico gestor = crearGestorFisico();
+                
+                assertThat(gestor.habilitarPersistencia(registro)).isEqualTo(50);
+                assertThat(gestor.buscarProducto("CAJA0").getCantidad()).isEqualTo(1);
+                assertThat(registro.getUltimoLsn()).isEqualTo(51);
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería guardar los pools de licencias en el punto de control")
+        void testPuntoControlConLicencias() throws Exception {
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE)) {
+                GestorInventarioDigital digital = new GestorInventarioDigital("Digital", "Nube", "cdn");
+                digital.habilitarPersistencia(registro);
+                digital.añadirProducto(new ProductoDigital("DIG1", "Software", 49.99, 70, "EXE", "https://cdn/app.exe"));
+                digital.habilitarPoolLicencias("DIG1");
+                for (int i = 0; i < 65; i++) {
+                    digital.asignarLicencia("DIG1");
+                }
+                digital.crearPuntoControl();
+                digital.asignarLicencia("DIG1");
+            }
+            
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE)) {
+                GestorInventarioDigital digital = new GestorInventarioDigital("Digital", "Nube", "cdn");
+                digital.habilitarPersistencia(registro);
+                
+                assertThat(digital.obtenerPoolLicencias("DIG1").getAsignadas()).isEqualTo(66);
+                assertThat(digital.buscarProducto("DIG1").getCantidad()).isEqualTo(4);
+                assertThat(digital.actualizarStock("DIG1", 100)).isFalse();
+            }
+        }
+        
+        @Test
+        @DisplayName("Debería crear puntos de control automáticamente")
+        void testPuntoControlAutomatico() throws Exception {
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.PERIODICA, 4096, 100)) {
+                GestorInventarioFisico gestor = crearGestorFisico();
+                gestor.habilitarPersistencia(registro);
+                for (int i = 0; i < 300; i++) {
+                    gestor.añadirProducto(crearCaja(i));
+                }
+                
+                long limite = System.currentTimeMillis() + 5_000;
+                while (registro.getLsnUltimoPuntoControl() == 0 && System.currentTimeMillis() < limite) {
+                    Thread.sleep(10);
+                }
+                assertThat(registro.getLsnUltimoPuntoControl()).isGreaterThanOrEqualTo(100);
+            }
+            
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.PERIODICA, 4096, 100)) {
+                assertThat(registro.obtenerProductosRecuperados()).hasSize(300);
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("Escritura concurrente")
+    class EscrituraConcurrente {
+    
+        @Test
+        @DisplayName("Debería persistir todas las operaciones de varios hilos compartiendo el fsync")
+        void testEscritoresConcurrentes() throws Exception {
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE, 64 * 1024, 0)) {
+                GestorInventarioFisico gestor = crearGestorFisico();
+                gestor.habilitarPersistencia(registro);
+                for (int i = 0; i < 8; i++) {
+                    gestor.añadirProducto(crearCaja(i));
+                }
+                
+                ExecutorService ejecutor = Executors.newFixedThreadPool(8);
+                List<Future<?>> tareas = new ArrayList<>();
+                for (int hilo = 0; hilo < 8; hilo++) {
+                    final String id = "CAJA" + hilo;
+                    tareas.add(ejecutor.submit(() -> {
+                        for (int i = 1; i <= 100; i++) {
+                            gestor.actualizarStock(id, i);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> tarea : tareas) {
+                    tarea.get();
+                }
+                ejecutor.shutdown();
+                
+                assertThat(registro.getUltimoLsn()).isEqualTo(808);
+                assertThat(registro.getLsnPersistido()).isEqualTo(808);
+            }
+            
+            try (RegistroEscrituraAnticipada registro = new RegistroEscrituraAnticipada(directorio, PoliticaSincronizacion.SIEMPRE, 64 * 1024, 0)) {
+                assertThat(registro.obtenerProductosRecuperados())
+                    .hasSize(8)
+                    .allMatch(producto -> producto.getCantidad() == 100);
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package Repositorios;
+
+import Modelos.Inventario.GestorInventarioFisico;
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoFisico;
+import Modelos.Producto.ProductoInterface;
+import Observer.NotificationManager;
+import Observer.TipoEvento;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Pruebas unitarias para la clase ProductoRepositoryCache.
+ * Cubre los aciertos y fallos, la invalidación por eventos y la política de admisión W-TinyLFU.
+ */
+@DisplayName("Pruebas para la clase ProductoRepositoryCache")
+class ProductoRepositoryCacheTest {
+
+    private ProductoRepository repositorio;
+    private ProductoRepositoryCache cache;
+    
+    @BeforeEach
+    void setUp() {
+        NotificationManager.getInstancia().setNotificacionesActivas(true);
+        repositorio = new ProductoRepository();
+        repositorio.agregarProducto(new ProductoDigital("DIG1", "Libro digital", 9.99, 100, "PDF", "https://cdn/libro.pdf"));
+        repositorio.agregarProducto(new ProductoFisico("FIS1", "Laptop", 999.99, 5, 2.5, 0.3, 0.4, 0.05));
+        repositorio.agregarProducto(new ProductoFisico("FIS2", "Mouse", 9.99, 50, 0.1, 0.1, 0.05, 0.03));
+        cache = new ProductoRepositoryCache(repositorio, 100, 16);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        // El NotificationManager es compartido: se quitan los observadores de la caché
+        cache.close();
+    }
+    
+    @Nested
+    @DisplayName("Lecturas")
+    class Lecturas {
+    
+        @Test
+        @DisplayName("Debería servir desde la caché las lecturas repetidas")
+        void testAciertos() {
+            ProductoInterface primero = cache.obtenerProducto("FIS1");
+            ProductoInterface segundo = cache.obtenerProducto("FIS1");
+            cache.obtenerProductosPorPrecio(9.99);
+            List<ProductoInterface> baratos = cache.obtenerProductosPorPrecio(9.99);
+            
+            assertThat(segundo).isNotSameAs(primero);
+            assertThat(segundo.getNombre()).isEqualTo(primero.getNombre());
+            assertThat(baratos).extracting(ProductoInterface::getId).containsExactly("DIG1", "FIS2");
+            assertThat(cache.getAciertos()).isEqualTo(2);
+            assertThat(cache.getFallos()).isEqualTo(2);
+            assertThat(cache.getTasaAciertos()).isEqualTo(0.5);
+        }
+        
+        @Test
+        @DisplayName("Debería devolver copias de los resultados y no guardar productos inexistentes")
+        void testCopiasYNulos() {
+            cache.obtenerProductos().clear();
+            
+            assertThat(cache.obtenerProductos()).hasSize(3);
+            assertThat(cache.obtenerProducto("NOEXISTE")).isNull();
+            assertThat(cache.getProductosEnCache()).isZero();
+        }
+        
+        @Test
+        @DisplayName("No debería alterar la caché al modificar un producto leído")
+        void testCopiasProductos() {
+            cache.obtenerProducto("FIS1").setCantidad(0);
+            cache.obtenerProducto("FIS1").setCantidad(1);
+            cache.obtenerProductosPorPrecio(9.99).get(0).setNombre("Modificado");
+            
+            assertThat(cache.obtenerProducto("FIS1").getCantidad()).isEqualTo(5);
+            assertThat(cache.obtenerProductosPorPrecio(9.99)).extracting(ProductoInterface::getNombre)
+                .containsExactly("Libro digital", "Mouse");
+            assertThat(cache.getAciertos()).isEqualTo(3);
+        }
+        
+        @Test
+        @DisplayName("Debería conservar las claves frecuentes frente a un recorrido de claves únicas")
+        void testResistenciaRecorrido() {
+            for (int i = 0; i < 300; i++) {
+                repositorio.agregarProducto(new ProductoFisico("CAJA" + i, "Caja " + i, 1.0, 1, 0.1, 0.1, 0.1, 0.1));
+            }
+            ProductoRepositoryCache pequeña = new ProductoRepositoryCache(repositorio, 20, 16);
+            try {
+                for (int vuelta = 0; vuelta < 5; vuelta++) {
+                    for (int i = 0; i < 10; i++) {
+                        pequeña.obtenerProducto("CAJA" + i);
+                    }
+                }
+                for (int i = 100; i < 300; i++) {
+                    pequeña.obtenerProducto("CAJA" + i);
+                }
+                long fallosAntes = pequeña.getFallos();
+                for (int i = 0; i < 10; i++) {
+                    pequeña.obtenerProducto("CAJA" + i);
+                }
+                
+                assertThat(pequeña.getFallos()).isEqualTo(fallosAntes);
+                assertThat(pequeña.getDesalojos()).isPositive();
+            } finally {
+                pequeña.close();
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("Invalidación")
+    class Invalidacion {
+    
+        @Test
+        @DisplayName("Debería invalidar el producto cuando el inventario actualiza su stock")
+        void testEventoInventario() throws Exception {
+            GestorInventarioFisico gestor = new GestorInventarioFisico("Almacén", "Santo Domingo, RD", 10_000.0, 1_000.0);
+            ProductoFisico monitor = new ProductoFisico("FIS3", "Monitor", 249.00, 10, 4.0, 0.6, 0.4, 0.2);
+            gestor.añadirProducto(monitor);
+            repositorio.agregarProducto(monitor);
+            cache.obtenerProducto("FIS3");
+            cache.obtenerProducto("FIS1");
+            long invalidacionesAntes = cache.getInvalidaciones();
+            
+            gestor.actualizarStock("FIS3", 3);
+            
+            assertThat(cache.getInvalidaciones()).isGreaterThan(invalidacionesAntes);
+            assertThat(cache.getProductosEnCache()).isEqualTo(1);
+            assertThat(cache.obtenerProducto("FIS3").getCantidad()).isEqualTo(3);
+        }
+        
+        @Test
+        @DisplayName("Debería quitar por cambio de stock solo las consultas que contienen el producto")
+        void testPrecisionConsultas() {
+            cache.obtenerProductosPorPrecio(9.99);
+            cache.obtenerProductosMasCaros(1);
+            
+            NotificationManager.getInstancia().notificarEvento(TipoEvento.STOCK_ACTUALIZADO, "FIS2");
+            
+            assertThat(cache.getConsultasEnCache()).isEqualTo(1);
+            cache.obtenerProductosMasCaros(1);
+            assertThat(cache.getAciertos()).isEqualTo(1);
+        }
+        
+        @Test
+        @DisplayName("Debería reflejar las escrituras hechas a través del decorador")
+        void testEscrituras() throws Exception {
+            assertThat(cache.obtenerProductosPorPrecio(9.99)).hasSize(2);
+            assertThat(cache.obtenerProducto("FIS2").getNombre()).isEqualTo("Mouse");
+            
+            cache.agregarProducto(new ProductoDigital("DIG2", "Plantillas", 9.99, 100, "ZIP", "https://cdn/plantillas.zip"));
+            cache.actualizarProducto(new ProductoFisico("FIS2", "Mouse Inalámbrico", 9.99, 50, 0.1, 0.1, 0.05, 0.03));
+            cache.eliminarProducto("DIG1");
+            
+            assertThat(cache.obtenerProductosPorPrecio(9.99))
+                .extracting(ProductoInterface::getId)
+                .containsExactlyInAnyOrder("FIS2", "DIG2");
+            assertThat(cache.obtenerProducto("FIS2").getNombre()).isEqualTo("Mouse Inalámbrico");
+            assertThat(cache.obtenerProducto("DIG1")).isNull();
+        }
+        
+        @Test
+        @DisplayName("Debería publicar un solo evento por lote agregado")
+        void testEventoLote() {
+            List<Object> eventos = new CopyOnWriteArrayList<>();
+            Consumer<Object> observador = eventos::add;
+            NotificationManager.getInstancia().registrarObserver(TipoEvento.PRODUCTO_AGREGADO, observador);
+            cache.obtenerProductos();
+            try {
+                cache.agregarProductos(List.of(
+                    new ProductoFisico("FIS3", "Teclado", 29.99, 10, 0.5, 0.05, 0.45, 0.15),
+                    new ProductoFisico("FIS1", "Duplicado", 1.0, 1, 0.1, 0.1, 0.1, 0.1),
+                    new ProductoFisico("FIS4", "Monitor", 249.00, 10, 4.0, 0.6, 0.4, 0.2)));
+            } finally {
+                NotificationManager.getInstancia().desregistrarObserver(TipoEvento.PRODUCTO_AGREGADO, observador);
+            }
+            
+            assertThat(eventos).containsExactly(List.of("FIS3", "FIS4"));
+            assertThat(cache.obtenerProductos()).hasSize(5);
+        }
+        
+        @Test
+        @DisplayName("Debería dejar de observar los eventos al cerrarse")
+        void testCerrar() {
+            int observadores = NotificationManager.getInstancia().getNumeroObservers(TipoEvento.STOCK_ACTUALIZADO);
+            cache.obtenerProducto("FIS1");
+            cache.close();
+            
+            NotificationManager.getInstancia().notificarEvento(TipoEvento.STOCK_ACTUALIZADO, "FIS1");
+            
+            assertThat(NotificationManager.getInstancia().getNumeroObservers(TipoEvento.STOCK_ACTUALIZADO))
+                .isEqualTo(observadores - 1);
+            assertThat(cache.getProductosEnCache()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package Repositorios;
+
+import Excepciones.ProductoNoEncontradoExcepcion;
+import Modelos.Producto.ProductoDigital;
+import Modelos.Producto.ProductoFisico;
+import Modelos.Producto.ProductoInterface;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+
+/**
+ * Pruebas unitarias para la clase ProductoRepository.
+ * Cubre las consultas por precio y la consistencia del índice de precios
+ * y de los índices por formato, peso y volumen.
+ */
+@DisplayName("Pruebas para la clase ProductoRepository")
+class ProductoRepositoryTest {
+
+    private ProductoRepository repositorio;
+    
+    @BeforeEach
+    void setUp() {
+        repositorio = new ProductoRepository();
+        repositorio.agregarProducto(new ProductoDigital("DIG1", "Libro digital", 9.99, 100, "PDF", "https://cdn/libro.pdf"));
+        repositorio.agregarProducto(new ProductoDigital("DIG2", "Curso en video", 49.50, 100, "MP4", "https://cdn/curso.mp4"));
+        repositorio.agregarProducto(new ProductoFisico("FIS1", "Laptop", 999.99, 5, 2.5, 0.3, 0.4, 0.05));
+        repositorio.agregarProducto(new ProductoFisico("FIS2", "Mouse", 9.99, 50, 0.1, 0.1, 0.05, 0.03));
+        repositorio.agregarProducto(new ProductoFisico("FIS3", "Monitor", 249.00, 10, 4.0, 0.6, 0.4, 0.2));
+    }
+    
+    @Nested
+    @DisplayName("Consultas por precio")
+    class ConsultasPrecio {
+    
+        @Test
+        @DisplayName("Debería encontrar los productos con un precio exacto")
+        void testPrecioExacto() {
+            assertThat(repositorio.obtenerProductosPorPrecio(9.99))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("DIG1", "FIS2");
+            assertThat(repositorio.obtenerProductosPorPrecio(10.0)).isEmpty();
+        }
+        
+        @Test
+        @DisplayName("Debería devolver un rango de precios ordenado de menor a mayor")
+        void testRangoPrecios() {
+            assertThat(repositorio.obtenerProductosPorRangoPrecio(9.99, 249.0))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("DIG1", "FIS2", "DIG2", "FIS3");
+            assertThat(repositorio.obtenerProductosPorRangoPrecio(500.0, 100.0)).isEmpty();
+        }
+        
+        @Test
+        @DisplayName("Debería devolver los más baratos y los más caros")
+        void testMasBaratosYMasCaros() {
+            assertThat(repositorio.obtenerProductosMasBaratos(3))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("DIG1", "FIS2", "DIG2");
+            assertThat(repositorio.obtenerProductosMasCaros(2))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS1", "FIS3");
+            assertThat(repositorio.obtenerProductosMasCaros(50)).hasSize(5);
+        }
+    }
+    
+    @Nested
+    @DisplayName("Consistencia del índice")
+    class ConsistenciaIndice {
+    
+        @Test
+        @DisplayName("Debería reindexar el producto al actualizar su precio")
+        void testActualizarPrecio() throws ProductoNoEncontradoExcepcion {
+            repositorio.actualizarProducto(new ProductoFisico("FIS1", "Laptop", 5.00, 5, 2.5, 0.3, 0.4, 0.05));
+            
+            assertThat(repositorio.obtenerProductosPorPrecio(999.99)).isEmpty();
+            assertThat(repositorio.obtenerProductosMasBaratos(1))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS1");
+            assertThat(repositorio.obtenerProducto("FIS1").getPrecio()).isEqualTo(5.00);
+        }
+        
+        @Test
+        @DisplayName("Debería quitar el producto del índice al eliminarlo")
+        void testEliminarProducto() throws ProductoNoEncontradoExcepcion {
+            repositorio.eliminarProducto("DIG1");
+            
+            assertThat(repositorio.obtenerProductosPorPrecio(9.99))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS2");
+            assertThat(repositorio.obtenerProducto("DIG1")).isNull();
+            assertThat(repositorio.obtenerProductos()).hasSize(4);
+        }
+        
+        @Test
+        @DisplayName("Debería lanzar excepciones para IDs duplicados o inexistentes")
+        void testOperacionesInvalidas() {
+            assertThrows(IllegalArgumentException.class,
+                () -> repositorio.agregarProducto(new ProductoDigital("DIG1", "Otro", 1.0, 1, "PDF", "https://cdn/otro.pdf")));
+            assertThrows(ProductoNoEncontradoExcepcion.class, () -> repositorio.eliminarProducto("NOEXISTE"));
+            assertThrows(ProductoNoEncontradoExcepcion.class,
+                () -> repositorio.actualizarProducto(new ProductoDigital("NOEXISTE", "Otro", 1.0, 1, "PDF", "https://cdn/otro.pdf")));
+            assertThat(repositorio.obtenerProductos()).hasSize(5);
+        }
+    }
+    
+    @Nested
+    @DisplayName("Búsqueda por nombre")
+    class BusquedaNombre {
+    
+        @Test
+        @DisplayName("Debería encontrar subcadenas sin distinguir mayúsculas ni tildes")
+        void testSubcadenaSinTildes() {
+            repositorio.agregarProducto(new ProductoFisico("FIS4", "Mouse Inalámbrico", 19.99, 20, 0.1, 0.1, 0.05, 0.03));
+            
+            assertThat(repositorio.obtenerProductosPorNombre("INALAMB"))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS4");
+            assertThat(repositorio.obtenerProductosPorNombre("mouse"))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS2", "FIS4");
+            assertThat(repositorio.obtenerProductosPorNombre("ur")).extracting(ProductoInterface::getId)
+                .containsExactly("DIG2");
+            assertThat(repositorio.obtenerProductosPorNombre("  ")).isEmpty();
+        }
+        
+        @Test
+        @DisplayName("Debería buscar por inicio de palabra las consultas de un solo carácter")
+        void testConsultaUnCaracter() {
+            assertThat(repositorio.obtenerProductosPorNombre("M"))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS2", "FIS3");
+            assertThat(repositorio.obtenerProductosPorNombre("v"))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("DIG2");
+            assertThat(repositorio.obtenerProductosPorNombre("z")).isEmpty();
+        }
+        
+        @Test
+        @DisplayName("Debería tolerar errores de tipeo y poner primero las coincidencias exactas")
+        void testErroresTipeo() {
+            repositorio.agregarProducto(new ProductoFisico("FIS4", "Laptop Gamer", 1499.0, 2, 3.0, 0.4, 0.3, 0.05));
+            
+            assertThat(repositorio.obtenerProductosPorNombre("laptp"))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS1", "FIS4");
+            assertThat(repositorio.obtenerProductosPorNombre("monitr"))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS3");
+            assertThat(repositorio.obtenerProductosPorNombre("laptop gamer"))
+                .extracting(ProductoInterface::getId)
+                .startsWith("FIS4");
+            assertThat(repositorio.obtenerProductosPorNombre("zzzz")).isEmpty();
+        }
+        
+        @Test
+        @DisplayName("Debería reindexar el nombre al actualizar o eliminar el producto")
+        void testRenombrarYEliminar() throws ProductoNoEncontradoExcepcion {
+            repositorio.actualizarProducto(new ProductoFisico("FIS3", "Pantalla Curva", 249.00, 10, 4.0, 0.6, 0.4, 0.2));
+            repositorio.eliminarProducto("FIS2");
+            
+            assertThat(repositorio.obtenerProductosPorNombre("monitor")).isEmpty();
+            assertThat(repositorio.obtenerProductosPorNombre("mouse")).isEmpty();
+            assertThat(repositorio.obtenerProductosPorNombre("pantalla"))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS3");
+        }
+        
+        @Test
+        @DisplayName("Debería mantener los resultados tras compactar muchas bajas")
+        void testCompactacion() throws ProductoNoEncontradoExcepcion {
+            for (int i = 0; i < 3_000; i++) {
+                repositorio.agregarProducto(new ProductoDigital("TMP" + i, "Plantilla " + i, 1.0, 1, "PDF", "https://cdn/p.pdf"));
+            }
+            for (int i = 0; i < 3_000; i++) {
+                if (i != 1234) {
+                    repositorio.eliminarProducto("TMP" + i);
+                }
+            }
+            
+            assertThat(repositorio.obtenerProductosPorNombre("plantilla"))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("TMP1234");
+            assertThat(repositorio.obtenerProductosPorNombre("laptop"))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS1");
+        }
+    }
+    
+    @Nested
+    @DisplayName("Índices por atributos")
+    class IndicesAtributos {
+    
+        @Test
+        @DisplayName("Debería consultar por formato sin distinguir mayúsculas y por rangos de peso y volumen")
+        void testConsultas() {
+            repositorio.agregarProducto(new ProductoDigital("DIG3", "Manual", 5.0, 10, " pdf", "https://cdn/manual.pdf"));
+            
+            assertThat(repositorio.obtenerProductosPorFormato("Pdf"))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("DIG1", "DIG3");
+            assertThat(repositorio.obtenerProductosPorFormato("EPUB")).isEmpty();
+            assertThat(repositorio.obtenerProductosPorRangoPeso(2.0, 1_000.0))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS1", "FIS3");
+            assertThat(repositorio.obtenerProductosPorRangoVolumen(0.0, 0.006))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS2", "FIS1");
+            assertThrows(IllegalArgumentException.class, () -> repositorio.obtenerProductosPorRangoPeso(null, 1.0));
+        }
+        
+        @Test
+        @DisplayName("Debería mantener los índices al actualizar, eliminar y agregar en lote")
+        void testActualizacionIncremental() throws ProductoNoEncontradoExcepcion {
+            ProductoFisico laptop = (ProductoFisico) repositorio.obtenerProducto("FIS1");
+            laptop.setPeso(25.0);
+            repositorio.actualizarProducto(laptop);
+            repositorio.actualizarProducto(new ProductoDigital("DIG1", "Libro digital", 9.99, 100, "EPUB", "https://cdn/libro.epub"));
+            repositorio.eliminarProducto("FIS3");
+            repositorio.agregarProductos(List.of(
+                new ProductoFisico("FIS4", "Escritorio", 300.0, 2, 30.0, 0.8, 1.2, 0.6),
+                new ProductoDigital("DIG4", "Audiolibro", 15.0, 10, "MP3", "https://cdn/audio.mp3")));
+            
+            assertThat(repositorio.obtenerProductosPorRangoPeso(20.0, 1_000.0))
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS1", "FIS4");
+            assertThat(repositorio.obtenerProductosPorRangoPeso(2.0, 3.0)).isEmpty();
+            assertThat(repositorio.obtenerProductosPorFormato("PDF")).isEmpty();
+            assertThat(repositorio.obtenerProductosPorFormato("EPUB")).extracting(ProductoInterface::getId).containsExactly("DIG1");
+            assertThat(repositorio.obtenerProductosPorFormato("MP3")).extracting(ProductoInterface::getId).containsExactly("DIG4");
+            assertThat(repositorio.obtenerProductosPorRangoVolumen(0.04, 0.05)).isEmpty();
+        }
+    }
+    
+    @Nested
+    @DisplayName("Paginación por clave")
+    class Paginacion {
+    
+        @Test
+        @DisplayName("Debería recorrer el catálogo por ID sin repetir productos aunque cambie entre páginas")
+        void testPaginasPorId() {
+            PaginaProductos primera = repositorio.obtenerPaginaProductos(null, 2);
+            assertThat(primera.getProductos())
+                .extracting(ProductoInterface::getId)
+                .containsExactly("DIG1", "DIG2");
+            assertThat(primera.hayMas()).isTrue();
+            
+            repositorio.agregarProducto(new ProductoDigital("AAA", "Antes del cursor", 1.0, 1, "PDF", "https://cdn/a.pdf"));
+            repositorio.agregarProducto(new ProductoFisico("FIS0", "Después del cursor", 1.0, 1, 1.0, 0.1, 0.1, 0.1));
+            PaginaProductos segunda = repositorio.obtenerPaginaProductos(primera.getTokenSiguiente(), 2);
+            PaginaProductos tercera = repositorio.obtenerPaginaProductos(segunda.getTokenSiguiente(), 2);
+            
+            assertThat(segunda.getProductos())
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS0", "FIS1");
+            assertThat(tercera.getProductos())
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS2", "FIS3");
+            assertThat(tercera.hayMas()).isFalse();
+        }
+        
+        @Test
+        @DisplayName("Debería paginar un rango de precios por precio y, a igual precio, por ID")
+        void testPaginasPorPrecio() {
+            repositorio.agregarProducto(new ProductoDigital("DIG0", "Plantilla", 9.99, 100, "ZIP", "https://cdn/plantilla.zip"));
+            
+            PaginaProductos primera = repositorio.obtenerPaginaPorRangoPrecio(5.0, 300.0, null, 2);
+            PaginaProductos segunda = repositorio.obtenerPaginaPorRangoPrecio(5.0, 300.0, primera.getTokenSiguiente(), 2);
+            PaginaProductos tercera = repositorio.obtenerPaginaPorRangoPrecio(5.0, 300.0, segunda.getTokenSiguiente(), 2);
+            
+            assertThat(primera.getProductos())
+                .extracting(ProductoInterface::getId)
+                .containsExactly("DIG0", "DIG1");
+            assertThat(segunda.getProductos())
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS2", "DIG2");
+            assertThat(tercera.getProductos())
+                .extracting(ProductoInterface::getId)
+                .containsExactly("FIS3");
+            assertThat(tercera.hayMas()).isFalse();
+        }
+        
+        @Test
+        @DisplayName("Debería retomar un grupo grande de igual precio aunque cambie entre páginas")
+        void testPaginasGrupoIgualPrecio() throws ProductoNoEncontradoExcepcion {
+            for (int i = 0; i < 30; i++) {
+                // IDs insertados fuera de orden: el grupo debe quedar ordenado por ID
+                int numero = (i * 7) % 30;
+                repositorio.agregarProducto(new ProductoDigital(String.format("EQ%02d", numero), "Igual " + numero,
+                                                                5.00, 1, "PDF", "https://cdn/igual.pdf"));
+            }
+            
+            PaginaProductos primera = repositorio.obtenerPaginaPorRangoPrecio(5.0, 5.0, null, 10);
+            repositorio.eliminarProducto("EQ10");
+            repositorio.agregarProducto(new ProductoDigital("EQ05A", "Nuevo", 5.00, 1, "PDF", "https://cdn/igual.pdf"));
+            PaginaProductos segunda = repositorio.obtenerPaginaPorRangoPrecio(5.0, 5.0, primera.getTokenSiguiente(), 10);
+            
+            assertThat(primera.getProductos()).extracting(ProductoInterface::getId)
+                .containsExactly("EQ00", "EQ01", "EQ02", "EQ03", "EQ04", "EQ05", "EQ06", "EQ07", "EQ08", "EQ09");
+            assertThat(segunda.getProductos()).extracting(ProductoInterface::getId)
+                .containsExactly("EQ11", "EQ12", "EQ13", "EQ14", "EQ15", "EQ16", "EQ17", "EQ18", "EQ19", "EQ20");
+            assertThat(repositorio.obtenerProductosPorPrecio(5.0)).extracting(ProductoInterface::getId)
+                .isSorted()
+                .hasSize(30);
+        }
+        
+        @Test
+        @DisplayName("Debería rechazar tokens mal formados o de otra consulta")
+        void testTokensNoValidos() {
+            String tokenPorId = repositorio.obtenerPaginaProductos(null, 1).getTokenSiguiente();
+            
+            assertThrows(IllegalArgumentException.class, () -> repositorio.obtenerPaginaProductos("no es un token", 1));
+            assertThrows(IllegalArgumentException.class,
+                         () -> repositorio.obtenerPaginaPorRangoPrecio(0.0, 10.0, tokenPorId, 1));
+            assertThrows(IllegalArgumentException.class, () -> repositorio.obtenerPaginaProductos(null, 0));
+        }
+        
+        @Test
+        @DisplayName("Debería recorrer de forma perezosa todo el catálogo en orden de ID")
+        void testRecorrerProductos() {
+            for (int i = 0; i < 2500; i++) {
+                repositorio.agregarProducto(new ProductoFisico(String.format("CAJA%04d", i), "Caja", 1.0, 1, 1.0, 0.1, 0.1, 0.1));
+            }
+            
+            assertThat(repositorio.recorrerProductos().count()).isEqualTo(2505);
+            assertThat(repositorio.recorrerProductos().skip(2000).findFirst().get().getId()).isEqualTo("CAJA2000");
+        }
+    }
+}